@@ -0,0 +1,63 @@
+package com.dev.productmanagementsystem.benchmarks;
+
+import com.dev.productmanagementsystem.ProductManagementSystemApplication;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * The application started without its web server, against an in-memory H2 database filled with
+ * generated {@link Fixtures}. Change the size of the data with the parameters, e.g.
+ * -p products=100000 -p warehouses=50. Started once per fork and shared by every thread, so the
+ * setup is never measured.
+ */
+@State(Scope.Benchmark)
+public class ApplicationState {
+
+    // Same data in every run, so results of two runs compare
+    private static final long SEED = 42;
+
+    @Param({"10000"})
+    public int products;
+
+    @Param({"10"})
+    public int warehouses;
+
+    @Param({"100"})
+    public int customers;
+
+    private ConfigurableApplicationContext context;
+    private Fixtures fixtures;
+
+    @Setup(Level.Trial)
+    public void start() {
+        // Command line arguments, so they win over any application.properties packaged with the jar
+        context = new SpringApplicationBuilder(ProductManagementSystemApplication.class)
+                .web(WebApplicationType.NONE)
+                .bannerMode(Banner.Mode.OFF)
+                .logStartupInfo(false)
+                .run("--spring.datasource.url=jdbc:h2:mem:benchmarks;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN");
+        fixtures = Fixtures.generate(context, products, warehouses, customers, SEED);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public Fixtures fixtures() {
+        return fixtures;
+    }
+}
@@ -0,0 +1,33 @@
+package com.dev.productmanagementsystem.benchmarks;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Main class of benchmarks.jar: runs JMH with the arguments given, but writes the results as JSON
+ * to results/jmh-result.json unless -rf or -rff say otherwise. Keep the file of a run on main
+ * next to the one of a change, and compare them in review.
+ */
+public final class BenchmarkMain {
+
+    private static final String DEFAULT_RESULT_FILE = "results/jmh-result.json";
+
+    private BenchmarkMain() {}
+
+    public static void main(String[] args) throws Exception {
+        List<String> arguments = new ArrayList<>(Arrays.asList(args));
+        if (!arguments.contains("-rf")) {
+            arguments.add("-rf");
+            arguments.add("json");
+        }
+        if (!arguments.contains("-rff")) {
+            Files.createDirectories(Path.of(DEFAULT_RESULT_FILE).getParent());
+            arguments.add("-rff");
+            arguments.add(DEFAULT_RESULT_FILE);
+        }
+        org.openjdk.jmh.Main.main(arguments.toArray(new String[0]));
+    }
+}
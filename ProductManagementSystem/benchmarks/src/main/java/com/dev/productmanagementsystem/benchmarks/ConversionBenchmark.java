@@ -0,0 +1,61 @@
+package com.dev.productmanagementsystem.benchmarks;
+
+import com.dev.productmanagementsystem.dto.OrderDTO;
+import com.dev.productmanagementsystem.dto.ProductDTO;
+import com.dev.productmanagementsystem.entities.Product;
+import com.dev.productmanagementsystem.entities.Warehouse;
+import com.dev.productmanagementsystem.services.OrderService;
+import com.dev.productmanagementsystem.services.ProductService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity to DTO conversion of loaded products and orders, the detail cache hit that replaces the
+ * product conversion on GET /api/products/{id}, and the warehouse choice of createOrder on real
+ * stock maps. Each call takes the next entity of the sample.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ConversionBenchmark {
+
+    private LoadedEntities loaded;
+    private ProductService cachedProducts;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp(ApplicationState application, LoadedEntities loaded) {
+        this.loaded = loaded;
+        this.cachedProducts = application.bean(ProductService.class);
+        for (Product product : loaded.products()) {
+            cachedProducts.getProductById(product.getId());
+        }
+    }
+
+    @Benchmark
+    public ProductDTO productToDTO() {
+        Product[] products = loaded.products();
+        return loaded.productService().convertToDTO(products[next++ % products.length]);
+    }
+
+    @Benchmark
+    public ProductDTO productFromDetailCache() {
+        Product[] products = loaded.products();
+        return cachedProducts.getProductById(products[next++ % products.length].getId());
+    }
+
+    @Benchmark
+    public OrderDTO orderToDTO() {
+        return loaded.orderService().convertToDTO(loaded.orders()[next++ % loaded.orders().length]);
+    }
+
+    @Benchmark
+    public Warehouse findBestWarehouse() {
+        Product[] products = loaded.products();
+        return OrderService.findBestWarehouse(products[next++ % products.length], 100);
+    }
+}
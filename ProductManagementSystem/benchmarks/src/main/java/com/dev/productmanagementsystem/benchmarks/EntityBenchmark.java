@@ -0,0 +1,74 @@
+package com.dev.productmanagementsystem.benchmarks;
+
+import com.dev.productmanagementsystem.entities.Invoice;
+import com.dev.productmanagementsystem.entities.Payment;
+import com.dev.productmanagementsystem.entities.Product;
+import com.dev.productmanagementsystem.entities.Warehouse;
+import com.dev.productmanagementsystem.services.OrderService;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The computed getters hot paths call on loaded entities, by the size of the collection they walk:
+ * Product.getTotalStock and OrderService.findBestWarehouse over a product stocked in that many
+ * warehouses (only the last one visited holding enough), and Invoice.getRemainingAmount over that
+ * many payments. These read collections already in memory, so the entities are built without a
+ * database.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EntityBenchmark {
+
+    @Param({"1", "10", "100"})
+    public int entries;
+
+    private Product product;
+    private Invoice invoice;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        product = new Product();
+        for (int i = 0; i < entries; i++) {
+            Warehouse warehouse = new Warehouse("Warehouse " + i, "Here");
+            warehouse.setId((long) i);
+            product.getStockQuantities().put(warehouse, random.nextInt(10));
+        }
+        // Only the warehouse iterated last can ship ten units
+        Warehouse last = null;
+        for (Warehouse warehouse : product.getStockQuantities().keySet()) {
+            last = warehouse;
+        }
+        product.getStockQuantities().put(last, 10);
+
+        invoice = new Invoice();
+        invoice.setTotalAmount(BigDecimal.valueOf(random.nextLong(1_000_000, 100_000_000), 2));
+        for (int i = 0; i < entries; i++) {
+            Payment payment = new Payment();
+            payment.setAmount(BigDecimal.valueOf(random.nextLong(100, 10_000), 2));
+            invoice.addPayment(payment);
+        }
+    }
+
+    @Benchmark
+    public Integer totalStock() {
+        return product.getTotalStock();
+    }
+
+    @Benchmark
+    public Warehouse findBestWarehouse() {
+        return OrderService.findBestWarehouse(product, 10);
+    }
+
+    @Benchmark
+    public BigDecimal remainingAmount() {
+        return invoice.getRemainingAmount();
+    }
+}
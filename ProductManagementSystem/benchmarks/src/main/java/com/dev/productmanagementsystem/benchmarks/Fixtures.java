@@ -0,0 +1,56 @@
+package com.dev.productmanagementsystem.benchmarks;
+
+import com.dev.productmanagementsystem.dto.DatasetSpecDTO;
+import com.dev.productmanagementsystem.services.DatasetGeneratorService;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Generated data for the application benchmarks, written by DatasetGeneratorService: warehouses,
+ * categories (one per 200 products), customers with an address, and products stocked in one to
+ * three warehouses each. The first warehouse of every product holds at least 100 units, so small
+ * orders always find stock. No orders are generated; the benchmarks create their own. Everything
+ * is derived from the seed.
+ */
+public final class Fixtures {
+
+    private final long[] productIds;
+    private final long[] warehouseIds;
+    private final long[] customerIds;
+    private final long[] addressIds;
+
+    private Fixtures(long[] productIds, long[] warehouseIds, long[] customerIds, long[] addressIds) {
+        this.productIds = productIds;
+        this.warehouseIds = warehouseIds;
+        this.customerIds = customerIds;
+        this.addressIds = addressIds;
+    }
+
+    static Fixtures generate(ConfigurableApplicationContext context, int products, int warehouses, int customers, long seed) {
+        DatasetSpecDTO spec = new DatasetSpecDTO();
+        spec.setSeed(seed);
+        spec.setUsers(customers);
+        spec.setWarehouses(warehouses);
+        spec.setCategories(Math.max(1, products / 200));
+        spec.setProducts(products);
+        spec.setOrders(0);
+        spec.setStockMovements(0);
+        context.getBean(DatasetGeneratorService.class).generate(spec);
+
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        return new Fixtures(ids(jdbcTemplate, "SELECT id FROM products ORDER BY id"),
+                ids(jdbcTemplate, "SELECT id FROM warehouses ORDER BY id"),
+                ids(jdbcTemplate, "SELECT id FROM users ORDER BY id"),
+                ids(jdbcTemplate, "SELECT address_id FROM users ORDER BY id"));
+    }
+
+    private static long[] ids(JdbcTemplate jdbcTemplate, String sql) {
+        return jdbcTemplate.queryForList(sql, Long.class).stream().mapToLong(Long::longValue).toArray();
+    }
+
+    public long[] productIds() { return productIds; }
+    public long[] warehouseIds() { return warehouseIds; }
+    public long[] customerIds() { return customerIds; }
+    // Address of the customer at the same index
+    public long[] addressIds() { return addressIds; }
+}
@@ -0,0 +1,52 @@
+package com.dev.productmanagementsystem.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.dev.productmanagementsystem.dto.ProductDTO;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON serialization of the response DTOs with the application's own ObjectMapper: one product,
+ * one order, and a page of 50 products as the list endpoints return them.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class JsonBenchmark {
+
+    private static final int PAGE_SIZE = 50;
+
+    private ObjectMapper objectMapper;
+    private LoadedEntities loaded;
+    private List<ProductDTO> page;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp(ApplicationState application, LoadedEntities loaded) {
+        this.objectMapper = application.bean(ObjectMapper.class);
+        this.loaded = loaded;
+        this.page = Arrays.asList(Arrays.copyOf(loaded.productDTOs(), Math.min(PAGE_SIZE, loaded.productDTOs().length)));
+    }
+
+    @Benchmark
+    public byte[] product() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(loaded.productDTOs()[next++ % loaded.productDTOs().length]);
+    }
+
+    @Benchmark
+    public byte[] order() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(loaded.orderDTOs()[next++ % loaded.orderDTOs().length]);
+    }
+
+    @Benchmark
+    public byte[] productPage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+}
@@ -0,0 +1,95 @@
+package com.dev.productmanagementsystem.benchmarks;
+
+import com.dev.productmanagementsystem.dto.OrderDTO;
+import com.dev.productmanagementsystem.dto.OrderItemDTO;
+import com.dev.productmanagementsystem.dto.ProductDTO;
+import com.dev.productmanagementsystem.entities.Order;
+import com.dev.productmanagementsystem.entities.Product;
+import com.dev.productmanagementsystem.repositories.OrderRepository;
+import com.dev.productmanagementsystem.repositories.ProductRepository;
+import com.dev.productmanagementsystem.services.OrderService;
+import com.dev.productmanagementsystem.services.ProductService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * A sample of products and orders loaded from the fixtures, with everything their DTO conversion
+ * touches initialized, and the DTOs converted from them. Benchmarks on these measure the CPU work
+ * of a request after its queries, without the database.
+ */
+@State(Scope.Benchmark)
+public class LoadedEntities {
+
+    @Param({"1000"})
+    public int sample;
+
+    // Orders are created for the sample, so they have fewer
+    private static final int ORDERS = 200;
+
+    private ProductService productService;
+    private OrderService orderService;
+    private Product[] products;
+    private Order[] orders;
+    private ProductDTO[] productDTOs;
+    private OrderDTO[] orderDTOs;
+
+    @Setup(Level.Trial)
+    public void load(ApplicationState application) {
+        // The services themselves, not their transactional proxies
+        productService = (ProductService) AopProxyUtils.getSingletonTarget(application.bean(ProductService.class));
+        orderService = (OrderService) AopProxyUtils.getSingletonTarget(application.bean(OrderService.class));
+        Fixtures fixtures = application.fixtures();
+        SplittableRandom random = new SplittableRandom(7);
+
+        List<Long> orderIds = new ArrayList<>();
+        OrderService transactionalOrders = application.bean(OrderService.class);
+        for (int i = 0; i < ORDERS; i++) {
+            int customer = random.nextInt(fixtures.customerIds().length);
+            OrderDTO order = new OrderDTO();
+            order.setCustomerId(fixtures.customerIds()[customer]);
+            order.setShippingAddressId(fixtures.addressIds()[customer]);
+            order.setBillingAddressId(fixtures.addressIds()[customer]);
+            List<OrderItemDTO> items = new ArrayList<>();
+            for (int j = 1 + random.nextInt(8); j > 0; j--) {
+                OrderItemDTO item = new OrderItemDTO();
+                item.setProductId(fixtures.productIds()[random.nextInt(fixtures.productIds().length)]);
+                item.setQuantity(1);
+                items.add(item);
+            }
+            order.setItems(items);
+            orderIds.add(transactionalOrders.createOrder(order).getId());
+        }
+
+        ProductRepository productRepository = application.bean(ProductRepository.class);
+        OrderRepository orderRepository = application.bean(OrderRepository.class);
+        TransactionTemplate transaction = new TransactionTemplate(application.bean(PlatformTransactionManager.class));
+        products = new Product[Math.min(sample, fixtures.productIds().length)];
+        productDTOs = new ProductDTO[products.length];
+        orders = new Order[orderIds.size()];
+        orderDTOs = new OrderDTO[orders.length];
+        transaction.executeWithoutResult(status -> {
+            // Converting once inside the transaction initializes what the conversion reads
+            for (int i = 0; i < products.length; i++) {
+                products[i] = productRepository.findById(fixtures.productIds()[random.nextInt(fixtures.productIds().length)]).orElseThrow();
+                productDTOs[i] = productService.convertToDTO(products[i]);
+            }
+            for (int i = 0; i < orders.length; i++) {
+                orders[i] = orderRepository.findById(orderIds.get(i)).orElseThrow();
+                orderDTOs[i] = orderService.convertToDTO(orders[i]);
+            }
+        });
+    }
+
+    public ProductService productService() { return productService; }
+    public OrderService orderService() { return orderService; }
+    public Product[] products() { return products; }
+    public Order[] orders() { return orders; }
+    public ProductDTO[] productDTOs() { return productDTOs; }
+    public OrderDTO[] orderDTOs() { return orderDTOs; }
+}
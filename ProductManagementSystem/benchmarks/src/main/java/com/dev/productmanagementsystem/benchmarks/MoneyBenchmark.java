@@ -0,0 +1,115 @@
+package com.dev.productmanagementsystem.benchmarks;
+
+import com.dev.productmanagementsystem.entities.OrderItem;
+import com.dev.productmanagementsystem.services.InvoiceService;
+import com.dev.productmanagementsystem.utils.Money;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the BigDecimal order/invoice arithmetic with the long-backed {@link Money} path.
+ *
+ * Run with the GC profiler to see allocation rates next to throughput:
+ * java -jar target/benchmarks.jar MoneyBenchmark -prof gc
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MoneyBenchmark {
+
+    @Param({"1", "10", "100"})
+    public int itemCount;
+
+    private OrderItem[] items;
+    private BigDecimal[] taxRates;
+    private BigDecimal[] orderTotals;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        items = new OrderItem[itemCount];
+        for (int i = 0; i < itemCount; i++) {
+            OrderItem item = new OrderItem();
+            item.setPricePerUnit(BigDecimal.valueOf(random.nextInt(1_000_000), 2));
+            item.setQuantity(1 + random.nextInt(50));
+            items[i] = item;
+        }
+
+        taxRates = new BigDecimal[]{new BigDecimal("23.00"), new BigDecimal("8"), new BigDecimal("5.5"), new BigDecimal("0.00")};
+        orderTotals = new BigDecimal[64];
+        for (int i = 0; i < orderTotals.length; i++) {
+            orderTotals[i] = BigDecimal.valueOf(random.nextInt(100_000_000), 2);
+        }
+
+        verifyResultsMatch();
+    }
+
+    // Both paths must agree once the BigDecimal result is stored in a DECIMAL(10, 2) column
+    private void verifyResultsMatch() {
+        if (bigDecimalOrderTotal().compareTo(moneyOrderTotal().toBigDecimal()) != 0) {
+            throw new IllegalStateException("Order totals differ between BigDecimal and Money");
+        }
+        for (BigDecimal orderTotal : orderTotals) {
+            for (BigDecimal tax : taxRates) {
+                BigDecimal legacy = bigDecimalInvoiceTotal(orderTotal, tax).setScale(Money.SCALE, InvoiceService.TAX_ROUNDING);
+                BigDecimal money = InvoiceService.calculateTotalWithTax(orderTotal, tax).toBigDecimal();
+                if (legacy.compareTo(money) != 0) {
+                    throw new IllegalStateException("Invoice totals differ for " + orderTotal + " at " + tax + "%: " + legacy + " vs " + money);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public BigDecimal orderTotalBigDecimal() {
+        return bigDecimalOrderTotal();
+    }
+
+    @Benchmark
+    public Money orderTotalMoney() {
+        return moneyOrderTotal();
+    }
+
+    @Benchmark
+    public void invoiceTotalBigDecimal(Blackhole blackhole) {
+        for (BigDecimal orderTotal : orderTotals) {
+            blackhole.consume(bigDecimalInvoiceTotal(orderTotal, taxRates[orderTotal.hashCode() & 3]));
+        }
+    }
+
+    @Benchmark
+    public void invoiceTotalMoney(Blackhole blackhole) {
+        for (BigDecimal orderTotal : orderTotals) {
+            blackhole.consume(InvoiceService.calculateTotalWithTax(orderTotal, taxRates[orderTotal.hashCode() & 3]));
+        }
+    }
+
+    // The arithmetic OrderService and InvoiceService used before the Money type
+    private BigDecimal bigDecimalOrderTotal() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (OrderItem item : items) {
+            total = total.add(item.getPricePerUnit().multiply(new BigDecimal(item.getQuantity())));
+        }
+        return total;
+    }
+
+    private static BigDecimal bigDecimalInvoiceTotal(BigDecimal orderTotal, BigDecimal tax) {
+        BigDecimal taxAmount = orderTotal.multiply(tax.divide(new BigDecimal("100")));
+        return orderTotal.add(taxAmount);
+    }
+
+    private Money moneyOrderTotal() {
+        long totalMinorUnits = 0L;
+        for (OrderItem item : items) {
+            totalMinorUnits = Math.addExact(totalMinorUnits, item.getTotal().getMinorUnits());
+        }
+        return Money.ofMinor(totalMinorUnits);
+    }
+}
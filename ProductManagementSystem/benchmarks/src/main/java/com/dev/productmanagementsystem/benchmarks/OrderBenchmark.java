@@ -0,0 +1,57 @@
+package com.dev.productmanagementsystem.benchmarks;
+
+import com.dev.productmanagementsystem.dto.OrderDTO;
+import com.dev.productmanagementsystem.dto.OrderItemDTO;
+import com.dev.productmanagementsystem.services.OrderService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OrderService.createOrder end to end: lookups, warehouse choice, item inserts, the credit check
+ * and the commit, against the embedded database. Orders accumulate over the run like they do in
+ * production. Try more threads (-t 8) to see contention on the shared tables.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class OrderBenchmark {
+
+    @Param({"1", "5", "20"})
+    public int itemsPerOrder;
+
+    private OrderService orderService;
+    private Fixtures fixtures;
+    private SplittableRandom random;
+
+    @Setup(Level.Trial)
+    public void setUp(ApplicationState application) {
+        orderService = application.bean(OrderService.class);
+        fixtures = application.fixtures();
+        random = new SplittableRandom(Thread.currentThread().getId());
+    }
+
+    @Benchmark
+    public OrderDTO createOrder() {
+        int customer = random.nextInt(fixtures.customerIds().length);
+        OrderDTO order = new OrderDTO();
+        order.setCustomerId(fixtures.customerIds()[customer]);
+        order.setShippingAddressId(fixtures.addressIds()[customer]);
+        order.setBillingAddressId(fixtures.addressIds()[customer]);
+        List<OrderItemDTO> items = new ArrayList<>(itemsPerOrder);
+        for (int i = 0; i < itemsPerOrder; i++) {
+            OrderItemDTO item = new OrderItemDTO();
+            item.setProductId(fixtures.productIds()[random.nextInt(fixtures.productIds().length)]);
+            item.setQuantity(1 + random.nextInt(3));
+            items.add(item);
+        }
+        order.setItems(items);
+        return orderService.createOrder(order);
+    }
+}
@@ -0,0 +1,54 @@
+package com.dev.productmanagementsystem.benchmarks;
+
+import com.dev.productmanagementsystem.utils.PasswordEncoders;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verify latency of a stored password hash per algorithm and cost, i.e. the CPU one login costs.
+ * Divide the verification pool size (auth.login.verify-threads) by the average to get the logins
+ * per second a node can sustain; pick the highest auth.passwords.bcrypt-strength that still fits.
+ *
+ * Run on the production hardware, with as many threads as the verification pool:
+ * java -jar target/benchmarks.jar PasswordHashBenchmark -t 4 -p hash=bcrypt:10,bcrypt:12
+ */
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class PasswordHashBenchmark {
+
+    private static final String PASSWORD = "correct horse battery staple";
+
+    // algorithm:bcrypt-strength; the strength is ignored for pbkdf2
+    @Param({"bcrypt:10", "bcrypt:11", "bcrypt:12", "bcrypt:13", "pbkdf2:10"})
+    public String hash;
+
+    private PasswordEncoder encoder;
+    private String encoded;
+
+    @Setup
+    public void setUp() {
+        String[] parts = hash.split(":");
+        encoder = PasswordEncoders.create(parts[0], Integer.parseInt(parts[1]));
+        encoded = encoder.encode(PASSWORD);
+        if (!encoder.matches(PASSWORD, encoded) || encoder.matches(PASSWORD + "x", encoded)) {
+            throw new IllegalStateException("Encoder for " + hash + " does not verify its own hashes");
+        }
+    }
+
+    @Benchmark
+    public boolean verify() {
+        return encoder.matches(PASSWORD, encoded);
+    }
+
+    // A failed login costs the same as a successful one
+    @Benchmark
+    public boolean verifyWrongPassword() {
+        return encoder.matches("wrong password", encoded);
+    }
+}
@@ -0,0 +1,151 @@
+package com.dev.productmanagementsystem.benchmarks.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Calls the application's REST API as one of the generated users and records each call in
+ * {@link Measurements} under its endpoint. One client is shared by all virtual users; the
+ * underlying HttpClient pools connections.
+ */
+final class ApiClient {
+
+    private final HttpClient http;
+    private final String baseUrl;
+    private final ObjectMapper objectMapper;
+    private final Measurements measurements;
+    private final Duration timeout;
+
+    ApiClient(String baseUrl, ObjectMapper objectMapper, Measurements measurements, Duration timeout) {
+        this.http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(timeout)
+                .build();
+        this.baseUrl = baseUrl;
+        this.objectMapper = objectMapper;
+        this.measurements = measurements;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Sends a call and returns its JSON response, or null when it failed: any status but 2xx, a
+     * timeout or an I/O error. A 401 logs the account in again and repeats the call once.
+     */
+    JsonNode call(Session session, String endpoint, String method, String path, Object body) {
+        long intended = session.takeIntendedStart();
+        long start = System.nanoTime();
+        if (intended == 0) {
+            intended = start;
+        }
+        JsonNode response = null;
+        boolean ok = false;
+        try {
+            String token = session.account.token(this);
+            HttpResponse<byte[]> reply = send(method, path, body, token);
+            if (reply.statusCode() == 401) {
+                reply = send(method, path, body, session.account.renew(this, token));
+            }
+            ok = reply.statusCode() / 100 == 2;
+            if (ok && reply.body().length > 0) {
+                response = objectMapper.readTree(reply.body());
+            }
+        } catch (IOException e) {
+            ok = false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            ok = false;
+        }
+        measurements.record(Measurements.Kind.ENDPOINT, endpoint, intended, start, System.nanoTime(), ok);
+        return ok ? (response != null ? response : objectMapper.nullNode()) : null;
+    }
+
+    Measurements measurements() {
+        return measurements;
+    }
+
+    // Not measured: logins happen before the run, and again only when a token expires
+    String login(String username, String password) throws IOException, InterruptedException {
+        HttpResponse<byte[]> reply = send("POST", "/api/auth/login", Map.of("username", username, "password", password), null);
+        if (reply.statusCode() != 200) {
+            throw new IOException("Login as " + username + " failed with status " + reply.statusCode());
+        }
+        return objectMapper.readTree(reply.body()).path("token").asText();
+    }
+
+    private HttpResponse<byte[]> send(String method, String path, Object body, String token) throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(timeout)
+                .header("Accept", "application/json");
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        if (body == null) {
+            request.method(method, HttpRequest.BodyPublishers.noBody());
+        } else {
+            request.header("Content-Type", "application/json")
+                    .method(method, HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)));
+        }
+        return http.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    /** A generated user the virtual users act as, sharing its access token. */
+    static final class Account {
+        final String username;
+        private final String password;
+        private volatile String token;
+
+        Account(String username, String password) {
+            this.username = username;
+            this.password = password;
+        }
+
+        String token(ApiClient client) throws IOException, InterruptedException {
+            String current = token;
+            return current != null ? current : renew(client, null);
+        }
+
+        // Once for every virtual user that saw the stale token rejected, or the login throttle would kick in
+        synchronized String renew(ApiClient client, String stale) throws IOException, InterruptedException {
+            if (token == null || token.equals(stale)) {
+                token = client.login(username, password);
+            }
+            return token;
+        }
+    }
+
+    /** One run of a scenario: who runs it, its random choices, and when its first call was meant to start. */
+    static final class Session {
+        final Account account;
+        final SplittableRandom random;
+        private final long intendedStart;
+        private boolean called;
+
+        Session(Account account, SplittableRandom random, long intendedStart) {
+            this.account = account;
+            this.random = random;
+            this.intendedStart = intendedStart;
+        }
+
+        long intendedStart() {
+            return intendedStart;
+        }
+
+        // The first call keeps the scheduled start; later calls are meant to start when they are sent
+        private long takeIntendedStart() {
+            if (called) {
+                return 0;
+            }
+            called = true;
+            return intendedStart;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.dev.productmanagementsystem.benchmarks.load;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Command line options of the load test, as --name=value. Options the load test does not know
+ * are passed on to the embedded application, e.g. --dataset.products=100000.
+ */
+final class LoadOptions {
+
+    enum Mode { CLOSED, OPEN }
+
+    Mode mode = Mode.CLOSED;
+    // Closed loop: virtual users, each running one scenario after another with a think time between them
+    int users = 50;
+    Duration think = Duration.ZERO;
+    // Open loop: scenarios started per second whether or not earlier ones finished, at even or Poisson gaps
+    double rate = 100;
+    boolean poisson = true;
+    int maxInFlight = 10_000;
+
+    Duration warmup = Duration.ofSeconds(10);
+    Duration duration = Duration.ofSeconds(60);
+    Duration interval = Duration.ofSeconds(5);
+    Duration timeout = Duration.ofSeconds(30);
+    Map<String, Integer> mix = new LinkedHashMap<>();
+    long seed = 42;
+    // Generated users the virtual users log in as, sharing their tokens
+    int accounts = 20;
+
+    // Base URL of a running instance; the application is started on an embedded database when absent
+    String target;
+    Path reportDirectory = Path.of("results");
+    String name = "load";
+    Path baseline;
+    final List<String> applicationArguments = new ArrayList<>();
+
+    private LoadOptions() {
+        mix.put(Workload.BROWSE, 50);
+        mix.put(Workload.SEARCH, 25);
+        mix.put(Workload.CHECKOUT, 15);
+        mix.put(Workload.MOVE_STOCK, 10);
+    }
+
+    static LoadOptions parse(String[] args) {
+        LoadOptions options = new LoadOptions();
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (!arg.startsWith("--") || equals < 0) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            String value = arg.substring(equals + 1);
+            switch (arg.substring(2, equals)) {
+                case "mode" -> options.mode = Mode.valueOf(value.trim().toUpperCase(Locale.ROOT));
+                case "users" -> options.users = Integer.parseInt(value);
+                case "think" -> options.think = DurationStyle.detectAndParse(value);
+                case "rate" -> options.rate = Double.parseDouble(value);
+                case "arrivals" -> options.poisson = !"even".equalsIgnoreCase(value.trim());
+                case "max-in-flight" -> options.maxInFlight = Integer.parseInt(value);
+                case "warmup" -> options.warmup = DurationStyle.detectAndParse(value);
+                case "duration" -> options.duration = DurationStyle.detectAndParse(value);
+                case "interval" -> options.interval = DurationStyle.detectAndParse(value);
+                case "timeout" -> options.timeout = DurationStyle.detectAndParse(value);
+                case "mix" -> options.mix = parseMix(value);
+                case "seed" -> options.seed = Long.parseLong(value);
+                case "accounts" -> options.accounts = Integer.parseInt(value);
+                case "target" -> options.target = value.endsWith("/") ? value.substring(0, value.length() - 1) : value;
+                case "report-dir" -> options.reportDirectory = Path.of(value);
+                case "name" -> options.name = value;
+                case "baseline" -> options.baseline = Path.of(value);
+                default -> options.applicationArguments.add(arg);
+            }
+        }
+        if (options.users < 1 || options.rate <= 0 || options.maxInFlight < 1 || options.accounts < 1) {
+            throw new IllegalArgumentException("users, rate, max-in-flight and accounts must be positive");
+        }
+        if (!options.name.matches("[0-9a-zA-Z_.-]+")) {
+            throw new IllegalArgumentException("name may only contain letters, digits, '_', '.' and '-'");
+        }
+        return options;
+    }
+
+    // browse:50,search:25,checkout:15,move-stock:10
+    private static Map<String, Integer> parseMix(String value) {
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        for (String part : value.split(",")) {
+            String[] pair = part.split(":");
+            if (pair.length != 2 || !Workload.SCENARIOS.contains(pair[0].trim())) {
+                throw new IllegalArgumentException("Mix entries are scenario:weight with a scenario of " + Workload.SCENARIOS + ", got " + part);
+            }
+            int weight = Integer.parseInt(pair[1].trim());
+            if (weight > 0) {
+                mix.put(pair[0].trim(), weight);
+            }
+        }
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("The mix needs at least one scenario with a positive weight");
+        }
+        return mix;
+    }
+}
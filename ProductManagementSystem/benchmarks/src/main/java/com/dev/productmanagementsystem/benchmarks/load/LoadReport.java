@@ -0,0 +1,123 @@
+package com.dev.productmanagementsystem.benchmarks.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The results of a run: a table per scenario and per endpoint on the console, and the same numbers
+ * as JSON next to the histogram log. Keep the file of a run on main and pass it as --baseline to
+ * the run of a change to print the differences.
+ */
+final class LoadReport {
+
+    private static final String ROW = "%-40s %9s %7s %9s %9s %9s %9s %9s %9s %11s%n";
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final Map<String, Object> configuration;
+    private final Map<String, Object> results = new LinkedHashMap<>();
+
+    LoadReport(Map<String, Object> configuration) {
+        this.configuration = configuration;
+    }
+
+    void add(Measurements measurements, double measuredSeconds) {
+        results.put("measuredSeconds", round(measuredSeconds));
+        results.put("scenarios", stats(measurements.series(Measurements.Kind.SCENARIO), measuredSeconds));
+        results.put("endpoints", stats(measurements.series(Measurements.Kind.ENDPOINT), measuredSeconds));
+    }
+
+    @SuppressWarnings("unchecked")
+    void print(PrintStream out) {
+        for (String kind : List.of("scenarios", "endpoints")) {
+            out.println();
+            out.printf(ROW, kind, "count", "errors", "rate/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "service p99");
+            for (Map<String, Object> stat : (List<Map<String, Object>>) results.get(kind)) {
+                Map<String, Object> latency = (Map<String, Object>) stat.get("latencyMillis");
+                Map<String, Object> service = (Map<String, Object>) stat.get("serviceTimeMillis");
+                out.printf(ROW, stat.get("name"), stat.get("count"), stat.get("errors"), stat.get("throughputPerSecond"),
+                        latency.get("p50"), latency.get("p90"), latency.get("p99"), latency.get("p99.9"), latency.get("max"),
+                        service.get("p99"));
+            }
+        }
+    }
+
+    Path write(ObjectMapper objectMapper, Path file) throws IOException {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("configuration", configuration);
+        report.putAll(results);
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(file.toFile(), report);
+        return file;
+    }
+
+    /** Prints p99 latency and throughput of every scenario and endpoint against the same ones in an earlier report. */
+    @SuppressWarnings("unchecked")
+    void compare(ObjectMapper objectMapper, Path baselineFile, PrintStream out) throws IOException {
+        JsonNode baseline = objectMapper.readTree(baselineFile.toFile());
+        out.println();
+        out.println("Against " + baselineFile + " (" + baseline.path("configuration").path("startedAt").asText() + ")");
+        String row = "%-40s %12s %12s %9s %12s %12s %9s%n";
+        for (String kind : List.of("scenarios", "endpoints")) {
+            out.printf(row, kind, "p99 ms was", "p99 ms", "change", "rate/s was", "rate/s", "change");
+            Map<String, JsonNode> before = new LinkedHashMap<>();
+            baseline.path(kind).forEach(stat -> before.put(stat.path("name").asText(), stat));
+            for (Map<String, Object> stat : (List<Map<String, Object>>) results.get(kind)) {
+                JsonNode was = before.get((String) stat.get("name"));
+                if (was == null) {
+                    continue;
+                }
+                double p99 = (double) ((Map<String, Object>) stat.get("latencyMillis")).get("p99");
+                double p99Before = was.path("latencyMillis").path("p99").asDouble();
+                double rate = (double) stat.get("throughputPerSecond");
+                double rateBefore = was.path("throughputPerSecond").asDouble();
+                out.printf(row, stat.get("name"), p99Before, p99, change(p99Before, p99), rateBefore, rate, change(rateBefore, rate));
+            }
+        }
+    }
+
+    private static List<Map<String, Object>> stats(List<Measurements.Series> series, double measuredSeconds) {
+        List<Map<String, Object>> stats = new ArrayList<>();
+        for (Measurements.Series measured : series) {
+            Map<String, Object> stat = new LinkedHashMap<>();
+            long count = measured.totalLatency.getTotalCount();
+            stat.put("name", measured.name);
+            stat.put("count", count);
+            stat.put("errors", measured.totalErrors);
+            stat.put("throughputPerSecond", round(count / measuredSeconds));
+            stat.put("latencyMillis", percentiles(measured.totalLatency));
+            stat.put("serviceTimeMillis", percentiles(measured.totalServiceTime));
+            stats.add(stat);
+        }
+        return stats;
+    }
+
+    // Recorded in microseconds
+    private static Map<String, Object> percentiles(Histogram histogram) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("mean", round(histogram.getMean() / 1000));
+        for (double percentile : PERCENTILES) {
+            values.put("p" + (percentile == Math.rint(percentile) ? String.valueOf((int) percentile) : String.valueOf(percentile)),
+                    round(histogram.getValueAtPercentile(percentile) / 1000.0));
+        }
+        values.put("max", round(histogram.getMaxValue() / 1000.0));
+        return values;
+    }
+
+    private static String change(double before, double after) {
+        return before == 0 ? "n/a" : String.format("%+.1f%%", (after - before) * 100 / before);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
@@ -0,0 +1,349 @@
+package com.dev.productmanagementsystem.benchmarks.load;
+
+import com.dev.productmanagementsystem.ProductManagementSystemApplication;
+import com.dev.productmanagementsystem.dto.DatasetResultDTO;
+import com.dev.productmanagementsystem.dto.DatasetSpecDTO;
+import com.dev.productmanagementsystem.services.DatasetGeneratorService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.SimpleCommandLinePropertySource;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Load test of the REST API: virtual users run a weighted mix of scenarios (see {@link Workload})
+ * and every call is recorded in latency histograms per endpoint and per scenario.
+ * <p>
+ * The closed loop (--mode=closed --users=50 --think=100ms) runs a fixed number of users, each
+ * starting its next scenario when the last one finished; it finds the throughput the system
+ * sustains. The open loop (--mode=open --rate=200) starts scenarios on a schedule whether or not
+ * earlier ones finished, and measures latency from the scheduled start, so a stalled server shows
+ * in the percentiles instead of quietly slowing the load down (coordinated omission). Use it to
+ * find the latency at a given rate.
+ * <p>
+ * Without --target the application is started on a random port against an in-memory H2
+ * database, filled by the dataset generator; --dataset.* options size it. With --target the
+ * instance must hold data generated on an empty database with the same --dataset.* options, so
+ * the ids the scenarios pick exist. Results go to report-dir as name-timestamp.json and
+ * name-timestamp.hlog, an HdrHistogram interval log.
+ */
+public final class LoadTest {
+
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    // Small enough to generate in seconds; --dataset.* options replace them
+    private static final Map<String, String> EMBEDDED_DEFAULTS = embeddedDefaults();
+
+    private final LoadOptions options;
+    private final PrintStream out = System.out;
+
+    private LoadTest(LoadOptions options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new LoadTest(LoadOptions.parse(args)).run();
+    }
+
+    private void run() throws Exception {
+        ConfigurableApplicationContext context = null;
+        try {
+            String baseUrl = options.target;
+            DatasetSpecDTO dataset;
+            if (baseUrl == null) {
+                context = startApplication();
+                dataset = bindDataset(new Binder(ConfigurationPropertySources.get(context.getEnvironment())));
+                out.println("Generating " + describe(dataset));
+                DatasetResultDTO generated = context.getBean(DatasetGeneratorService.class).generate(dataset);
+                out.println("Generated " + generated.getTotalRows() + " rows in " + generated.getElapsedMillis() + " ms");
+                baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            } else {
+                StandardEnvironment environment = new StandardEnvironment();
+                environment.getPropertySources().addFirst(
+                        new SimpleCommandLinePropertySource(options.applicationArguments.toArray(new String[0])));
+                dataset = bindDataset(Binder.get(environment));
+            }
+            test(baseUrl, dataset);
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+
+    private void test(String baseUrl, DatasetSpecDTO dataset) throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        LocalDateTime startedAt = LocalDateTime.now();
+        Path files = options.reportDirectory.resolve(options.name + "-" + startedAt.format(FILE_TIMESTAMP));
+        Path logFile = Path.of(files + ".hlog");
+        Files.createDirectories(logFile.toAbsolutePath().getParent());
+
+        try (PrintStream logStream = new PrintStream(logFile.toFile())) {
+            HistogramLogWriter log = new HistogramLogWriter(logStream);
+            long startMillis = System.currentTimeMillis();
+            log.outputLogFormatVersion();
+            log.outputStartTime(startMillis);
+            log.setBaseTime(startMillis);
+            log.outputLegend();
+
+            Measurements measurements = new Measurements(log);
+            ApiClient client = new ApiClient(baseUrl, objectMapper, measurements, options.timeout);
+            Workload workload = new Workload(dataset, options.mix);
+            List<ApiClient.Account> accounts = login(client, dataset);
+
+            boolean virtualThreads = true;
+            ExecutorService executor = virtualThreadExecutor();
+            if (executor == null) {
+                virtualThreads = false;
+                executor = Executors.newCachedThreadPool(runnable -> {
+                    Thread thread = new Thread(runnable, "virtual-user");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+            out.println((options.mode == LoadOptions.Mode.OPEN ? "Open loop at " + options.rate + " scenarios/s"
+                    : "Closed loop with " + options.users + " users") + " against " + baseUrl + " on "
+                    + (virtualThreads ? "virtual" : "platform") + " threads; warming up for " + options.warmup.toSeconds()
+                    + " s, then measuring for " + options.duration.toSeconds() + " s");
+
+            long start = System.nanoTime();
+            long warmupEnd = start + options.warmup.toNanos();
+            long end = warmupEnd + options.duration.toNanos();
+            ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "load-ticker");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long intervalNanos = options.interval.toNanos();
+            ticker.schedule(() -> measurements.collect(false), warmupEnd - System.nanoTime(), TimeUnit.NANOSECONDS);
+            ticker.scheduleAtFixedRate(() -> {
+                measurements.collect(true);
+                progress(measurements, (System.nanoTime() - warmupEnd) / 1_000_000_000.0);
+            }, warmupEnd - System.nanoTime() + intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+
+            SplittableRandom random = new SplittableRandom(options.seed);
+            if (options.mode == LoadOptions.Mode.OPEN) {
+                openLoop(executor, client, workload, accounts, random, start, end);
+            } else {
+                closedLoop(executor, client, workload, accounts, random, end);
+            }
+            executor.shutdown();
+            if (!executor.awaitTermination(options.timeout.toSeconds() * 4 + 10, TimeUnit.SECONDS)) {
+                out.println("Calls still running after the drain time were not recorded");
+            }
+            ticker.shutdownNow();
+            ticker.awaitTermination(10, TimeUnit.SECONDS);
+            measurements.collect(true);
+            double measuredSeconds = (System.nanoTime() - warmupEnd) / 1_000_000_000.0;
+
+            LoadReport report = new LoadReport(configuration(startedAt, baseUrl, dataset, virtualThreads));
+            report.add(measurements, measuredSeconds);
+            report.print(out);
+            out.println();
+            out.println("Report written to " + report.write(objectMapper, Path.of(files + ".json")) + ", histograms to " + logFile);
+            if (options.baseline != null) {
+                report.compare(objectMapper, options.baseline, out);
+            }
+        }
+    }
+
+    // Every user runs scenarios back to back until the end, so the load adapts to how fast the server answers
+    private void closedLoop(ExecutorService executor, ApiClient client, Workload workload, List<ApiClient.Account> accounts,
+                            SplittableRandom random, long end) {
+        for (int user = 0; user < options.users; user++) {
+            ApiClient.Account account = accounts.get(user % accounts.size());
+            SplittableRandom userRandom = random.split();
+            executor.execute(() -> {
+                while (System.nanoTime() < end && !Thread.currentThread().isInterrupted()) {
+                    long now = System.nanoTime();
+                    runScenario(client, workload, new ApiClient.Session(account, userRandom.split(), now), now);
+                    if (!options.think.isZero()) {
+                        LockSupport.parkNanos(options.think.toNanos());
+                    }
+                }
+            });
+        }
+    }
+
+    /*
+     * Scenarios start on a fixed schedule. A scenario that cannot start on time, because the
+     * threads are busy or max-in-flight is reached, keeps its scheduled start, so the wait counts
+     * in its latency.
+     */
+    private void openLoop(ExecutorService executor, ApiClient client, Workload workload, List<ApiClient.Account> accounts,
+                          SplittableRandom random, long start, long end) throws InterruptedException {
+        Semaphore inFlight = new Semaphore(options.maxInFlight);
+        double meanGapNanos = 1_000_000_000.0 / options.rate;
+        long next = start;
+        for (long arrival = 0; ; arrival++) {
+            next += (long) (options.poisson ? -Math.log(1 - random.nextDouble()) * meanGapNanos : meanGapNanos);
+            if (next >= end) {
+                return;
+            }
+            long wait = next - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            inFlight.acquire();
+            ApiClient.Session session = new ApiClient.Session(accounts.get((int) (arrival % accounts.size())), random.split(), next);
+            executor.execute(() -> {
+                try {
+                    runScenario(client, workload, session, System.nanoTime());
+                } finally {
+                    inFlight.release();
+                }
+            });
+        }
+    }
+
+    private void runScenario(ApiClient client, Workload workload, ApiClient.Session session, long startNanos) {
+        String scenario = workload.pick(session.random);
+        boolean ok;
+        try {
+            ok = workload.run(scenario, client, session);
+        } catch (RuntimeException e) {
+            ok = false;
+        }
+        client.measurements().record(Measurements.Kind.SCENARIO, scenario, session.intendedStart(), startNanos, System.nanoTime(), ok);
+    }
+
+    private List<ApiClient.Account> login(ApiClient client, DatasetSpecDTO dataset) throws IOException, InterruptedException {
+        List<ApiClient.Account> accounts = new ArrayList<>();
+        for (int user = 1; user <= Math.min(options.accounts, dataset.getUsers()); user++) {
+            ApiClient.Account account = new ApiClient.Account("user" + user, dataset.getPassword());
+            account.token(client);
+            accounts.add(account);
+        }
+        return accounts;
+    }
+
+    private void progress(Measurements measurements, double seconds) {
+        Histogram interval = new Histogram(3);
+        long errors = 0;
+        for (Measurements.Series measured : measurements.series(Measurements.Kind.SCENARIO)) {
+            if (measured.lastInterval != null) {
+                interval.add(measured.lastInterval);
+            }
+            errors += measured.lastIntervalErrors;
+        }
+        out.printf("%6.0f s %8.1f scenarios/s %6d errors   p50 %8.2f ms   p99 %8.2f ms   max %8.2f ms%n", seconds,
+                interval.getTotalCount() / measurements.lastIntervalSeconds(), errors,
+                interval.getValueAtPercentile(50) / 1000.0, interval.getValueAtPercentile(99) / 1000.0,
+                interval.getMaxValue() / 1000.0);
+    }
+
+    private ConfigurableApplicationContext startApplication() {
+        Map<String, String> properties = new LinkedHashMap<>(EMBEDDED_DEFAULTS);
+        List<String> arguments = new ArrayList<>();
+        for (String argument : options.applicationArguments) {
+            int equals = argument.indexOf('=');
+            properties.remove(argument.substring(2, equals));
+            arguments.add(argument);
+        }
+        properties.forEach((name, value) -> arguments.add("--" + name + "=" + value));
+        // Command line arguments, so they win over any application.properties packaged with the jar
+        return new SpringApplicationBuilder(ProductManagementSystemApplication.class)
+                .web(WebApplicationType.SERVLET)
+                .bannerMode(Banner.Mode.OFF)
+                .logStartupInfo(false)
+                .run(arguments.toArray(new String[0]));
+    }
+
+    private static DatasetSpecDTO bindDataset(Binder binder) {
+        return binder.bind("dataset", DatasetSpecDTO.class).orElseGet(DatasetSpecDTO::new);
+    }
+
+    private Map<String, Object> configuration(LocalDateTime startedAt, String baseUrl, DatasetSpecDTO dataset, boolean virtualThreads) {
+        Map<String, Object> configuration = new LinkedHashMap<>();
+        configuration.put("name", options.name);
+        configuration.put("startedAt", startedAt.toString());
+        configuration.put("target", options.target != null ? baseUrl : "embedded");
+        configuration.put("mode", options.mode.name().toLowerCase(Locale.ROOT));
+        if (options.mode == LoadOptions.Mode.OPEN) {
+            configuration.put("rate", options.rate);
+            configuration.put("arrivals", options.poisson ? "poisson" : "even");
+            configuration.put("maxInFlight", options.maxInFlight);
+        } else {
+            configuration.put("users", options.users);
+            configuration.put("thinkMillis", options.think.toMillis());
+        }
+        configuration.put("warmupSeconds", options.warmup.toSeconds());
+        configuration.put("durationSeconds", options.duration.toSeconds());
+        configuration.put("mix", options.mix);
+        configuration.put("seed", options.seed);
+        configuration.put("accounts", options.accounts);
+        configuration.put("virtualThreads", virtualThreads);
+        configuration.put("java", Runtime.version().toString());
+        configuration.put("processors", Runtime.getRuntime().availableProcessors());
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("seed", dataset.getSeed());
+        data.put("users", dataset.getUsers());
+        data.put("warehouses", dataset.getWarehouses());
+        data.put("products", dataset.getProducts());
+        data.put("orders", dataset.getOrders());
+        data.put("skuSkew", dataset.getSkuSkew());
+        data.put("customerSkew", dataset.getCustomerSkew());
+        configuration.put("dataset", data);
+        return configuration;
+    }
+
+    private static String describe(DatasetSpecDTO dataset) {
+        return dataset.getUsers() + " users, " + dataset.getWarehouses() + " warehouses, " + dataset.getProducts()
+                + " products and " + dataset.getOrders() + " orders";
+    }
+
+    // Virtual threads came with Java 21; the project builds for 17, so look them up when running on a newer JVM
+    private static ExecutorService virtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private static Map<String, String> embeddedDefaults() {
+        Map<String, String> defaults = new LinkedHashMap<>();
+        defaults.put("server.port", "0");
+        defaults.put("spring.datasource.url", "jdbc:h2:mem:load;MODE=MySQL;DB_CLOSE_DELAY=-1");
+        defaults.put("spring.datasource.username", "sa");
+        defaults.put("spring.datasource.password", "");
+        defaults.put("spring.jpa.database-platform", "org.hibernate.dialect.H2Dialect");
+        defaults.put("spring.jpa.hibernate.ddl-auto", "create-drop");
+        defaults.put("spring.jpa.show-sql", "false");
+        defaults.put("logging.level.root", "WARN");
+        defaults.put("logging.level.org.hibernate.SQL", "WARN");
+        defaults.put("logging.level.org.hibernate.type.descriptor.sql.BasicBinder", "WARN");
+        defaults.put("dataset.users", "2000");
+        defaults.put("dataset.warehouses", "10");
+        defaults.put("dataset.categories", "100");
+        defaults.put("dataset.products", "20000");
+        defaults.put("dataset.orders", "20000");
+        defaults.put("dataset.stock-movements", "5000");
+        return defaults;
+    }
+}
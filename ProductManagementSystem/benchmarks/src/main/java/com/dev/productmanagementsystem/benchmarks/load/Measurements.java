@@ -0,0 +1,115 @@
+package com.dev.productmanagementsystem.benchmarks.load;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.HdrHistogram.Recorder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histograms per endpoint and per scenario, in microseconds.
+ *
+ * Each series keeps two: latency, from when the call was meant to start, and service time, from
+ * when it was sent. They only differ in the open loop, where a scenario has a scheduled start and
+ * waiting for a busy system counts against it (coordinated omission); the calls after the first
+ * of a scenario are meant to start when the previous one returns. Recording is lock-free from any
+ * number of threads. Every interval the recorded values are moved to the run's totals and written
+ * to the histogram log, unless the run is still warming up.
+ */
+final class Measurements {
+
+    enum Kind { ENDPOINT, SCENARIO }
+
+    private final Map<String, Series> series = new ConcurrentSkipListMap<>();
+    private final HistogramLogWriter log;
+    private long lastCollect = System.nanoTime();
+    private double lastIntervalSeconds;
+
+    Measurements(HistogramLogWriter log) {
+        this.log = log;
+    }
+
+    void record(Kind kind, String name, long intendedNanos, long startNanos, long endNanos, boolean ok) {
+        Series measured = series.computeIfAbsent(kind + " " + name, key -> new Series(kind, name));
+        measured.latency.recordValue(micros(endNanos - intendedNanos));
+        measured.serviceTime.recordValue(micros(endNanos - startNanos));
+        if (!ok) {
+            measured.errors.increment();
+        }
+    }
+
+    /** Moves what was recorded since the last call into the totals and the log, or drops it while warming up. */
+    synchronized void collect(boolean measuring) {
+        long now = System.nanoTime();
+        lastIntervalSeconds = (now - lastCollect) / 1_000_000_000.0;
+        lastCollect = now;
+        for (Series measured : series.values()) {
+            Histogram latency = measured.latency.getIntervalHistogram();
+            Histogram serviceTime = measured.serviceTime.getIntervalHistogram();
+            long errors = measured.errors.sumThenReset();
+            if (!measuring) {
+                continue;
+            }
+            measured.totalLatency.add(latency);
+            measured.totalServiceTime.add(serviceTime);
+            measured.totalErrors += errors;
+            measured.lastInterval = latency;
+            measured.lastIntervalErrors = errors;
+            if (log != null) {
+                latency.setTag(measured.tag("latency"));
+                log.outputIntervalHistogram(latency);
+                serviceTime.setTag(measured.tag("service"));
+                log.outputIntervalHistogram(serviceTime);
+            }
+        }
+    }
+
+    // The ticker runs late when the machine is saturated, so rates divide by the actual interval
+    synchronized double lastIntervalSeconds() {
+        return lastIntervalSeconds;
+    }
+
+    synchronized List<Series> series(Kind kind) {
+        List<Series> selected = new ArrayList<>();
+        for (Series measured : series.values()) {
+            if (measured.kind == kind) {
+                selected.add(measured);
+            }
+        }
+        return selected;
+    }
+
+    private static long micros(long nanos) {
+        return Math.max(1, TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    static final class Series {
+        final Kind kind;
+        final String name;
+        // Auto-resizing, three significant digits
+        private final Recorder latency = new Recorder(3);
+        private final Recorder serviceTime = new Recorder(3);
+        private final LongAdder errors = new LongAdder();
+        final Histogram totalLatency = new Histogram(3);
+        final Histogram totalServiceTime = new Histogram(3);
+        long totalErrors;
+        Histogram lastInterval;
+        long lastIntervalErrors;
+
+        Series(Kind kind, String name) {
+            this.kind = kind;
+            this.name = name;
+        }
+
+        // Log tags cannot hold spaces or commas
+        private String tag(String measure) {
+            return (kind.name().toLowerCase(Locale.ROOT) + ":" + name + ":" + measure).replaceAll("[\\s,]+", "_");
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.dev.productmanagementsystem.benchmarks.load;
+
+import com.dev.productmanagementsystem.dto.DatasetSpecDTO;
+import com.dev.productmanagementsystem.utils.ZipfDistribution;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * The scenarios virtual users run, and the weighted mix they are picked from:
+ * <ul>
+ *   <li>browse - one product's details</li>
+ *   <li>search - a product name search</li>
+ *   <li>checkout - create an order, confirm it (which reserves stock), invoice it and pay the invoice</li>
+ *   <li>move-stock - receive stock into a warehouse and transfer part of it to another one, completing both</li>
+ * </ul>
+ * Ids come from the dataset spec: the generator numbers products, users, their addresses and
+ * warehouses from 1 on an empty database. Products are picked by the spec's Zipf popularity and
+ * customers by its customer skew, so the hot rows are hot here too.
+ */
+final class Workload {
+
+    static final String BROWSE = "browse";
+    static final String SEARCH = "search";
+    static final String CHECKOUT = "checkout";
+    static final String MOVE_STOCK = "move-stock";
+    static final List<String> SCENARIOS = List.of(BROWSE, SEARCH, CHECKOUT, MOVE_STOCK);
+
+    private static final String[] SEARCH_TERMS = {"lamp", "chair", "kettle", "desk", "mug", "tent", "steel", "oak",
+            "leather", "compact", "premium", "wireless", "smart lamp", "oak desk", "steel kettle"};
+    private static final String[] PAYMENT_METHODS = {"BANK_TRANSFER", "CREDIT_CARD", "DEBIT_CARD", "PAYPAL"};
+    private static final int TAX_PERCENT = 23;
+
+    // The generator's scatter of popularity ranks over the ids, so both agree on the hot rows
+    private static final long PERMUTATION_PRIME = 2_654_435_761L;
+
+    private final int products;
+    private final int users;
+    private final int warehouses;
+    private final ZipfDistribution productPopularity;
+    private final ZipfDistribution customerPopularity;
+    private final String[] scenarios;
+    private final int[] cumulativeWeights;
+
+    Workload(DatasetSpecDTO dataset, Map<String, Integer> mix) {
+        if (dataset.getProducts() < 1 || dataset.getUsers() < 1 || dataset.getWarehouses() < 1) {
+            throw new IllegalArgumentException("The dataset needs products, users and warehouses");
+        }
+        this.products = dataset.getProducts();
+        this.users = dataset.getUsers();
+        this.warehouses = dataset.getWarehouses();
+        this.productPopularity = new ZipfDistribution(products, dataset.getSkuSkew());
+        this.customerPopularity = new ZipfDistribution(users, dataset.getCustomerSkew());
+        Map<String, Integer> weights = new LinkedHashMap<>(mix);
+        this.scenarios = weights.keySet().toArray(new String[0]);
+        this.cumulativeWeights = new int[scenarios.length];
+        int total = 0;
+        for (int i = 0; i < scenarios.length; i++) {
+            total += weights.get(scenarios[i]);
+            cumulativeWeights[i] = total;
+        }
+    }
+
+    String pick(SplittableRandom random) {
+        int draw = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        int i = 0;
+        while (draw >= cumulativeWeights[i]) {
+            i++;
+        }
+        return scenarios[i];
+    }
+
+    /** Runs one scenario, stopping at the first failed call; false when one failed. */
+    boolean run(String scenario, ApiClient client, ApiClient.Session session) {
+        return switch (scenario) {
+            case BROWSE -> browse(client, session);
+            case SEARCH -> search(client, session);
+            case CHECKOUT -> checkout(client, session);
+            case MOVE_STOCK -> moveStock(client, session);
+            default -> throw new IllegalArgumentException("Unknown scenario " + scenario);
+        };
+    }
+
+    private boolean browse(ApiClient client, ApiClient.Session session) {
+        return client.call(session, "GET /api/products/{id}", "GET", "/api/products/" + product(session.random), null) != null;
+    }
+
+    private boolean search(ApiClient client, ApiClient.Session session) {
+        String term = SEARCH_TERMS[session.random.nextInt(SEARCH_TERMS.length)];
+        return client.call(session, "GET /api/products/search", "GET",
+                "/api/products/search?limit=20&name=" + term.replace(" ", "%20"), null) != null;
+    }
+
+    private boolean checkout(ApiClient client, ApiClient.Session session) {
+        SplittableRandom random = session.random;
+        long customer = customer(random);
+        List<Map<String, Object>> items = new ArrayList<>();
+        List<Long> chosen = new ArrayList<>();
+        int lines = 1 + random.nextInt(3);
+        for (int line = 0; line < lines; line++) {
+            long productId = product(random);
+            if (!chosen.contains(productId)) {
+                chosen.add(productId);
+                items.add(Map.of("productId", productId, "quantity", 1 + random.nextInt(3)));
+            }
+        }
+        JsonNode order = client.call(session, "POST /api/orders", "POST", "/api/orders", Map.of(
+                "customerId", customer, "billingAddressId", customer, "shippingAddressId", customer, "orderItems", items));
+        if (order == null) {
+            return false;
+        }
+        long orderId = order.path("id").asLong();
+        if (client.call(session, "PUT /api/orders/{id}", "PUT", "/api/orders/" + orderId + "?status=CONFIRMED", null) == null) {
+            return false;
+        }
+
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        JsonNode invoice = client.call(session, "POST /api/invoices", "POST", "/api/invoices", Map.of(
+                "orderId", orderId, "invoiceNumber", "INV-L" + orderId, "tax", TAX_PERCENT,
+                "dueDate", now.plusDays(30).toString(), "paymentStatus", "PENDING"));
+        if (invoice == null) {
+            return false;
+        }
+        long invoiceId = invoice.path("id").asLong();
+        return client.call(session, "POST /api/payments", "POST", "/api/payments", Map.of(
+                "invoiceId", invoiceId, "amount", invoice.path("totalAmount").decimalValue(),
+                "method", PAYMENT_METHODS[random.nextInt(PAYMENT_METHODS.length)], "paymentDate", now.toString(),
+                "transactionId", "TXN-L" + invoiceId, "paymentStatus", "COMPLETED")) != null;
+    }
+
+    private boolean moveStock(ApiClient client, ApiClient.Session session) {
+        SplittableRandom random = session.random;
+        long productId = product(random);
+        int destination = random.nextInt(warehouses);
+        int quantity = 20 + random.nextInt(181);
+        if (!movement(client, session, Map.of("productId", productId, "destinationWarehouseId", destination + 1L,
+                "quantity", quantity, "initiatedById", 1L, "notes", "Load test receipt"))) {
+            return false;
+        }
+        if (warehouses == 1) {
+            return true;
+        }
+        int other = (destination + 1 + random.nextInt(warehouses - 1)) % warehouses;
+        return movement(client, session, Map.of("productId", productId, "sourceWarehouseId", destination + 1L,
+                "destinationWarehouseId", other + 1L, "quantity", quantity / 2, "initiatedById", 1L, "notes", "Load test transfer"));
+    }
+
+    private boolean movement(ApiClient client, ApiClient.Session session, Map<String, Object> movement) {
+        JsonNode created = client.call(session, "POST /api/stock-movements", "POST", "/api/stock-movements", movement);
+        return created != null && client.call(session, "PUT /api/stock-movements/{id}/complete", "PUT",
+                "/api/stock-movements/" + created.path("id").asLong() + "/complete", null) != null;
+    }
+
+    private long product(SplittableRandom random) {
+        return 1 + (productPopularity.sample(random) - 1) * PERMUTATION_PRIME % products;
+    }
+
+    private long customer(SplittableRandom random) {
+        return 1 + (customerPopularity.sample(random) - 1) * PERMUTATION_PRIME % users;
+    }
+}
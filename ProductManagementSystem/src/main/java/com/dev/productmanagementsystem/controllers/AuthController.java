@@ -1,17 +1,22 @@
 package com.dev.productmanagementsystem.controllers;
 
+import com.dev.productmanagementsystem.dto.UserCredentials;
 import com.dev.productmanagementsystem.dto.UserDTO;
-import com.dev.productmanagementsystem.entities.Role;
 import com.dev.productmanagementsystem.entities.User;
+import com.dev.productmanagementsystem.services.AccessTokenService;
+import com.dev.productmanagementsystem.services.PasswordVerificationService;
+import com.dev.productmanagementsystem.services.SessionTokenService;
 import com.dev.productmanagementsystem.services.UserService;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/auth")
@@ -19,88 +24,105 @@ import java.util.stream.Collectors;
 public class AuthController {
 
     private final UserService userService;
-    private final PasswordEncoder passwordEncoder;
-
-    // Simple in-memory token storage (use Redis or database in production)
-    private final Map<String, Long> tokenStore = new HashMap<>();
+    private final SessionTokenService sessionTokenService;
+    private final AccessTokenService accessTokenService;
+    private final PasswordVerificationService passwordVerificationService;
 
     @Autowired
-    public AuthController(UserService userService, PasswordEncoder passwordEncoder) {
+    public AuthController(UserService userService,
+                          SessionTokenService sessionTokenService, AccessTokenService accessTokenService,
+                          PasswordVerificationService passwordVerificationService) {
         this.userService = userService;
-        this.passwordEncoder = passwordEncoder;
+        this.sessionTokenService = sessionTokenService;
+        this.accessTokenService = accessTokenService;
+        this.passwordVerificationService = passwordVerificationService;
     }
 
+    /**
+     * Password checks run on the bounded verification pool and the request thread is released
+     * while they do. Attempts are throttled per client address and username before any lookup.
+     */
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody LoginRequest loginRequest) {
+    public CompletableFuture<ResponseEntity<?>> login(@RequestBody LoginRequest loginRequest, HttpServletRequest request) {
         try {
             // Validate input
             if (loginRequest.getUsername() == null || loginRequest.getUsername().trim().isEmpty()) {
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                        .body(new ErrorResponse("Username is required"));
+                return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body(new ErrorResponse("Username is required")));
             }
 
             if (loginRequest.getPassword() == null || loginRequest.getPassword().trim().isEmpty()) {
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                        .body(new ErrorResponse("Password is required"));
-            }
-
-            // Find user by username (case-insensitive)
-            Optional<User> userOptional = userService.findByUsername(loginRequest.getUsername().trim());
-
-            if (!userOptional.isPresent()) {
-                // Log for debugging (remove in production)
-                System.out.println("User not found: " + loginRequest.getUsername());
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                        .body(new ErrorResponse("Invalid credentials"));
+                return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body(new ErrorResponse("Password is required")));
             }
 
-            User user = userOptional.get();
-
-            // Check if user is active
-            if (!user.isActive()) {
-                System.out.println("User account is deactivated: " + loginRequest.getUsername());
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                        .body(new ErrorResponse("Account is deactivated"));
-            }
-
-            // Verify password
-            boolean passwordMatches = passwordEncoder.matches(loginRequest.getPassword(), user.getPassword());
-            System.out.println("Password verification for user " + loginRequest.getUsername() + ": " + passwordMatches);
-
-            if (!passwordMatches) {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                        .body(new ErrorResponse("Invalid credentials"));
+            String username = loginRequest.getUsername().trim();
+            long retryAfter = passwordVerificationService.throttle(username, request.getRemoteAddr());
+            if (retryAfter > 0) {
+                return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                        .header(HttpHeaders.RETRY_AFTER, Long.toString(retryAfter))
+                        .body(new ErrorResponse("Too many login attempts, try again later")));
             }
 
-            // Generate token (simple UUID for demo - use JWT in production)
-            String token = UUID.randomUUID().toString();
-            tokenStore.put(token, user.getId());
+            // One query for the login fields and role names; the User entity is never loaded
+            Optional<UserCredentials> userOptional = userService.findCredentialsByUsername(username);
 
-            // Prepare response
-            LoginResponse response = new LoginResponse();
-            response.setToken(token);
-            response.setUser(convertToDTO(user));
-
-            // Handle roles safely
-            List<String> roleNames = new ArrayList<>();
-            if (user.getRoles() != null && !user.getRoles().isEmpty()) {
-                roleNames = user.getRoles().stream()
-                        .map(Role::getName)
-                        .collect(Collectors.toList());
+            // Unknown users go through the same queue and hashing, so status and timing match a wrong password
+            CompletableFuture<ResponseEntity<?>> verification;
+            if (userOptional.isPresent()) {
+                UserCredentials user = userOptional.get();
+                // Hashes from an older algorithm or cost are replaced while the raw password is at hand
+                verification = passwordVerificationService.verify(loginRequest.getPassword(), user.getPasswordHash(),
+                                newHash -> userService.upgradePasswordHash(user.getId(), user.getPasswordHash(), newHash))
+                        .thenApply(passwordMatches -> loginResponse(user, passwordMatches));
+            } else {
+                verification = passwordVerificationService.rejectUnknown(loginRequest.getPassword())
+                        .thenApply(matches -> ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                                .body(new ErrorResponse("Invalid credentials")));
             }
-            response.setRoles(roleNames);
 
-            System.out.println("Login successful for user: " + loginRequest.getUsername());
-            return ResponseEntity.ok(response);
+            return verification.exceptionally(e -> {
+                if (e.getCause() instanceof RejectedExecutionException) {
+                    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                            .header(HttpHeaders.RETRY_AFTER, "1")
+                            .body(new ErrorResponse("Too many concurrent logins, try again shortly"));
+                }
+                System.err.println("Login error: " + e.getMessage());
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body(new ErrorResponse("Login failed: " + e.getMessage()));
+            });
 
         } catch (Exception e) {
             System.err.println("Login error: " + e.getMessage());
             e.printStackTrace();
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(new ErrorResponse("Login failed: " + e.getMessage()));
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ErrorResponse("Login failed: " + e.getMessage())));
+        }
+    }
+
+    private ResponseEntity<?> loginResponse(UserCredentials user, boolean passwordMatches) {
+        if (!passwordMatches) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(new ErrorResponse("Invalid credentials"));
         }
+
+        // Checked only after the password, so the answer does not reveal which accounts exist
+        if (!user.isActive()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(new ErrorResponse("Account is deactivated"));
+        }
+
+        // Short-lived signed access token, plus a session token to refresh it with
+        LoginResponse response = new LoginResponse();
+        response.setToken(accessTokenService.issue(user));
+        response.setRefreshToken(sessionTokenService.createSession(user.getId()));
+        response.setExpiresIn(accessTokenService.getTtlSeconds());
+        response.setUser(convertToDTO(user));
+        response.setRoles(new ArrayList<>(user.getRoleNames()));
+        return ResponseEntity.ok(response);
     }
 
+    // Stateless: everything in the response comes from the signed token, nothing is loaded
     @GetMapping("/validate")
     public ResponseEntity<?> validateToken(@RequestHeader("Authorization") String authHeader) {
         try {
@@ -110,59 +132,75 @@ public class AuthController {
                         .body(new ErrorResponse("Invalid token format"));
             }
 
-            String token = authHeader.substring(7);
-            Long userId = tokenStore.get(token);
-
-            if (userId == null) {
+            AccessTokenService.Claims claims = accessTokenService.verify(authHeader.substring(7));
+            if (claims == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                         .body(new ErrorResponse("Invalid or expired token"));
             }
 
-            // Get user details
-            Optional<User> userOptional = userService.findById(userId);
-            if (!userOptional.isPresent()) {
-                tokenStore.remove(token); // Clean up invalid token
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                        .body(new ErrorResponse("User not found"));
+            UserDTO user = new UserDTO();
+            user.setId(claims.getUserId());
+            user.setUsername(claims.getUsername());
+            if (!claims.getRoleIds().isEmpty()) {
+                user.setRoleId(claims.getRoleIds().get(0));
+                user.setRoleName(claims.getRoleNames().get(0));
             }
+            user.setActive(true);
 
-            User user = userOptional.get();
+            ValidateResponse response = new ValidateResponse();
+            response.setUser(user);
+            response.setRoles(new ArrayList<>(claims.getRoleNames()));
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            System.err.println("Token validation error: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(new ErrorResponse("Token validation failed"));
+        }
+    }
 
-            // Check if user is still active
-            if (!user.isActive()) {
-                tokenStore.remove(token); // Clean up token for inactive user
+    // Exchanges a live session token for a new access token carrying the user's current roles
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refresh(@RequestBody RefreshRequest request) {
+        try {
+            Long userId = sessionTokenService.validate(request.getRefreshToken());
+            if (userId == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                        .body(new ErrorResponse("Account is deactivated"));
+                        .body(new ErrorResponse("Invalid or expired token"));
             }
 
-            // Prepare response
-            ValidateResponse response = new ValidateResponse();
-            response.setUser(convertToDTO(user));
-
-            // Handle roles safely
-            List<String> roleNames = new ArrayList<>();
-            if (user.getRoles() != null && !user.getRoles().isEmpty()) {
-                roleNames = user.getRoles().stream()
-                        .map(Role::getName)
-                        .collect(Collectors.toList());
+            Optional<UserCredentials> userOptional = userService.findCredentialsById(userId);
+            if (!userOptional.isPresent() || !userOptional.get().isActive()) {
+                sessionTokenService.revokeAll(userId); // End every session of a missing or inactive user
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                        .body(new ErrorResponse("Account is deactivated"));
             }
-            response.setRoles(roleNames);
 
+            LoginResponse response = new LoginResponse();
+            response.setToken(accessTokenService.issue(userOptional.get()));
+            response.setRefreshToken(request.getRefreshToken());
+            response.setExpiresIn(accessTokenService.getTtlSeconds());
             return ResponseEntity.ok(response);
 
         } catch (Exception e) {
-            System.err.println("Token validation error: " + e.getMessage());
+            System.err.println("Token refresh error: " + e.getMessage());
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                    .body(new ErrorResponse("Token validation failed"));
+                    .body(new ErrorResponse("Token refresh failed"));
         }
     }
 
     @PostMapping("/logout")
-    public ResponseEntity<?> logout(@RequestHeader(value = "Authorization", required = false) String authHeader) {
+    public ResponseEntity<?> logout(@RequestHeader(value = "Authorization", required = false) String authHeader,
+                                    @RequestBody(required = false) RefreshRequest request) {
         try {
             if (authHeader != null && authHeader.startsWith("Bearer ")) {
-                String token = authHeader.substring(7);
-                tokenStore.remove(token);
+                AccessTokenService.Claims claims = accessTokenService.verify(authHeader.substring(7));
+                if (claims != null) {
+                    accessTokenService.revoke(claims);
+                }
+            }
+            if (request != null && request.getRefreshToken() != null) {
+                sessionTokenService.revoke(request.getRefreshToken());
             }
             return ResponseEntity.ok(new MessageResponse("Logged out successfully"));
         } catch (Exception e) {
@@ -181,10 +219,9 @@ public class AuthController {
                         .body(new ErrorResponse("Invalid token format"));
             }
 
-            String token = authHeader.substring(7);
-            Long userId = tokenStore.get(token);
+            AccessTokenService.Claims claims = accessTokenService.verify(authHeader.substring(7));
 
-            if (userId == null) {
+            if (claims == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                         .body(new ErrorResponse("Invalid or expired token"));
             }
@@ -201,7 +238,7 @@ public class AuthController {
             }
 
             // Change password using existing service method
-            User updatedUser = userService.changePassword(userId,
+            User updatedUser = userService.changePassword(claims.getUserId(),
                     request.getCurrentPassword(), request.getNewPassword());
 
             return ResponseEntity.ok(new MessageResponse("Password changed successfully"));
@@ -237,8 +274,8 @@ public class AuthController {
         }
     }
 
-    // Helper method to convert User to UserDTO
-    private UserDTO convertToDTO(User user) {
+    // Helper method to convert the login projection to UserDTO
+    private UserDTO convertToDTO(UserCredentials user) {
         UserDTO dto = new UserDTO();
         dto.setId(user.getId());
         dto.setUsername(user.getUsername());
@@ -247,10 +284,9 @@ public class AuthController {
         dto.setLastName(user.getLastName());
 
         // Handle multiple roles - get first role for DTO compatibility
-        if (user.getRoles() != null && !user.getRoles().isEmpty()) {
-            Role firstRole = user.getRoles().iterator().next();
-            dto.setRoleId(firstRole.getId());
-            dto.setRoleName(firstRole.getName());
+        if (!user.getRoleIds().isEmpty()) {
+            dto.setRoleId(user.getRoleIds().get(0));
+            dto.setRoleName(user.getRoleNames().get(0));
         }
 
         dto.setActive(user.isActive());
@@ -273,12 +309,18 @@ public class AuthController {
 
     public static class LoginResponse {
         private String token;
+        private String refreshToken;
+        private long expiresIn;
         private UserDTO user;
         private List<String> roles;
 
         // Getters and setters
         public String getToken() { return token; }
         public void setToken(String token) { this.token = token; }
+        public String getRefreshToken() { return refreshToken; }
+        public void setRefreshToken(String refreshToken) { this.refreshToken = refreshToken; }
+        public long getExpiresIn() { return expiresIn; }
+        public void setExpiresIn(long expiresIn) { this.expiresIn = expiresIn; }
         public UserDTO getUser() { return user; }
         public void setUser(UserDTO user) { this.user = user; }
         public List<String> getRoles() { return roles; }
@@ -296,6 +338,14 @@ public class AuthController {
         public void setRoles(List<String> roles) { this.roles = roles; }
     }
 
+    public static class RefreshRequest {
+        private String refreshToken;
+
+        // Getters and setters
+        public String getRefreshToken() { return refreshToken; }
+        public void setRefreshToken(String refreshToken) { this.refreshToken = refreshToken; }
+    }
+
     public static class ChangePasswordRequest {
         private String currentPassword;
         private String newPassword;
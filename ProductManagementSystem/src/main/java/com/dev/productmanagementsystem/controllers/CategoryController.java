@@ -3,6 +3,7 @@ package com.dev.productmanagementsystem.controllers;
 import com.dev.productmanagementsystem.dto.CategoryDTO;
 import com.dev.productmanagementsystem.entities.Category;
 import com.dev.productmanagementsystem.repositories.CategoryRepository;
+import com.dev.productmanagementsystem.services.CategoryService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -20,6 +21,9 @@ public class CategoryController {
     @Autowired
     private CategoryRepository categoryRepository;
 
+    @Autowired
+    private CategoryService categoryService;
+
     @GetMapping
     public ResponseEntity<List<CategoryDTO>> getAllCategories() {
         List<Category> categories = categoryRepository.findAll();
@@ -61,6 +65,29 @@ public class CategoryController {
         return ResponseEntity.ok(categoryDTOs);
     }
 
+    // Path from the root down to the parent of the category
+    @GetMapping("/{id}/ancestors")
+    public ResponseEntity<List<CategoryDTO>> getAncestors(@PathVariable Long id) {
+        List<CategoryDTO> categoryDTOs = categoryService.findAncestors(id).stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+        return ResponseEntity.ok(categoryDTOs);
+    }
+
+    // Every category below this one at any depth, parents before their children
+    @GetMapping("/{id}/descendants")
+    public ResponseEntity<List<CategoryDTO>> getDescendants(@PathVariable Long id) {
+        List<CategoryDTO> categoryDTOs = categoryService.findDescendants(id).stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+        return ResponseEntity.ok(categoryDTOs);
+    }
+
+    @GetMapping("/{id}/depth")
+    public ResponseEntity<Integer> getDepth(@PathVariable Long id) {
+        return ResponseEntity.ok(categoryService.getDepth(id));
+    }
+
     @GetMapping("/search")
     public ResponseEntity<List<CategoryDTO>> searchCategories(@RequestParam String query) {
         List<Category> categories = categoryRepository.findByNameContainingOrDescriptionContaining(query, query);
@@ -86,7 +113,7 @@ public class CategoryController {
             parentOptional.ifPresent(category::setParent);
         }
 
-        Category savedCategory = categoryRepository.save(category);
+        Category savedCategory = categoryService.save(category);
         return new ResponseEntity<>(convertToDTO(savedCategory), HttpStatus.CREATED);
     }
 
@@ -107,7 +134,7 @@ public class CategoryController {
             category.setParent(null);
         }
 
-        Category updatedCategory = categoryRepository.save(category);
+        Category updatedCategory = categoryService.save(category);
         return ResponseEntity.ok(convertToDTO(updatedCategory));
     }
 
@@ -117,7 +144,7 @@ public class CategoryController {
             return ResponseEntity.notFound().build();
         }
 
-        categoryRepository.deleteById(id);
+        categoryService.delete(id);
         return ResponseEntity.noContent().build();
     }
 
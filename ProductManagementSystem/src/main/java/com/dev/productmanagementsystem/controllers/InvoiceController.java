@@ -10,13 +10,27 @@ import com.dev.productmanagementsystem.enums.PaymentStatus;
 import com.dev.productmanagementsystem.repositories.InvoiceRepository;
 import com.dev.productmanagementsystem.repositories.OrderRepository;
 import com.dev.productmanagementsystem.repositories.PaymentRepository;
+import com.dev.productmanagementsystem.enums.DocumentFormat;
+import com.dev.productmanagementsystem.exceptions.ResourceNotFoundException;
+import com.dev.productmanagementsystem.services.CreditExposureService;
+import com.dev.productmanagementsystem.services.InvoiceDocumentService;
+import com.dev.productmanagementsystem.services.InvoiceService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
@@ -35,6 +49,12 @@ public class InvoiceController {
     @Autowired
     private PaymentRepository paymentRepository;
 
+    @Autowired
+    private CreditExposureService creditExposureService;
+
+    @Autowired
+    private InvoiceDocumentService invoiceDocumentService;
+
     @GetMapping
     public ResponseEntity<List<InvoiceDTO>> getAllInvoices() {
         List<Invoice> invoices = invoiceRepository.findAll();
@@ -118,6 +138,64 @@ public class InvoiceController {
         return ResponseEntity.ok(totalAmount);
     }
 
+    @GetMapping("/exposure/{customerId}")
+    public ResponseEntity<BigDecimal> getCreditExposureByCustomer(@PathVariable Long customerId) {
+        return ResponseEntity.ok(creditExposureService.getExposure(customerId));
+    }
+
+    /**
+     * Streams the rendered invoice. The ETag is the hash of the invoice content, so clients
+     * revalidating an unchanged invoice get a 304 without anything being rendered or read from disk.
+     */
+    @GetMapping("/{id}/document")
+    public void getInvoiceDocument(@PathVariable Long id,
+                                   @RequestParam(defaultValue = "PDF") DocumentFormat format,
+                                   HttpServletRequest request, HttpServletResponse response) throws IOException {
+        try {
+            String eTag = invoiceDocumentService.getETag(id, format);
+            response.setHeader(HttpHeaders.ETAG, eTag);
+            String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+            if (ifNoneMatch != null && (ifNoneMatch.contains(eTag) || ifNoneMatch.trim().equals("*"))) {
+                response.setStatus(HttpStatus.NOT_MODIFIED.value());
+                return;
+            }
+
+            InvoiceDocumentService.RenderedDocument document = invoiceDocumentService.getDocument(id, format);
+            FileChannel opened;
+            try {
+                opened = FileChannel.open(document.getFile(), StandardOpenOption.READ);
+            } catch (NoSuchFileException e) {
+                // Evicted from the render cache in between; rendering again puts it back
+                document = invoiceDocumentService.getDocument(id, format);
+                opened = FileChannel.open(document.getFile(), StandardOpenOption.READ);
+            }
+            response.setHeader(HttpHeaders.ETAG, document.getETag());
+            response.setContentType(format.getContentType());
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                    "inline; filename=\"invoice-" + id + "." + format.getExtension() + "\"");
+
+            try (FileChannel file = opened) {
+                long size = file.size();
+                response.setContentLengthLong(size);
+                // Let the connector send the file itself (sendfile) when it can. Otherwise the file is copied
+                // through a buffer into the response stream, which is an ordinary copy, not zero-copy
+                if (Boolean.TRUE.equals(request.getAttribute("org.apache.tomcat.sendfile.support"))) {
+                    request.setAttribute("org.apache.tomcat.sendfile.filename", document.getFile().toAbsolutePath().toString());
+                    request.setAttribute("org.apache.tomcat.sendfile.start", 0L);
+                    request.setAttribute("org.apache.tomcat.sendfile.end", size);
+                    return;
+                }
+                WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+                long position = 0;
+                while (position < size) {
+                    position += file.transferTo(position, size - position, out);
+                }
+            }
+        } catch (ResourceNotFoundException e) {
+            response.setStatus(HttpStatus.NOT_FOUND.value());
+        }
+    }
+
     @PostMapping
     public ResponseEntity<InvoiceDTO> createInvoice(@RequestBody InvoiceDTO invoiceDTO) {
         Invoice invoice = new Invoice();
@@ -136,16 +214,14 @@ public class InvoiceController {
                 invoice.setOrder(order);
 
                 // Calculate total amount with tax
-                BigDecimal orderTotal = order.getTotalAmount();
-                BigDecimal taxAmount = orderTotal.multiply(invoice.getTax().divide(new BigDecimal("100")));
-                // Use the method from Invoice entity to set the total amount
-                invoice.setTotalAmount(orderTotal.add(taxAmount));
+                invoice.setTotalAmount(InvoiceService.calculateTotalWithTax(order.getTotalAmount(), invoice.getTax()).toBigDecimal());
             } else {
                 return ResponseEntity.badRequest().build();
             }
         }
 
         Invoice savedInvoice = invoiceRepository.save(invoice);
+        creditExposureService.invoiceCreated(savedInvoice);
         return new ResponseEntity<>(convertToDTO(savedInvoice), HttpStatus.CREATED);
     }
 
@@ -161,6 +237,9 @@ public class InvoiceController {
         }
 
         Invoice invoice = existingInvoiceOpt.get();
+        Long previousCustomerId = CreditExposureService.customerIdOf(invoice);
+        PaymentStatus previousStatus = invoice.getPaymentStatus();
+        BigDecimal previousTotal = invoice.getTotalAmount();
         invoice.setInvoiceNumber(invoiceDTO.getInvoiceNumber());
         invoice.setDueDate(invoiceDTO.getDueDate());
         invoice.setTax(invoiceDTO.getTax());
@@ -175,28 +254,29 @@ public class InvoiceController {
                 invoice.setOrder(order);
 
                 // Recalculate total amount with tax
-                BigDecimal orderTotal = order.getTotalAmount();
-                BigDecimal taxAmount = orderTotal.multiply(invoice.getTax().divide(new BigDecimal("100")));
-                invoice.setTotalAmount(orderTotal.add(taxAmount));
+                invoice.setTotalAmount(InvoiceService.calculateTotalWithTax(order.getTotalAmount(), invoice.getTax()).toBigDecimal());
             }
         } else if (invoice.getOrder() != null) {
             // Recalculate total with current order and tax
-            BigDecimal orderTotal = invoice.getOrder().getTotalAmount();
-            BigDecimal taxAmount = orderTotal.multiply(invoice.getTax().divide(new BigDecimal("100")));
-            invoice.setTotalAmount(orderTotal.add(taxAmount));
+            invoice.setTotalAmount(InvoiceService.calculateTotalWithTax(invoice.getOrder().getTotalAmount(), invoice.getTax()).toBigDecimal());
         }
 
         Invoice updatedInvoice = invoiceRepository.save(invoice);
+        creditExposureService.invoiceUpdated(previousCustomerId, previousStatus, previousTotal, updatedInvoice);
+        invoiceDocumentService.invalidate(updatedInvoice.getId());
         return ResponseEntity.ok(convertToDTO(updatedInvoice));
     }
 
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteInvoice(@PathVariable Long id) {
-        if (!invoiceRepository.existsById(id)) {
+        Optional<Invoice> invoice = invoiceRepository.findById(id);
+        if (invoice.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
 
         invoiceRepository.deleteById(id);
+        creditExposureService.invoiceDeleted(invoice.get());
+        invoiceDocumentService.invalidate(id);
         return ResponseEntity.noContent().build();
     }
 
@@ -1,23 +1,38 @@
 package com.dev.productmanagementsystem.controllers;
 
 import com.dev.productmanagementsystem.dto.PaymentDTO;
+import com.dev.productmanagementsystem.dto.PaymentImportResultDTO;
 import com.dev.productmanagementsystem.entities.Payment;
 import com.dev.productmanagementsystem.entities.Invoice;
 import com.dev.productmanagementsystem.enums.PaymentMethod;
 import com.dev.productmanagementsystem.enums.PaymentStatus;
+import com.dev.productmanagementsystem.enums.StatementFormat;
+import com.dev.productmanagementsystem.exceptions.ResourceNotFoundException;
 import com.dev.productmanagementsystem.repositories.PaymentRepository;
 import com.dev.productmanagementsystem.repositories.InvoiceRepository;
+import com.dev.productmanagementsystem.services.LedgerService;
+import com.dev.productmanagementsystem.services.PaymentImportService;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.InputStream;
 import java.math.BigDecimal;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @RestController
@@ -27,11 +42,16 @@ public class PaymentController {
 
     private final PaymentRepository paymentRepository;
     private final InvoiceRepository invoiceRepository;
+    private final PaymentImportService paymentImportService;
+    private final LedgerService ledgerService;
 
     @Autowired
-    public PaymentController(PaymentRepository paymentRepository, InvoiceRepository invoiceRepository) {
+    public PaymentController(PaymentRepository paymentRepository, InvoiceRepository invoiceRepository,
+                             PaymentImportService paymentImportService, LedgerService ledgerService) {
         this.paymentRepository = paymentRepository;
         this.invoiceRepository = invoiceRepository;
+        this.paymentImportService = paymentImportService;
+        this.ledgerService = ledgerService;
     }
 
     @GetMapping
@@ -118,11 +138,31 @@ public class PaymentController {
         }
     }
 
+    @GetMapping("/balance/invoice/{invoiceId}")
+    public Map<String, BigDecimal> getInvoiceBalance(@PathVariable Long invoiceId) {
+        return Map.of("received", ledgerService.getReceivedForInvoice(invoiceId));
+    }
+
+    @GetMapping("/balance/customer/{customerId}")
+    public Map<String, BigDecimal> getCustomerBalance(@PathVariable Long customerId) {
+        return Map.of("received", ledgerService.getReceivedFromCustomer(customerId));
+    }
+
+    @GetMapping("/balance/period/{period}")
+    public Map<String, BigDecimal> getPeriodBalance(@PathVariable String period) {
+        try {
+            return Map.of("received", ledgerService.getReceivedForPeriod(YearMonth.parse(period)));
+        } catch (DateTimeParseException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Period must be formatted as yyyy-MM");
+        }
+    }
+
     @PostMapping
     public ResponseEntity<PaymentDTO> createPayment(@RequestBody PaymentDTO paymentDTO) {
         try {
             Payment payment = convertToEntity(paymentDTO);
             Payment savedPayment = paymentRepository.save(payment);
+            ledgerService.postPayment(savedPayment);
             return new ResponseEntity<>(convertToDTO(savedPayment), HttpStatus.CREATED);
         } catch (Exception e) {
             System.err.println("Error in createPayment: " + e.getMessage());
@@ -131,11 +171,44 @@ public class PaymentController {
         }
     }
 
+    @PostMapping("/import")
+    public ResponseEntity<PaymentImportResultDTO> importStatement(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(defaultValue = "CSV") StatementFormat format) {
+        if (file.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Statement file is empty");
+        }
+        try (InputStream statement = file.getInputStream()) {
+            return ResponseEntity.ok(paymentImportService.importStatement(statement, format));
+        } catch (Exception e) {
+            System.err.println("Error in importStatement: " + e.getMessage());
+            e.printStackTrace();
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to import statement: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/import/reports/{name}")
+    public ResponseEntity<Resource> getImportReport(@PathVariable String name) {
+        try {
+            Path report = paymentImportService.getExceptionReport(name);
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType("text/csv"))
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + name + "\"")
+                    .body(new FileSystemResource(report));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (ResourceNotFoundException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
+        }
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<PaymentDTO> updatePayment(@PathVariable Long id, @RequestBody PaymentDTO paymentDTO) {
         try {
             return paymentRepository.findById(id)
                     .map(existingPayment -> {
+                        LedgerService.Posting previous = LedgerService.Posting.of(existingPayment);
+
                         // Update the existing payment with values from DTO
                         if (paymentDTO.getInvoiceId() != null) {
                             Invoice invoice = invoiceRepository.findById(paymentDTO.getInvoiceId())
@@ -168,6 +241,7 @@ public class PaymentController {
                         }
 
                         Payment updatedPayment = paymentRepository.save(existingPayment);
+                        ledgerService.repostPayment(previous, updatedPayment);
                         return ResponseEntity.ok(convertToDTO(updatedPayment));
                     })
                     .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Payment not found"));
@@ -185,6 +259,7 @@ public class PaymentController {
         try {
             return paymentRepository.findById(id)
                     .map(payment -> {
+                        ledgerService.reversePayment(payment, "Payment deleted");
                         paymentRepository.delete(payment);
                         return new ResponseEntity<Void>(HttpStatus.NO_CONTENT);
                     })
@@ -3,10 +3,12 @@ package com.dev.productmanagementsystem.controllers;
 import com.dev.productmanagementsystem.dto.PermissionDTO;
 import com.dev.productmanagementsystem.entities.Permission;
 import com.dev.productmanagementsystem.repositories.PermissionRepository;
+import com.dev.productmanagementsystem.services.RoleGraphCache;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
@@ -19,10 +21,12 @@ import java.util.stream.Collectors;
 public class PermissionController {
 
     private final PermissionRepository permissionRepository;
+    private final RoleGraphCache roleGraphCache;
 
     @Autowired
-    public PermissionController(PermissionRepository permissionRepository) {
+    public PermissionController(PermissionRepository permissionRepository, RoleGraphCache roleGraphCache) {
         this.permissionRepository = permissionRepository;
+        this.roleGraphCache = roleGraphCache;
     }
 
     @GetMapping
@@ -83,6 +87,7 @@ public class PermissionController {
     }
 
     @PostMapping
+    @PreAuthorize("@permissions.has('MANAGE_ROLES')")
     public ResponseEntity<PermissionDTO> createPermission(@RequestBody PermissionDTO permissionDTO) {
         // Check if permission with the same name already exists
         if (permissionRepository.existsByName(permissionDTO.getName())) {
@@ -91,10 +96,12 @@ public class PermissionController {
 
         Permission permission = convertToEntity(permissionDTO);
         Permission savedPermission = permissionRepository.save(permission);
+        roleGraphCache.graphChanged();
         return new ResponseEntity<>(convertToDTO(savedPermission), HttpStatus.CREATED);
     }
 
     @PutMapping("/{id}")
+    @PreAuthorize("@permissions.has('MANAGE_ROLES')")
     public ResponseEntity<PermissionDTO> updatePermission(@PathVariable Long id, @RequestBody PermissionDTO permissionDTO) {
         return permissionRepository.findById(id)
                 .map(existingPermission -> {
@@ -115,12 +122,14 @@ public class PermissionController {
                     }
 
                     Permission updatedPermission = permissionRepository.save(existingPermission);
+                    roleGraphCache.graphChanged();
                     return ResponseEntity.ok(convertToDTO(updatedPermission));
                 })
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Permission not found"));
     }
 
     @DeleteMapping("/{id}")
+    @PreAuthorize("@permissions.has('MANAGE_ROLES')")
     public ResponseEntity<Void> deletePermission(@PathVariable Long id) {
         return permissionRepository.findById(id)
                 .map(permission -> {
@@ -131,6 +140,7 @@ public class PermissionController {
                     }
 
                     permissionRepository.delete(permission);
+                    roleGraphCache.graphChanged();
                     return new ResponseEntity<Void>(HttpStatus.NO_CONTENT);
                 })
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Permission not found"));
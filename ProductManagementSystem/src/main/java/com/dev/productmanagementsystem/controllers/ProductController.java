@@ -1,21 +1,47 @@
 package com.dev.productmanagementsystem.controllers;
 
+import com.dev.productmanagementsystem.dto.ProductChangesDTO;
 import com.dev.productmanagementsystem.dto.ProductDTO;
+import com.dev.productmanagementsystem.dto.ProductFacetsDTO;
+import com.dev.productmanagementsystem.dto.ProductImportResultDTO;
+import com.dev.productmanagementsystem.dto.ProductPriceDTO;
+import com.dev.productmanagementsystem.dto.ProductPricePageDTO;
 import com.dev.productmanagementsystem.entities.Product;
-import com.dev.productmanagementsystem.entities.Category;
-import com.dev.productmanagementsystem.entities.Warehouse;
+import com.dev.productmanagementsystem.enums.ProductImportFormat;
+import com.dev.productmanagementsystem.exceptions.DuplicateResourceException;
+import com.dev.productmanagementsystem.exceptions.InvalidOperationException;
+import com.dev.productmanagementsystem.exceptions.ResourceNotFoundException;
 import com.dev.productmanagementsystem.repositories.ProductRepository;
-import com.dev.productmanagementsystem.repositories.CategoryRepository;
-import com.dev.productmanagementsystem.repositories.WarehouseRepository;
-
+import com.dev.productmanagementsystem.dto.ProductSkuDTO;
+import com.dev.productmanagementsystem.services.CatalogChangeService;
+import com.dev.productmanagementsystem.services.ProductDetailCache;
+import com.dev.productmanagementsystem.services.PriceIndexService;
+import com.dev.productmanagementsystem.services.ProductFacetService;
+import com.dev.productmanagementsystem.services.ProductImportService;
+import com.dev.productmanagementsystem.services.ProductPriceService;
+import com.dev.productmanagementsystem.services.ProductService;
+import com.dev.productmanagementsystem.services.ProductSearchService;
+import com.dev.productmanagementsystem.services.SkuLookupService;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.InputStream;
 import java.math.BigDecimal;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -25,41 +51,138 @@ import java.util.stream.Collectors;
 @RequestMapping("/api/products")
 public class ProductController {
 
+    private static final Logger log = LoggerFactory.getLogger(ProductController.class);
+
     private final ProductRepository productRepository;
-    private final CategoryRepository categoryRepository;
-    private final WarehouseRepository warehouseRepository;
+    private final ProductService productService;
+    private final ProductSearchService productSearchService;
+    private final SkuLookupService skuLookupService;
+    private final ProductFacetService productFacetService;
+    private final PriceIndexService priceIndexService;
+    private final CatalogChangeService catalogChangeService;
+    private final ProductImportService productImportService;
+    private final ProductPriceService productPriceService;
+    private final ProductDetailCache productDetailCache;
 
     @Autowired
     public ProductController(
             ProductRepository productRepository,
-            CategoryRepository categoryRepository,
-            WarehouseRepository warehouseRepository) {
+            ProductService productService,
+            ProductSearchService productSearchService,
+            SkuLookupService skuLookupService,
+            ProductFacetService productFacetService,
+            PriceIndexService priceIndexService,
+            CatalogChangeService catalogChangeService,
+            ProductImportService productImportService,
+            ProductPriceService productPriceService,
+            ProductDetailCache productDetailCache) {
         this.productRepository = productRepository;
-        this.categoryRepository = categoryRepository;
-        this.warehouseRepository = warehouseRepository;
+        this.productService = productService;
+        this.productSearchService = productSearchService;
+        this.skuLookupService = skuLookupService;
+        this.productFacetService = productFacetService;
+        this.priceIndexService = priceIndexService;
+        this.catalogChangeService = catalogChangeService;
+        this.productImportService = productImportService;
+        this.productPriceService = productPriceService;
+        this.productDetailCache = productDetailCache;
     }
 
+    /**
+     * The whole catalog. The ETag is the catalog version, so a client polling an unchanged catalog
+     * gets a 304 without a query; the version is also sent as X-Catalog-Version for /changes.
+     */
     @GetMapping
-    public List<ProductDTO> getAllProducts() {
-        return productRepository.findAll().stream()
+    public ResponseEntity<List<ProductDTO>> getAllProducts(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        // Read before the products, so changes racing with the read are sent again rather than missed
+        long version = catalogChangeService.currentVersion();
+        String eTag = "\"catalog-" + version + "\"";
+        if (ifNoneMatch != null && (ifNoneMatch.contains(eTag) || ifNoneMatch.trim().equals("*"))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+        List<ProductDTO> products = productRepository.findAll().stream()
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .header("X-Catalog-Version", String.valueOf(version))
+                .body(products);
     }
 
+    // Products changed or deleted after a catalog version; repeat from the returned version while hasMore
+    @GetMapping("/changes")
+    public ProductChangesDTO getProductChanges(
+            @RequestParam long since,
+            @RequestParam(defaultValue = "1000") int limit) {
+        if (since < 0 || limit < 1 || limit > 10000) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Since must not be negative and limit must be between 1 and 10000");
+        }
+        if (since > catalogChangeService.currentVersion()) {
+            throw new ResponseStatusException(HttpStatus.GONE, "Unknown catalog version; reload the full catalog");
+        }
+        CatalogChangeService.Changes changes = catalogChangeService.changesSince(since, limit);
+        ProductChangesDTO dto = new ProductChangesDTO();
+        dto.setVersion(changes.getVersion());
+        dto.setHasMore(changes.isHasMore());
+        dto.setChanged(changes.getChanged().stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList()));
+        dto.setDeleted(changes.getDeleted());
+        return dto;
+    }
+
+    // Served from the detail cache while the product is unchanged
     @GetMapping("/{id}")
     public ResponseEntity<ProductDTO> getProductById(@PathVariable Long id) {
-        return productRepository.findById(id)
-                .map(this::convertToDTO)
-                .map(ResponseEntity::ok)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found"));
+        ProductDTO product = productDetailCache.get(id, productId -> productRepository.findById(productId)
+                .map(this::convertToDetailDTO)
+                .orElse(null));
+        if (product == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found");
+        }
+        return ResponseEntity.ok(product);
     }
 
+    // Full product with stock levels; the SKU index finds the id and the detail cache the body
     @GetMapping("/sku/{sku}")
     public ResponseEntity<ProductDTO> getProductBySku(@PathVariable String sku) {
-        return productRepository.findBySku(sku)
-                .map(this::convertToDTO)
-                .map(ResponseEntity::ok)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found"));
+        ProductSkuDTO match = skuLookupService.findBySku(sku);
+        if (match == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found");
+        }
+        ProductDTO product = productDetailCache.get(match.getId(), productId -> productRepository.findById(productId)
+                .map(this::convertToDetailDTO)
+                .orElse(null));
+        if (product == null || !sku.equals(product.getSku())) {
+            // Changed since the SKU was looked up
+            return productRepository.findBySku(sku)
+                    .map(this::convertToDTO)
+                    .map(ResponseEntity::ok)
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found"));
+        }
+        return ResponseEntity.ok(product);
+    }
+
+    // Scanner lookup without stock levels, answered from memory
+    @GetMapping("/sku/{sku}/summary")
+    public ResponseEntity<ProductSkuDTO> getProductSummaryBySku(@PathVariable String sku) {
+        ProductSkuDTO product = skuLookupService.findBySku(sku);
+        if (product == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found");
+        }
+        return ResponseEntity.ok(product);
+    }
+
+    // Products whose SKU starts with the scanned part, ordered by SKU
+    @GetMapping("/sku")
+    public List<ProductSkuDTO> getProductsBySkuPrefix(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "50") int limit) {
+        if (prefix.isEmpty() || limit < 1 || limit > 1000) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Prefix must not be empty and limit must be between 1 and 1000");
+        }
+        return skuLookupService.findBySkuPrefix(prefix, limit);
     }
 
     @GetMapping("/category/{categoryId}")
@@ -69,6 +192,14 @@ public class ProductController {
                 .collect(Collectors.toList());
     }
 
+    // Products in the category or any category below it
+    @GetMapping("/category/{categoryId}/subtree")
+    public List<ProductDTO> getProductsInCategorySubtree(@PathVariable Long categoryId) {
+        return productRepository.findInCategorySubtree(categoryId).stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+    }
+
     @GetMapping("/price/less-than/{price}")
     public List<ProductDTO> getProductsByPriceLessThan(@PathVariable BigDecimal price) {
         return productRepository.findByPriceLessThan(price).stream()
@@ -91,13 +222,95 @@ public class ProductController {
                 .collect(Collectors.toList());
     }
 
+    // Paged products in a price range (bounds inclusive, either optional), cheapest first, from memory
+    @GetMapping("/price/range")
+    public ProductPricePageDTO getProductsInPriceRange(
+            @RequestParam(required = false) BigDecimal min,
+            @RequestParam(required = false) BigDecimal max,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
+        if (page < 0 || size < 1 || size > 1000) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Page must not be negative and size must be between 1 and 1000");
+        }
+        return priceIndexService.findInRange(min, max, page, size);
+    }
+
+    @GetMapping("/price/range/count")
+    public ResponseEntity<Long> getProductCountInPriceRange(
+            @RequestParam(required = false) BigDecimal min,
+            @RequestParam(required = false) BigDecimal max) {
+        return ResponseEntity.ok(priceIndexService.countInRange(min, max));
+    }
+
+    // The cheapest products, or with order=desc the most expensive ones
+    @GetMapping("/price/top")
+    public List<ProductSkuDTO> getProductsByPriceRank(
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(defaultValue = "asc") String order) {
+        if (limit < 1 || limit > 1000) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Limit must be between 1 and 1000");
+        }
+        return priceIndexService.findCheapest(limit, "desc".equalsIgnoreCase(order));
+    }
+
+    // Price below which the given percentage of products fall, e.g. p=50 for the median
+    @GetMapping("/price/percentile")
+    public ResponseEntity<BigDecimal> getPricePercentile(@RequestParam double p) {
+        if (p < 0 || p > 100) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Percentile must be between 0 and 100");
+        }
+        BigDecimal price = priceIndexService.percentile(p);
+        if (price == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No product has a price");
+        }
+        return ResponseEntity.ok(price);
+    }
+
+    // Ranked full-text search over name, description and SKU; tolerates prefixes and typos
     @GetMapping("/search")
-    public List<ProductDTO> getProductsByNameContaining(@RequestParam String name) {
-        return productRepository.findByNameContainingIgnoreCase(name).stream()
+    public List<ProductDTO> getProductsByNameContaining(
+            @RequestParam String name,
+            @RequestParam(defaultValue = "100") int limit) {
+        if (limit < 1 || limit > 1000) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Limit must be between 1 and 1000");
+        }
+        return productSearchService.findProducts(name, limit).stream()
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
     }
 
+    // Filtered page of products with counts per category (subtree), price band and warehouse
+    @GetMapping("/facets")
+    public ProductFacetsDTO getProductFacets(
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(required = false) Integer priceBucket,
+            @RequestParam(required = false) Long warehouseId,
+            @RequestParam(defaultValue = "false") boolean inStock,
+            @RequestParam(required = false) String q,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
+        if (page < 0 || size < 1 || size > 1000) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Page must not be negative and size must be between 1 and 1000");
+        }
+        if (priceBucket != null && (priceBucket < 0 || priceBucket >= productFacetService.getPriceBucketCount())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown price bucket");
+        }
+        ProductFacetService.Result result = productFacetService.query(categoryId, priceBucket, warehouseId, inStock, q, page, size);
+        Map<Long, Product> products = new HashMap<>();
+        for (Product product : productRepository.findAllById(result.getProductIds())) {
+            products.put(product.getId(), product);
+        }
+        ProductFacetsDTO facets = result.getFacets();
+        for (Long id : result.getProductIds()) {
+            Product product = products.get(id);
+            // Deleted after the query ran
+            if (product != null) {
+                facets.getProducts().add(convertToDTO(product));
+            }
+        }
+        return facets;
+    }
+
     @GetMapping("/warehouse/{warehouseId}/in-stock")
     public List<ProductDTO> getProductsInStockAtWarehouse(@PathVariable Long warehouseId) {
         return productRepository.findInStockAtWarehouse(warehouseId).stream()
@@ -125,91 +338,137 @@ public class ProductController {
         return ResponseEntity.ok(count);
     }
 
+    @GetMapping("/category/{categoryId}/subtree/count")
+    public ResponseEntity<Long> getProductCountInCategorySubtree(@PathVariable Long categoryId) {
+        Long count = productRepository.countInCategorySubtree(categoryId);
+        return ResponseEntity.ok(count);
+    }
+
+    // Price versions of a product, oldest first, including scheduled ones
+    @GetMapping("/{id}/prices")
+    public List<ProductPriceDTO> getPriceHistory(@PathVariable Long id) {
+        if (!productRepository.existsById(id)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found");
+        }
+        return productPriceService.getHistory(id);
+    }
+
+    // Price in effect at a time (ISO local date-time), past or scheduled; 204 when the product had no price
+    @GetMapping("/{id}/prices/at")
+    public ResponseEntity<BigDecimal> getPriceAt(
+            @PathVariable Long id,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime time) {
+        if (!productRepository.existsById(id)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found");
+        }
+        BigDecimal price = productPriceService.priceAt(id, time);
+        return price == null ? ResponseEntity.noContent().build() : ResponseEntity.ok(price);
+    }
+
+    // Schedules a price change; body: {"price": 12.50, "effectiveFrom": "2026-01-01T00:00:00"}
+    @PostMapping("/{id}/prices")
+    public ResponseEntity<ProductPriceDTO> schedulePrice(@PathVariable Long id, @RequestBody ProductPriceDTO priceDTO) {
+        try {
+            return new ResponseEntity<>(productPriceService.schedulePrice(id, priceDTO.getPrice(), priceDTO.getEffectiveFrom()),
+                    HttpStatus.CREATED);
+        } catch (ResourceNotFoundException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
+        } catch (InvalidOperationException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    @DeleteMapping("/{id}/prices/{priceId}")
+    public ResponseEntity<Void> cancelScheduledPrice(@PathVariable Long id, @PathVariable Long priceId) {
+        try {
+            productPriceService.cancelScheduledPrice(id, priceId);
+            return ResponseEntity.noContent().build();
+        } catch (ResourceNotFoundException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
+        } catch (InvalidOperationException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage());
+        }
+    }
+
+    // Creates or updates products from a CSV or JSON lines file; rejected lines go to the error report
+    @PostMapping("/import")
+    public ResponseEntity<ProductImportResultDTO> importProducts(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(defaultValue = "CSV") ProductImportFormat format) {
+        if (file.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Import file is empty");
+        }
+        try (InputStream products = file.getInputStream()) {
+            return ResponseEntity.ok(productImportService.importProducts(products, format));
+        } catch (Exception e) {
+            log.error("Importing products from {} failed", file.getOriginalFilename(), e);
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to import products: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/import/reports/{name}")
+    public ResponseEntity<Resource> getImportReport(@PathVariable String name) {
+        try {
+            Path report = productImportService.getErrorReport(name);
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType("text/csv"))
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + name + "\"")
+                    .body(new FileSystemResource(report));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (ResourceNotFoundException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
+        }
+    }
+
+    // Saving, the SKU check and the index hooks share the service's transaction
     @PostMapping
     public ResponseEntity<ProductDTO> createProduct(@RequestBody ProductDTO productDTO) {
-        // Check if product with the same SKU already exists
-        if (productDTO.getSku() != null && productRepository.findBySku(productDTO.getSku()).isPresent()) {
-            throw new ResponseStatusException(HttpStatus.CONFLICT, "Product with this SKU already exists");
+        try {
+            return new ResponseEntity<>(productService.createProduct(productDTO), HttpStatus.CREATED);
+        } catch (DuplicateResourceException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
         }
-
-        Product product = convertToEntity(productDTO);
-        Product savedProduct = productRepository.save(product);
-        return new ResponseEntity<>(convertToDTO(savedProduct), HttpStatus.CREATED);
     }
 
     @PutMapping("/{id}")
     public ResponseEntity<ProductDTO> updateProduct(@PathVariable Long id, @RequestBody ProductDTO productDTO) {
-        return productRepository.findById(id)
-                .map(existingProduct -> {
-                    // Check if SKU is being changed and if new SKU already exists
-                    if (productDTO.getSku() != null &&
-                            !productDTO.getSku().equals(existingProduct.getSku()) &&
-                            productRepository.findBySku(productDTO.getSku()).isPresent()) {
-                        throw new ResponseStatusException(HttpStatus.CONFLICT, "Product with this SKU already exists");
-                    }
-
-                    // Update the existing product with values from DTO
-                    if (productDTO.getName() != null) {
-                        existingProduct.setName(productDTO.getName());
-                    }
-
-                    if (productDTO.getDescription() != null) {
-                        existingProduct.setDescription(productDTO.getDescription());
-                    }
-
-                    if (productDTO.getSku() != null) {
-                        existingProduct.setSku(productDTO.getSku());
-                    }
-
-                    if (productDTO.getPrice() != null) {
-                        existingProduct.setPrice(productDTO.getPrice());
-                    }
-
-                    if (productDTO.getCategoryId() != null) {
-                        Category category = categoryRepository.findById(productDTO.getCategoryId())
-                                .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Category not found"));
-                        existingProduct.setCategory(category);
-                    }
-
-                    Product updatedProduct = productRepository.save(existingProduct);
-                    return ResponseEntity.ok(convertToDTO(updatedProduct));
-                })
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found"));
+        try {
+            return ResponseEntity.ok(productService.updateProduct(id, productDTO));
+        } catch (ResourceNotFoundException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found");
+        } catch (DuplicateResourceException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
     }
 
     @PatchMapping("/{id}/stock")
     public ResponseEntity<ProductDTO> updateProductStock(
             @PathVariable Long id,
             @RequestBody Map<Long, Integer> stockQuantities) {
-        return productRepository.findById(id)
-                .map(existingProduct -> {
-                    Map<Warehouse, Integer> warehouses = new HashMap<>();
-
-                    stockQuantities.forEach((warehouseId, quantity) -> {
-                        Warehouse warehouse = warehouseRepository.findById(warehouseId)
-                                .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST,
-                                        "Warehouse with ID " + warehouseId + " not found"));
-                        warehouses.put(warehouse, quantity);
-                    });
-
-                    existingProduct.setStockQuantities(warehouses);
-                    Product updatedProduct = productRepository.save(existingProduct);
-                    return ResponseEntity.ok(convertToDTO(updatedProduct));
-                })
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found"));
+        try {
+            return ResponseEntity.ok(productService.replaceStock(id, stockQuantities));
+        } catch (ResourceNotFoundException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found");
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
     }
 
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteProduct(@PathVariable Long id) {
-        return productRepository.findById(id)
-                .map(product -> {
-                    productRepository.delete(product);
-                    return new ResponseEntity<Void>(HttpStatus.NO_CONTENT);
-                })
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found"));
+        try {
+            productService.deleteProduct(id);
+            return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        } catch (ResourceNotFoundException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found");
+        }
     }
 
-    // Helper methods
     private ProductDTO convertToDTO(Product product) {
         ProductDTO dto = new ProductDTO();
         dto.setId(product.getId());
@@ -234,35 +493,10 @@ public class ProductController {
         return dto;
     }
 
-    private Product convertToEntity(ProductDTO dto) {
-        Product entity = new Product();
-
-        if (dto.getId() != null) {
-            entity.setId(dto.getId());
-        }
-
-        entity.setName(dto.getName());
-        entity.setDescription(dto.getDescription());
-        entity.setSku(dto.getSku());
-        entity.setPrice(dto.getPrice());
-
-        if (dto.getCategoryId() != null) {
-            Category category = categoryRepository.findById(dto.getCategoryId())
-                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Category not found"));
-            entity.setCategory(category);
-        }
-
-        if (dto.getStockQuantities() != null && !dto.getStockQuantities().isEmpty()) {
-            Map<Warehouse, Integer> warehouses = new HashMap<>();
-            dto.getStockQuantities().forEach((warehouseId, quantity) -> {
-                Warehouse warehouse = warehouseRepository.findById(warehouseId)
-                        .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST,
-                                "Warehouse with ID " + warehouseId + " not found"));
-                warehouses.put(warehouse, quantity);
-            });
-            entity.setStockQuantities(warehouses);
-        }
-
-        return entity;
+    // A DTO to share through the detail cache, with a stock map nobody can change
+    private ProductDTO convertToDetailDTO(Product product) {
+        ProductDTO dto = convertToDTO(product);
+        dto.setStockQuantities(Collections.unmodifiableMap(dto.getStockQuantities()));
+        return dto;
     }
-}
\ No newline at end of file
+}
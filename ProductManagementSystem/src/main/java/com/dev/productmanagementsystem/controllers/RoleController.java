@@ -6,6 +6,7 @@ import com.dev.productmanagementsystem.services.RoleService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -39,18 +40,21 @@ public class RoleController {
     }
 
     @PostMapping
+    @PreAuthorize("@permissions.has('MANAGE_ROLES')")
     public ResponseEntity<RoleDTO> createRole(@RequestBody RoleDTO roleDTO) {
         Role createdRole = roleService.createRole(roleDTO.getName(), roleDTO.getPermissionIds());
         return new ResponseEntity<>(convertToDTO(createdRole), HttpStatus.CREATED);
     }
 
     @PutMapping("/{id}")
+    @PreAuthorize("@permissions.has('MANAGE_ROLES')")
     public ResponseEntity<RoleDTO> updateRole(@PathVariable Long id, @RequestBody RoleDTO roleDTO) {
         Role updatedRole = roleService.updateRole(id, roleDTO.getName());
         return ResponseEntity.ok(convertToDTO(updatedRole));
     }
 
     @PutMapping("/{id}/permissions/add")
+    @PreAuthorize("@permissions.has('MANAGE_ROLES')")
     public ResponseEntity<RoleDTO> addPermissionsToRole(
             @PathVariable Long id,
             @RequestBody Set<Long> permissionIds) {
@@ -59,6 +63,7 @@ public class RoleController {
     }
 
     @PutMapping("/{id}/permissions/remove")
+    @PreAuthorize("@permissions.has('MANAGE_ROLES')")
     public ResponseEntity<RoleDTO> removePermissionsFromRole(
             @PathVariable Long id,
             @RequestBody Set<Long> permissionIds) {
@@ -67,6 +72,7 @@ public class RoleController {
     }
 
     @DeleteMapping("/{id}")
+    @PreAuthorize("@permissions.has('MANAGE_ROLES')")
     public ResponseEntity<Void> deleteRole(@PathVariable Long id) {
         roleService.deleteRole(id);
         return ResponseEntity.noContent().build();
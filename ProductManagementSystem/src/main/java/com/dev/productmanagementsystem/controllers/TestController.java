@@ -1,14 +1,20 @@
 package com.dev.productmanagementsystem.controllers;
 
 import com.dev.productmanagementsystem.entities.User;
+import com.dev.productmanagementsystem.services.PasswordVerificationService;
 import com.dev.productmanagementsystem.services.UserService;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/test")
@@ -17,11 +23,14 @@ public class TestController {
 
     private final UserService userService;
     private final PasswordEncoder passwordEncoder;
+    private final PasswordVerificationService passwordVerificationService;
 
     @Autowired
-    public TestController(UserService userService, PasswordEncoder passwordEncoder) {
+    public TestController(UserService userService, PasswordEncoder passwordEncoder,
+                          PasswordVerificationService passwordVerificationService) {
         this.userService = userService;
         this.passwordEncoder = passwordEncoder;
+        this.passwordVerificationService = passwordVerificationService;
     }
 
     @PostMapping("/create-test-user")
@@ -59,26 +68,44 @@ public class TestController {
     }
 
     @PostMapping("/test-password")
-    public ResponseEntity<?> testPassword(@RequestBody TestPasswordRequest request) {
-        try {
-            String rawPassword = request.getRawPassword();
-            String encodedPassword = request.getEncodedPassword();
-
-            boolean matches = passwordEncoder.matches(rawPassword, encodedPassword);
-
-            Map<String, Object> response = new HashMap<>();
-            response.put("rawPassword", rawPassword);
-            response.put("encodedPassword", encodedPassword);
-            response.put("matches", matches);
-
-            return ResponseEntity.ok(response);
-
-        } catch (Exception e) {
+    public CompletableFuture<ResponseEntity<?>> testPassword(@RequestBody TestPasswordRequest request,
+                                                             HttpServletRequest httpRequest) {
+        String rawPassword = request.getRawPassword();
+        String encodedPassword = request.getEncodedPassword();
+
+        // Same pool and address limit as logins, so this endpoint cannot be used to burn CPU on hashing
+        long retryAfter = passwordVerificationService.throttle(null, httpRequest.getRemoteAddr());
+        if (retryAfter > 0) {
             Map<String, Object> response = new HashMap<>();
             response.put("success", false);
-            response.put("message", "Password test failed: " + e.getMessage());
-            return ResponseEntity.badRequest().body(response);
+            response.put("message", "Too many attempts, try again later");
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, Long.toString(retryAfter))
+                    .body(response));
         }
+
+        return passwordVerificationService.verify(rawPassword, encodedPassword)
+                .<ResponseEntity<?>>thenApply(matches -> {
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("rawPassword", rawPassword);
+                    response.put("encodedPassword", encodedPassword);
+                    response.put("matches", matches);
+
+                    return ResponseEntity.ok(response);
+                })
+                .exceptionally(e -> {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("success", false);
+                    if (cause instanceof RejectedExecutionException) {
+                        response.put("message", "Too many concurrent password checks, try again shortly");
+                        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                                .header(HttpHeaders.RETRY_AFTER, "1")
+                                .body(response);
+                    }
+                    response.put("message", "Password test failed: " + cause.getMessage());
+                    return ResponseEntity.badRequest().body(response);
+                });
     }
 
     @GetMapping("/encode-password/{password}")
@@ -7,6 +7,7 @@ import com.dev.productmanagementsystem.services.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -103,6 +104,7 @@ public class UserController {
     }
 
     @PutMapping("/{id}/role")
+    @PreAuthorize("@permissions.has('MANAGE_ROLES')")
     public ResponseEntity<UserDTO> assignRole(@PathVariable Long id, @RequestParam Long roleId) {
         User updatedUser = userService.assignRole(id, roleId);
         return ResponseEntity.ok(convertToDTO(updatedUser));
@@ -169,6 +171,7 @@ public class UserController {
         }
 
         dto.setActive(user.isActive());
+        dto.setCreditLimit(user.getCreditLimit());
         dto.setCreatedAt(user.getCreatedAt());
 
         return dto;
@@ -0,0 +1,28 @@
+package com.dev.productmanagementsystem.dto;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class DatasetResultDTO {
+    // Rows written per table, in the order the tables were filled
+    private Map<String, Long> rows = new LinkedHashMap<>();
+    private long elapsedMillis;
+
+    // Constructors
+    public DatasetResultDTO() {}
+
+    // Getters and Setters
+    public Map<String, Long> getRows() { return rows; }
+    public void setRows(Map<String, Long> rows) { this.rows = rows; }
+
+    public long getElapsedMillis() { return elapsedMillis; }
+    public void setElapsedMillis(long elapsedMillis) { this.elapsedMillis = elapsedMillis; }
+
+    public long getTotalRows() {
+        return rows.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    public long getRowsPerMinute() {
+        return elapsedMillis == 0 ? getTotalRows() : getTotalRows() * 60_000 / elapsedMillis;
+    }
+}
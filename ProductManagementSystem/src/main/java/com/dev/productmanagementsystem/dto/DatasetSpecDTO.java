@@ -0,0 +1,108 @@
+package com.dev.productmanagementsystem.dto;
+
+import java.time.LocalDate;
+
+/** What DatasetGeneratorService generates; bound from the dataset.* properties on the command line. */
+public class DatasetSpecDTO {
+    // Same seed and counts, same rows
+    private long seed = 42;
+
+    // Row counts
+    private int users = 10_000;
+    private int warehouses = 20;
+    private int categories = 500;
+    private int categoryDepth = 6;
+    private int products = 100_000;
+    private int orders = 200_000;
+    private int stockMovements = 50_000;
+
+    // Shape of the data
+    private int maxWarehousesPerProduct = 3;
+    private int maxItemsPerOrder = 8;
+    private double skuSkew = 1.1;
+    private double customerSkew = 0.8;
+    private LocalDate start = LocalDate.of(2024, 1, 1);
+    private int months = 24;
+    private double seasonality = 0.5;
+    private int peakMonth = 12;
+    private double cancelledShare = 0.03;
+    private double paidShare = 0.85;
+
+    // Generated users log in with this password and get this role when it exists
+    private String password = "password";
+    private String role = "USER";
+
+    // Writing
+    private int threads = 0;
+    private int batchSize = 1000;
+
+    // Constructors
+    public DatasetSpecDTO() {}
+
+    // Getters and Setters
+    public long getSeed() { return seed; }
+    public void setSeed(long seed) { this.seed = seed; }
+
+    public int getUsers() { return users; }
+    public void setUsers(int users) { this.users = users; }
+
+    public int getWarehouses() { return warehouses; }
+    public void setWarehouses(int warehouses) { this.warehouses = warehouses; }
+
+    public int getCategories() { return categories; }
+    public void setCategories(int categories) { this.categories = categories; }
+
+    public int getCategoryDepth() { return categoryDepth; }
+    public void setCategoryDepth(int categoryDepth) { this.categoryDepth = categoryDepth; }
+
+    public int getProducts() { return products; }
+    public void setProducts(int products) { this.products = products; }
+
+    public int getOrders() { return orders; }
+    public void setOrders(int orders) { this.orders = orders; }
+
+    public int getStockMovements() { return stockMovements; }
+    public void setStockMovements(int stockMovements) { this.stockMovements = stockMovements; }
+
+    public int getMaxWarehousesPerProduct() { return maxWarehousesPerProduct; }
+    public void setMaxWarehousesPerProduct(int maxWarehousesPerProduct) { this.maxWarehousesPerProduct = maxWarehousesPerProduct; }
+
+    public int getMaxItemsPerOrder() { return maxItemsPerOrder; }
+    public void setMaxItemsPerOrder(int maxItemsPerOrder) { this.maxItemsPerOrder = maxItemsPerOrder; }
+
+    public double getSkuSkew() { return skuSkew; }
+    public void setSkuSkew(double skuSkew) { this.skuSkew = skuSkew; }
+
+    public double getCustomerSkew() { return customerSkew; }
+    public void setCustomerSkew(double customerSkew) { this.customerSkew = customerSkew; }
+
+    public LocalDate getStart() { return start; }
+    public void setStart(LocalDate start) { this.start = start; }
+
+    public int getMonths() { return months; }
+    public void setMonths(int months) { this.months = months; }
+
+    public double getSeasonality() { return seasonality; }
+    public void setSeasonality(double seasonality) { this.seasonality = seasonality; }
+
+    public int getPeakMonth() { return peakMonth; }
+    public void setPeakMonth(int peakMonth) { this.peakMonth = peakMonth; }
+
+    public double getCancelledShare() { return cancelledShare; }
+    public void setCancelledShare(double cancelledShare) { this.cancelledShare = cancelledShare; }
+
+    public double getPaidShare() { return paidShare; }
+    public void setPaidShare(double paidShare) { this.paidShare = paidShare; }
+
+    public String getPassword() { return password; }
+    public void setPassword(String password) { this.password = password; }
+
+    public String getRole() { return role; }
+    public void setRole(String role) { this.role = role; }
+
+    public int getThreads() { return threads; }
+    public void setThreads(int threads) { this.threads = threads; }
+
+    public int getBatchSize() { return batchSize; }
+    public void setBatchSize(int batchSize) { this.batchSize = batchSize; }
+}
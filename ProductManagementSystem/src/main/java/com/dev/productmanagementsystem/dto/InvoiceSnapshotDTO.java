@@ -0,0 +1,131 @@
+package com.dev.productmanagementsystem.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Everything printed on an invoice document, flattened so rendering needs no entity access
+public class InvoiceSnapshotDTO {
+    private Long invoiceId;
+    private String invoiceNumber;
+    private String orderNumber;
+    private LocalDateTime issueDate;
+    private LocalDateTime dueDate;
+    private String paymentStatus;
+    private String customerName;
+    private String customerEmail;
+    private List<String> billingAddress = new ArrayList<>();
+    private List<String> shippingAddress = new ArrayList<>();
+    private List<ItemLine> items = new ArrayList<>();
+    private BigDecimal subtotal;
+    private BigDecimal taxPercent;
+    private BigDecimal taxAmount;
+    private BigDecimal totalAmount;
+    private List<PaymentLine> payments = new ArrayList<>();
+    private BigDecimal paidAmount;
+    private BigDecimal remainingAmount;
+
+    // Constructors
+    public InvoiceSnapshotDTO() {}
+
+    // Getters and Setters
+    public Long getInvoiceId() { return invoiceId; }
+    public void setInvoiceId(Long invoiceId) { this.invoiceId = invoiceId; }
+
+    public String getInvoiceNumber() { return invoiceNumber; }
+    public void setInvoiceNumber(String invoiceNumber) { this.invoiceNumber = invoiceNumber; }
+
+    public String getOrderNumber() { return orderNumber; }
+    public void setOrderNumber(String orderNumber) { this.orderNumber = orderNumber; }
+
+    public LocalDateTime getIssueDate() { return issueDate; }
+    public void setIssueDate(LocalDateTime issueDate) { this.issueDate = issueDate; }
+
+    public LocalDateTime getDueDate() { return dueDate; }
+    public void setDueDate(LocalDateTime dueDate) { this.dueDate = dueDate; }
+
+    public String getPaymentStatus() { return paymentStatus; }
+    public void setPaymentStatus(String paymentStatus) { this.paymentStatus = paymentStatus; }
+
+    public String getCustomerName() { return customerName; }
+    public void setCustomerName(String customerName) { this.customerName = customerName; }
+
+    public String getCustomerEmail() { return customerEmail; }
+    public void setCustomerEmail(String customerEmail) { this.customerEmail = customerEmail; }
+
+    public List<String> getBillingAddress() { return billingAddress; }
+    public void setBillingAddress(List<String> billingAddress) { this.billingAddress = billingAddress; }
+
+    public List<String> getShippingAddress() { return shippingAddress; }
+    public void setShippingAddress(List<String> shippingAddress) { this.shippingAddress = shippingAddress; }
+
+    public List<ItemLine> getItems() { return items; }
+    public void setItems(List<ItemLine> items) { this.items = items; }
+
+    public BigDecimal getSubtotal() { return subtotal; }
+    public void setSubtotal(BigDecimal subtotal) { this.subtotal = subtotal; }
+
+    public BigDecimal getTaxPercent() { return taxPercent; }
+    public void setTaxPercent(BigDecimal taxPercent) { this.taxPercent = taxPercent; }
+
+    public BigDecimal getTaxAmount() { return taxAmount; }
+    public void setTaxAmount(BigDecimal taxAmount) { this.taxAmount = taxAmount; }
+
+    public BigDecimal getTotalAmount() { return totalAmount; }
+    public void setTotalAmount(BigDecimal totalAmount) { this.totalAmount = totalAmount; }
+
+    public List<PaymentLine> getPayments() { return payments; }
+    public void setPayments(List<PaymentLine> payments) { this.payments = payments; }
+
+    public BigDecimal getPaidAmount() { return paidAmount; }
+    public void setPaidAmount(BigDecimal paidAmount) { this.paidAmount = paidAmount; }
+
+    public BigDecimal getRemainingAmount() { return remainingAmount; }
+    public void setRemainingAmount(BigDecimal remainingAmount) { this.remainingAmount = remainingAmount; }
+
+    public static class ItemLine {
+        private String sku;
+        private String productName;
+        private int quantity;
+        private BigDecimal unitPrice;
+        private BigDecimal lineTotal;
+
+        public ItemLine() {}
+
+        public ItemLine(String sku, String productName, int quantity, BigDecimal unitPrice, BigDecimal lineTotal) {
+            this.sku = sku;
+            this.productName = productName;
+            this.quantity = quantity;
+            this.unitPrice = unitPrice;
+            this.lineTotal = lineTotal;
+        }
+
+        public String getSku() { return sku; }
+        public String getProductName() { return productName; }
+        public int getQuantity() { return quantity; }
+        public BigDecimal getUnitPrice() { return unitPrice; }
+        public BigDecimal getLineTotal() { return lineTotal; }
+    }
+
+    public static class PaymentLine {
+        private LocalDateTime paymentDate;
+        private String method;
+        private String transactionId;
+        private BigDecimal amount;
+
+        public PaymentLine() {}
+
+        public PaymentLine(LocalDateTime paymentDate, String method, String transactionId, BigDecimal amount) {
+            this.paymentDate = paymentDate;
+            this.method = method;
+            this.transactionId = transactionId;
+            this.amount = amount;
+        }
+
+        public LocalDateTime getPaymentDate() { return paymentDate; }
+        public String getMethod() { return method; }
+        public String getTransactionId() { return transactionId; }
+        public BigDecimal getAmount() { return amount; }
+    }
+}
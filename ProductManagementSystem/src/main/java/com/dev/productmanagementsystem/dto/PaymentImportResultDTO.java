@@ -0,0 +1,46 @@
+package com.dev.productmanagementsystem.dto;
+
+import java.math.BigDecimal;
+
+public class PaymentImportResultDTO {
+    private long linesRead;
+    private long paymentsCreated;
+    private long matchedByInvoiceNumber;
+    private long matchedByAmount;
+    private long duplicatesSkipped;
+    private long exceptions;
+    private int invoicesUpdated;
+    private BigDecimal totalImported;
+    private String exceptionReport;
+
+    // Constructors
+    public PaymentImportResultDTO() {}
+
+    // Getters and Setters
+    public long getLinesRead() { return linesRead; }
+    public void setLinesRead(long linesRead) { this.linesRead = linesRead; }
+
+    public long getPaymentsCreated() { return paymentsCreated; }
+    public void setPaymentsCreated(long paymentsCreated) { this.paymentsCreated = paymentsCreated; }
+
+    public long getMatchedByInvoiceNumber() { return matchedByInvoiceNumber; }
+    public void setMatchedByInvoiceNumber(long matchedByInvoiceNumber) { this.matchedByInvoiceNumber = matchedByInvoiceNumber; }
+
+    public long getMatchedByAmount() { return matchedByAmount; }
+    public void setMatchedByAmount(long matchedByAmount) { this.matchedByAmount = matchedByAmount; }
+
+    public long getDuplicatesSkipped() { return duplicatesSkipped; }
+    public void setDuplicatesSkipped(long duplicatesSkipped) { this.duplicatesSkipped = duplicatesSkipped; }
+
+    public long getExceptions() { return exceptions; }
+    public void setExceptions(long exceptions) { this.exceptions = exceptions; }
+
+    public int getInvoicesUpdated() { return invoicesUpdated; }
+    public void setInvoicesUpdated(int invoicesUpdated) { this.invoicesUpdated = invoicesUpdated; }
+
+    public BigDecimal getTotalImported() { return totalImported; }
+    public void setTotalImported(BigDecimal totalImported) { this.totalImported = totalImported; }
+
+    public String getExceptionReport() { return exceptionReport; }
+    public void setExceptionReport(String exceptionReport) { this.exceptionReport = exceptionReport; }
+}
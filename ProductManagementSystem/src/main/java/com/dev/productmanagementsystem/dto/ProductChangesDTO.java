@@ -0,0 +1,28 @@
+package com.dev.productmanagementsystem.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Catalog changes after a version: products added or changed, ids deleted, and the version they lead to
+public class ProductChangesDTO {
+    private long version;
+    private boolean hasMore;
+    private List<ProductDTO> changed = new ArrayList<>();
+    private List<Long> deleted = new ArrayList<>();
+
+    // Constructors
+    public ProductChangesDTO() {}
+
+    // Getters and Setters
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+
+    public boolean isHasMore() { return hasMore; }
+    public void setHasMore(boolean hasMore) { this.hasMore = hasMore; }
+
+    public List<ProductDTO> getChanged() { return changed; }
+    public void setChanged(List<ProductDTO> changed) { this.changed = changed; }
+
+    public List<Long> getDeleted() { return deleted; }
+    public void setDeleted(List<Long> deleted) { this.deleted = deleted; }
+}
@@ -0,0 +1,73 @@
+package com.dev.productmanagementsystem.dto;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One page of a faceted product query. Each facet is counted over the products matching every
+ * other filter, so the counts show how many results picking that value would give. Category
+ * counts include the products of every category below.
+ */
+public class ProductFacetsDTO {
+    private long total;
+    private int page;
+    private int size;
+    private List<ProductDTO> products = new ArrayList<>();
+    private Map<Long, Long> categoryCounts = new LinkedHashMap<>();
+    private List<PriceBucket> priceBuckets = new ArrayList<>();
+    private Map<Long, Long> warehouseCounts = new LinkedHashMap<>();
+    private long inStockCount;
+
+    // Constructors
+    public ProductFacetsDTO() {}
+
+    // Getters and Setters
+    public long getTotal() { return total; }
+    public void setTotal(long total) { this.total = total; }
+
+    public int getPage() { return page; }
+    public void setPage(int page) { this.page = page; }
+
+    public int getSize() { return size; }
+    public void setSize(int size) { this.size = size; }
+
+    public List<ProductDTO> getProducts() { return products; }
+    public void setProducts(List<ProductDTO> products) { this.products = products; }
+
+    public Map<Long, Long> getCategoryCounts() { return categoryCounts; }
+    public void setCategoryCounts(Map<Long, Long> categoryCounts) { this.categoryCounts = categoryCounts; }
+
+    public List<PriceBucket> getPriceBuckets() { return priceBuckets; }
+    public void setPriceBuckets(List<PriceBucket> priceBuckets) { this.priceBuckets = priceBuckets; }
+
+    public Map<Long, Long> getWarehouseCounts() { return warehouseCounts; }
+    public void setWarehouseCounts(Map<Long, Long> warehouseCounts) { this.warehouseCounts = warehouseCounts; }
+
+    public long getInStockCount() { return inStockCount; }
+    public void setInStockCount(long inStockCount) { this.inStockCount = inStockCount; }
+
+    // Prices from (inclusive) up to to (exclusive); from is null for the first band, to for the last
+    public static class PriceBucket {
+        private int index;
+        private BigDecimal from;
+        private BigDecimal to;
+        private long count;
+
+        public PriceBucket() {}
+
+        public PriceBucket(int index, BigDecimal from, BigDecimal to, long count) {
+            this.index = index;
+            this.from = from;
+            this.to = to;
+            this.count = count;
+        }
+
+        public int getIndex() { return index; }
+        public BigDecimal getFrom() { return from; }
+        public BigDecimal getTo() { return to; }
+        public long getCount() { return count; }
+    }
+}
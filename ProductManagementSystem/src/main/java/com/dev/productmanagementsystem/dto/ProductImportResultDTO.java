@@ -0,0 +1,36 @@
+package com.dev.productmanagementsystem.dto;
+
+public class ProductImportResultDTO {
+    private long linesRead;
+    private long productsCreated;
+    private long productsUpdated;
+    private long duplicatesSkipped;
+    private long rejected;
+    private long elapsedMillis;
+    private String errorReport;
+
+    // Constructors
+    public ProductImportResultDTO() {}
+
+    // Getters and Setters
+    public long getLinesRead() { return linesRead; }
+    public void setLinesRead(long linesRead) { this.linesRead = linesRead; }
+
+    public long getProductsCreated() { return productsCreated; }
+    public void setProductsCreated(long productsCreated) { this.productsCreated = productsCreated; }
+
+    public long getProductsUpdated() { return productsUpdated; }
+    public void setProductsUpdated(long productsUpdated) { this.productsUpdated = productsUpdated; }
+
+    public long getDuplicatesSkipped() { return duplicatesSkipped; }
+    public void setDuplicatesSkipped(long duplicatesSkipped) { this.duplicatesSkipped = duplicatesSkipped; }
+
+    public long getRejected() { return rejected; }
+    public void setRejected(long rejected) { this.rejected = rejected; }
+
+    public long getElapsedMillis() { return elapsedMillis; }
+    public void setElapsedMillis(long elapsedMillis) { this.elapsedMillis = elapsedMillis; }
+
+    public String getErrorReport() { return errorReport; }
+    public void setErrorReport(String errorReport) { this.errorReport = errorReport; }
+}
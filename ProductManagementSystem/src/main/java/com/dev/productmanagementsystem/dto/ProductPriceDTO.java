@@ -0,0 +1,35 @@
+package com.dev.productmanagementsystem.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public class ProductPriceDTO {
+    private Long id;
+    private Long productId;
+    private BigDecimal price;
+    private LocalDateTime effectiveFrom;
+    private boolean applied;
+    private LocalDateTime createdAt;
+
+    // Constructors
+    public ProductPriceDTO() {}
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getProductId() { return productId; }
+    public void setProductId(Long productId) { this.productId = productId; }
+
+    public BigDecimal getPrice() { return price; }
+    public void setPrice(BigDecimal price) { this.price = price; }
+
+    public LocalDateTime getEffectiveFrom() { return effectiveFrom; }
+    public void setEffectiveFrom(LocalDateTime effectiveFrom) { this.effectiveFrom = effectiveFrom; }
+
+    public boolean isApplied() { return applied; }
+    public void setApplied(boolean applied) { this.applied = applied; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
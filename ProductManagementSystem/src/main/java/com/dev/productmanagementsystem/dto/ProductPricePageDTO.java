@@ -0,0 +1,35 @@
+package com.dev.productmanagementsystem.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// One page of products in a price range, cheapest first, with the size of the whole range
+public class ProductPricePageDTO {
+    private long total;
+    private int page;
+    private int size;
+    private List<ProductSkuDTO> products = new ArrayList<>();
+
+    // Constructors
+    public ProductPricePageDTO() {}
+
+    public ProductPricePageDTO(long total, int page, int size, List<ProductSkuDTO> products) {
+        this.total = total;
+        this.page = page;
+        this.size = size;
+        this.products = products;
+    }
+
+    // Getters and Setters
+    public long getTotal() { return total; }
+    public void setTotal(long total) { this.total = total; }
+
+    public int getPage() { return page; }
+    public void setPage(int page) { this.page = page; }
+
+    public int getSize() { return size; }
+    public void setSize(int size) { this.size = size; }
+
+    public List<ProductSkuDTO> getProducts() { return products; }
+    public void setProducts(List<ProductSkuDTO> products) { this.products = products; }
+}
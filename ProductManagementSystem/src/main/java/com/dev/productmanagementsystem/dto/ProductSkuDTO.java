@@ -0,0 +1,33 @@
+package com.dev.productmanagementsystem.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * What a scanner needs to identify a product by its SKU. Flat and immutable so lookups can be
+ * answered from memory; stock levels are not included, use the product endpoint for those.
+ */
+public class ProductSkuDTO {
+    private final Long id;
+    private final String sku;
+    private final String name;
+    private final BigDecimal price;
+    private final Long categoryId;
+    private final String categoryName;
+
+    public ProductSkuDTO(Long id, String sku, String name, BigDecimal price, Long categoryId, String categoryName) {
+        this.id = id;
+        this.sku = sku;
+        this.name = name;
+        this.price = price;
+        this.categoryId = categoryId;
+        this.categoryName = categoryName;
+    }
+
+    // Getters
+    public Long getId() { return id; }
+    public String getSku() { return sku; }
+    public String getName() { return name; }
+    public BigDecimal getPrice() { return price; }
+    public Long getCategoryId() { return categoryId; }
+    public String getCategoryName() { return categoryName; }
+}
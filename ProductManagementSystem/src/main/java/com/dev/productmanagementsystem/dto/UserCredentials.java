@@ -0,0 +1,48 @@
+package com.dev.productmanagementsystem.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * What login and token refresh need to know about a user, read in one query without loading the
+ * User entity and its associations. Roles are ordered by id.
+ */
+public class UserCredentials {
+    private final Long id;
+    private final String username;
+    private final String email;
+    private final String firstName;
+    private final String lastName;
+    private final String passwordHash;
+    private final boolean active;
+    private final LocalDateTime createdAt;
+    private final List<Long> roleIds;
+    private final List<String> roleNames;
+
+    public UserCredentials(Long id, String username, String email, String firstName, String lastName,
+                           String passwordHash, boolean active, LocalDateTime createdAt,
+                           List<Long> roleIds, List<String> roleNames) {
+        this.id = id;
+        this.username = username;
+        this.email = email;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.passwordHash = passwordHash;
+        this.active = active;
+        this.createdAt = createdAt;
+        this.roleIds = List.copyOf(roleIds);
+        this.roleNames = List.copyOf(roleNames);
+    }
+
+    // Getters
+    public Long getId() { return id; }
+    public String getUsername() { return username; }
+    public String getEmail() { return email; }
+    public String getFirstName() { return firstName; }
+    public String getLastName() { return lastName; }
+    public String getPasswordHash() { return passwordHash; }
+    public boolean isActive() { return active; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public List<Long> getRoleIds() { return roleIds; }
+    public List<String> getRoleNames() { return roleNames; }
+}
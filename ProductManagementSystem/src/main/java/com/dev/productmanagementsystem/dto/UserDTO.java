@@ -1,5 +1,6 @@
 package com.dev.productmanagementsystem.dto;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Set;
 
@@ -12,6 +13,7 @@ public class UserDTO {
     private Long roleId;
     private String roleName; // For display purposes
     private boolean active;
+    private BigDecimal creditLimit;
     private LocalDateTime createdAt;
 
     // Constructors
@@ -42,6 +44,9 @@ public class UserDTO {
     public boolean isActive() { return active; }
     public void setActive(boolean active) { this.active = active; }
 
+    public BigDecimal getCreditLimit() { return creditLimit; }
+    public void setCreditLimit(BigDecimal creditLimit) { this.creditLimit = creditLimit; }
+
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
 
@@ -0,0 +1,43 @@
+package com.dev.productmanagementsystem.entities;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// A login session as persisted by JdbcSessionPersistence; rows are written through JDBC, this mapping defines the table
+@Entity
+@Table(name = "auth_sessions", indexes = {
+        @Index(name = "idx_auth_sessions_user", columnList = "user_id"),
+        @Index(name = "idx_auth_sessions_expires", columnList = "expires_at")
+})
+public class AuthSession {
+    // SHA-256 of the bearer token; the token itself is never stored
+    @Id
+    @Column(name = "token_hash", length = 64)
+    private String tokenHash;
+
+    @Column(name = "user_id", nullable = false, updatable = false)
+    private Long userId;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Column(name = "idle_timeout_seconds", nullable = false, updatable = false)
+    private long idleTimeoutSeconds;
+
+    // Constructors
+    public AuthSession() {}
+
+    // Getters
+    public String getTokenHash() { return tokenHash; }
+
+    public Long getUserId() { return userId; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+
+    public long getIdleTimeoutSeconds() { return idleTimeoutSeconds; }
+}
@@ -0,0 +1,42 @@
+package com.dev.productmanagementsystem.entities;
+
+import jakarta.persistence.*;
+
+// One row per (ancestor, descendant) pair of the category tree, including each category with itself at depth 0
+@Entity
+@Table(name = "category_closure",
+        uniqueConstraints = @UniqueConstraint(name = "uk_category_closure", columnNames = {"ancestor_id", "descendant_id"}),
+        indexes = @Index(name = "idx_category_closure_descendant", columnList = "descendant_id, ancestor_id"))
+public class CategoryClosure {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "ancestor_id", nullable = false, updatable = false)
+    private Long ancestorId;
+
+    @Column(name = "descendant_id", nullable = false, updatable = false)
+    private Long descendantId;
+
+    // Number of edges between the two; 1 for a direct child
+    @Column(name = "depth", nullable = false, updatable = false)
+    private int depth;
+
+    // Constructors
+    public CategoryClosure() {}
+
+    public CategoryClosure(Long ancestorId, Long descendantId, int depth) {
+        this.ancestorId = ancestorId;
+        this.descendantId = descendantId;
+        this.depth = depth;
+    }
+
+    // Getters
+    public Long getId() { return id; }
+
+    public Long getAncestorId() { return ancestorId; }
+
+    public Long getDescendantId() { return descendantId; }
+
+    public int getDepth() { return depth; }
+}
@@ -1,6 +1,7 @@
 package com.dev.productmanagementsystem.entities;
 
 import com.dev.productmanagementsystem.enums.PaymentStatus;
+import com.dev.productmanagementsystem.utils.Money;
 
 import jakarta.persistence.*;
 import java.math.BigDecimal;
@@ -86,11 +87,15 @@ public class Invoice {
     }
 
     public BigDecimal getRemainingAmount() {
-        BigDecimal paidAmount = BigDecimal.ZERO;
+        return getRemaining().toBigDecimal();
+    }
+
+    public Money getRemaining() {
+        long paidMinorUnits = 0L;
         for (Payment payment : payments) {
-            paidAmount = paidAmount.add(payment.getAmount());
+            paidMinorUnits = Math.addExact(paidMinorUnits, Money.ofNullable(payment.getAmount()).getMinorUnits());
         }
-        return totalAmount.subtract(paidAmount);
+        return Money.ofNullable(totalAmount).minus(Money.ofMinor(paidMinorUnits));
     }
 
     // Auditing methods
@@ -107,7 +112,7 @@ public class Invoice {
         return lastReminderDate;
     }
 
-    public void setTotalAmount(BigDecimal add) {
-
+    public void setTotalAmount(BigDecimal totalAmount) {
+        this.totalAmount = totalAmount;
     }
 }
\ No newline at end of file
@@ -0,0 +1,51 @@
+package com.dev.productmanagementsystem.entities;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// Progress of posting the payments that predate the ledger; a single row, advanced by LedgerService with each chunk
+@Entity
+@Table(name = "ledger_backfill")
+public class LedgerBackfill {
+    public static final Long ID = 1L;
+
+    @Id
+    private Long id;
+
+    // Payments up to this id are posted by the backfill; later ones were posted as they were made
+    @Column(name = "up_to_payment_id", nullable = false, updatable = false)
+    private long upToPaymentId;
+
+    // Highest payment id whose posting has been committed
+    @Column(name = "last_payment_id", nullable = false)
+    private long lastPaymentId;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    // Constructors
+    public LedgerBackfill() {}
+
+    public LedgerBackfill(long upToPaymentId) {
+        this.id = ID;
+        this.upToPaymentId = upToPaymentId;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public boolean isComplete() {
+        return lastPaymentId >= upToPaymentId;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+
+    public long getUpToPaymentId() { return upToPaymentId; }
+
+    public long getLastPaymentId() { return lastPaymentId; }
+    public void setLastPaymentId(long lastPaymentId) {
+        this.lastPaymentId = lastPaymentId;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+}
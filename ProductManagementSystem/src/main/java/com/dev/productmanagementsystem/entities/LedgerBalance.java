@@ -0,0 +1,53 @@
+package com.dev.productmanagementsystem.entities;
+
+import com.dev.productmanagementsystem.enums.LedgerAccount;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Running balance of a ledger account, in total or for one customer, invoice or period; written by LedgerService with SQL upserts
+@Entity
+@Table(name = "ledger_balances")
+public class LedgerBalance {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "balance_key", length = 100, unique = true, nullable = false, updatable = false)
+    private String balanceKey;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "account", nullable = false, updatable = false)
+    private LedgerAccount account;
+
+    @Column(name = "balance", precision = 15, scale = 2, nullable = false)
+    private BigDecimal balance = BigDecimal.ZERO;
+
+    @Column(name = "entry_count", nullable = false)
+    private long entryCount;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    // Constructors
+    public LedgerBalance() {}
+
+    public LedgerBalance(String balanceKey, LedgerAccount account) {
+        this.balanceKey = balanceKey;
+        this.account = account;
+    }
+
+    // Getters
+    public Long getId() { return id; }
+
+    public String getBalanceKey() { return balanceKey; }
+
+    public LedgerAccount getAccount() { return account; }
+
+    public BigDecimal getBalance() { return balance; }
+
+    public long getEntryCount() { return entryCount; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+}
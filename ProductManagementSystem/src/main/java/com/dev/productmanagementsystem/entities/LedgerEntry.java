@@ -0,0 +1,74 @@
+package com.dev.productmanagementsystem.entities;
+
+import com.dev.productmanagementsystem.enums.LedgerAccount;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// One side of a double-entry posting; entries are only ever inserted, corrections are new postings
+@Entity
+@Table(name = "ledger_entries", indexes = {
+        @Index(name = "idx_ledger_entries_journal", columnList = "journal_id"),
+        @Index(name = "idx_ledger_entries_payment", columnList = "payment_id")
+})
+public class LedgerEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Entries of one posting share a journal id and their amounts sum to zero
+    @Column(name = "journal_id", length = 36, nullable = false, updatable = false)
+    private String journalId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "account", nullable = false, updatable = false)
+    private LedgerAccount account;
+
+    // Debits are positive, credits negative
+    @Column(name = "amount", precision = 15, scale = 2, nullable = false, updatable = false)
+    private BigDecimal amount;
+
+    // Plain ids rather than associations: a payment may be deleted, its postings may not
+    @Column(name = "payment_id", updatable = false)
+    private Long paymentId;
+
+    @Column(name = "invoice_id", updatable = false)
+    private Long invoiceId;
+
+    @Column(name = "customer_id", updatable = false)
+    private Long customerId;
+
+    @Column(name = "period", length = 7, nullable = false, updatable = false)
+    private String period;
+
+    @Column(name = "posted_at", nullable = false, updatable = false)
+    private LocalDateTime postedAt;
+
+    @Column(name = "description", updatable = false)
+    private String description;
+
+    // Constructors
+    public LedgerEntry() {}
+
+    // Getters
+    public Long getId() { return id; }
+
+    public String getJournalId() { return journalId; }
+
+    public LedgerAccount getAccount() { return account; }
+
+    public BigDecimal getAmount() { return amount; }
+
+    public Long getPaymentId() { return paymentId; }
+
+    public Long getInvoiceId() { return invoiceId; }
+
+    public Long getCustomerId() { return customerId; }
+
+    public String getPeriod() { return period; }
+
+    public LocalDateTime getPostedAt() { return postedAt; }
+
+    public String getDescription() { return description; }
+}
@@ -1,5 +1,7 @@
 package com.dev.productmanagementsystem.entities;
 
+import com.dev.productmanagementsystem.utils.Money;
+
 import jakarta.persistence.*;
 import java.math.BigDecimal;
 
@@ -55,6 +57,13 @@ public class OrderItem {
         if (quantity == null || pricePerUnit == null) {
             return BigDecimal.ZERO;
         }
-        return pricePerUnit.multiply(new BigDecimal(quantity));
+        return getTotal().toBigDecimal();
+    }
+
+    public Money getTotal() {
+        if (quantity == null || pricePerUnit == null) {
+            return Money.ZERO;
+        }
+        return Money.of(pricePerUnit).times(quantity);
     }
 }
\ No newline at end of file
@@ -8,7 +8,8 @@ import java.util.Map;
 import java.util.Set;
 
 @Entity
-@Table(name = "products")
+@Table(name = "products",
+        indexes = @Index(name = "idx_products_change_seq", columnList = "change_seq"))
 public class Product {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -46,6 +47,10 @@ public class Product {
     @OneToMany(mappedBy = "product")
     private Set<StockMovement> stockMovements;
 
+    // Catalog change sequence of the last change, set by CatalogChangeService with an update query
+    @Column(name = "change_seq", insertable = false, updatable = false)
+    private Long changeSeq;
+
     // Constructors
     public Product() {}
 
@@ -129,6 +134,10 @@ public class Product {
         this.stockMovements = stockMovements;
     }
 
+    public Long getChangeSeq() {
+        return changeSeq;
+    }
+
     // Additional methods
     public void updateStock(Warehouse warehouse, Integer quantity) {
         stockQuantities.put(warehouse, quantity);
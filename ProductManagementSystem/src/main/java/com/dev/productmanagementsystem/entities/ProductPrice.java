@@ -0,0 +1,59 @@
+package com.dev.productmanagementsystem.entities;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// One version of a product's price, effective from a point in time; scheduled versions are applied when they fall due
+@Entity
+@Table(name = "product_prices",
+        indexes = {
+                @Index(name = "idx_product_prices_product_effective", columnList = "product_id, effective_from"),
+                @Index(name = "idx_product_prices_applied_effective", columnList = "applied, effective_from")
+        })
+public class ProductPrice {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    // Null when the product has no price from this point on
+    @Column(name = "price", precision = 10, scale = 2)
+    private BigDecimal price;
+
+    @Column(name = "effective_from", nullable = false)
+    private LocalDateTime effectiveFrom;
+
+    // Whether products.price has been set to this version
+    @Column(name = "applied", nullable = false)
+    private boolean applied;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // Constructors
+    public ProductPrice() {}
+
+    public ProductPrice(Long productId, BigDecimal price, LocalDateTime effectiveFrom, boolean applied) {
+        this.productId = productId;
+        this.price = price;
+        this.effectiveFrom = effectiveFrom;
+        this.applied = applied;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    // Getters
+    public Long getId() { return id; }
+
+    public Long getProductId() { return productId; }
+
+    public BigDecimal getPrice() { return price; }
+
+    public LocalDateTime getEffectiveFrom() { return effectiveFrom; }
+
+    public boolean isApplied() { return applied; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+}
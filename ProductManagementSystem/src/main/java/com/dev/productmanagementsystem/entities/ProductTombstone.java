@@ -0,0 +1,36 @@
+package com.dev.productmanagementsystem.entities;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// Marks a deleted product in the catalog change feed, so clients syncing by sequence learn to drop it
+@Entity
+@Table(name = "product_tombstones",
+        indexes = @Index(name = "idx_product_tombstones_change_seq", columnList = "change_seq"))
+public class ProductTombstone {
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Column(name = "change_seq", nullable = false)
+    private Long changeSeq;
+
+    @Column(name = "deleted_at", nullable = false)
+    private LocalDateTime deletedAt;
+
+    // Constructors
+    public ProductTombstone() {}
+
+    public ProductTombstone(Long productId, Long changeSeq) {
+        this.productId = productId;
+        this.changeSeq = changeSeq;
+        this.deletedAt = LocalDateTime.now();
+    }
+
+    // Getters
+    public Long getProductId() { return productId; }
+
+    public Long getChangeSeq() { return changeSeq; }
+
+    public LocalDateTime getDeletedAt() { return deletedAt; }
+}
@@ -1,6 +1,7 @@
 package com.dev.productmanagementsystem.entities;
 
 import jakarta.persistence.*;
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Set;
@@ -38,6 +39,10 @@ public class User {
     @Column(name = "active")
     private boolean active;
 
+    // Maximum open receivables allowed when placing orders; null means no limit
+    @Column(name = "credit_limit", precision = 10, scale = 2)
+    private BigDecimal creditLimit;
+
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
@@ -133,6 +138,14 @@ public class User {
         this.active = active;
     }
 
+    public BigDecimal getCreditLimit() {
+        return creditLimit;
+    }
+
+    public void setCreditLimit(BigDecimal creditLimit) {
+        this.creditLimit = creditLimit;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -1,11 +1,15 @@
 package com.dev.productmanagementsystem.entities;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.util.HashSet;
 import java.util.Set;
 
 @Entity
 @Table(name = "warehouses")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "warehouses")
 public class Warehouse {
 
     @Id
@@ -24,7 +28,8 @@ public class Warehouse {
     @Column(name = "capacity")
     private Double capacity;
 
-    @ManyToOne
+    // Lazy, so a warehouse read from the cache does not query for its manager
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "manager_id")
     private User manager;
 
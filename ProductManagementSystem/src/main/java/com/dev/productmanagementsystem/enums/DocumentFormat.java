@@ -0,0 +1,18 @@
+package com.dev.productmanagementsystem.enums;
+
+public enum DocumentFormat {
+    HTML("text/html;charset=UTF-8", "html"),
+    PDF("application/pdf", "pdf");
+
+    private final String contentType;
+    private final String extension;
+
+    DocumentFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() { return contentType; }
+
+    public String getExtension() { return extension; }
+}
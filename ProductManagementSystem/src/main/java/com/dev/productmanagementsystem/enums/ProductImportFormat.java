@@ -0,0 +1,6 @@
+package com.dev.productmanagementsystem.enums;
+
+public enum ProductImportFormat {
+    CSV,
+    JSON_LINES
+}
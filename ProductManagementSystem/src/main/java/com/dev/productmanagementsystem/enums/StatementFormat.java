@@ -0,0 +1,6 @@
+package com.dev.productmanagementsystem.enums;
+
+public enum StatementFormat {
+    CSV,
+    FIXED_WIDTH
+}
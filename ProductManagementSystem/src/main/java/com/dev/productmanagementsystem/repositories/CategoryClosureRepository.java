@@ -0,0 +1,40 @@
+package com.dev.productmanagementsystem.repositories;
+
+import com.dev.productmanagementsystem.entities.CategoryClosure;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface CategoryClosureRepository extends JpaRepository<CategoryClosure, Long> {
+    // Find ancestor ids and depths of a category, itself included at depth 0
+    @Query("SELECT c.ancestorId, c.depth FROM CategoryClosure c WHERE c.descendantId = ?1")
+    List<Object[]> findAncestorRows(Long categoryId);
+
+    // Find descendant ids and depths of a category, itself included at depth 0
+    @Query("SELECT c.descendantId, c.depth FROM CategoryClosure c WHERE c.ancestorId = ?1")
+    List<Object[]> findDescendantRows(Long categoryId);
+
+    // Count categories that have their own row
+    @Query("SELECT COUNT(c) FROM CategoryClosure c WHERE c.depth = 0")
+    long countSelfRows();
+
+    // Delete the links between the given descendants and ancestors
+    @Modifying
+    @Query("DELETE FROM CategoryClosure c WHERE c.descendantId IN ?1 AND c.ancestorId IN ?2")
+    int deleteLinks(Collection<Long> descendantIds, Collection<Long> ancestorIds);
+
+    // Delete every row that mentions a category
+    @Modifying
+    @Query("DELETE FROM CategoryClosure c WHERE c.ancestorId = ?1 OR c.descendantId = ?1")
+    int deleteByCategoryId(Long categoryId);
+
+    // Delete all rows, before a rebuild
+    @Modifying
+    @Query("DELETE FROM CategoryClosure c")
+    int deleteAllRows();
+}
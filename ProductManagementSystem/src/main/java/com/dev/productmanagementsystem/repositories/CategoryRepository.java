@@ -1,22 +1,34 @@
 package com.dev.productmanagementsystem.repositories;
 
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
 import com.dev.productmanagementsystem.entities.Category;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
 
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+
 @Repository
 public interface CategoryRepository extends JpaRepository<Category, Long> {
+    // Find every category, from the query cache when it is warm
+    @Override
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    List<Category> findAll();
+
     // Find category by name
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     Optional<Category> findByName(String name);
 
     // Find all categories that are parent categories (parent is null)
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     List<Category> findByParentIsNull();
 
     // Find all subcategories of a parent category
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     List<Category> findByParentId(Long parentId);
 
     // Find categories that contain a certain string in name or description
@@ -31,4 +43,17 @@ public interface CategoryRepository extends JpaRepository<Category, Long> {
     // Count subcategories for a parent category
     @Query("SELECT COUNT(c) FROM Category c WHERE c.parent.id = ?1")
     Long countSubcategoriesByParentId(Long parentId);
+
+    // Find id and parent id of every category
+    @Query("SELECT c.id, p.id FROM Category c LEFT JOIN c.parent p")
+    List<Object[]> findAllIdsAndParentIds();
+
+    // Find the parent id of a category (a single null when it is a root)
+    @Query("SELECT p.id FROM Category c LEFT JOIN c.parent p WHERE c.id = ?1")
+    List<Long> findParentIdById(Long id);
+
+    // Find id and name of every category
+    @Query("SELECT c.id, c.name FROM Category c")
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    List<Object[]> findAllIdsAndNames();
 }
\ No newline at end of file
@@ -8,6 +8,7 @@ import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -60,5 +61,18 @@ public interface InvoiceRepository extends JpaRepository<Invoice, Long> {
     @Query("SELECT SUM(i.totalAmount) FROM Invoice i JOIN i.order o WHERE o.customer.id = ?1")
     BigDecimal sumTotalAmountByCustomerId(Long customerId);
 
+    // Sum invoice totals per customer id, leaving out invoices in the given status
+    @Query("SELECT o.customer.id, SUM(i.totalAmount) FROM Invoice i JOIN i.order o " +
+            "WHERE i.paymentStatus IS NULL OR i.paymentStatus <> ?1 GROUP BY o.customer.id")
+    List<Object[]> sumTotalAmountGroupByCustomerIdExcludingStatus(PaymentStatus excluded);
 
+    // Find customer id, payment status and total amount of an invoice as currently stored
+    @Query("SELECT c.id, i.paymentStatus, i.totalAmount FROM Invoice i LEFT JOIN i.order o LEFT JOIN o.customer c WHERE i.id = ?1")
+    List<Object[]> findCustomerIdStatusAndTotalAmountById(Long invoiceId);
+
+    // Find id, number, customer id, total and amount paid so far for invoices not in the given statuses
+    @Query("SELECT i.id, i.invoiceNumber, c.id, i.totalAmount, COALESCE(SUM(p.amount), 0) FROM Invoice i " +
+            "LEFT JOIN i.order o LEFT JOIN o.customer c LEFT JOIN i.payments p " +
+            "WHERE i.paymentStatus IS NULL OR i.paymentStatus NOT IN ?1 GROUP BY i.id, i.invoiceNumber, c.id, i.totalAmount")
+    List<Object[]> findBalancesByPaymentStatusNotIn(Collection<PaymentStatus> statuses);
 }
\ No newline at end of file
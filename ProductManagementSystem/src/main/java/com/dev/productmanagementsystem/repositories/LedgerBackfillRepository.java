@@ -0,0 +1,18 @@
+package com.dev.productmanagementsystem.repositories;
+
+import com.dev.productmanagementsystem.entities.LedgerBackfill;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface LedgerBackfillRepository extends JpaRepository<LedgerBackfill, Long> {
+    // Find the backfill progress, locking the row until the transaction ends
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM LedgerBackfill b WHERE b.id = ?1")
+    Optional<LedgerBackfill> findByIdForUpdate(Long id);
+}
@@ -0,0 +1,24 @@
+package com.dev.productmanagementsystem.repositories;
+
+import com.dev.productmanagementsystem.entities.LedgerBalance;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface LedgerBalanceRepository extends JpaRepository<LedgerBalance, Long> {
+    // Find the balance amount by key; read as a value, since balances are updated with SQL behind the persistence context
+    @Query("SELECT b.balance FROM LedgerBalance b WHERE b.balanceKey = ?1")
+    Optional<BigDecimal> findBalanceByBalanceKey(String balanceKey);
+
+    // Find key and amount of the balances whose key starts with the given prefix, read as values like above
+    @Query("SELECT b.balanceKey, b.balance FROM LedgerBalance b WHERE b.balanceKey LIKE CONCAT(?1, '%')")
+    List<Object[]> findBalancesByBalanceKeyStartingWith(String prefix);
+
+    // Find balances whose key starts with the given prefix
+    List<LedgerBalance> findByBalanceKeyStartingWith(String prefix);
+}
@@ -44,6 +44,11 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     @Query("SELECT o FROM Order o JOIN o.items i WHERE i.product.id = ?1")
     List<Order> findByProductId(Long productId);
 
+    // Sum order totals per customer id for orders without an invoice, leaving out orders in the given status
+    @Query("SELECT o.customer.id, SUM(o.totalAmount) FROM Order o WHERE o.status <> ?1 " +
+            "AND NOT EXISTS (SELECT i.id FROM Invoice i WHERE i.order = o) GROUP BY o.customer.id")
+    List<Object[]> sumTotalAmountOfUninvoicedOrdersGroupByCustomerIdExcludingStatus(OrderStatus excluded);
+
     // Find orders with total amount greater than
     @Query("SELECT o FROM Order o WHERE o.totalAmount > ?1")
     List<Order> findByTotalAmountGreaterThan(Double amount);
@@ -3,12 +3,14 @@ package com.dev.productmanagementsystem.repositories;
 import com.dev.productmanagementsystem.entities.Payment;
 import com.dev.productmanagementsystem.enums.PaymentMethod;
 import com.dev.productmanagementsystem.enums.PaymentStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -39,6 +41,23 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
     List<Payment> findByPaymentStatusAndPaymentDateBetween(
             PaymentStatus status, LocalDateTime startDate, LocalDateTime endDate);
 
+    // Find the ledger fields of payments with a status in an id range, in id order, without loading entities
+    @Query("SELECT p.id, i.id, c.id, p.amount, p.paymentDate, p.transactionId FROM Payment p LEFT JOIN p.invoice i " +
+            "LEFT JOIN i.order o LEFT JOIN o.customer c WHERE p.paymentStatus = ?1 AND p.id > ?2 AND p.id <= ?3 ORDER BY p.id")
+    List<Object[]> findPostingFieldsBetween(PaymentStatus paymentStatus, Long afterId, Long upToId, Pageable pageable);
+
+    // Find the highest payment id
+    @Query("SELECT MAX(p.id) FROM Payment p")
+    Long findMaxId();
+
+    // Sum payments with a status over a date range
+    @Query("SELECT SUM(p.amount) FROM Payment p WHERE p.paymentStatus = ?1 AND p.paymentDate BETWEEN ?2 AND ?3")
+    BigDecimal sumAmountByPaymentStatusAndPaymentDateBetween(PaymentStatus paymentStatus, LocalDateTime startDate, LocalDateTime endDate);
+
+    // Sum payments with a status from a date up to, but not including, another
+    @Query("SELECT SUM(p.amount) FROM Payment p WHERE p.paymentStatus = ?1 AND p.paymentDate >= ?2 AND p.paymentDate < ?3")
+    BigDecimal sumAmountByPaymentStatusAndPaymentDateFromUntil(PaymentStatus paymentStatus, LocalDateTime from, LocalDateTime until);
+
     // Sum total payments for an invoice
     @Query("SELECT SUM(p.amount) FROM Payment p WHERE p.invoice.id = ?1")
     BigDecimal sumAmountByInvoiceId(Long invoiceId);
@@ -50,4 +69,12 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
     // Find payments for a specific customer
     @Query("SELECT p FROM Payment p JOIN p.invoice i JOIN i.order o WHERE o.customer.id = ?1")
     List<Payment> findByCustomerId(Long customerId);
+
+    // Find which of the given transaction ids are already recorded
+    @Query("SELECT p.transactionId FROM Payment p WHERE p.transactionId IN ?1")
+    List<String> findExistingTransactionIds(Collection<String> transactionIds);
+
+    // Find id and transaction id of payments with the given transaction ids
+    @Query("SELECT p.id, p.transactionId FROM Payment p WHERE p.transactionId IN ?1")
+    List<Object[]> findIdsByTransactionIds(Collection<String> transactionIds);
 }
\ No newline at end of file
@@ -1,16 +1,27 @@
 package com.dev.productmanagementsystem.repositories;
 
 import com.dev.productmanagementsystem.entities.Permission;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+
 @Repository
 public interface PermissionRepository extends JpaRepository<Permission, Long> {
+    // Find every permission, from the query cache when it is warm
+    @Override
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    List<Permission> findAll();
+
     // Find permission by name
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     Optional<Permission> findByName(String name);
 
     // Find permissions with names containing
@@ -27,4 +38,9 @@ public interface PermissionRepository extends JpaRepository<Permission, Long> {
 
     // Check if permission exists by name
     boolean existsByName(String name);
+
+    // Find every permission as [id, name], for the role graph cache
+    @Query("SELECT p.id, p.name FROM Permission p")
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    List<Object[]> findAllIdsAndNames();
 }
\ No newline at end of file
@@ -0,0 +1,42 @@
+package com.dev.productmanagementsystem.repositories;
+
+import com.dev.productmanagementsystem.entities.ProductPrice;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ProductPriceRepository extends JpaRepository<ProductPrice, Long> {
+    // Find the price versions of a product, oldest first
+    List<ProductPrice> findByProductIdOrderByEffectiveFromAscIdAsc(Long productId);
+
+    // Find id, product id, price, effective time and applied flag of every version, by product and time
+    @Query("SELECT pp.id, pp.productId, pp.price, pp.effectiveFrom, pp.applied FROM ProductPrice pp " +
+            "ORDER BY pp.productId, pp.effectiveFrom, pp.id")
+    List<Object[]> findAllForIndex();
+
+    // Find id, product id and price of scheduled versions that have fallen due, in the order they took effect
+    @Query("SELECT pp.id, pp.productId, pp.price FROM ProductPrice pp WHERE pp.applied = false AND pp.effectiveFrom <= ?1 " +
+            "ORDER BY pp.effectiveFrom, pp.id")
+    List<Object[]> findDue(LocalDateTime now, Pageable pageable);
+
+    // Find the ids of scheduled versions of the given products that a price set now replaces
+    @Query("SELECT pp.id FROM ProductPrice pp WHERE pp.productId IN ?1 AND pp.applied = false AND pp.effectiveFrom <= ?2")
+    List<Long> findSupersededIds(Collection<Long> productIds, LocalDateTime now);
+
+    // Mark versions as applied
+    @Modifying
+    @Query("UPDATE ProductPrice pp SET pp.applied = true WHERE pp.id IN ?1")
+    int markApplied(Collection<Long> ids);
+
+    // Delete the price versions of a product
+    @Modifying
+    @Query("DELETE FROM ProductPrice pp WHERE pp.productId = ?1")
+    int deleteByProductId(Long productId);
+}
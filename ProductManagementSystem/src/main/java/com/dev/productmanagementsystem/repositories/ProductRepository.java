@@ -1,11 +1,14 @@
 package com.dev.productmanagementsystem.repositories;
 
 import com.dev.productmanagementsystem.entities.Product;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,6 +23,16 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     // Find products by category id
     List<Product> findByCategoryId(Long categoryId);
 
+    // Find products in a category or any of its descendants
+    @Query("SELECT p FROM Product p WHERE p.category.id IN " +
+            "(SELECT c.descendantId FROM CategoryClosure c WHERE c.ancestorId = ?1)")
+    List<Product> findInCategorySubtree(Long categoryId);
+
+    // Count products in a category or any of its descendants
+    @Query("SELECT COUNT(p) FROM Product p WHERE p.category.id IN " +
+            "(SELECT c.descendantId FROM CategoryClosure c WHERE c.ancestorId = ?1)")
+    Long countInCategorySubtree(Long categoryId);
+
     // Find products with price less than
     List<Product> findByPriceLessThan(BigDecimal price);
 
@@ -51,4 +64,78 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     // Count products by category
     @Query("SELECT COUNT(p) FROM Product p WHERE p.category.id = ?1")
     Long countByCategoryId(Long categoryId);
+
+    // Find the highest catalog change sequence
+    @Query("SELECT MAX(p.changeSeq) FROM Product p")
+    Long findMaxChangeSeq();
+
+    // Find products changed in a sequence range, in sequence order
+    @Query("SELECT p FROM Product p WHERE p.changeSeq > ?1 AND p.changeSeq <= ?2 ORDER BY p.changeSeq, p.id")
+    List<Product> findChangedBetween(Long afterSeq, Long upToSeq, Pageable pageable);
+
+    // Find products with exactly this change sequence
+    List<Product> findByChangeSeq(Long changeSeq);
+
+    // Stamp products with a change sequence
+    @Modifying
+    @Query("UPDATE Product p SET p.changeSeq = ?2 WHERE p.id IN ?1")
+    int updateChangeSeq(Collection<Long> ids, Long changeSeq);
+
+    // Find the ids of the products in a category
+    @Query("SELECT p.id FROM Product p WHERE p.category.id = ?1")
+    List<Long> findIdsByCategoryId(Long categoryId);
+
+    // Stamp every product of a category with a change sequence
+    @Modifying
+    @Query("UPDATE Product p SET p.changeSeq = ?2 WHERE p.category.id = ?1")
+    int updateChangeSeqByCategoryId(Long categoryId, Long changeSeq);
+
+    // Find the lowest and highest product id
+    @Query("SELECT MIN(p.id), MAX(p.id) FROM Product p")
+    List<Object[]> findIdRange();
+
+    // Find id, name, description and SKU of the products in an id range, for the search index
+    @Query("SELECT p.id, p.name, p.description, p.sku FROM Product p WHERE p.id BETWEEN ?1 AND ?2 ORDER BY p.id")
+    List<Object[]> findSearchFieldsByIdBetween(Long fromId, Long toId);
+
+    // Find id, category id and price of the products in an id range, for the facet index
+    @Query("SELECT p.id, c.id, p.price FROM Product p LEFT JOIN p.category c WHERE p.id BETWEEN ?1 AND ?2 ORDER BY p.id")
+    List<Object[]> findFacetFieldsByIdBetween(Long fromId, Long toId);
+
+    // Find id, category id and price of the given products
+    @Query("SELECT p.id, c.id, p.price FROM Product p LEFT JOIN p.category c WHERE p.id IN ?1")
+    List<Object[]> findFacetFieldsByIdIn(Collection<Long> ids);
+
+    // Find product id and warehouse id of every positive stock level in an id range
+    @Query("SELECT p.id, KEY(sq).id FROM Product p JOIN p.stockQuantities sq WHERE p.id BETWEEN ?1 AND ?2 AND VALUE(sq) > 0")
+    List<Object[]> findStockedWarehousesByIdBetween(Long fromId, Long toId);
+
+    // Find product id and warehouse id of every positive stock level of the given products
+    @Query("SELECT p.id, KEY(sq).id FROM Product p JOIN p.stockQuantities sq WHERE p.id IN ?1 AND VALUE(sq) > 0")
+    List<Object[]> findStockedWarehousesByIdIn(Collection<Long> ids);
+
+    // Find price and id of every priced product, cheapest first
+    @Query("SELECT p.price, p.id FROM Product p WHERE p.price IS NOT NULL ORDER BY p.price, p.id")
+    List<Object[]> findAllPricesAndIds();
+
+    // Find SKU and id of every product that has a SKU
+    @Query("SELECT p.sku, p.id FROM Product p WHERE p.sku IS NOT NULL")
+    List<Object[]> findAllSkusAndIds();
+
+    // Find SKU and id of the products with the given SKUs
+    @Query("SELECT p.sku, p.id FROM Product p WHERE p.sku IN ?1")
+    List<Object[]> findSkusAndIdsBySkuIn(Collection<String> skus);
+
+    // Find id, SKU, name, price, category id and category name of the given products
+    @Query("SELECT p.id, p.sku, p.name, p.price, c.id, c.name FROM Product p LEFT JOIN p.category c WHERE p.id IN ?1")
+    List<Object[]> findSkuRowsByIdIn(Collection<Long> ids);
+
+    // Find id, SKU, name, price, category id and category name of the product with a SKU
+    @Query("SELECT p.id, p.sku, p.name, p.price, c.id, c.name FROM Product p LEFT JOIN p.category c WHERE p.sku = ?1")
+    List<Object[]> findSkuRowsBySku(String sku);
+
+    // Find id, SKU, name, price, category id and category name of products whose SKU starts with a prefix
+    @Query("SELECT p.id, p.sku, p.name, p.price, c.id, c.name FROM Product p LEFT JOIN p.category c " +
+            "WHERE p.sku LIKE ?1% ORDER BY p.sku")
+    List<Object[]> findSkuRowsBySkuStartingWith(String prefix, Pageable pageable);
 }
\ No newline at end of file
@@ -0,0 +1,21 @@
+package com.dev.productmanagementsystem.repositories;
+
+import com.dev.productmanagementsystem.entities.ProductTombstone;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ProductTombstoneRepository extends JpaRepository<ProductTombstone, Long> {
+    // Find the highest change sequence of a deletion
+    @Query("SELECT MAX(t.changeSeq) FROM ProductTombstone t")
+    Long findMaxChangeSeq();
+
+    // Find product ids and change sequences of deletions in a sequence range, in sequence order
+    @Query("SELECT t.productId, t.changeSeq FROM ProductTombstone t WHERE t.changeSeq > ?1 AND t.changeSeq <= ?2 " +
+            "ORDER BY t.changeSeq, t.productId")
+    List<Object[]> findDeletedBetween(Long afterSeq, Long upToSeq, Pageable pageable);
+}
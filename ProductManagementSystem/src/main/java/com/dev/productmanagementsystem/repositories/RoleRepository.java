@@ -1,17 +1,27 @@
 package com.dev.productmanagementsystem.repositories;
 
 import com.dev.productmanagementsystem.entities.Role;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+
 @Repository
 public interface RoleRepository extends JpaRepository<Role, Long> {
+    // Find every role, from the query cache when it is warm
+    @Override
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    List<Role> findAll();
+
     // Find role by name
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     Optional<Role> findByName(String name);
 
     // Find roles by name containing
@@ -31,4 +41,14 @@ public interface RoleRepository extends JpaRepository<Role, Long> {
 
     // Check if role exists by name
     boolean existsByName(String name);
+
+    // Find every role as [id, name], for the role graph cache
+    @Query("SELECT r.id, r.name FROM Role r")
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    List<Object[]> findAllIdsAndNames();
+
+    // Find every role-permission assignment as [role id, permission id]
+    @Query("SELECT r.id, p.id FROM Role r JOIN r.permissions p")
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    List<Object[]> findAllPermissionAssignments();
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package com.dev.productmanagementsystem.repositories;
 
 import com.dev.productmanagementsystem.entities.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
@@ -26,6 +27,25 @@ public interface UserRepository extends JpaRepository<User, Long> {
     // Find users by role name
     List<User> findByRoles_Name(String roleName);
 
+    // Replace a password hash only if it is still the one that was verified
+    @Modifying
+    @Query("UPDATE User u SET u.password = ?3 WHERE u.id = ?1 AND u.password = ?2")
+    int replacePasswordHash(Long userId, String expectedHash, String newHash);
+
+    // Find the login fields of a user, one row per role: [id, username, email, firstName, lastName, password, active, createdAt, role id, role name]
+    @Query("SELECT u.id, u.username, u.email, u.firstName, u.lastName, u.password, u.active, u.createdAt, r.id, r.name " +
+            "FROM User u LEFT JOIN u.roles r WHERE u.username = ?1 ORDER BY r.id")
+    List<Object[]> findCredentialRowsByUsername(String username);
+
+    // Same as findCredentialRowsByUsername, by user id
+    @Query("SELECT u.id, u.username, u.email, u.firstName, u.lastName, u.password, u.active, u.createdAt, r.id, r.name " +
+            "FROM User u LEFT JOIN u.roles r WHERE u.id = ?1 ORDER BY r.id")
+    List<Object[]> findCredentialRowsById(Long userId);
+
+    // Find every user-role assignment as [user id, role id], ordered by user
+    @Query("SELECT u.id, r.id FROM User u JOIN u.roles r ORDER BY u.id, r.id")
+    List<Object[]> findAllRoleAssignments();
+
     // Find users by first name and last name
     List<User> findByFirstNameAndLastName(String firstName, String lastName);
 
@@ -2,18 +2,29 @@ package com.dev.productmanagementsystem.repositories;
 
 import com.dev.productmanagementsystem.entities.Product;
 import com.dev.productmanagementsystem.entities.Warehouse;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
 
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.HibernateHints.HINT_NATIVE_SPACES;
+
 @Repository
 public interface WarehouseRepository extends JpaRepository<Warehouse, Long> {
+    // Find every warehouse, from the query cache when it is warm
+    @Override
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    List<Warehouse> findAll();
+
     // Find warehouse by name
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     Optional<Warehouse> findByName(String name);
 
     // Find warehouses by location
@@ -46,6 +57,11 @@ public interface WarehouseRepository extends JpaRepository<Warehouse, Long> {
     // Find warehouses by name (case insensitive)
     List<Warehouse> findWarehouseByNameContainingIgnoreCase(String name);
 
+    // Find id and name of every warehouse
+    @Query("SELECT w.id, w.name FROM Warehouse w")
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    List<Object[]> findAllIdsAndNames();
+
     // New methods to match service calls:
 
     // Find warehouses by city (case insensitive)
@@ -56,10 +72,11 @@ public interface WarehouseRepository extends JpaRepository<Warehouse, Long> {
     @Query("SELECT COALESCE(VALUE(sq), 0) FROM Product p JOIN p.stockQuantities sq WHERE p.id = :productId AND KEY(sq).id = :warehouseId")
     Integer findProductStockInWarehouse(@Param("productId") Long productId, @Param("warehouseId") Long warehouseId);
 
-    // Update product stock in a warehouse
+    // Update product stock in a warehouse (only product_stock, so cached reference data stays)
     @Modifying
     @Query(value = "UPDATE product_stock SET quantity = :newQuantity " +
             "WHERE product_id = :productId AND warehouse_id = :warehouseId", nativeQuery = true)
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "product_stock"))
     void updateProductStock(@Param("productId") Long productId, @Param("warehouseId") Long warehouseId, @Param("newQuantity") Integer newQuantity);
 
     // Find products below threshold in a specific warehouse
@@ -0,0 +1,351 @@
+package com.dev.productmanagementsystem.services;
+
+import com.dev.productmanagementsystem.dto.UserCredentials;
+import com.dev.productmanagementsystem.utils.Bitsets;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Short-lived, HMAC-SHA256 signed access tokens that carry everything a request needs to be
+ * authorized: user id, username, roles, a permission bitset indexed by permission id, and expiry.
+ * Verifying one is a signature check and two map lookups, with no database access.
+ *
+ * Format: {@code v1.<key id>.<payload>.<signature>}, base64url. Tokens are signed with the
+ * current key and accepted under any key still in the ring, so keys can be rotated without
+ * logging anyone out. Logout and deactivation go through a small in-memory revocation list
+ * that only has to remember a token until it would have expired anyway.
+ *
+ * Role and permission changes reach a user's token when it is next refreshed.
+ */
+@Service
+public class AccessTokenService implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccessTokenService.class);
+
+    private static final String VERSION = "v1";
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final RoleGraphCache roleGraphCache;
+    private final long ttlSeconds;
+    private final SecureRandom random = new SecureRandom();
+
+    // Replaced as a whole on rotation; the first key signs, all of them verify
+    private volatile KeyRing keyRing;
+
+    // Token id -> expiry (epoch millis) of tokens revoked before they expired
+    private final Map<Long, Long> revokedTokens = new ConcurrentHashMap<>();
+    // User id -> tokens issued up to this instant (epoch millis) are rejected (deactivation, deletion)
+    private final Map<Long, Long> revokedBefore = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService maintenance = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "access-token-maintenance");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * @param secrets comma-separated {@code keyId:base64Secret} pairs, newest first. Required when
+     *                several instances must accept each other's tokens. When empty, a random key is
+     *                generated at startup and rotated every {@code keyRotation}.
+     */
+    @Autowired
+    public AccessTokenService(RoleGraphCache roleGraphCache,
+                              @Value("${auth.tokens.access-ttl:15m}") Duration ttl,
+                              @Value("${auth.tokens.secrets:}") String secrets,
+                              @Value("${auth.tokens.key-rotation:24h}") Duration keyRotation) {
+        this.roleGraphCache = roleGraphCache;
+        this.ttlSeconds = ttl.toSeconds();
+        if (secrets.isBlank()) {
+            this.keyRing = new KeyRing(List.of(generateKey()));
+            maintenance.scheduleAtFixedRate(this::rotateKey, keyRotation.toMillis(), keyRotation.toMillis(), TimeUnit.MILLISECONDS);
+        } else {
+            List<SigningKey> keys = new ArrayList<>();
+            for (String entry : secrets.split(",")) {
+                String[] parts = entry.trim().split(":", 2);
+                if (parts.length != 2 || parts[0].isEmpty() || parts[0].contains(".")) {
+                    throw new IllegalArgumentException("auth.tokens.secrets entries must be keyId:base64Secret");
+                }
+                keys.add(new SigningKey(parts[0], Base64.getDecoder().decode(parts[1]), Long.MAX_VALUE));
+            }
+            this.keyRing = new KeyRing(keys);
+        }
+        maintenance.scheduleAtFixedRate(this::pruneRevocations, 1, 1, TimeUnit.MINUTES);
+    }
+
+    @Override
+    public void destroy() {
+        maintenance.shutdownNow();
+    }
+
+    public long getTtlSeconds() {
+        return ttlSeconds;
+    }
+
+    /** Issues a token for the user's current roles, with their permissions taken from the role graph. */
+    public String issue(UserCredentials user) {
+        long[] permissions = roleGraphCache.forRoles(user.getRoleIds());
+        long now = System.currentTimeMillis();
+        Claims claims = new Claims(random.nextLong(), user.getId(), user.getUsername(), user.getRoleIds(),
+                user.getRoleNames(), permissions, now, now + ttlSeconds * 1000L);
+        return sign(claims);
+    }
+
+    /** The claims of a genuine, unexpired and unrevoked token, or null. */
+    public Claims verify(String token) {
+        if (token == null) {
+            return null;
+        }
+        String[] parts = token.split("\\.");
+        if (parts.length != 4 || !VERSION.equals(parts[0])) {
+            return null;
+        }
+        SigningKey key = keyRing.find(parts[1]);
+        if (key == null) {
+            return null;
+        }
+        byte[] signature;
+        byte[] payload;
+        try {
+            signature = DECODER.decode(parts[3]);
+            payload = DECODER.decode(parts[2]);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        byte[] expected = key.sign(signedPart(parts[1], parts[2]));
+        if (!MessageDigest.isEqual(expected, signature)) {
+            return null;
+        }
+
+        Claims claims = Claims.read(payload);
+        long now = System.currentTimeMillis();
+        if (claims == null || claims.expiresAt <= now) {
+            return null;
+        }
+        if (revokedTokens.containsKey(claims.tokenId)) {
+            return null;
+        }
+        Long cutoff = revokedBefore.get(claims.userId);
+        if (cutoff != null && claims.issuedAt <= cutoff) {
+            return null;
+        }
+        return claims;
+    }
+
+    /** Rejects this token from now on (logout). */
+    public void revoke(Claims claims) {
+        revokedTokens.put(claims.tokenId, claims.expiresAt);
+    }
+
+    /** Rejects every token issued to the user so far. */
+    public void revokeUser(Long userId) {
+        revokedBefore.put(userId, System.currentTimeMillis());
+    }
+
+    /** Starts signing with a fresh key; the previous ones keep verifying until their tokens have expired. */
+    public synchronized void rotateKey() {
+        long retireAt = System.currentTimeMillis() + ttlSeconds * 1000L;
+        List<SigningKey> keys = new ArrayList<>();
+        keys.add(generateKey());
+        for (SigningKey key : keyRing.keys) {
+            keys.add(key.retireAt == Long.MAX_VALUE ? new SigningKey(key.id, key.secret, retireAt) : key);
+        }
+        keyRing = new KeyRing(keys);
+        logger.info("Access token signing key rotated to {}", keys.get(0).id);
+    }
+
+    private void pruneRevocations() {
+        long now = System.currentTimeMillis();
+        revokedTokens.values().removeIf(expiresAt -> expiresAt <= now);
+        revokedBefore.values().removeIf(cutoff -> cutoff + ttlSeconds * 1000L < now);
+        KeyRing ring = keyRing;
+        if (ring.keys.stream().anyMatch(key -> key.retireAt <= now)) {
+            synchronized (this) {
+                List<SigningKey> live = new ArrayList<>();
+                for (SigningKey key : keyRing.keys) {
+                    if (key.retireAt > now || live.isEmpty()) {
+                        live.add(key);
+                    }
+                }
+                keyRing = new KeyRing(live);
+            }
+        }
+    }
+
+    private String sign(Claims claims) {
+        SigningKey key = keyRing.keys.get(0);
+        String payload = ENCODER.encodeToString(claims.write());
+        return VERSION + "." + key.id + "." + payload + "." + ENCODER.encodeToString(key.sign(signedPart(key.id, payload)));
+    }
+
+    private static byte[] signedPart(String keyId, String payload) {
+        return (VERSION + "." + keyId + "." + payload).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private SigningKey generateKey() {
+        byte[] secret = new byte[32];
+        random.nextBytes(secret);
+        byte[] id = new byte[6];
+        random.nextBytes(id);
+        return new SigningKey(ENCODER.encodeToString(id), secret, Long.MAX_VALUE);
+    }
+
+    private static final class KeyRing {
+        final List<SigningKey> keys;
+        final Map<String, SigningKey> byId = new LinkedHashMap<>();
+
+        KeyRing(List<SigningKey> keys) {
+            this.keys = List.copyOf(keys);
+            for (SigningKey key : keys) {
+                byId.put(key.id, key);
+            }
+        }
+
+        SigningKey find(String id) {
+            return byId.get(id);
+        }
+    }
+
+    private static final class SigningKey {
+        final String id;
+        final byte[] secret;
+        // Epoch millis after which the key no longer verifies; MAX_VALUE while it is current or configured
+        final long retireAt;
+        private final ThreadLocal<Mac> mac;
+
+        SigningKey(String id, byte[] secret, long retireAt) {
+            this.id = id;
+            this.secret = secret;
+            this.retireAt = retireAt;
+            this.mac = ThreadLocal.withInitial(() -> {
+                try {
+                    Mac instance = Mac.getInstance(ALGORITHM);
+                    instance.init(new SecretKeySpec(secret, ALGORITHM));
+                    return instance;
+                } catch (GeneralSecurityException e) {
+                    throw new IllegalStateException("HMAC-SHA256 is not available", e);
+                }
+            });
+        }
+
+        byte[] sign(byte[] data) {
+            return mac.get().doFinal(data);
+        }
+    }
+
+    /** What a verified access token says about its holder. */
+    public static final class Claims {
+        private final long tokenId;
+        private final long userId;
+        private final String username;
+        private final List<Long> roleIds;
+        private final List<String> roleNames;
+        private final long[] permissions;
+        private final long issuedAt;
+        private final long expiresAt;
+
+        Claims(long tokenId, long userId, String username, List<Long> roleIds, List<String> roleNames,
+               long[] permissions, long issuedAt, long expiresAt) {
+            this.tokenId = tokenId;
+            this.userId = userId;
+            this.username = username;
+            this.roleIds = Collections.unmodifiableList(roleIds);
+            this.roleNames = Collections.unmodifiableList(roleNames);
+            this.permissions = permissions;
+            this.issuedAt = issuedAt;
+            this.expiresAt = expiresAt;
+        }
+
+        public long getUserId() { return userId; }
+        public String getUsername() { return username; }
+        public List<Long> getRoleIds() { return roleIds; }
+        public List<String> getRoleNames() { return roleNames; }
+        public long getIssuedAt() { return issuedAt; }
+        public long getExpiresAt() { return expiresAt; }
+
+        public long[] getPermissions() {
+            return permissions.clone();
+        }
+
+        public boolean hasPermission(long permissionId) {
+            return Bitsets.isSet(permissions, permissionId);
+        }
+
+        byte[] write() {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(96);
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                out.writeLong(tokenId);
+                out.writeLong(userId);
+                out.writeUTF(username != null ? username : "");
+                out.writeLong(issuedAt);
+                out.writeLong(expiresAt);
+                out.writeShort(roleIds.size());
+                for (int i = 0; i < roleIds.size(); i++) {
+                    out.writeLong(roleIds.get(i));
+                    out.writeUTF(roleNames.get(i) != null ? roleNames.get(i) : "");
+                }
+                out.writeShort(permissions.length);
+                for (long word : permissions) {
+                    out.writeLong(word);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return bytes.toByteArray();
+        }
+
+        // Only called on signed payloads, so a parse failure means a format change, not tampering
+        static Claims read(byte[] payload) {
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+                long tokenId = in.readLong();
+                long userId = in.readLong();
+                String username = in.readUTF();
+                long issuedAt = in.readLong();
+                long expiresAt = in.readLong();
+                int roleCount = in.readUnsignedShort();
+                List<Long> roleIds = new ArrayList<>(roleCount);
+                List<String> roleNames = new ArrayList<>(roleCount);
+                for (int i = 0; i < roleCount; i++) {
+                    roleIds.add(in.readLong());
+                    roleNames.add(in.readUTF());
+                }
+                long[] permissions = new long[in.readUnsignedShort()];
+                for (int i = 0; i < permissions.length; i++) {
+                    permissions[i] = in.readLong();
+                }
+                return new Claims(tokenId, userId, username, roleIds, roleNames, permissions, issuedAt, expiresAt);
+            } catch (IOException e) {
+                return null;
+            }
+        }
+    }
+}
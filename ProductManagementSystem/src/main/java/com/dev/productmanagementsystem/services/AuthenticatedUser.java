@@ -0,0 +1,36 @@
+package com.dev.productmanagementsystem.services;
+
+import com.dev.productmanagementsystem.utils.Bitsets;
+
+import java.util.List;
+
+// Principal attached to each authenticated request; permission checks are bit tests on its bitset
+public class AuthenticatedUser {
+    private final Long userId;
+    private final String username;
+    private final List<Long> roleIds;
+    private final List<String> roleNames;
+    private final long[] permissions;
+
+    public AuthenticatedUser(Long userId, String username, List<Long> roleIds, List<String> roleNames, long[] permissions) {
+        this.userId = userId;
+        this.username = username;
+        this.roleIds = roleIds;
+        this.roleNames = roleNames;
+        this.permissions = permissions;
+    }
+
+    public Long getUserId() { return userId; }
+    public String getUsername() { return username; }
+    public List<Long> getRoleIds() { return roleIds; }
+    public List<String> getRoleNames() { return roleNames; }
+
+    public boolean hasPermission(long permissionId) {
+        return Bitsets.isSet(permissions, permissionId);
+    }
+
+    @Override
+    public String toString() {
+        return username;
+    }
+}
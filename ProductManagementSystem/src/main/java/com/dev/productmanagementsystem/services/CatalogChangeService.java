@@ -0,0 +1,185 @@
+package com.dev.productmanagementsystem.services;
+
+import com.dev.productmanagementsystem.entities.Product;
+import com.dev.productmanagementsystem.entities.ProductTombstone;
+import com.dev.productmanagementsystem.repositories.ProductRepository;
+import com.dev.productmanagementsystem.repositories.ProductTombstoneRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Versions the product catalog with a change sequence, so clients can sync by delta.
+ *
+ * Every product change stamps the product's change_seq with the next number, and every
+ * deletion writes a tombstone with one, inside the transaction that makes the change. The
+ * catalog version is the highest number below which every stamp has committed or rolled back:
+ * a number is in flight from allocation until its transaction completes, and the version never
+ * passes the oldest one in flight. A client that has seen version V and asks for the changes
+ * after V can therefore never miss one that commits later with a smaller number.
+ *
+ * Numbers come from memory, seeded from the tables at startup, so this assumes one application
+ * instance writes products.
+ */
+@Service
+public class CatalogChangeService implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogChangeService.class);
+
+    private final ProductRepository productRepository;
+    private final ProductTombstoneRepository tombstoneRepository;
+    private final ProductDetailCache productDetailCache;
+
+    // Guarded by this
+    private long lastAllocated;
+    private final TreeSet<Long> inFlight = new TreeSet<>();
+
+    @Autowired
+    public CatalogChangeService(ProductRepository productRepository, ProductTombstoneRepository tombstoneRepository,
+                                ProductDetailCache productDetailCache) {
+        this.productRepository = productRepository;
+        this.tombstoneRepository = tombstoneRepository;
+        this.productDetailCache = productDetailCache;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        Long products = productRepository.findMaxChangeSeq();
+        Long tombstones = tombstoneRepository.findMaxChangeSeq();
+        synchronized (this) {
+            lastAllocated = Math.max(lastAllocated, Math.max(products == null ? 0 : products, tombstones == null ? 0 : tombstones));
+        }
+        logger.info("Catalog version is {}", currentVersion());
+    }
+
+    /** Highest sequence up to which every change has completed; what a full snapshot read now covers. */
+    public synchronized long currentVersion() {
+        return inFlight.isEmpty() ? lastAllocated : inFlight.first() - 1;
+    }
+
+    // Change hooks; call inside the transaction that changes the product, or they start their own.
+    // Every change that shows in a product's DTO comes through here, so they also drop cached details.
+
+    @Transactional
+    public void productChanged(Long productId) {
+        productRepository.updateChangeSeq(List.of(productId), allocate());
+        productDetailCache.invalidate(List.of(productId));
+    }
+
+    @Transactional
+    public void productsChanged(Collection<Long> productIds) {
+        if (!productIds.isEmpty()) {
+            productRepository.updateChangeSeq(productIds, allocate());
+            productDetailCache.invalidate(productIds);
+        }
+    }
+
+    @Transactional
+    public void productDeleted(Long productId) {
+        tombstoneRepository.save(new ProductTombstone(productId, allocate()));
+        productDetailCache.invalidate(List.of(productId));
+    }
+
+    /** The category name is part of every product of the category, so all of them change. */
+    @Transactional
+    public void categoryChanged(Long categoryId) {
+        productRepository.updateChangeSeqByCategoryId(categoryId, allocate());
+        productDetailCache.invalidate(productRepository.findIdsByCategoryId(categoryId));
+    }
+
+    /**
+     * Changes after a version, oldest first, up to about limit of them. A sequence number shared
+     * by several products (a category rename) is never split across pages. When hasMore is set,
+     * ask again from the returned version.
+     */
+    @Transactional(readOnly = true)
+    public Changes changesSince(long since, int limit) {
+        long upTo = currentVersion();
+        Changes changes = new Changes();
+        changes.version = upTo;
+        if (since >= upTo) {
+            return changes;
+        }
+        PageRequest page = PageRequest.of(0, limit + 1);
+        List<Product> changed = productRepository.findChangedBetween(since, upTo, page);
+        List<Object[]> deleted = tombstoneRepository.findDeletedBetween(since, upTo, page);
+
+        // Merge both by sequence and stop after limit entries
+        int p = 0;
+        int d = 0;
+        long last = since;
+        while ((p < changed.size() || d < deleted.size()) && changes.changed.size() + changes.deleted.size() < limit) {
+            boolean takeProduct = d == deleted.size()
+                    || (p < changed.size() && changed.get(p).getChangeSeq() <= (Long) deleted.get(d)[1]);
+            if (takeProduct) {
+                last = changed.get(p).getChangeSeq();
+                changes.changed.add(changed.get(p++));
+            } else {
+                last = (Long) deleted.get(d)[1];
+                changes.deleted.add((Long) deleted.get(d++)[0]);
+            }
+        }
+        if (p < changed.size() || d < deleted.size()) {
+            // Cut short: finish the last sequence number so the next page can start after it
+            Set<Long> included = new HashSet<>();
+            changes.changed.forEach(product -> included.add(product.getId()));
+            for (Product product : productRepository.findByChangeSeq(last)) {
+                if (included.add(product.getId())) {
+                    changes.changed.add(product);
+                }
+            }
+            changes.version = last;
+            changes.hasMore = last < upTo;
+        }
+        return changes;
+    }
+
+    private long allocate() {
+        long seq;
+        synchronized (this) {
+            seq = ++lastAllocated;
+            inFlight.add(seq);
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    complete(seq);
+                }
+            });
+        } else {
+            complete(seq);
+        }
+        return seq;
+    }
+
+    private synchronized void complete(long seq) {
+        inFlight.remove(seq);
+    }
+
+    /** Products changed and ids deleted after a version, and the version they bring the client to. */
+    public static class Changes {
+        private long version;
+        private boolean hasMore;
+        private final List<Product> changed = new ArrayList<>();
+        private final List<Long> deleted = new ArrayList<>();
+
+        public long getVersion() { return version; }
+        public boolean isHasMore() { return hasMore; }
+        public List<Product> getChanged() { return changed; }
+        public List<Long> getDeleted() { return deleted; }
+    }
+}
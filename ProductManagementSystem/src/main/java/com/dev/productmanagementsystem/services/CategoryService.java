@@ -1,22 +1,36 @@
 package com.dev.productmanagementsystem.services;
 
 import com.dev.productmanagementsystem.entities.Category;
+import com.dev.productmanagementsystem.exceptions.ResourceNotFoundException;
 import com.dev.productmanagementsystem.repositories.CategoryRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class CategoryService {
 
     private final CategoryRepository categoryRepository;
+    private final SkuLookupService skuLookupService;
+    private final CategoryTreeService categoryTreeService;
+    private final CatalogChangeService catalogChangeService;
 
     @Autowired
-    public CategoryService(CategoryRepository categoryRepository) {
+    public CategoryService(CategoryRepository categoryRepository, SkuLookupService skuLookupService,
+                           CategoryTreeService categoryTreeService, CatalogChangeService catalogChangeService) {
         this.categoryRepository = categoryRepository;
+        this.skuLookupService = skuLookupService;
+        this.categoryTreeService = categoryTreeService;
+        this.catalogChangeService = catalogChangeService;
     }
 
     public List<Category> findAll() {
@@ -31,12 +45,32 @@ public class CategoryService {
         return categoryRepository.findByNameContainingIgnoreCase(name);
     }
 
+    // Creates or updates a category, keeping the closure table in step with its parent
+    @Transactional
     public Category save(Category category) {
-        return categoryRepository.save(category);
+        boolean created = category.getId() == null || !categoryRepository.existsById(category.getId());
+        Long previousParentId = created ? null : categoryRepository.findParentIdById(category.getId()).get(0);
+
+        Category saved = categoryRepository.save(category);
+        Long parentId = saved.getParent() == null ? null : saved.getParent().getId();
+        if (created) {
+            categoryTreeService.categoryCreated(saved.getId(), parentId);
+        } else if (!Objects.equals(previousParentId, parentId)) {
+            categoryTreeService.categoryMoved(saved.getId(), parentId);
+        }
+        if (!created) {
+            // Products carry the category name
+            catalogChangeService.categoryChanged(saved.getId());
+        }
+        skuLookupService.categoriesChanged();
+        return saved;
     }
 
+    @Transactional
     public void delete(Long id) {
         categoryRepository.deleteById(id);
+        categoryTreeService.categoryDeleted(id);
+        skuLookupService.categoriesChanged();
     }
 
     public List<Category> findRootCategories() {
@@ -49,15 +83,17 @@ public class CategoryService {
         return parent.getSubCategories();
     }
 
+    @Transactional
     public Category addSubcategory(Long parentId, Category subCategory) {
         Category parent = categoryRepository.findById(parentId)
                 .orElseThrow(() -> new IllegalArgumentException("Parent category not found"));
 
         parent.addSubCategory(subCategory);
-        categoryRepository.save(subCategory);
+        save(subCategory);
         return categoryRepository.save(parent);
     }
 
+    @Transactional
     public Category removeSubcategory(Long parentId, Long subCategoryId) {
         Category parent = categoryRepository.findById(parentId)
                 .orElseThrow(() -> new IllegalArgumentException("Parent category not found"));
@@ -65,6 +101,41 @@ public class CategoryService {
                 .orElseThrow(() -> new IllegalArgumentException("Subcategory not found"));
 
         parent.removeSubCategory(subCategory);
+        save(subCategory);
         return categoryRepository.save(parent);
     }
+
+    // Hierarchy queries, answered from the in-memory tree plus at most one query for the entities
+
+    public List<Category> findAncestors(Long id) {
+        requireExists(id);
+        return inOrder(categoryTreeService.ancestorIds(id));
+    }
+
+    public List<Category> findDescendants(Long id) {
+        requireExists(id);
+        return inOrder(categoryTreeService.descendantIds(id));
+    }
+
+    public int getDepth(Long id) {
+        requireExists(id);
+        return categoryTreeService.depth(id);
+    }
+
+    private void requireExists(Long id) {
+        if (!categoryTreeService.exists(id)) {
+            throw new ResourceNotFoundException("Category not found with id: " + id);
+        }
+    }
+
+    // Loads the categories and returns them in the order of the ids
+    private List<Category> inOrder(long[] ids) {
+        List<Long> idList = Arrays.stream(ids).boxed().collect(Collectors.toList());
+        Map<Long, Category> byId = categoryRepository.findAllById(idList).stream()
+                .collect(Collectors.toMap(Category::getId, Function.identity()));
+        return idList.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
 }
@@ -0,0 +1,344 @@
+package com.dev.productmanagementsystem.services;
+
+import com.dev.productmanagementsystem.exceptions.InvalidOperationException;
+import com.dev.productmanagementsystem.repositories.CategoryClosureRepository;
+import com.dev.productmanagementsystem.repositories.CategoryRepository;
+import com.dev.productmanagementsystem.utils.AfterCommit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The category hierarchy, kept in two forms.
+ *
+ * The category_closure table holds every (ancestor, descendant) pair with its distance, so
+ * "products anywhere below X" is one indexed query. It is maintained by the category write paths,
+ * inside their transaction, with a few indexed reads and a JDBC batch per change; at startup it is
+ * rebuilt from the parent links if it does not cover every category.
+ *
+ * In memory, an immutable snapshot lays the tree out in pre-order, so the descendants of a
+ * category are one contiguous slice and ancestor, depth and "is below" questions are array
+ * lookups. The snapshot is dropped after a tree change commits and reloaded with one query on
+ * next use.
+ */
+@Service
+public class CategoryTreeService implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(CategoryTreeService.class);
+
+    private static final String INSERT_SQL =
+            "INSERT INTO category_closure (ancestor_id, descendant_id, depth) VALUES (?, ?, ?)";
+    private static final int BATCH_SIZE = 5000;
+    private static final long[] EMPTY = new long[0];
+
+    private final CategoryRepository categoryRepository;
+    private final CategoryClosureRepository closureRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private volatile Snapshot snapshot;
+    // Bumped by every invalidation; a load that raced with one is used once but not published
+    private long generation;
+    private final Object publishLock = new Object();
+
+    @Autowired
+    public CategoryTreeService(CategoryRepository categoryRepository, CategoryClosureRepository closureRepository,
+                               JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.categoryRepository = categoryRepository;
+        this.closureRepository = closureRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        transactionTemplate.executeWithoutResult(status -> {
+            long categories = categoryRepository.count();
+            if (closureRepository.countSelfRows() != categories) {
+                rebuildClosure();
+            }
+        });
+    }
+
+    // Queries, answered from the snapshot
+
+    public boolean exists(long categoryId) {
+        return snapshot().indexOf(categoryId) >= 0;
+    }
+
+    /** Ids from the root down to the parent of the category; empty for roots and unknown ids. */
+    public long[] ancestorIds(long categoryId) {
+        Snapshot current = snapshot();
+        int node = current.indexOf(categoryId);
+        if (node < 0) {
+            return EMPTY;
+        }
+        long[] ancestors = new long[current.depths[node]];
+        for (int parent = current.parents[node], i = ancestors.length - 1; parent >= 0; parent = current.parents[parent]) {
+            ancestors[i--] = current.ids[parent];
+        }
+        return ancestors;
+    }
+
+    /** Ids of every category below this one, parents before their children; empty for unknown ids. */
+    public long[] descendantIds(long categoryId) {
+        Snapshot current = snapshot();
+        int node = current.indexOf(categoryId);
+        if (node < 0) {
+            return EMPTY;
+        }
+        long[] descendants = new long[current.exits[node] - current.enters[node] - 1];
+        for (int i = 0; i < descendants.length; i++) {
+            descendants[i] = current.ids[current.preOrder[current.enters[node] + 1 + i]];
+        }
+        return descendants;
+    }
+
+    /** Edges between the category and its root, 0 for roots; -1 for unknown ids. */
+    public int depth(long categoryId) {
+        Snapshot current = snapshot();
+        int node = current.indexOf(categoryId);
+        return node < 0 ? -1 : current.depths[node];
+    }
+
+    /** True when the category is the ancestor or lies anywhere below it. */
+    public boolean isInSubtree(long ancestorId, long categoryId) {
+        Snapshot current = snapshot();
+        int ancestor = current.indexOf(ancestorId);
+        int node = current.indexOf(categoryId);
+        return ancestor >= 0 && node >= 0
+                && current.enters[node] >= current.enters[ancestor] && current.enters[node] < current.exits[ancestor];
+    }
+
+    // Closure maintenance; call inside the transaction that changes the category
+
+    public void categoryCreated(Long categoryId, Long parentId) {
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{categoryId, categoryId, 0});
+        if (parentId != null) {
+            for (Object[] ancestor : closureRepository.findAncestorRows(parentId)) {
+                rows.add(new Object[]{ancestor[0], categoryId, (Integer) ancestor[1] + 1});
+            }
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+        treeChanged();
+    }
+
+    /** Moves the category and everything below it under a new parent, or to the top level. */
+    public void categoryMoved(Long categoryId, Long newParentId) {
+        List<Object[]> subtree = closureRepository.findDescendantRows(categoryId);
+        List<Long> subtreeIds = new ArrayList<>(subtree.size());
+        for (Object[] row : subtree) {
+            subtreeIds.add((Long) row[0]);
+        }
+        if (newParentId != null && subtreeIds.contains(newParentId)) {
+            throw new InvalidOperationException("A category cannot be moved below itself");
+        }
+
+        List<Long> oldAncestorIds = new ArrayList<>();
+        for (Object[] row : closureRepository.findAncestorRows(categoryId)) {
+            if ((Integer) row[1] > 0) {
+                oldAncestorIds.add((Long) row[0]);
+            }
+        }
+        if (!oldAncestorIds.isEmpty()) {
+            closureRepository.deleteLinks(subtreeIds, oldAncestorIds);
+        }
+
+        if (newParentId != null) {
+            // Every new ancestor gains every category of the moved subtree
+            List<Object[]> rows = new ArrayList<>();
+            for (Object[] ancestor : closureRepository.findAncestorRows(newParentId)) {
+                for (Object[] descendant : subtree) {
+                    rows.add(new Object[]{ancestor[0], descendant[0], (Integer) ancestor[1] + (Integer) descendant[1] + 1});
+                    if (rows.size() == BATCH_SIZE) {
+                        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+                        rows.clear();
+                    }
+                }
+            }
+            if (!rows.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+            }
+        }
+        treeChanged();
+    }
+
+    public void categoryDeleted(Long categoryId) {
+        closureRepository.deleteByCategoryId(categoryId);
+        treeChanged();
+    }
+
+    /** Recreates the closure table from the parent links. Call inside a transaction. */
+    public void rebuildClosure() {
+        long start = System.nanoTime();
+        Snapshot tree = load();
+        closureRepository.deleteAllRows();
+        List<Object[]> rows = new ArrayList<>(BATCH_SIZE);
+        long written = 0;
+        for (int position = 0; position < tree.preOrder.length; position++) {
+            int node = tree.preOrder[position];
+            int distance = 0;
+            for (int ancestor = node; ancestor >= 0; ancestor = tree.parents[ancestor]) {
+                rows.add(new Object[]{tree.ids[ancestor], tree.ids[node], distance++});
+                if (rows.size() == BATCH_SIZE) {
+                    jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+                    written += rows.size();
+                    rows.clear();
+                }
+            }
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+        written += rows.size();
+        treeChanged();
+        logger.info("Category closure rebuilt: {} categories, {} rows in {} ms",
+                tree.preOrder.length, written, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void treeChanged() {
+        AfterCommit.run(() -> {
+            synchronized (publishLock) {
+                generation++;
+                snapshot = null;
+            }
+        });
+    }
+
+    private Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            current = snapshot;
+            if (current != null) {
+                return current;
+            }
+            long loadedGeneration;
+            synchronized (publishLock) {
+                loadedGeneration = generation;
+            }
+            Snapshot loaded = load();
+            synchronized (publishLock) {
+                if (generation == loadedGeneration) {
+                    snapshot = loaded;
+                }
+            }
+            return loaded;
+        }
+    }
+
+    private Snapshot load() {
+        List<Object[]> rows = categoryRepository.findAllIdsAndParentIds();
+        rows.sort((a, b) -> Long.compare((Long) a[0], (Long) b[0]));
+        int count = rows.size();
+        long[] ids = new long[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = (Long) rows.get(i)[0];
+        }
+        int[] parents = new int[count];
+        // Children as compressed rows: the children of node i are children[childOffsets[i]..childOffsets[i + 1])
+        int[] childOffsets = new int[count + 1];
+        for (int i = 0; i < count; i++) {
+            Long parentId = (Long) rows.get(i)[1];
+            parents[i] = parentId == null ? -1 : Arrays.binarySearch(ids, parentId);
+            if (parents[i] >= 0) {
+                childOffsets[parents[i] + 1]++;
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            childOffsets[i + 1] += childOffsets[i];
+        }
+        int[] children = new int[childOffsets[count]];
+        int[] filled = Arrays.copyOf(childOffsets, count);
+        for (int i = 0; i < count; i++) {
+            if (parents[i] >= 0) {
+                children[filled[parents[i]]++] = i;
+            }
+        }
+
+        // Iterative depth-first walk from the roots, recording where each subtree starts and ends
+        int[] preOrder = new int[count];
+        int[] enters = new int[count];
+        int[] exits = new int[count];
+        int[] depths = new int[count];
+        boolean[] visited = new boolean[count];
+        int[] stack = new int[count];
+        int[] nextChild = new int[count];
+        int position = 0;
+        int detached = 0;
+        for (int pass = 0; pass < 2; pass++) {
+            for (int root = 0; root < count; root++) {
+                if (visited[root] || (pass == 0 && parents[root] >= 0)) {
+                    continue;
+                }
+                if (pass == 1) {
+                    // Only reachable through a parent cycle, which the write paths prevent; treat as a root
+                    parents[root] = -1;
+                    detached++;
+                }
+                int top = 0;
+                stack[top++] = root;
+                visited[root] = true;
+                enters[root] = position;
+                preOrder[position++] = root;
+                nextChild[root] = childOffsets[root];
+                while (top > 0) {
+                    int node = stack[top - 1];
+                    if (nextChild[node] < childOffsets[node + 1]) {
+                        int child = children[nextChild[node]++];
+                        if (visited[child]) {
+                            continue;
+                        }
+                        visited[child] = true;
+                        depths[child] = depths[node] + 1;
+                        enters[child] = position;
+                        preOrder[position++] = child;
+                        nextChild[child] = childOffsets[child];
+                        stack[top++] = child;
+                    } else {
+                        exits[node] = position;
+                        top--;
+                    }
+                }
+            }
+        }
+        if (detached > 0) {
+            logger.warn("Category parent links contain cycles; {} categories were treated as roots", detached);
+        }
+        return new Snapshot(ids, parents, depths, preOrder, enters, exits);
+    }
+
+    private static final class Snapshot {
+        // Sorted category ids; every other array is indexed by position in this one
+        final long[] ids;
+        final int[] parents;
+        final int[] depths;
+        // Node indexes in pre-order; the subtree of node i is preOrder[enters[i]..exits[i])
+        final int[] preOrder;
+        final int[] enters;
+        final int[] exits;
+
+        Snapshot(long[] ids, int[] parents, int[] depths, int[] preOrder, int[] enters, int[] exits) {
+            this.ids = ids;
+            this.parents = parents;
+            this.depths = depths;
+            this.preOrder = preOrder;
+            this.enters = enters;
+            this.exits = exits;
+        }
+
+        int indexOf(long categoryId) {
+            return Arrays.binarySearch(ids, categoryId);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.dev.productmanagementsystem.services;
+
+import com.dev.productmanagementsystem.entities.Invoice;
+import com.dev.productmanagementsystem.entities.LedgerBalance;
+import com.dev.productmanagementsystem.entities.Order;
+import com.dev.productmanagementsystem.entities.User;
+import com.dev.productmanagementsystem.enums.OrderStatus;
+import com.dev.productmanagementsystem.enums.PaymentStatus;
+import com.dev.productmanagementsystem.exceptions.InvalidOperationException;
+import com.dev.productmanagementsystem.repositories.InvoiceRepository;
+import com.dev.productmanagementsystem.repositories.LedgerBalanceRepository;
+import com.dev.productmanagementsystem.repositories.OrderRepository;
+import com.dev.productmanagementsystem.utils.AfterCommit;
+import com.dev.productmanagementsystem.utils.Money;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory credit exposure per customer: invoiced totals minus what the ledger has received,
+ * plus the totals of open orders, which hold credit from admission until they are invoiced
+ * (when the invoice takes over) or cancelled. Cancelled invoices are not owed and count for nothing.
+ *
+ * The cache is filled once before the application starts serving requests and then kept
+ * current by deltas from order and invoice changes and ledger postings, applied after their
+ * transaction commits. Admitting an order checks and holds its credit in one atomic map update.
+ */
+@Service
+public class CreditExposureService implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(CreditExposureService.class);
+
+    private final InvoiceRepository invoiceRepository;
+    private final OrderRepository orderRepository;
+    private final LedgerBalanceRepository ledgerBalanceRepository;
+
+    // Customer id -> open receivables and held order totals in minor units
+    private final Map<Long, Long> exposure = new ConcurrentHashMap<>();
+
+    @Autowired
+    public CreditExposureService(InvoiceRepository invoiceRepository, OrderRepository orderRepository,
+                                 LedgerBalanceRepository ledgerBalanceRepository) {
+        this.invoiceRepository = invoiceRepository;
+        this.orderRepository = orderRepository;
+        this.ledgerBalanceRepository = ledgerBalanceRepository;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        reload();
+    }
+
+    /** Rebuilds the cache from the invoices table, the open orders and the customer receivable balances. */
+    public synchronized void reload() {
+        Map<Long, Long> loaded = new ConcurrentHashMap<>();
+        for (Object[] row : invoiceRepository.sumTotalAmountGroupByCustomerIdExcludingStatus(PaymentStatus.CANCELLED)) {
+            loaded.merge((Long) row[0], Money.ofNullable((BigDecimal) row[1]).getMinorUnits(), Math::addExact);
+        }
+        for (Object[] row : orderRepository.sumTotalAmountOfUninvoicedOrdersGroupByCustomerIdExcludingStatus(OrderStatus.CANCELLED)) {
+            loaded.merge((Long) row[0], Money.ofNullable((BigDecimal) row[1]).getMinorUnits(), Math::addExact);
+        }
+        String prefix = LedgerService.CUSTOMER_KEY_PREFIX;
+        for (LedgerBalance balance : ledgerBalanceRepository.findByBalanceKeyStartingWith(prefix)) {
+            Long customerId = Long.valueOf(balance.getBalanceKey().substring(prefix.length()));
+            // Receivable balances are credits, so adding them subtracts what was received
+            loaded.merge(customerId, Money.of(balance.getBalance()).getMinorUnits(), Math::addExact);
+        }
+        exposure.clear();
+        exposure.putAll(loaded);
+        logger.info("Credit exposure loaded for {} customers", loaded.size());
+    }
+
+    public BigDecimal getExposure(Long customerId) {
+        return Money.ofMinor(exposure.getOrDefault(customerId, 0L)).toBigDecimal();
+    }
+
+    /**
+     * Holds an order amount against the customer's credit, or rejects it if that would take the
+     * exposure above their credit limit. The check and the hold are one atomic update, so concurrent
+     * orders cannot both take the last of the credit. The hold applies at once and is undone if the
+     * surrounding transaction rolls back. Customers without a limit are held but never rejected.
+     */
+    public void reserveCredit(User customer, Money amount) {
+        long delta = amount.getMinorUnits();
+        if (delta == 0L) {
+            return;
+        }
+        Long limit = customer.getCreditLimit() != null ? Money.of(customer.getCreditLimit()).getMinorUnits() : null;
+        exposure.compute(customer.getId(), (customerId, current) -> {
+            long held = current != null ? current : 0L;
+            if (limit != null && delta > 0 && Math.addExact(held, delta) > limit) {
+                throw new InvalidOperationException("Order total " + amount + " exceeds the available credit of "
+                        + Money.ofMinor(Math.max(0L, limit - held)) + " for customer " + customer.getUsername());
+            }
+            return Math.addExact(held, delta);
+        });
+        undoOnRollback(customer.getId(), delta);
+    }
+
+    // Drops the hold of an order that is cancelled or loses items
+    public void releaseCredit(Long customerId, Money amount) {
+        adjust(customerId, -amount.getMinorUnits());
+    }
+
+    // Change hooks, applied once the surrounding transaction has committed
+
+    // The invoice takes over the hold of its order
+    public void invoiceCreated(Invoice invoice) {
+        adjust(customerIdOf(invoice), owed(invoice.getPaymentStatus(), invoice.getTotalAmount()) - held(invoice.getOrder()));
+    }
+
+    public void invoiceUpdated(Long previousCustomerId, PaymentStatus previousStatus, BigDecimal previousTotal, Invoice invoice) {
+        adjust(previousCustomerId, -owed(previousStatus, previousTotal));
+        adjust(customerIdOf(invoice), owed(invoice.getPaymentStatus(), invoice.getTotalAmount()));
+    }
+
+    // Its order is open again and holds credit as before
+    public void invoiceDeleted(Invoice invoice) {
+        adjust(customerIdOf(invoice), held(invoice.getOrder()) - owed(invoice.getPaymentStatus(), invoice.getTotalAmount()));
+    }
+
+    // A positive amount is money received; refunds and reversals arrive as negative amounts
+    void paymentPosted(Long customerId, long amount) {
+        adjust(customerId, -amount);
+    }
+
+    public static Long customerIdOf(Invoice invoice) {
+        if (invoice == null || invoice.getOrder() == null || invoice.getOrder().getCustomer() == null) {
+            return null;
+        }
+        return invoice.getOrder().getCustomer().getId();
+    }
+
+    private static long owed(PaymentStatus status, BigDecimal totalAmount) {
+        return status == PaymentStatus.CANCELLED ? 0L : Money.ofNullable(totalAmount).getMinorUnits();
+    }
+
+    private static long held(Order order) {
+        return order == null || order.getStatus() == OrderStatus.CANCELLED ? 0L : Money.ofNullable(order.getTotalAmount()).getMinorUnits();
+    }
+
+    private void adjust(Long customerId, long delta) {
+        if (customerId == null || delta == 0L) {
+            return;
+        }
+        AfterCommit.run(() -> exposure.merge(customerId, delta, Math::addExact));
+    }
+
+    private void undoOnRollback(Long customerId, long delta) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        exposure.merge(customerId, -delta, Math::addExact);
+                    }
+                }
+            });
+        }
+    }
+}
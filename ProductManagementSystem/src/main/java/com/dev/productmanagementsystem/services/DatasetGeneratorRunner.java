@@ -0,0 +1,56 @@
+package com.dev.productmanagementsystem.services;
+
+import com.dev.productmanagementsystem.dto.DatasetResultDTO;
+import com.dev.productmanagementsystem.dto.DatasetSpecDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+/**
+ * Generates a synthetic dataset from the command line and exits:
+ * {@code java -jar app.jar --spring.main.web-application-type=none --generate-dataset [--dataset.products=1000000 ...]}.
+ * Every property of {@link DatasetSpecDTO} can be set as dataset.*, e.g. --dataset.sku-skew=1.2.
+ * The exit code is 0 when the dataset was written and 1 when generation failed.
+ */
+@Component
+public class DatasetGeneratorRunner implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(DatasetGeneratorRunner.class);
+
+    static final String GENERATE_OPTION = "generate-dataset";
+
+    private final DatasetGeneratorService datasetGeneratorService;
+    private final ConfigurableApplicationContext context;
+
+    @Autowired
+    public DatasetGeneratorRunner(DatasetGeneratorService datasetGeneratorService, ConfigurableApplicationContext context) {
+        this.datasetGeneratorService = datasetGeneratorService;
+        this.context = context;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!args.containsOption(GENERATE_OPTION)) {
+            return;
+        }
+        int exitCode;
+        try {
+            DatasetSpecDTO spec = Binder.get(context.getEnvironment()).bind("dataset", DatasetSpecDTO.class).orElseGet(DatasetSpecDTO::new);
+            DatasetResultDTO result = datasetGeneratorService.generate(spec);
+            logger.info("Dataset generated: {} rows in {} ms; rows per table {}", result.getTotalRows(), result.getElapsedMillis(),
+                    result.getRows());
+            exitCode = 0;
+        } catch (Exception e) {
+            logger.error("Dataset generation failed", e);
+            exitCode = 1;
+        }
+        int code = exitCode;
+        System.exit(SpringApplication.exit(context, () -> code));
+    }
+}
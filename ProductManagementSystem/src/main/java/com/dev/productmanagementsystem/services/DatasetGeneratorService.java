@@ -0,0 +1,818 @@
+package com.dev.productmanagementsystem.services;
+
+import com.dev.productmanagementsystem.dto.DatasetResultDTO;
+import com.dev.productmanagementsystem.dto.DatasetSpecDTO;
+import com.dev.productmanagementsystem.entities.Role;
+import com.dev.productmanagementsystem.enums.LedgerAccount;
+import com.dev.productmanagementsystem.enums.MovementStatus;
+import com.dev.productmanagementsystem.enums.OrderStatus;
+import com.dev.productmanagementsystem.enums.PaymentMethod;
+import com.dev.productmanagementsystem.enums.PaymentStatus;
+import com.dev.productmanagementsystem.repositories.ProductRepository;
+import com.dev.productmanagementsystem.repositories.ProductTombstoneRepository;
+import com.dev.productmanagementsystem.repositories.RoleRepository;
+import com.dev.productmanagementsystem.utils.Money;
+import com.dev.productmanagementsystem.utils.ZipfDistribution;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fills the schema with synthetic data for load and scale tests: users with addresses, warehouses,
+ * a category tree, products with stock and price history, orders with items, invoices, payments
+ * with their ledger postings, and stock movements.
+ *
+ * The data is deterministic: every row is drawn from a random generator seeded by the spec's seed,
+ * its table and its position, so the same spec produces the same rows however many threads write
+ * them. Ids are assigned here, after the highest id already in each table, which is what lets a
+ * row reference rows written by another thread. Tables are filled in dependency order; within a
+ * table, chunks of {@code batchSize} rows are written in parallel with JDBC batches, each chunk in
+ * its own transaction. Use a JDBC URL with rewriteBatchedStatements=true on MySQL.
+ *
+ * Distributions: products are picked for order lines and stock movements by a Zipf distribution
+ * with exponent skuSkew, and customers by one with exponent customerSkew, the most popular ranks
+ * scattered over the ids. Order dates follow a yearly cycle peaking in peakMonth, with seasonality
+ * as the amplitude (0 is flat); order ids increase with their dates. Order status, shipping,
+ * invoicing and payment follow from an order's age at the end of the generated period.
+ *
+ * Rows are written behind the application's back, so run it against a database no running
+ * instance is using; the in-memory indexes are rebuilt from the tables when the application starts.
+ */
+@Service
+public class DatasetGeneratorService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DatasetGeneratorService.class);
+
+    private static final String INSERT_ADDRESS_SQL =
+            "INSERT INTO addresses (id, street, city, state, postal_code, country, phone_number) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_USER_SQL =
+            "INSERT INTO users (id, username, email, password, first_name, last_name, active, credit_limit, created_at, updated_at, address_id) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_USER_ROLE_SQL = "INSERT INTO user_roles (user_id, role_id) VALUES (?, ?)";
+    private static final String INSERT_WAREHOUSE_SQL =
+            "INSERT INTO warehouses (id, name, location, address, capacity, manager_id) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_CATEGORY_SQL = "INSERT INTO categories (id, name, description, parent_id) VALUES (?, ?, ?, ?)";
+    private static final String INSERT_CLOSURE_SQL = "INSERT INTO category_closure (ancestor_id, descendant_id, depth) VALUES (?, ?, ?)";
+    private static final String INSERT_PRODUCT_SQL =
+            "INSERT INTO products (id, name, description, sku, price, category_id, created_at, updated_at, change_seq) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_STOCK_SQL = "INSERT INTO product_stock (product_id, warehouse_id, quantity) VALUES (?, ?, ?)";
+    private static final String INSERT_PRICE_SQL =
+            "INSERT INTO product_prices (product_id, price, effective_from, applied, created_at) VALUES (?, ?, ?, ?, ?)";
+    private static final String INSERT_ORDER_SQL =
+            "INSERT INTO orders (id, order_number, customer_id, sales_manager_id, status, order_date, shipping_date, delivery_date, " +
+            "shipping_address_id, billing_address_id, total_amount) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_ITEM_SQL =
+            "INSERT INTO order_items (order_id, product_id, quantity, price_per_unit, source_warehouse_id) VALUES (?, ?, ?, ?, ?)";
+    private static final String INSERT_INVOICE_SQL =
+            "INSERT INTO invoices (id, invoice_number, order_id, accountant_id, issue_date, last_reminder_date, due_date, total_amount, tax, payment_status) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_PAYMENT_SQL =
+            "INSERT INTO payments (id, invoice_id, amount, method, payment_date, transaction_id, notes, payment_status) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_ENTRY_SQL =
+            "INSERT INTO ledger_entries (journal_id, account, amount, payment_id, invoice_id, customer_id, period, posted_at, description) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_BALANCE_SQL =
+            "INSERT INTO ledger_balances (balance_key, account, balance, entry_count, updated_at) VALUES (?, ?, ?, ?, ?)";
+    private static final String UPDATE_BALANCE_SQL =
+            "UPDATE ledger_balances SET balance = balance + ?, entry_count = entry_count + ?, updated_at = ? WHERE balance_key = ?";
+    private static final String INSERT_MOVEMENT_SQL =
+            "INSERT INTO stock_movements (product_id, source_warehouse_id, destination_warehouse_id, quantity, initiated_by_id, movement_date, status, notes) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // Tables whose ids are assigned here, and the order rows are counted in
+    private static final List<String> ID_TABLES =
+            List.of("addresses", "users", "warehouses", "categories", "products", "orders", "invoices", "payments");
+    private static final List<String> TABLES = List.of("addresses", "users", "user_roles", "warehouses", "categories",
+            "category_closure", "products", "product_stock", "product_prices", "orders", "order_items", "invoices",
+            "payments", "ledger_entries", "ledger_balances", "stock_movements");
+
+    // Random streams, one per kind of row
+    private static final long USERS = 1, WAREHOUSES = 2, CATEGORIES = 3, PRODUCTS = 4, PRODUCT_TEXT = 5, ORDERS = 6, MOVEMENTS = 7;
+
+    // Scatters popularity ranks over the ids; a prime larger than any row count, so a bijection mod n
+    private static final long PERMUTATION_PRIME = 2_654_435_761L;
+
+    private static final BigDecimal TAX_PERCENT = new BigDecimal("23.00");
+
+    private static final String[] FIRST_NAMES = {"Anna", "Piotr", "Maria", "Jan", "Katarzyna", "Tomasz", "Agnieszka", "Paweł",
+            "Olivia", "James", "Emma", "Lucas", "Sofia", "Noah", "Mia", "Liam"};
+    private static final String[] LAST_NAMES = {"Nowak", "Kowalski", "Wiśniewska", "Wójcik", "Kamińska", "Lewandowski",
+            "Smith", "Johnson", "Brown", "Müller", "Schmidt", "Garcia", "Rossi", "Dubois", "Novák", "Jensen"};
+    private static final String[][] CITIES = {{"Poznań", "Wielkopolskie", "Poland"}, {"Warszawa", "Mazowieckie", "Poland"},
+            {"Kraków", "Małopolskie", "Poland"}, {"Gdańsk", "Pomorskie", "Poland"}, {"Wrocław", "Dolnośląskie", "Poland"},
+            {"Berlin", "Berlin", "Germany"}, {"Hamburg", "Hamburg", "Germany"}, {"Praha", "Praha", "Czechia"},
+            {"Wien", "Wien", "Austria"}, {"Lyon", "Auvergne-Rhône-Alpes", "France"}};
+    private static final String[] STREETS = {"Główna", "Polna", "Leśna", "Słoneczna", "Krótka", "Szkolna", "Ogrodowa",
+            "Lipowa", "Market", "Station", "Bridge", "Mill"};
+    private static final String[] ADJECTIVES = {"Compact", "Deluxe", "Ergonomic", "Heavy-duty", "Lightweight", "Portable",
+            "Premium", "Rugged", "Sleek", "Smart", "Wireless", "Classic"};
+    private static final String[] MATERIALS = {"Steel", "Oak", "Bamboo", "Ceramic", "Cotton", "Leather", "Aluminium",
+            "Glass", "Granite", "Wool", "Copper", "Rubber"};
+    private static final String[] NOUNS = {"Lamp", "Chair", "Kettle", "Backpack", "Drill", "Blender", "Desk", "Jacket",
+            "Speaker", "Shelf", "Mug", "Toolbox", "Monitor Stand", "Cutting Board", "Bicycle Pump", "Tent"};
+    private static final String[] DEPARTMENTS = {"Home", "Garden", "Tools", "Kitchen", "Outdoor", "Office", "Sports",
+            "Electronics", "Apparel", "Lighting", "Storage", "Travel"};
+    private static final OrderStatus[] NEW_ORDER_STATUSES = {OrderStatus.PENDING, OrderStatus.APPROVED, OrderStatus.CONFIRMED};
+    private static final PaymentMethod[] METHODS = {PaymentMethod.BANK_TRANSFER, PaymentMethod.BANK_TRANSFER,
+            PaymentMethod.CREDIT_CARD, PaymentMethod.CREDIT_CARD, PaymentMethod.DEBIT_CARD, PaymentMethod.PAYPAL, PaymentMethod.CASH};
+    private static final String[] MOVEMENT_NOTES = {"Replenishment", "Rebalancing", "Returned goods", "Seasonal stock-up"};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final RoleRepository roleRepository;
+    private final ProductRepository productRepository;
+    private final ProductTombstoneRepository tombstoneRepository;
+    private final PasswordEncoder passwordEncoder;
+
+    @Autowired
+    public DatasetGeneratorService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                   RoleRepository roleRepository, ProductRepository productRepository,
+                                   ProductTombstoneRepository tombstoneRepository, PasswordEncoder passwordEncoder) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.roleRepository = roleRepository;
+        this.productRepository = productRepository;
+        this.tombstoneRepository = tombstoneRepository;
+        this.passwordEncoder = passwordEncoder;
+    }
+
+    public DatasetResultDTO generate(DatasetSpecDTO spec) {
+        validate(spec);
+        long start = System.nanoTime();
+        Run run = new Run(spec, firstIds(), nextChangeSeq(),
+                roleRepository.findByName(spec.getRole()).map(Role::getId).orElse(null),
+                passwordEncoder.encode(spec.getPassword()));
+        if (run.roleId == null) {
+            logger.warn("Role {} not found; generated users get no role", spec.getRole());
+        }
+        int threads = spec.getThreads() > 0 ? spec.getThreads() : Math.min(Runtime.getRuntime().availableProcessors(), 8);
+        logger.info("Generating dataset with seed {} on {} threads: {} users, {} products, {} orders, {} stock movements",
+                spec.getSeed(), threads, spec.getUsers(), spec.getProducts(), spec.getOrders(), spec.getStockMovements());
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            inParallel(pool, spec.getUsers(), spec.getBatchSize(), (from, to) -> writeUsers(run, from, to));
+            transactionTemplate.executeWithoutResult(tx -> writeWarehouses(run));
+            // Parents come first, so category chunks go in order
+            for (int from = 0; from < spec.getCategories(); from += spec.getBatchSize()) {
+                int chunkStart = from;
+                int chunkEnd = Math.min(from + spec.getBatchSize(), spec.getCategories());
+                transactionTemplate.executeWithoutResult(tx -> writeCategories(run, chunkStart, chunkEnd));
+            }
+            logStep(run, "Reference data");
+            inParallel(pool, spec.getProducts(), spec.getBatchSize(), (from, to) -> writeProducts(run, from, to));
+            logStep(run, "Products");
+            inParallel(pool, spec.getOrders(), spec.getBatchSize(), (from, to) -> writeOrders(run, from, to));
+            transactionTemplate.executeWithoutResult(tx -> writeBalances(run));
+            logStep(run, "Orders");
+            inParallel(pool, spec.getStockMovements(), spec.getBatchSize(), (from, to) -> writeMovements(run, from, to));
+        } finally {
+            pool.shutdownNow();
+        }
+        restartIdentities(run);
+
+        DatasetResultDTO result = new DatasetResultDTO();
+        for (String table : TABLES) {
+            result.getRows().put(table, run.rows.get(table).sum());
+        }
+        result.setElapsedMillis((System.nanoTime() - start) / 1_000_000);
+        logger.info("Generated {} rows in {} ms ({} rows per minute)", result.getTotalRows(), result.getElapsedMillis(),
+                result.getRowsPerMinute());
+        return result;
+    }
+
+    private static void validate(DatasetSpecDTO spec) {
+        if (spec.getUsers() < 0 || spec.getWarehouses() < 0 || spec.getCategories() < 0 || spec.getProducts() < 0
+                || spec.getOrders() < 0 || spec.getStockMovements() < 0) {
+            throw new IllegalArgumentException("Row counts cannot be negative");
+        }
+        if (spec.getProducts() > 0 && spec.getWarehouses() == 0) {
+            throw new IllegalArgumentException("Products need at least one warehouse");
+        }
+        if (spec.getWarehouses() > 0 && spec.getUsers() == 0) {
+            throw new IllegalArgumentException("Warehouses need at least one user to manage them");
+        }
+        if (spec.getOrders() > 0 && (spec.getUsers() == 0 || spec.getProducts() == 0)) {
+            throw new IllegalArgumentException("Orders need at least one user and one product");
+        }
+        if (spec.getStockMovements() > 0 && spec.getProducts() == 0) {
+            throw new IllegalArgumentException("Stock movements need at least one product");
+        }
+        if (spec.getCategoryDepth() < 1 || spec.getMaxWarehousesPerProduct() < 1 || spec.getMaxItemsPerOrder() < 1
+                || spec.getMonths() < 1 || spec.getBatchSize() < 1) {
+            throw new IllegalArgumentException("Category depth, warehouses per product, items per order, months and batch size must be positive");
+        }
+        if (!(spec.getSeasonality() >= 0 && spec.getSeasonality() < 1)) {
+            throw new IllegalArgumentException("Seasonality must be at least 0 and below 1");
+        }
+        if (spec.getPeakMonth() < 1 || spec.getPeakMonth() > 12) {
+            throw new IllegalArgumentException("Peak month must be between 1 and 12");
+        }
+        if (spec.getStart() == null || spec.getPassword() == null) {
+            throw new IllegalArgumentException("Start date and password are required");
+        }
+    }
+
+    // Highest id in each table the generator assigns ids for
+    private Map<String, Long> firstIds() {
+        Map<String, Long> ids = new HashMap<>();
+        for (String table : ID_TABLES) {
+            Long max = jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + table, Long.class);
+            ids.put(table, max == null ? 0L : max);
+        }
+        return ids;
+    }
+
+    private long nextChangeSeq() {
+        Long products = productRepository.findMaxChangeSeq();
+        Long tombstones = tombstoneRepository.findMaxChangeSeq();
+        return Math.max(products == null ? 0 : products, tombstones == null ? 0 : tombstones) + 1;
+    }
+
+    private static void inParallel(ForkJoinPool pool, int total, int batchSize, ChunkWriter writer) {
+        List<ForkJoinTask<?>> chunks = new ArrayList<>();
+        for (int from = 0; from < total; from += batchSize) {
+            int chunkStart = from;
+            int chunkEnd = (int) Math.min((long) from + batchSize, total);
+            chunks.add(pool.submit(() -> writer.write(chunkStart, chunkEnd)));
+        }
+        for (ForkJoinTask<?> chunk : chunks) {
+            chunk.join();
+        }
+    }
+
+    private void logStep(Run run, String step) {
+        logger.info("{} written after {} ms", step, (System.nanoTime() - run.startNanos) / 1_000_000);
+    }
+
+    // Users and their addresses; the first ones are the staff managing warehouses, orders and invoices
+    private void writeUsers(Run run, int from, int to) {
+        List<Object[]> addresses = new ArrayList<>(to - from);
+        List<Object[]> users = new ArrayList<>(to - from);
+        List<Object[]> roles = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            SplittableRandom random = run.random(USERS, i);
+            long id = run.userId(i);
+            String[] city = pick(random, CITIES);
+            addresses.add(new Object[]{run.addressId(i), (1 + random.nextInt(200)) + " " + pick(random, STREETS),
+                    city[0], city[1], String.format(Locale.ROOT, "%02d-%03d", random.nextInt(100), random.nextInt(1000)),
+                    city[2], String.format(Locale.ROOT, "+48 %03d %03d %03d", 500 + random.nextInt(300), random.nextInt(1000), random.nextInt(1000))});
+
+            String username = "user" + id;
+            BigDecimal creditLimit = random.nextInt(10) < 3 ? null : Money.ofMinor(100_000L * (1 + random.nextInt(50))).toBigDecimal();
+            Timestamp createdAt = Timestamp.valueOf(run.start.minusMinutes(random.nextInt(365 * 24 * 60)));
+            users.add(new Object[]{id, username, username + "@example.com", run.passwordHash, pick(random, FIRST_NAMES),
+                    pick(random, LAST_NAMES), true, creditLimit, createdAt, createdAt, run.addressId(i)});
+            if (run.roleId != null) {
+                roles.add(new Object[]{id, run.roleId});
+            }
+        }
+        run.write(transactionTemplate, jdbcTemplate, List.of(
+                new Batch("addresses", INSERT_ADDRESS_SQL, addresses),
+                new Batch("users", INSERT_USER_SQL, users),
+                new Batch("user_roles", INSERT_USER_ROLE_SQL, roles)));
+    }
+
+    private void writeWarehouses(Run run) {
+        List<Object[]> warehouses = new ArrayList<>(run.warehouses);
+        for (int w = 0; w < run.warehouses; w++) {
+            SplittableRandom random = run.random(WAREHOUSES, w);
+            String[] city = pick(random, CITIES);
+            long id = run.warehouseId(w);
+            warehouses.add(new Object[]{id, "Warehouse " + city[0] + " " + id, city[0] + ", " + city[2],
+                    (1 + random.nextInt(200)) + " " + pick(random, STREETS), (double) (10_000 + 1000 * random.nextInt(91)),
+                    run.staffId(random)});
+        }
+        run.count("warehouses", warehouses.size());
+        jdbcTemplate.batchUpdate(INSERT_WAREHOUSE_SQL, warehouses);
+    }
+
+    private void writeCategories(Run run, int from, int to) {
+        List<Object[]> categories = new ArrayList<>(to - from);
+        List<Object[]> closure = new ArrayList<>((to - from) * 4);
+        for (int c = from; c < to; c++) {
+            SplittableRandom random = run.random(CATEGORIES, c);
+            long id = run.categoryId(c);
+            int parent = run.categoryParents[c];
+            categories.add(new Object[]{id, pick(random, DEPARTMENTS) + " " + id, "Generated category, level " + (run.categoryDepths[c] + 1),
+                    parent < 0 ? null : run.categoryId(parent)});
+            // The category itself and each of its ancestors
+            int depth = 0;
+            for (int ancestor = c; ancestor >= 0; ancestor = run.categoryParents[ancestor]) {
+                closure.add(new Object[]{run.categoryId(ancestor), id, depth++});
+            }
+        }
+        run.count("categories", categories.size());
+        run.count("category_closure", closure.size());
+        jdbcTemplate.batchUpdate(INSERT_CATEGORY_SQL, categories);
+        jdbcTemplate.batchUpdate(INSERT_CLOSURE_SQL, closure);
+    }
+
+    private void writeProducts(Run run, int from, int to) {
+        List<Object[]> products = new ArrayList<>(to - from);
+        List<Object[]> stock = new ArrayList<>((to - from) * 2);
+        List<Object[]> prices = new ArrayList<>(to - from);
+        for (int p = from; p < to; p++) {
+            ProductProfile profile = run.product(p);
+            SplittableRandom random = run.random(PRODUCT_TEXT, p);
+            long id = run.productId(p);
+            String noun = pick(random, NOUNS);
+            String name = pick(random, ADJECTIVES) + " " + pick(random, MATERIALS) + " " + noun;
+            String description = name + ", " + pick(random, ADJECTIVES).toLowerCase(Locale.ROOT) + " " + noun.toLowerCase(Locale.ROOT)
+                    + " for everyday use";
+            Long categoryId = run.categories == 0 ? null : run.categoryId(random.nextInt(run.categories));
+            BigDecimal price = Money.ofMinor(profile.price).toBigDecimal();
+            Timestamp createdAt = Timestamp.valueOf(run.start.minusMinutes(random.nextInt(180 * 24 * 60)));
+            products.add(new Object[]{id, name, description, String.format(Locale.ROOT, "GEN-%08d", id), price, categoryId,
+                    createdAt, createdAt, run.changeSeq});
+            for (int w = 0; w < profile.warehouses.length; w++) {
+                stock.add(new Object[]{id, run.warehouseId(profile.warehouses[w]), profile.quantities[w]});
+            }
+            prices.add(new Object[]{id, price, createdAt, true, createdAt});
+        }
+        run.write(transactionTemplate, jdbcTemplate, List.of(
+                new Batch("products", INSERT_PRODUCT_SQL, products),
+                new Batch("product_stock", INSERT_STOCK_SQL, stock),
+                new Batch("product_prices", INSERT_PRICE_SQL, prices)));
+    }
+
+    // Orders with their items, invoice, payments and ledger postings
+    private void writeOrders(Run run, int from, int to) {
+        int count = to - from;
+        List<Object[]> orders = new ArrayList<>(count);
+        List<Object[]> items = new ArrayList<>(count * 4);
+        List<Object[]> invoices = new ArrayList<>(count);
+        List<Object[]> payments = new ArrayList<>(count);
+        List<Object[]> entries = new ArrayList<>(count * 2);
+        List<Object[]> invoiceBalances = new ArrayList<>(count);
+        Map<String, BalanceDelta> deltas = new HashMap<>();
+        int[] lineProducts = new int[run.spec.getMaxItemsPerOrder()];
+
+        for (int i = from; i < to; i++) {
+            SplittableRandom random = run.random(ORDERS, i);
+            long id = run.orderId(i);
+            LocalDateTime orderDate = run.dateAt((i + random.nextDouble()) / run.orders);
+            int customer = run.customer(random);
+            long ageHours = ChronoUnit.HOURS.between(orderDate, run.end);
+
+            OrderStatus status;
+            if (random.nextDouble() < run.spec.getCancelledShare()) {
+                status = OrderStatus.CANCELLED;
+            } else if (ageHours >= 14 * 24) {
+                status = OrderStatus.DELIVERED;
+            } else if (ageHours >= 7 * 24) {
+                status = random.nextInt(10) < 6 ? OrderStatus.DELIVERED : OrderStatus.SHIPPED;
+            } else if (ageHours >= 2 * 24) {
+                status = random.nextBoolean() ? OrderStatus.SHIPPED : OrderStatus.PROCESSING;
+            } else {
+                status = pick(random, NEW_ORDER_STATUSES);
+            }
+            LocalDateTime shippingDate = null;
+            LocalDateTime deliveryDate = null;
+            if (status == OrderStatus.SHIPPED || status == OrderStatus.DELIVERED) {
+                shippingDate = before(orderDate.plusHours(12 + random.nextInt(60)), run.end);
+                if (status == OrderStatus.DELIVERED) {
+                    deliveryDate = before(shippingDate.plusHours(12 + random.nextInt(108)), run.end);
+                }
+            }
+
+            // Distinct products, popular ones more often
+            int lines = 1 + random.nextInt(run.spec.getMaxItemsPerOrder());
+            int distinct = 0;
+            long totalMinor = 0;
+            for (int line = 0; line < lines; line++) {
+                int p = run.popularProduct(random);
+                boolean repeated = false;
+                for (int seen = 0; seen < distinct; seen++) {
+                    repeated |= lineProducts[seen] == p;
+                }
+                if (repeated) {
+                    continue;
+                }
+                lineProducts[distinct++] = p;
+                ProductProfile profile = run.product(p);
+                int quantity = 1 + Math.min(19, (int) (-Math.log(1 - random.nextDouble()) * 1.5));
+                totalMinor = Math.addExact(totalMinor, Math.multiplyExact(profile.price, quantity));
+                items.add(new Object[]{id, run.productId(p), quantity, Money.ofMinor(profile.price).toBigDecimal(),
+                        run.warehouseId(profile.warehouses[0])});
+            }
+            Long salesManager = random.nextBoolean() ? run.staffId(random) : null;
+            orders.add(new Object[]{id, "ORD-G" + id, run.userId(customer), salesManager, status.name(), Timestamp.valueOf(orderDate),
+                    timestamp(shippingDate), timestamp(deliveryDate), run.addressId(customer), run.addressId(customer),
+                    Money.ofMinor(totalMinor).toBigDecimal()});
+
+            if (status != OrderStatus.PROCESSING && status != OrderStatus.SHIPPED && status != OrderStatus.DELIVERED) {
+                continue;
+            }
+            invoice(run, random, i, customer, orderDate, totalMinor, invoices, payments, entries, invoiceBalances, deltas);
+        }
+
+        run.mergeDeltas(deltas);
+        run.write(transactionTemplate, jdbcTemplate, List.of(
+                new Batch("orders", INSERT_ORDER_SQL, orders),
+                new Batch("order_items", INSERT_ITEM_SQL, items),
+                new Batch("invoices", INSERT_INVOICE_SQL, invoices),
+                new Batch("payments", INSERT_PAYMENT_SQL, payments),
+                new Batch("ledger_entries", INSERT_ENTRY_SQL, entries),
+                new Batch("ledger_balances", INSERT_BALANCE_SQL, invoiceBalances)));
+    }
+
+    // Invoice for order i, paid in full, in part or not at all depending on its due date
+    private static void invoice(Run run, SplittableRandom random, int i, int customer, LocalDateTime orderDate, long orderMinor,
+                                List<Object[]> invoices, List<Object[]> payments, List<Object[]> entries,
+                                List<Object[]> invoiceBalances, Map<String, BalanceDelta> deltas) {
+        long invoiceId = run.invoiceId(i);
+        long customerId = run.userId(customer);
+        LocalDateTime issueDate = before(orderDate.plusHours(1 + random.nextInt(48)), run.end);
+        LocalDateTime dueDate = issueDate.plusDays(30);
+        long totalMinor = InvoiceService.calculateTotalWithTax(Money.ofMinor(orderMinor).toBigDecimal(), TAX_PERCENT).getMinorUnits();
+
+        List<Long> paid = new ArrayList<>(2);
+        PaymentStatus paymentStatus;
+        LocalDateTime lastReminder = null;
+        if (dueDate.isBefore(run.end)) {
+            double outcome = random.nextDouble();
+            if (outcome < run.spec.getPaidShare()) {
+                paymentStatus = PaymentStatus.PAID;
+            } else {
+                paymentStatus = outcome < (1 + run.spec.getPaidShare()) / 2 ? PaymentStatus.PARTIALLY_PAID : PaymentStatus.OVERDUE;
+                lastReminder = before(dueDate.plusDays(7), run.end);
+            }
+        } else {
+            paymentStatus = random.nextDouble() < run.spec.getPaidShare() / 2 ? PaymentStatus.PAID : PaymentStatus.PENDING;
+        }
+        if (paymentStatus == PaymentStatus.PAID && random.nextInt(5) > 0) {
+            paid.add(totalMinor);
+        } else if (paymentStatus == PaymentStatus.PAID) {
+            long first = totalMinor / 2;
+            paid.add(first);
+            paid.add(totalMinor - first);
+        } else if (paymentStatus == PaymentStatus.PARTIALLY_PAID) {
+            paid.add(Math.max(1, totalMinor * (20 + random.nextInt(60)) / 100));
+        }
+        invoices.add(new Object[]{invoiceId, "INV-G" + invoiceId, run.orderId(i), run.staffId(random), Timestamp.valueOf(issueDate),
+                timestamp(lastReminder), Timestamp.valueOf(dueDate), Money.ofMinor(totalMinor).toBigDecimal(), TAX_PERCENT,
+                paymentStatus.name()});
+
+        long received = 0;
+        long paymentsLeft = Duration.between(issueDate, before(dueDate, run.end)).toMinutes();
+        LocalDateTime paymentDate = issueDate;
+        for (int k = 0; k < paid.size(); k++) {
+            long paymentId = run.paymentId(i, k);
+            long amount = paid.get(k);
+            paymentDate = paymentDate.plusMinutes(paymentsLeft <= 0 ? 0 : random.nextLong(paymentsLeft / paid.size() + 1));
+            String transactionId = "TXN-G" + paymentId;
+            BigDecimal value = Money.ofMinor(amount).toBigDecimal();
+            payments.add(new Object[]{paymentId, invoiceId, value, pick(random, METHODS).name(), Timestamp.valueOf(paymentDate),
+                    transactionId, null, PaymentStatus.COMPLETED.name()});
+
+            // As LedgerService posts a completed payment: debit cash, credit the customer's receivable
+            String journalId = new UUID(random.nextLong(), random.nextLong()).toString();
+            YearMonth period = YearMonth.from(paymentDate);
+            Timestamp postedAt = Timestamp.valueOf(paymentDate);
+            String description = "Payment " + transactionId;
+            entries.add(new Object[]{journalId, LedgerAccount.CASH.name(), value, paymentId, invoiceId, customerId,
+                    period.toString(), postedAt, description});
+            entries.add(new Object[]{journalId, LedgerAccount.ACCOUNTS_RECEIVABLE.name(), value.negate(), paymentId, invoiceId,
+                    customerId, period.toString(), postedAt, description});
+            addDelta(deltas, LedgerService.accountKey(LedgerAccount.CASH), LedgerAccount.CASH, amount);
+            addDelta(deltas, LedgerService.periodKey(LedgerAccount.CASH, period), LedgerAccount.CASH, amount);
+            addDelta(deltas, LedgerService.accountKey(LedgerAccount.ACCOUNTS_RECEIVABLE), LedgerAccount.ACCOUNTS_RECEIVABLE, -amount);
+            addDelta(deltas, LedgerService.customerKey(customerId), LedgerAccount.ACCOUNTS_RECEIVABLE, -amount);
+            received += amount;
+        }
+        // Invoices are new, so their balances are complete here
+        if (!paid.isEmpty()) {
+            invoiceBalances.add(new Object[]{LedgerService.invoiceKey(invoiceId), LedgerAccount.ACCOUNTS_RECEIVABLE.name(),
+                    Money.ofMinor(-received).toBigDecimal(), paid.size(), run.now});
+        }
+    }
+
+    // Account, period and customer balances collect postings from every chunk; added to existing rows or inserted
+    private void writeBalances(Run run) {
+        List<String> keys = new ArrayList<>(new TreeMap<>(run.deltas).keySet());
+        List<Object[]> updates = new ArrayList<>();
+        List<Object[]> inserts = new ArrayList<>();
+        for (int from = 0; from < keys.size(); from += run.spec.getBatchSize()) {
+            List<String> chunk = keys.subList(from, Math.min(from + run.spec.getBatchSize(), keys.size()));
+            String placeholders = String.join(", ", Collections.nCopies(chunk.size(), "?"));
+            Set<String> existing = new HashSet<>(jdbcTemplate.queryForList(
+                    "SELECT balance_key FROM ledger_balances WHERE balance_key IN (" + placeholders + ")", String.class, chunk.toArray()));
+            for (String key : chunk) {
+                BalanceDelta delta = run.deltas.get(key);
+                BigDecimal amount = Money.ofMinor(delta.amount).toBigDecimal();
+                if (existing.contains(key)) {
+                    updates.add(new Object[]{amount, delta.entries, run.now, key});
+                } else {
+                    inserts.add(new Object[]{key, delta.account.name(), amount, delta.entries, run.now});
+                }
+            }
+        }
+        jdbcTemplate.batchUpdate(UPDATE_BALANCE_SQL, updates);
+        jdbcTemplate.batchUpdate(INSERT_BALANCE_SQL, inserts);
+        run.count("ledger_balances", inserts.size());
+    }
+
+    private void writeMovements(Run run, int from, int to) {
+        List<Object[]> movements = new ArrayList<>(to - from);
+        for (int m = from; m < to; m++) {
+            SplittableRandom random = run.random(MOVEMENTS, m);
+            LocalDateTime date = run.dateAt((m + random.nextDouble()) / run.movements);
+            int p = run.popularProduct(random);
+            // Receipts from suppliers have no source warehouse
+            Long source = null;
+            int destination = random.nextInt(run.warehouses);
+            if (run.warehouses > 1 && random.nextInt(5) > 0) {
+                int offset = 1 + random.nextInt(run.warehouses - 1);
+                source = run.warehouseId((destination + offset) % run.warehouses);
+            }
+            MovementStatus status;
+            if (ChronoUnit.HOURS.between(date, run.end) < 48) {
+                status = random.nextBoolean() ? MovementStatus.PENDING : MovementStatus.IN_PROGRESS;
+            } else {
+                status = random.nextInt(100) < 3 ? MovementStatus.CANCELLED : MovementStatus.COMPLETED;
+            }
+            movements.add(new Object[]{run.productId(p), source, run.warehouseId(destination), 1 + random.nextInt(200),
+                    run.staffId(random), Timestamp.valueOf(date), status.name(),
+                    source == null ? "Supplier receipt" : pick(random, MOVEMENT_NOTES)});
+        }
+        run.write(transactionTemplate, jdbcTemplate, List.of(new Batch("stock_movements", INSERT_MOVEMENT_SQL, movements)));
+    }
+
+    // MySQL moves AUTO_INCREMENT past explicit ids by itself; H2 keeps counting from where it was
+    private void restartIdentities(Run run) {
+        String database = jdbcTemplate.execute((ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        if (!"H2".equals(database)) {
+            return;
+        }
+        for (String table : ID_TABLES) {
+            Long max = jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + table, Long.class);
+            if (max != null) {
+                jdbcTemplate.execute("ALTER TABLE " + table + " ALTER COLUMN id RESTART WITH " + (max + 1));
+            }
+        }
+    }
+
+    private static void addDelta(Map<String, BalanceDelta> deltas, String key, LedgerAccount account, long amount) {
+        BalanceDelta delta = deltas.computeIfAbsent(key, k -> new BalanceDelta(account));
+        delta.amount = Math.addExact(delta.amount, amount);
+        delta.entries++;
+    }
+
+    private static <T> T pick(SplittableRandom random, T[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private static LocalDateTime before(LocalDateTime time, LocalDateTime limit) {
+        return time.isBefore(limit) ? time : limit.minusMinutes(1);
+    }
+
+    private static Timestamp timestamp(LocalDateTime time) {
+        return time == null ? null : Timestamp.valueOf(time);
+    }
+
+    // SplitMix64 finalizer
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    @FunctionalInterface
+    private interface ChunkWriter {
+        void write(int from, int to);
+    }
+
+    private record Batch(String table, String sql, List<Object[]> rows) {}
+
+    // What order lines need of a product, drawn before anything else from its random stream
+    private record ProductProfile(long price, int[] warehouses, int[] quantities) {}
+
+    private static final class BalanceDelta {
+        final LedgerAccount account;
+        long amount;
+        long entries;
+
+        BalanceDelta(LedgerAccount account) {
+            this.account = account;
+        }
+    }
+
+    /** Everything derived from the spec once, shared by the chunk writers. */
+    private static final class Run {
+        final DatasetSpecDTO spec;
+        final long seed;
+        final long startNanos = System.nanoTime();
+        final Map<String, Long> firstIds;
+        final long changeSeq;
+        final Long roleId;
+        final String passwordHash;
+        final int users, staff, warehouses, categories, products, orders, movements;
+        final LocalDateTime start;
+        final LocalDateTime end;
+        final Timestamp now;
+        final ZipfDistribution productPopularity;
+        final ZipfDistribution customerPopularity;
+        final int[] categoryParents;
+        final int[] categoryDepths;
+        // Cumulative order weight at the start of each day of the period
+        final double[] cumulativeWeights;
+        final Map<String, LongAdder> rows = new LinkedHashMap<>();
+        final Map<String, BalanceDelta> deltas = new ConcurrentHashMap<>();
+
+        Run(DatasetSpecDTO spec, Map<String, Long> firstIds, long changeSeq, Long roleId, String passwordHash) {
+            this.spec = spec;
+            this.seed = spec.getSeed();
+            this.firstIds = firstIds;
+            this.changeSeq = changeSeq;
+            this.roleId = roleId;
+            this.passwordHash = passwordHash;
+            this.users = spec.getUsers();
+            this.staff = Math.max(1, users / 100);
+            this.warehouses = spec.getWarehouses();
+            this.categories = spec.getCategories();
+            this.products = spec.getProducts();
+            this.orders = spec.getOrders();
+            this.movements = spec.getStockMovements();
+            this.start = spec.getStart().atStartOfDay();
+            this.end = spec.getStart().plusMonths(spec.getMonths()).atStartOfDay();
+            this.now = Timestamp.valueOf(end);
+            this.productPopularity = products == 0 ? null : new ZipfDistribution(products, spec.getSkuSkew());
+            this.customerPopularity = users == 0 ? null : new ZipfDistribution(users, spec.getCustomerSkew());
+            for (String table : TABLES) {
+                rows.put(table, new LongAdder());
+            }
+
+            // Each category hangs below a recent one, which makes the tree deep, unless that one is at the depth limit
+            categoryParents = new int[categories];
+            categoryDepths = new int[categories];
+            int roots = Math.max(1, categories / 50);
+            for (int c = 0; c < categories; c++) {
+                SplittableRandom random = random(CATEGORIES, -1 - c);
+                int parent = -1;
+                if (c >= roots) {
+                    double u = random.nextDouble();
+                    parent = c - 1 - (int) ((c - 1) * u * u);
+                    while (parent >= 0 && categoryDepths[parent] >= spec.getCategoryDepth() - 1) {
+                        parent = categoryParents[parent];
+                    }
+                }
+                categoryParents[c] = parent;
+                categoryDepths[c] = parent < 0 ? 0 : categoryDepths[parent] + 1;
+            }
+
+            // Yearly cycle: weight 1 + seasonality * cos(distance to the peak), a month being a twelfth of it
+            LocalDate first = spec.getStart();
+            int days = (int) ChronoUnit.DAYS.between(first, spec.getStart().plusMonths(spec.getMonths()));
+            cumulativeWeights = new double[days + 1];
+            for (int d = 0; d < days; d++) {
+                LocalDate day = first.plusDays(d);
+                double month = day.getMonthValue() - 1 + (day.getDayOfMonth() - 0.5) / day.lengthOfMonth();
+                double weight = 1 + spec.getSeasonality() * Math.cos(2 * Math.PI * (month - (spec.getPeakMonth() - 0.5)) / 12);
+                cumulativeWeights[d + 1] = cumulativeWeights[d] + weight;
+            }
+        }
+
+        SplittableRandom random(long stream, long index) {
+            return new SplittableRandom(mix(mix(seed + stream * 0x9E3779B97F4A7C15L) + index));
+        }
+
+        // Ids, by position in the generated rows
+        long addressId(int i) { return firstIds.get("addresses") + 1 + i; }
+        long userId(int i) { return firstIds.get("users") + 1 + i; }
+        long warehouseId(int w) { return firstIds.get("warehouses") + 1 + w; }
+        long categoryId(int c) { return firstIds.get("categories") + 1 + c; }
+        long productId(int p) { return firstIds.get("products") + 1 + p; }
+        long orderId(int i) { return firstIds.get("orders") + 1 + i; }
+        // Not every order has an invoice, nor every invoice two payments; the unused ids are skipped
+        long invoiceId(int order) { return firstIds.get("invoices") + 1 + order; }
+        long paymentId(int order, int k) { return firstIds.get("payments") + 1 + 2L * order + k; }
+
+        long staffId(SplittableRandom random) {
+            return userId(random.nextInt(staff));
+        }
+
+        int customer(SplittableRandom random) {
+            return permute(customerPopularity.sample(random) - 1, users);
+        }
+
+        int popularProduct(SplittableRandom random) {
+            return permute(productPopularity.sample(random) - 1, products);
+        }
+
+        ProductProfile product(int p) {
+            SplittableRandom random = random(PRODUCTS, p);
+            // Log-normal around 33.00, between 0.50 and 99,999.99
+            long price = Math.max(50, Math.min(9_999_999, Math.round(Math.exp(3.5 + random.nextGaussian()) * 100)));
+            int count = 1 + random.nextInt(Math.min(spec.getMaxWarehousesPerProduct(), warehouses));
+            int[] stockWarehouses = new int[count];
+            int[] quantities = new int[count];
+            int firstWarehouse = random.nextInt(warehouses);
+            int step = warehouses == 1 ? 0 : 1 + random.nextInt(warehouses - 1);
+            for (int w = 0; w < count; w++) {
+                // Distinct as long as the step does not wrap around onto the first warehouse
+                stockWarehouses[w] = (int) ((firstWarehouse + (long) w * step) % warehouses);
+                quantities[w] = w == 0 ? 100 + random.nextInt(900) : random.nextInt(500);
+            }
+            return new ProductProfile(price, distinct(stockWarehouses, quantities), quantities);
+        }
+
+        // Point in the period where the cumulative weight reaches fraction u of the total
+        LocalDateTime dateAt(double u) {
+            double target = u * cumulativeWeights[cumulativeWeights.length - 1];
+            int low = 0;
+            int high = cumulativeWeights.length - 2;
+            while (low < high) {
+                int mid = (low + high + 1) >>> 1;
+                if (cumulativeWeights[mid] <= target) {
+                    low = mid;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            double dayFraction = (target - cumulativeWeights[low]) / (cumulativeWeights[low + 1] - cumulativeWeights[low]);
+            return start.plusDays(low).plusSeconds((long) (Math.min(dayFraction, 1) * 86_399));
+        }
+
+        void count(String table, long count) {
+            rows.get(table).add(count);
+        }
+
+        void mergeDeltas(Map<String, BalanceDelta> chunk) {
+            for (Map.Entry<String, BalanceDelta> entry : chunk.entrySet()) {
+                deltas.merge(entry.getKey(), entry.getValue(), (total, delta) -> {
+                    synchronized (total) {
+                        total.amount = Math.addExact(total.amount, delta.amount);
+                        total.entries += delta.entries;
+                    }
+                    return total;
+                });
+            }
+        }
+
+        void write(TransactionTemplate transactionTemplate, JdbcTemplate jdbcTemplate, List<Batch> batches) {
+            transactionTemplate.executeWithoutResult(tx -> {
+                for (Batch batch : batches) {
+                    if (!batch.rows().isEmpty()) {
+                        jdbcTemplate.batchUpdate(batch.sql(), batch.rows());
+                    }
+                }
+            });
+            for (Batch batch : batches) {
+                count(batch.table(), batch.rows().size());
+            }
+        }
+
+        private static int permute(int rank, int n) {
+            return (int) (rank * PERMUTATION_PRIME % n);
+        }
+
+        // Drops warehouses repeated after the step wrapped around, with their quantities
+        private static int[] distinct(int[] warehouses, int[] quantities) {
+            int count = 0;
+            for (int w = 0; w < warehouses.length; w++) {
+                boolean repeated = false;
+                for (int seen = 0; seen < count; seen++) {
+                    repeated |= warehouses[seen] == warehouses[w];
+                }
+                if (!repeated) {
+                    quantities[count] = quantities[w];
+                    warehouses[count++] = warehouses[w];
+                }
+            }
+            return count == warehouses.length ? warehouses : Arrays.copyOf(warehouses, count);
+        }
+    }
+}
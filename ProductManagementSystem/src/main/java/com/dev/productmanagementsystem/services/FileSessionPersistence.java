@@ -0,0 +1,86 @@
+package com.dev.productmanagementsystem.services;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sessions in a single tab-separated file, rewritten atomically on every batch.
+ * Meant for tests and single-node setups without a database table.
+ */
+public class FileSessionPersistence implements SessionPersistence {
+
+    private final Path file;
+    private final Map<String, StoredSession> sessions = new LinkedHashMap<>();
+
+    public FileSessionPersistence(Path file) {
+        this.file = file;
+    }
+
+    @Override
+    public synchronized List<StoredSession> load(long now) {
+        sessions.clear();
+        if (Files.isRegularFile(file)) {
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] fields = line.split("\t");
+                    if (fields.length != 5) {
+                        continue;
+                    }
+                    StoredSession session = new StoredSession(fields[0], Long.parseLong(fields[1]),
+                            Long.parseLong(fields[2]), Long.parseLong(fields[3]), Long.parseLong(fields[4]));
+                    if (session.getExpiresAt() > now) {
+                        sessions.put(session.getTokenHash(), session);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not read session file " + file, e);
+            }
+        }
+        return new ArrayList<>(sessions.values());
+    }
+
+    @Override
+    public synchronized void write(Collection<StoredSession> created, Collection<StoredSession> touched, Collection<String> removed) {
+        for (StoredSession session : created) {
+            sessions.put(session.getTokenHash(), session);
+        }
+        for (StoredSession session : touched) {
+            sessions.put(session.getTokenHash(), session);
+        }
+        for (String tokenHash : removed) {
+            sessions.remove(tokenHash);
+        }
+
+        try {
+            Path directory = file.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            Path temp = Files.createTempFile(directory, "sessions-", ".tmp");
+            try {
+                try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                    for (StoredSession session : sessions.values()) {
+                        writer.write(session.getTokenHash() + "\t" + session.getUserId() + "\t" + session.getCreatedAt()
+                                + "\t" + session.getExpiresAt() + "\t" + session.getIdleTimeout());
+                        writer.newLine();
+                    }
+                }
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write session file " + file, e);
+        }
+    }
+}
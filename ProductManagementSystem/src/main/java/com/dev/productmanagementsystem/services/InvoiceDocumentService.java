@@ -0,0 +1,584 @@
+package com.dev.productmanagementsystem.services;
+
+import com.dev.productmanagementsystem.dto.InvoiceSnapshotDTO;
+import com.dev.productmanagementsystem.entities.Address;
+import com.dev.productmanagementsystem.entities.Invoice;
+import com.dev.productmanagementsystem.entities.Order;
+import com.dev.productmanagementsystem.entities.OrderItem;
+import com.dev.productmanagementsystem.entities.Payment;
+import com.dev.productmanagementsystem.entities.User;
+import com.dev.productmanagementsystem.enums.DocumentFormat;
+import com.dev.productmanagementsystem.enums.PaymentStatus;
+import com.dev.productmanagementsystem.exceptions.ResourceNotFoundException;
+import com.dev.productmanagementsystem.repositories.InvoiceRepository;
+import com.dev.productmanagementsystem.utils.AfterCommit;
+import com.dev.productmanagementsystem.utils.Money;
+import com.dev.productmanagementsystem.utils.PdfDocumentWriter;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Renders invoices to HTML and PDF from a flattened {@link InvoiceSnapshotDTO}.
+ *
+ * Rendered files are stored on disk under the SHA-256 of the snapshot, so identical content is
+ * rendered once and the hash doubles as the ETag. The current hash of each invoice is memoized
+ * and dropped when the invoice or its posted payments change, which means repeat downloads of
+ * an unchanged invoice touch neither the database nor the renderer.
+ *
+ * The cache directory is bounded by age and total size. After a write, at most once per sweep
+ * interval, files older than the maximum age are deleted and then the oldest files until the rest
+ * fits the size limit. Serving a file refreshes its timestamp now and then, so the documents in
+ * use are the last ones evicted. An evicted document is simply rendered again when requested.
+ */
+@Service
+public class InvoiceDocumentService {
+
+    // Part of every content hash; bump it when the layout changes to re-render all documents
+    static final int RENDERER_VERSION = 1;
+
+    private static final int MAX_MEMOIZED_HASHES = 10_000;
+    private static final Duration SWEEP_INTERVAL = Duration.ofMinutes(1);
+    private static final Duration TOUCH_INTERVAL = Duration.ofHours(1);
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+    private static final Logger logger = LoggerFactory.getLogger(InvoiceDocumentService.class);
+
+    private final InvoiceRepository invoiceRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Path cacheDirectory;
+    private final long maxCacheBytes;
+    private final Duration maxCacheAge;
+
+    // Millis of the last sweep; a write claims the next one by moving it forward
+    private final AtomicLong lastSweep = new AtomicLong();
+
+    // Invoice id -> content hash of its current snapshot, least recently used evicted first
+    private final Map<Long, String> currentHashes = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, String> eldest) {
+            return size() > MAX_MEMOIZED_HASHES;
+        }
+    };
+
+    // Bumped on every invalidation; a hash computed across an invalidation is not memoized
+    private final AtomicLong invalidations = new AtomicLong();
+
+    @Autowired
+    public InvoiceDocumentService(InvoiceRepository invoiceRepository, ObjectMapper objectMapper,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${invoices.render.cache-dir:${java.io.tmpdir}/invoice-documents}") String cacheDirectory,
+                                  @Value("${invoices.render.cache-max-bytes:268435456}") long maxCacheBytes,
+                                  @Value("${invoices.render.cache-max-age:P7D}") Duration maxCacheAge) {
+        this.invoiceRepository = invoiceRepository;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.cacheDirectory = Path.of(cacheDirectory);
+        this.maxCacheBytes = maxCacheBytes;
+        this.maxCacheAge = maxCacheAge;
+    }
+
+    /** A rendered file ready to be streamed, with the ETag that identifies its content. */
+    public static final class RenderedDocument {
+        private final Path file;
+        private final String eTag;
+        private final DocumentFormat format;
+
+        RenderedDocument(Path file, String eTag, DocumentFormat format) {
+            this.file = file;
+            this.eTag = eTag;
+            this.format = format;
+        }
+
+        public Path getFile() { return file; }
+        public String getETag() { return eTag; }
+        public DocumentFormat getFormat() { return format; }
+    }
+
+    /** ETag of the invoice's current document; only builds a snapshot when no hash is memoized. */
+    public String getETag(Long invoiceId, DocumentFormat format) {
+        return eTag(currentHash(invoiceId, null), format);
+    }
+
+    public RenderedDocument getDocument(Long invoiceId, DocumentFormat format) throws IOException {
+        InvoiceSnapshotDTO[] snapshot = new InvoiceSnapshotDTO[1];
+        String hash = currentHash(invoiceId, snapshot);
+        Path file = cacheDirectory.resolve(hash + "." + format.getExtension());
+        if (!Files.isRegularFile(file)) {
+            if (snapshot[0] == null) {
+                snapshot[0] = snapshot(invoiceId);
+            }
+            write(file, format == DocumentFormat.PDF ? renderPdf(snapshot[0]) : renderHtml(snapshot[0]));
+            sweepIfDue();
+        } else {
+            touchIfStale(file);
+        }
+        return new RenderedDocument(file, eTag(hash, format), format);
+    }
+
+    /** Forgets the memoized hash once the current transaction commits, so the next request re-snapshots. */
+    public void invalidate(Long invoiceId) {
+        if (invoiceId == null) {
+            return;
+        }
+        AfterCommit.run(() -> {
+            synchronized (currentHashes) {
+                invalidations.incrementAndGet();
+                currentHashes.remove(invoiceId);
+            }
+        });
+    }
+
+    public InvoiceSnapshotDTO snapshot(Long invoiceId) {
+        return readOnlyTransaction.execute(status -> {
+            Invoice invoice = invoiceRepository.findById(invoiceId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Invoice not found with id: " + invoiceId));
+            return toSnapshot(invoice);
+        });
+    }
+
+    private String currentHash(Long invoiceId, InvoiceSnapshotDTO[] snapshotHolder) {
+        synchronized (currentHashes) {
+            String hash = currentHashes.get(invoiceId);
+            if (hash != null) {
+                return hash;
+            }
+        }
+        long generation = invalidations.get();
+        InvoiceSnapshotDTO snapshot = snapshot(invoiceId);
+        String hash = contentHash(snapshot);
+        synchronized (currentHashes) {
+            if (invalidations.get() == generation) {
+                currentHashes.put(invoiceId, hash);
+            }
+        }
+        if (snapshotHolder != null) {
+            snapshotHolder[0] = snapshot;
+        }
+        return hash;
+    }
+
+    private String contentHash(InvoiceSnapshotDTO snapshot) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(("v" + RENDERER_VERSION + "\n").getBytes(StandardCharsets.US_ASCII));
+            digest.update(objectMapper.writeValueAsBytes(snapshot));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new IllegalStateException("Could not hash invoice snapshot", e);
+        }
+    }
+
+    private static String eTag(String hash, DocumentFormat format) {
+        return "\"" + hash + "-" + format.getExtension() + "\"";
+    }
+
+    // Written next to the target and moved into place, so readers never see a partial file
+    private void write(Path file, byte[] content) throws IOException {
+        Files.createDirectories(cacheDirectory);
+        Path temp = Files.createTempFile(cacheDirectory, "render-", ".tmp");
+        try {
+            Files.write(temp, content);
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // Keeps files in use young, so age and size eviction reach them last
+    private static void touchIfStale(Path file) {
+        try {
+            FileTime now = FileTime.from(Instant.now());
+            if (Files.getLastModifiedTime(file).toMillis() < now.toMillis() - TOUCH_INTERVAL.toMillis()) {
+                Files.setLastModifiedTime(file, now);
+            }
+        } catch (IOException e) {
+            // Evicted in the meantime or not writable; the timestamp is only a hint
+        }
+    }
+
+    private void sweepIfDue() {
+        long now = System.currentTimeMillis();
+        long last = lastSweep.get();
+        if (now - last < SWEEP_INTERVAL.toMillis() || !lastSweep.compareAndSet(last, now)) {
+            return;
+        }
+        try {
+            evict(now);
+        } catch (IOException e) {
+            logger.warn("Could not sweep invoice document cache {}", cacheDirectory, e);
+        }
+    }
+
+    // Deletes files past the maximum age, then the oldest ones until the rest fits the size limit
+    void evict(long nowMillis) throws IOException {
+        List<Path> files = new ArrayList<>();
+        Map<Path, long[]> attributes = new HashMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(cacheDirectory)) {
+            for (Path file : stream) {
+                try {
+                    BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+                    if (attrs.isRegularFile()) {
+                        files.add(file);
+                        attributes.put(file, new long[]{attrs.lastModifiedTime().toMillis(), attrs.size()});
+                    }
+                } catch (NoSuchFileException e) {
+                    // Moved or deleted while listing
+                }
+            }
+        }
+        files.sort(Comparator.comparingLong(file -> attributes.get(file)[0]));
+
+        long total = 0;
+        for (long[] attrs : attributes.values()) {
+            total += attrs[1];
+        }
+        long oldestKept = nowMillis - maxCacheAge.toMillis();
+        int deleted = 0;
+        for (Path file : files) {
+            long[] attrs = attributes.get(file);
+            if (attrs[0] >= oldestKept && total <= maxCacheBytes) {
+                break;
+            }
+            if (Files.deleteIfExists(file)) {
+                deleted++;
+            }
+            total -= attrs[1];
+        }
+        if (deleted > 0) {
+            logger.info("Evicted {} rendered invoice documents, {} bytes remain", deleted, total);
+        }
+    }
+
+    private static InvoiceSnapshotDTO toSnapshot(Invoice invoice) {
+        InvoiceSnapshotDTO snapshot = new InvoiceSnapshotDTO();
+        snapshot.setInvoiceId(invoice.getId());
+        snapshot.setInvoiceNumber(invoice.getInvoiceNumber());
+        snapshot.setIssueDate(invoice.getIssueDate());
+        snapshot.setDueDate(invoice.getDueDate());
+        snapshot.setPaymentStatus(invoice.getPaymentStatus() != null ? invoice.getPaymentStatus().name() : null);
+        snapshot.setTaxPercent(invoice.getTax());
+
+        Money total = Money.ofNullable(invoice.getTotalAmount());
+        Money subtotal = total;
+        Order order = invoice.getOrder();
+        if (order != null) {
+            snapshot.setOrderNumber(order.getOrderNumber());
+            User customer = order.getCustomer();
+            if (customer != null) {
+                String name = ((customer.getFirstName() != null ? customer.getFirstName() : "") + " "
+                        + (customer.getLastName() != null ? customer.getLastName() : "")).trim();
+                snapshot.setCustomerName(name.isEmpty() ? customer.getUsername() : name);
+                snapshot.setCustomerEmail(customer.getEmail());
+            }
+            snapshot.setBillingAddress(addressLines(order.getBillingAddress()));
+            snapshot.setShippingAddress(addressLines(order.getShippingAddress()));
+
+            List<OrderItem> items = new ArrayList<>(order.getItems());
+            items.sort(Comparator.comparing(OrderItem::getId, Comparator.nullsLast(Comparator.naturalOrder())));
+            for (OrderItem item : items) {
+                snapshot.getItems().add(new InvoiceSnapshotDTO.ItemLine(
+                        item.getProduct() != null ? item.getProduct().getSku() : null,
+                        item.getProduct() != null ? item.getProduct().getName() : null,
+                        item.getQuantity() != null ? item.getQuantity() : 0,
+                        item.getPricePerUnit(),
+                        item.getTotalPrice()));
+            }
+            subtotal = Money.ofNullable(order.getTotalAmount());
+        }
+        snapshot.setSubtotal(subtotal.toBigDecimal());
+        snapshot.setTaxAmount(total.minus(subtotal).toBigDecimal());
+        snapshot.setTotalAmount(total.toBigDecimal());
+
+        // Only completed payments count towards the invoice, matching the payment ledger
+        List<Payment> payments = new ArrayList<>();
+        for (Payment payment : invoice.getPayments()) {
+            if (payment.getPaymentStatus() == PaymentStatus.COMPLETED) {
+                payments.add(payment);
+            }
+        }
+        payments.sort(Comparator.comparing(Payment::getPaymentDate, Comparator.nullsLast(Comparator.naturalOrder()))
+                .thenComparing(Payment::getId, Comparator.nullsLast(Comparator.naturalOrder())));
+        long paid = 0L;
+        for (Payment payment : payments) {
+            snapshot.getPayments().add(new InvoiceSnapshotDTO.PaymentLine(payment.getPaymentDate(),
+                    payment.getMethod() != null ? payment.getMethod().name() : null,
+                    payment.getTransactionId(), payment.getAmount()));
+            paid = Math.addExact(paid, Money.ofNullable(payment.getAmount()).getMinorUnits());
+        }
+        snapshot.setPaidAmount(Money.ofMinor(paid).toBigDecimal());
+        snapshot.setRemainingAmount(total.minus(Money.ofMinor(paid)).toBigDecimal());
+        return snapshot;
+    }
+
+    private static List<String> addressLines(Address address) {
+        List<String> lines = new ArrayList<>();
+        if (address == null) {
+            return lines;
+        }
+        addIfPresent(lines, address.getStreet());
+        addIfPresent(lines, join(" ", address.getPostalCode(), address.getCity()));
+        addIfPresent(lines, join(", ", address.getState(), address.getCountry()));
+        addIfPresent(lines, address.getPhoneNumber());
+        return lines;
+    }
+
+    // Rendering
+    static byte[] renderHtml(InvoiceSnapshotDTO snapshot) {
+        StringBuilder html = new StringBuilder(4096);
+        html.append("<!DOCTYPE html>\n<html lang=\"en\">\n<head>\n<meta charset=\"UTF-8\">\n")
+                .append("<title>Invoice ").append(escape(snapshot.getInvoiceNumber())).append("</title>\n")
+                .append("<style>body{font-family:Helvetica,Arial,sans-serif;margin:40px;color:#222}")
+                .append("table{border-collapse:collapse;width:100%;margin:16px 0}")
+                .append("th,td{padding:6px 8px;border-bottom:1px solid #ddd;text-align:left}")
+                .append(".num{text-align:right;font-family:monospace}.addr{display:inline-block;width:48%;vertical-align:top}")
+                .append("@media print{body{margin:0}}</style>\n</head>\n<body>\n");
+
+        html.append("<h1>Invoice ").append(escape(snapshot.getInvoiceNumber())).append("</h1>\n<p>");
+        appendField(html, "Order", snapshot.getOrderNumber());
+        appendField(html, "Issue date", date(snapshot.getIssueDate()));
+        appendField(html, "Due date", date(snapshot.getDueDate()));
+        appendField(html, "Status", snapshot.getPaymentStatus());
+        html.append("</p>\n");
+
+        html.append("<div><div class=\"addr\"><h3>Bill to</h3><p>").append(escape(snapshot.getCustomerName())).append("<br>")
+                .append(escape(snapshot.getCustomerEmail()));
+        for (String line : snapshot.getBillingAddress()) {
+            html.append("<br>").append(escape(line));
+        }
+        html.append("</p></div><div class=\"addr\"><h3>Ship to</h3><p>");
+        for (String line : snapshot.getShippingAddress()) {
+            html.append(escape(line)).append("<br>");
+        }
+        html.append("</p></div></div>\n");
+
+        html.append("<table>\n<tr><th>SKU</th><th>Product</th><th class=\"num\">Qty</th><th class=\"num\">Unit price</th><th class=\"num\">Total</th></tr>\n");
+        for (InvoiceSnapshotDTO.ItemLine item : snapshot.getItems()) {
+            html.append("<tr><td>").append(escape(item.getSku())).append("</td><td>").append(escape(item.getProductName()))
+                    .append("</td><td class=\"num\">").append(item.getQuantity())
+                    .append("</td><td class=\"num\">").append(amount(item.getUnitPrice()))
+                    .append("</td><td class=\"num\">").append(amount(item.getLineTotal())).append("</td></tr>\n");
+        }
+        html.append("</table>\n<table>\n");
+        appendTotal(html, "Subtotal", amount(snapshot.getSubtotal()));
+        appendTotal(html, "Tax (" + amount(snapshot.getTaxPercent()) + "%)", amount(snapshot.getTaxAmount()));
+        appendTotal(html, "<strong>Total</strong>", "<strong>" + amount(snapshot.getTotalAmount()) + "</strong>");
+        appendTotal(html, "Paid", amount(snapshot.getPaidAmount()));
+        appendTotal(html, "<strong>Amount due</strong>", "<strong>" + amount(snapshot.getRemainingAmount()) + "</strong>");
+        html.append("</table>\n");
+
+        if (!snapshot.getPayments().isEmpty()) {
+            html.append("<h3>Payments</h3>\n<table>\n<tr><th>Date</th><th>Method</th><th>Transaction</th><th class=\"num\">Amount</th></tr>\n");
+            for (InvoiceSnapshotDTO.PaymentLine payment : snapshot.getPayments()) {
+                html.append("<tr><td>").append(date(payment.getPaymentDate())).append("</td><td>").append(escape(payment.getMethod()))
+                        .append("</td><td>").append(escape(payment.getTransactionId()))
+                        .append("</td><td class=\"num\">").append(amount(payment.getAmount())).append("</td></tr>\n");
+            }
+            html.append("</table>\n");
+        }
+        html.append("</body>\n</html>\n");
+        return html.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    static byte[] renderPdf(InvoiceSnapshotDTO snapshot) {
+        PdfWriterCursor pdf = new PdfWriterCursor(new PdfDocumentWriter());
+        PdfDocumentWriter writer = pdf.writer;
+
+        writer.text(50, 60, PdfDocumentWriter.Font.BOLD, 20, "INVOICE " + nullToEmpty(snapshot.getInvoiceNumber()));
+        pdf.y = 90;
+        pdf.labelled("Order", snapshot.getOrderNumber());
+        pdf.labelled("Issue date", date(snapshot.getIssueDate()));
+        pdf.labelled("Due date", date(snapshot.getDueDate()));
+        pdf.labelled("Status", snapshot.getPaymentStatus());
+
+        pdf.y += 16;
+        float top = pdf.y;
+        writer.text(50, top, PdfDocumentWriter.Font.BOLD, 11, "Bill to");
+        writer.text(310, top, PdfDocumentWriter.Font.BOLD, 11, "Ship to");
+        List<String> billTo = new ArrayList<>();
+        addIfPresent(billTo, snapshot.getCustomerName());
+        addIfPresent(billTo, snapshot.getCustomerEmail());
+        billTo.addAll(snapshot.getBillingAddress());
+        for (int i = 0; i < Math.max(billTo.size(), snapshot.getShippingAddress().size()); i++) {
+            float lineY = top + 14 * (i + 1);
+            if (i < billTo.size()) {
+                writer.text(50, lineY, PdfDocumentWriter.Font.REGULAR, 10, billTo.get(i));
+            }
+            if (i < snapshot.getShippingAddress().size()) {
+                writer.text(310, lineY, PdfDocumentWriter.Font.REGULAR, 10, snapshot.getShippingAddress().get(i));
+            }
+        }
+        pdf.y = top + 14 * (Math.max(billTo.size(), snapshot.getShippingAddress().size()) + 2);
+
+        pdf.itemHeader();
+        for (InvoiceSnapshotDTO.ItemLine item : snapshot.getItems()) {
+            if (pdf.needsPage(14)) {
+                pdf.itemHeader();
+            }
+            writer.text(50, pdf.y, PdfDocumentWriter.Font.REGULAR, 9, truncate(item.getSku(), 16));
+            writer.text(140, pdf.y, PdfDocumentWriter.Font.REGULAR, 9, truncate(item.getProductName(), 45));
+            writer.textRight(380, pdf.y, 9, Integer.toString(item.getQuantity()));
+            writer.textRight(465, pdf.y, 9, amount(item.getUnitPrice()));
+            writer.textRight(545, pdf.y, 9, amount(item.getLineTotal()));
+            pdf.y += 14;
+        }
+
+        pdf.needsPage(90);
+        writer.line(50, pdf.y - 8, 545, pdf.y - 8);
+        pdf.y += 6;
+        pdf.total("Subtotal", amount(snapshot.getSubtotal()), false);
+        pdf.total("Tax (" + amount(snapshot.getTaxPercent()) + "%)", amount(snapshot.getTaxAmount()), false);
+        pdf.total("Total", amount(snapshot.getTotalAmount()), true);
+        pdf.total("Paid", amount(snapshot.getPaidAmount()), false);
+        pdf.total("Amount due", amount(snapshot.getRemainingAmount()), true);
+
+        if (!snapshot.getPayments().isEmpty()) {
+            pdf.y += 16;
+            pdf.needsPage(40);
+            writer.text(50, pdf.y, PdfDocumentWriter.Font.BOLD, 11, "Payments");
+            pdf.y += 16;
+            for (InvoiceSnapshotDTO.PaymentLine payment : snapshot.getPayments()) {
+                pdf.needsPage(14);
+                writer.text(50, pdf.y, PdfDocumentWriter.Font.REGULAR, 9, date(payment.getPaymentDate()));
+                writer.text(130, pdf.y, PdfDocumentWriter.Font.REGULAR, 9, nullToEmpty(payment.getMethod()));
+                writer.text(240, pdf.y, PdfDocumentWriter.Font.REGULAR, 9, truncate(payment.getTransactionId(), 40));
+                writer.textRight(545, pdf.y, 9, amount(payment.getAmount()));
+                pdf.y += 14;
+            }
+        }
+        return writer.toByteArray();
+    }
+
+    // Tracks the vertical position and starts new pages as the content grows
+    private static final class PdfWriterCursor {
+        private static final float BOTTOM_MARGIN = 790;
+
+        final PdfDocumentWriter writer;
+        float y;
+
+        PdfWriterCursor(PdfDocumentWriter writer) {
+            this.writer = writer;
+        }
+
+        boolean needsPage(float height) {
+            if (y + height <= BOTTOM_MARGIN) {
+                return false;
+            }
+            writer.newPage();
+            y = 60;
+            return true;
+        }
+
+        void labelled(String label, String value) {
+            writer.text(50, y, PdfDocumentWriter.Font.BOLD, 10, label + ":");
+            writer.text(130, y, PdfDocumentWriter.Font.REGULAR, 10, nullToEmpty(value));
+            y += 14;
+        }
+
+        void itemHeader() {
+            writer.text(50, y, PdfDocumentWriter.Font.BOLD, 9, "SKU");
+            writer.text(140, y, PdfDocumentWriter.Font.BOLD, 9, "Product");
+            writer.text(362, y, PdfDocumentWriter.Font.BOLD, 9, "Qty");
+            writer.text(415, y, PdfDocumentWriter.Font.BOLD, 9, "Unit price");
+            writer.text(520, y, PdfDocumentWriter.Font.BOLD, 9, "Total");
+            writer.line(50, y + 4, 545, y + 4);
+            y += 16;
+        }
+
+        void total(String label, String value, boolean bold) {
+            writer.text(360, y, bold ? PdfDocumentWriter.Font.BOLD : PdfDocumentWriter.Font.REGULAR, 10, label);
+            writer.textRight(545, y, 10, value);
+            y += 15;
+        }
+    }
+
+    private static void appendField(StringBuilder html, String label, String value) {
+        html.append("<strong>").append(label).append(":</strong> ").append(escape(value)).append("<br>");
+    }
+
+    private static void appendTotal(StringBuilder html, String label, String value) {
+        html.append("<tr><td>").append(label).append("</td><td class=\"num\">").append(value).append("</td></tr>\n");
+    }
+
+    private static void addIfPresent(List<String> lines, String value) {
+        if (value != null && !value.isBlank()) {
+            lines.add(value);
+        }
+    }
+
+    private static String join(String separator, String first, String second) {
+        if (first == null || first.isBlank()) {
+            return second;
+        }
+        return second == null || second.isBlank() ? first : first + separator + second;
+    }
+
+    private static String amount(BigDecimal value) {
+        return value == null ? "" : value.toPlainString();
+    }
+
+    private static String date(LocalDateTime value) {
+        return value == null ? "" : DATE_FORMAT.format(value);
+    }
+
+    private static String truncate(String value, int maxLength) {
+        String text = nullToEmpty(value);
+        return text.length() <= maxLength ? text : text.substring(0, maxLength - 1) + "~";
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
+    private static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        StringBuilder escaped = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '<': escaped.append("&lt;"); break;
+                case '>': escaped.append("&gt;"); break;
+                case '&': escaped.append("&amp;"); break;
+                case '"': escaped.append("&quot;"); break;
+                case '\'': escaped.append("&#39;"); break;
+                default: escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+}
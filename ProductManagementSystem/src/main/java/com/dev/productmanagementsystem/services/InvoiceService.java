@@ -8,11 +8,13 @@ import com.dev.productmanagementsystem.enums.PaymentStatus;
 import com.dev.productmanagementsystem.repositories.InvoiceRepository;
 import com.dev.productmanagementsystem.repositories.OrderRepository;
 import com.dev.productmanagementsystem.repositories.UserRepository;
+import com.dev.productmanagementsystem.utils.Money;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
@@ -21,15 +23,23 @@ import java.util.UUID;
 @Service
 public class InvoiceService {
 
+    // Tax is rounded to cents the same way the DECIMAL(10, 2) columns store it
+    public static final RoundingMode TAX_ROUNDING = RoundingMode.HALF_UP;
+
     private final InvoiceRepository invoiceRepository;
     private final OrderRepository orderRepository;
     private final UserRepository userRepository;
+    private final CreditExposureService creditExposureService;
+    private final InvoiceDocumentService invoiceDocumentService;
 
     @Autowired
-    public InvoiceService(InvoiceRepository invoiceRepository, OrderRepository orderRepository, UserRepository userRepository) {
+    public InvoiceService(InvoiceRepository invoiceRepository, OrderRepository orderRepository, UserRepository userRepository,
+                          CreditExposureService creditExposureService, InvoiceDocumentService invoiceDocumentService) {
         this.invoiceRepository = invoiceRepository;
         this.orderRepository = orderRepository;
         this.userRepository = userRepository;
+        this.creditExposureService = creditExposureService;
+        this.invoiceDocumentService = invoiceDocumentService;
     }
 
     public List<Invoice> findAll() {
@@ -40,12 +50,34 @@ public class InvoiceService {
         return invoiceRepository.findById(id);
     }
 
+    @Transactional
     public Invoice save(Invoice invoice) {
-        return invoiceRepository.save(invoice);
+        if (invoice.getId() == null) {
+            Invoice savedInvoice = invoiceRepository.save(invoice);
+            creditExposureService.invoiceCreated(savedInvoice);
+            return savedInvoice;
+        }
+
+        // Read what is stored before the update so the exposure moves by the difference
+        Long previousCustomerId = null;
+        PaymentStatus previousStatus = null;
+        BigDecimal previousTotal = null;
+        for (Object[] row : invoiceRepository.findCustomerIdStatusAndTotalAmountById(invoice.getId())) {
+            previousCustomerId = (Long) row[0];
+            previousStatus = (PaymentStatus) row[1];
+            previousTotal = (BigDecimal) row[2];
+        }
+        Invoice savedInvoice = invoiceRepository.save(invoice);
+        creditExposureService.invoiceUpdated(previousCustomerId, previousStatus, previousTotal, savedInvoice);
+        invoiceDocumentService.invalidate(savedInvoice.getId());
+        return savedInvoice;
     }
 
+    @Transactional
     public void delete(Long id) {
+        invoiceRepository.findById(id).ifPresent(creditExposureService::invoiceDeleted);
         invoiceRepository.deleteById(id);
+        invoiceDocumentService.invalidate(id);
     }
 
     public Invoice generateInvoiceFromOrder(Long orderId, Long accountantId, BigDecimal tax, LocalDateTime dueDate) {
@@ -64,11 +96,11 @@ public class InvoiceService {
         invoice.setPaymentStatus(PaymentStatus.PENDING);
 
         // Calculate total amount based on order total and tax
-        BigDecimal orderTotal = order.getTotalAmount();
-        BigDecimal taxAmount = orderTotal.multiply(tax.divide(new BigDecimal("100")));
-        BigDecimal totalAmount = orderTotal.add(taxAmount);
+        invoice.setTotalAmount(calculateTotalWithTax(order.getTotalAmount(), tax).toBigDecimal());
 
-        return invoiceRepository.save(invoice);
+        Invoice savedInvoice = invoiceRepository.save(invoice);
+        creditExposureService.invoiceCreated(savedInvoice);
+        return savedInvoice;
     }
 
     public List<Invoice> findByPaymentStatus(PaymentStatus status) {
@@ -92,10 +124,7 @@ public class InvoiceService {
         Invoice invoice = invoiceRepository.findById(invoiceId)
                 .orElseThrow(() -> new IllegalArgumentException("Invoice not found"));
 
-        BigDecimal orderTotal = invoice.getOrder().getTotalAmount();
-        BigDecimal taxAmount = orderTotal.multiply(invoice.getTax().divide(new BigDecimal("100")));
-
-        return orderTotal.add(taxAmount);
+        return getInvoiceTotalAmount(invoice);
     }
 
     public List<Invoice> findByDueDateBetween(LocalDateTime startDate, LocalDateTime endDate) {
@@ -140,7 +169,7 @@ public class InvoiceService {
         Invoice invoice = invoiceRepository.findById(invoiceId)
                 .orElseThrow(() -> new IllegalArgumentException("Invoice not found"));
 
-        BigDecimal totalAmount = getInvoiceTotalAmount(invoiceId);
+        BigDecimal totalAmount = getInvoiceTotalAmount(invoice);
         BigDecimal paidAmount = invoice.getPayments().stream()
                 .filter(payment -> payment.getPaymentStatus() == PaymentStatus.COMPLETED)
                 .map(Payment::getAmount)
@@ -149,17 +178,29 @@ public class InvoiceService {
         return totalAmount.subtract(paidAmount);
     }
 
+    /*
+     * Reported totals keep the exact product of order total and tax, e.g. 12.3615, and revenue sums
+     * those unrounded values. Only the stored invoice total is rounded to cents, by
+     * calculateTotalWithTax. The exact value is computed in fixed point, see Money.plusPercentExact.
+     */
     private BigDecimal getInvoiceTotalAmount(Invoice invoice) {
-        BigDecimal orderTotal = invoice.getOrder().getTotalAmount();
-        BigDecimal taxAmount = orderTotal.multiply(invoice.getTax().divide(new BigDecimal("100")));
+        return Money.of(invoice.getOrder().getTotalAmount()).plusPercentExact(invoice.getTax());
+    }
 
-        return orderTotal.add(taxAmount);
+    // Order total plus tax percentage, computed in cents without intermediate BigDecimals
+    public static Money calculateTotalWithTax(BigDecimal orderTotal, BigDecimal taxPercent) {
+        Money total = Money.ofNullable(orderTotal);
+        if (taxPercent == null) {
+            return total;
+        }
+        return total.plus(total.percentOf(taxPercent, TAX_ROUNDING));
     }
 
     public Invoice updatePaymentStatus(Long invoiceId, PaymentStatus status) {
         Invoice invoice = invoiceRepository.findById(invoiceId)
                 .orElseThrow(() -> new IllegalArgumentException("Invoice not found"));
         invoice.setPaymentStatus(status);
+        invoiceDocumentService.invalidate(invoiceId);
         return invoiceRepository.save(invoice);
     }
 
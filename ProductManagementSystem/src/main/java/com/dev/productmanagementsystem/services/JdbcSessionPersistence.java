@@ -0,0 +1,67 @@
+package com.dev.productmanagementsystem.services;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+// Sessions in the auth_sessions table (see AuthSession), written as JDBC batches
+public class JdbcSessionPersistence implements SessionPersistence {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO auth_sessions (token_hash, user_id, created_at, expires_at, idle_timeout_seconds) VALUES (?, ?, ?, ?, ?)";
+    private static final String TOUCH_SQL = "UPDATE auth_sessions SET expires_at = ? WHERE token_hash = ?";
+    private static final String DELETE_SQL = "DELETE FROM auth_sessions WHERE token_hash = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public JdbcSessionPersistence(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public List<StoredSession> load(long now) {
+        Timestamp cutoff = new Timestamp(now);
+        jdbcTemplate.update("DELETE FROM auth_sessions WHERE expires_at <= ?", cutoff);
+        return jdbcTemplate.query(
+                "SELECT token_hash, user_id, created_at, expires_at, idle_timeout_seconds FROM auth_sessions WHERE expires_at > ?",
+                (rs, rowNum) -> new StoredSession(rs.getString(1), rs.getLong(2), rs.getTimestamp(3).getTime(),
+                        rs.getTimestamp(4).getTime(), rs.getLong(5) * 1000L),
+                cutoff);
+    }
+
+    @Override
+    public void write(Collection<StoredSession> created, Collection<StoredSession> touched, Collection<String> removed) {
+        List<Object[]> inserts = new ArrayList<>(created.size());
+        for (StoredSession session : created) {
+            inserts.add(new Object[]{session.getTokenHash(), session.getUserId(), new Timestamp(session.getCreatedAt()),
+                    new Timestamp(session.getExpiresAt()), session.getIdleTimeout() / 1000L});
+        }
+        List<Object[]> touches = new ArrayList<>(touched.size());
+        for (StoredSession session : touched) {
+            touches.add(new Object[]{new Timestamp(session.getExpiresAt()), session.getTokenHash()});
+        }
+        List<Object[]> deletes = new ArrayList<>(removed.size());
+        for (String tokenHash : removed) {
+            deletes.add(new Object[]{tokenHash});
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!inserts.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_SQL, inserts);
+            }
+            if (!touches.isEmpty()) {
+                jdbcTemplate.batchUpdate(TOUCH_SQL, touches);
+            }
+            if (!deletes.isEmpty()) {
+                jdbcTemplate.batchUpdate(DELETE_SQL, deletes);
+            }
+        });
+    }
+}
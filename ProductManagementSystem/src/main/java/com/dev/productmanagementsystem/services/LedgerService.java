@@ -0,0 +1,380 @@
+package com.dev.productmanagementsystem.services;
+
+import com.dev.productmanagementsystem.entities.Invoice;
+import com.dev.productmanagementsystem.entities.LedgerBackfill;
+import com.dev.productmanagementsystem.entities.Payment;
+import com.dev.productmanagementsystem.enums.LedgerAccount;
+import com.dev.productmanagementsystem.enums.PaymentStatus;
+import com.dev.productmanagementsystem.repositories.LedgerBackfillRepository;
+import com.dev.productmanagementsystem.repositories.LedgerBalanceRepository;
+import com.dev.productmanagementsystem.repositories.PaymentRepository;
+import com.dev.productmanagementsystem.utils.Money;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Append-only double-entry ledger for payments.
+ *
+ * A payment debits CASH and credits ACCOUNTS_RECEIVABLE. Every posting also updates a
+ * fixed set of running balances (per account, per customer, per invoice and per month),
+ * so both posting and balance lookups cost the same no matter how long the history is.
+ * Refunds, cancellations and deletions are recorded as new postings, never as edits; a reversal
+ * is booked to the month of the payment it reverses, so a monthly balance always equals the
+ * completed payments dated in that month.
+ */
+@Service
+public class LedgerService implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(LedgerService.class);
+
+    // JDBC batch insert: LedgerEntry uses IDENTITY ids, which keeps Hibernate from batching
+    private static final String INSERT_ENTRY_SQL =
+            "INSERT INTO ledger_entries (journal_id, account, amount, payment_id, invoice_id, customer_id, period, posted_at, description) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // Creates a balance or adds to it in one statement, so the first postings to a new key cannot both insert
+    private static final String UPSERT_BALANCE_SQL =
+            "INSERT INTO ledger_balances (balance_key, account, balance, entry_count, updated_at) VALUES (?, ?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE balance = balance + VALUES(balance), entry_count = entry_count + VALUES(entry_count), " +
+            "updated_at = VALUES(updated_at)";
+
+    // Payments per transaction when backfilling the ledger
+    private static final int BACKFILL_CHUNK_SIZE = 1000;
+
+    static final String CUSTOMER_KEY_PREFIX = LedgerAccount.ACCOUNTS_RECEIVABLE.name() + "/customer/";
+
+    private final LedgerBalanceRepository ledgerBalanceRepository;
+    private final LedgerBackfillRepository ledgerBackfillRepository;
+    private final PaymentRepository paymentRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final CreditExposureService creditExposureService;
+    private final InvoiceDocumentService invoiceDocumentService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public LedgerService(LedgerBalanceRepository ledgerBalanceRepository, LedgerBackfillRepository ledgerBackfillRepository,
+                         PaymentRepository paymentRepository, JdbcTemplate jdbcTemplate,
+                         CreditExposureService creditExposureService, InvoiceDocumentService invoiceDocumentService,
+                         PlatformTransactionManager transactionManager) {
+        this.ledgerBalanceRepository = ledgerBalanceRepository;
+        this.ledgerBackfillRepository = ledgerBackfillRepository;
+        this.paymentRepository = paymentRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.creditExposureService = creditExposureService;
+        this.invoiceDocumentService = invoiceDocumentService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /** Posts a completed payment (or refund, when the amount is negative). Other statuses are not posted. */
+    @Transactional
+    public void postPayment(Payment payment) {
+        Posting posting = Posting.of(payment);
+        if (posting != null) {
+            post(List.of(posting));
+        }
+    }
+
+    /** Reverses what {@link #postPayment} recorded for a payment that is being cancelled or deleted. */
+    @Transactional
+    public void reversePayment(Payment payment, String reason) {
+        Posting posting = Posting.of(payment);
+        if (posting != null) {
+            post(List.of(posting.reversal(reason)));
+        }
+    }
+
+    /**
+     * Brings the ledger in line after a payment was edited: {@code previous} is what was posted
+     * before the change (from {@link Posting#of}), and is reversed if the payment no longer matches it.
+     */
+    @Transactional
+    public void repostPayment(Posting previous, Payment payment) {
+        Posting current = Posting.of(payment);
+        // Method or transaction id edits leave the ledger alone but still show on the invoice document
+        if (payment.getInvoice() != null) {
+            invoiceDocumentService.invalidate(payment.getInvoice().getId());
+        }
+        if (previous != null && previous.sameAs(current)) {
+            return;
+        }
+        List<Posting> postings = new ArrayList<>(2);
+        if (previous != null) {
+            postings.add(previous.reversal("Payment changed"));
+        }
+        if (current != null) {
+            postings.add(current);
+        }
+        post(postings);
+    }
+
+    /**
+     * Writes the entries for all postings and applies their net effect to each affected balance once.
+     * Balances are upserted in key order so concurrent postings lock rows in the same order and cannot
+     * deadlock.
+     */
+    @Transactional
+    public void post(Collection<Posting> postings) {
+        if (postings.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> entries = new ArrayList<>(postings.size() * 2);
+        Map<String, BalanceDelta> deltas = new TreeMap<>();
+        for (Posting posting : postings) {
+            String journalId = UUID.randomUUID().toString();
+            String period = posting.period.toString();
+            Timestamp postedAt = Timestamp.valueOf(posting.postedAt);
+            BigDecimal amount = Money.ofMinor(posting.amount).toBigDecimal();
+
+            // Debit cash, credit the customer's receivable
+            entries.add(new Object[]{journalId, LedgerAccount.CASH.name(), amount,
+                    posting.paymentId, posting.invoiceId, posting.customerId, period, postedAt, posting.description});
+            entries.add(new Object[]{journalId, LedgerAccount.ACCOUNTS_RECEIVABLE.name(), amount.negate(),
+                    posting.paymentId, posting.invoiceId, posting.customerId, period, postedAt, posting.description});
+
+            addDelta(deltas, accountKey(LedgerAccount.CASH), LedgerAccount.CASH, posting.amount);
+            addDelta(deltas, periodKey(LedgerAccount.CASH, posting.period), LedgerAccount.CASH, posting.amount);
+            addDelta(deltas, accountKey(LedgerAccount.ACCOUNTS_RECEIVABLE), LedgerAccount.ACCOUNTS_RECEIVABLE, -posting.amount);
+            if (posting.customerId != null) {
+                addDelta(deltas, customerKey(posting.customerId), LedgerAccount.ACCOUNTS_RECEIVABLE, -posting.amount);
+                creditExposureService.paymentPosted(posting.customerId, posting.amount);
+            }
+            if (posting.invoiceId != null) {
+                addDelta(deltas, invoiceKey(posting.invoiceId), LedgerAccount.ACCOUNTS_RECEIVABLE, -posting.amount);
+                invoiceDocumentService.invalidate(posting.invoiceId);
+            }
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_ENTRY_SQL, entries);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> balances = new ArrayList<>(deltas.size());
+        for (Map.Entry<String, BalanceDelta> delta : deltas.entrySet()) {
+            balances.add(new Object[]{delta.getKey(), delta.getValue().account.name(),
+                    Money.ofMinor(delta.getValue().amount).toBigDecimal(), delta.getValue().entries, now});
+        }
+        jdbcTemplate.batchUpdate(UPSERT_BALANCE_SQL, balances);
+    }
+
+    // Balance queries; receivable balances are credits, so amounts received are their negation
+    public BigDecimal getReceivedForInvoice(Long invoiceId) {
+        return getBalance(invoiceKey(invoiceId)).negate().toBigDecimal();
+    }
+
+    public BigDecimal getReceivedFromCustomer(Long customerId) {
+        return getBalance(customerKey(customerId)).negate().toBigDecimal();
+    }
+
+    public BigDecimal getReceivedForPeriod(YearMonth period) {
+        return getBalance(periodKey(LedgerAccount.CASH, period)).toBigDecimal();
+    }
+
+    // Sums the monthly balances from one month to another, both included; there is one row per month with payments
+    public BigDecimal getReceivedForPeriods(YearMonth from, YearMonth to) {
+        String prefix = periodKeyPrefix(LedgerAccount.CASH);
+        long total = 0L;
+        for (Object[] row : ledgerBalanceRepository.findBalancesByBalanceKeyStartingWith(prefix)) {
+            YearMonth month = YearMonth.parse(((String) row[0]).substring(prefix.length()));
+            if (!month.isBefore(from) && !month.isAfter(to)) {
+                total = Math.addExact(total, Money.of((BigDecimal) row[1]).getMinorUnits());
+            }
+        }
+        return Money.ofMinor(total).toBigDecimal();
+    }
+
+    public BigDecimal getAccountBalance(LedgerAccount account) {
+        return getBalance(accountKey(account)).toBigDecimal();
+    }
+
+    Money getInvoiceReceived(Long invoiceId) {
+        return getBalance(invoiceKey(invoiceId)).negate();
+    }
+
+    private Money getBalance(String key) {
+        return ledgerBalanceRepository.findBalanceByBalanceKey(key)
+                .map(Money::of)
+                .orElse(Money.ZERO);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        backfillFromPayments();
+    }
+
+    /**
+     * Posts every completed payment that predates the ledger, once. Runs before the application takes
+     * requests, so those payments cannot be changed while it is under way.
+     * The first run records the highest payment id; anything later was posted as it was made. Payments
+     * are read as plain values in id order and posted in chunks, and each chunk's transaction also moves
+     * the high-water mark in the ledger_backfill row, so a restart after a failure resumes after the last
+     * committed chunk. The row is locked per chunk, so instances starting together take turns.
+     */
+    public void backfillFromPayments() {
+        LedgerBackfill backfill = ledgerBackfillRepository.findById(LedgerBackfill.ID).orElseGet(this::startBackfill);
+        if (backfill.isComplete()) {
+            return;
+        }
+        int posted = 0;
+        Integer chunk;
+        while ((chunk = transactionTemplate.execute(tx -> backfillChunk())) != null) {
+            posted += chunk;
+        }
+        logger.info("Ledger backfilled from {} existing payments", posted);
+    }
+
+    private LedgerBackfill startBackfill() {
+        Long upToId = paymentRepository.findMaxId();
+        try {
+            return ledgerBackfillRepository.save(new LedgerBackfill(upToId != null ? upToId : 0L));
+        } catch (DataIntegrityViolationException e) {
+            // Another instance started it first
+            return ledgerBackfillRepository.findById(LedgerBackfill.ID).orElseThrow(() -> e);
+        }
+    }
+
+    // Posts the next chunk and moves the mark past it; null once there is nothing left
+    private Integer backfillChunk() {
+        LedgerBackfill backfill = ledgerBackfillRepository.findByIdForUpdate(LedgerBackfill.ID)
+                .orElseThrow(() -> new IllegalStateException("Ledger backfill has not been started"));
+        if (backfill.isComplete()) {
+            return null;
+        }
+        List<Object[]> rows = paymentRepository.findPostingFieldsBetween(PaymentStatus.COMPLETED,
+                backfill.getLastPaymentId(), backfill.getUpToPaymentId(), PageRequest.of(0, BACKFILL_CHUNK_SIZE));
+        List<Posting> postings = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            Posting posting = Posting.of((Long) row[0], (Long) row[1], (Long) row[2], (BigDecimal) row[3],
+                    (LocalDateTime) row[4], (String) row[5]);
+            if (posting != null) {
+                postings.add(posting);
+            }
+        }
+        post(postings);
+        // A short chunk was the last one
+        backfill.setLastPaymentId(rows.size() < BACKFILL_CHUNK_SIZE
+                ? backfill.getUpToPaymentId() : (Long) rows.get(rows.size() - 1)[0]);
+        return postings.size();
+    }
+
+    private static void addDelta(Map<String, BalanceDelta> deltas, String key, LedgerAccount account, long amount) {
+        BalanceDelta delta = deltas.computeIfAbsent(key, k -> new BalanceDelta(account));
+        delta.amount = Math.addExact(delta.amount, amount);
+        delta.entries++;
+    }
+
+    // Balance keys
+    static String accountKey(LedgerAccount account) {
+        return account.name();
+    }
+
+    static String periodKey(LedgerAccount account, YearMonth period) {
+        return periodKeyPrefix(account) + period;
+    }
+
+    static String periodKeyPrefix(LedgerAccount account) {
+        return account.name() + "/period/";
+    }
+
+    static String customerKey(Long customerId) {
+        return CUSTOMER_KEY_PREFIX + customerId;
+    }
+
+    static String invoiceKey(Long invoiceId) {
+        return LedgerAccount.ACCOUNTS_RECEIVABLE.name() + "/invoice/" + invoiceId;
+    }
+
+    private static final class BalanceDelta {
+        final LedgerAccount account;
+        long amount;
+        int entries;
+
+        BalanceDelta(LedgerAccount account) {
+            this.account = account;
+        }
+    }
+
+    /** Money received (or refunded, when negative) against an invoice, as recorded in the ledger. */
+    public static final class Posting {
+        final Long paymentId;
+        final Long invoiceId;
+        final Long customerId;
+        final long amount;
+        final LocalDateTime postedAt;
+        // Month whose balance the posting counts toward
+        final YearMonth period;
+        final String description;
+
+        public Posting(Long paymentId, Long invoiceId, Long customerId, long amount, LocalDateTime postedAt, String description) {
+            this(paymentId, invoiceId, customerId, amount, postedAt != null ? postedAt : LocalDateTime.now(), null, description);
+        }
+
+        private Posting(Long paymentId, Long invoiceId, Long customerId, long amount, LocalDateTime postedAt,
+                        YearMonth period, String description) {
+            this.paymentId = paymentId;
+            this.invoiceId = invoiceId;
+            this.customerId = customerId;
+            this.amount = amount;
+            this.postedAt = postedAt;
+            this.period = period != null ? period : YearMonth.from(postedAt);
+            this.description = description;
+        }
+
+        // What the ledger holds for a payment in its current state, or null when nothing is posted
+        public static Posting of(Payment payment) {
+            if (payment == null || payment.getPaymentStatus() != PaymentStatus.COMPLETED) {
+                return null;
+            }
+            Invoice invoice = payment.getInvoice();
+            Long invoiceId = invoice != null ? invoice.getId() : null;
+            Long customerId = invoice != null && invoice.getOrder() != null && invoice.getOrder().getCustomer() != null
+                    ? invoice.getOrder().getCustomer().getId() : null;
+            return of(payment.getId(), invoiceId, customerId, payment.getAmount(), payment.getPaymentDate(),
+                    payment.getTransactionId());
+        }
+
+        // Same for a completed payment read as plain values
+        static Posting of(Long paymentId, Long invoiceId, Long customerId, BigDecimal amount, LocalDateTime paymentDate,
+                          String transactionId) {
+            if (amount == null) {
+                return null;
+            }
+            String description = amount.signum() < 0 ? "Refund " : "Payment ";
+            return new Posting(paymentId, invoiceId, customerId, Money.of(amount).getMinorUnits(), paymentDate,
+                    description + transactionId);
+        }
+
+        // Reversals are posted now but count toward the period of what they reverse
+        Posting reversal(String reason) {
+            return new Posting(paymentId, invoiceId, customerId, -amount, LocalDateTime.now(), period,
+                    "Reversal of " + description + ": " + reason);
+        }
+
+        boolean sameAs(Posting other) {
+            return other != null && amount == other.amount
+                    && Objects.equals(paymentId, other.paymentId)
+                    && Objects.equals(invoiceId, other.invoiceId)
+                    && Objects.equals(customerId, other.customerId)
+                    && period.equals(other.period);
+        }
+    }
+}
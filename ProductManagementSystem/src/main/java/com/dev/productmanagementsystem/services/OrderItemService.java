@@ -18,14 +18,17 @@ public class OrderItemService {
     private final OrderItemRepository orderItemRepository;
     private final ProductService productService;
     private final WarehouseService warehouseService;
+    private final ProductPriceService productPriceService;
 
     @Autowired
     public OrderItemService(OrderItemRepository orderItemRepository,
                             ProductService productService,
-                            WarehouseService warehouseService) {
+                            WarehouseService warehouseService,
+                            ProductPriceService productPriceService) {
         this.orderItemRepository = orderItemRepository;
         this.productService = productService;
         this.warehouseService = warehouseService;
+        this.productPriceService = productPriceService;
     }
 
     public Optional<OrderItem> findById(Long id) {
@@ -66,7 +69,7 @@ public class OrderItemService {
 
         // Set product current price if not provided
         if (orderItem.getPricePerUnit() == null) {
-            orderItem.setPricePerUnit(product.getPrice());
+            orderItem.setPricePerUnit(productPriceService.currentPrice(product.getId(), product.getPrice()));
         }
 
         // Save the order item
@@ -8,6 +8,7 @@ import com.dev.productmanagementsystem.exceptions.InvalidOperationException;
 import com.dev.productmanagementsystem.exceptions.InsufficientStockException;
 import com.dev.productmanagementsystem.exceptions.ResourceNotFoundException;
 import com.dev.productmanagementsystem.repositories.*;
+import com.dev.productmanagementsystem.utils.Money;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -15,6 +16,7 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 @Service
@@ -26,6 +28,13 @@ public class OrderService {
     private final ProductRepository productRepository;
     private final AddressRepository addressRepository;
     private final WarehouseRepository warehouseRepository;
+    private final CreditExposureService creditExposureService;
+    private final ProductFacetService productFacetService;
+    private final CatalogChangeService catalogChangeService;
+    private final ProductPriceService productPriceService;
+
+    // Last order number handed out
+    private final AtomicLong lastOrderNumber = new AtomicLong();
 
     @Autowired
     public OrderService(OrderRepository orderRepository,
@@ -33,13 +42,21 @@ public class OrderService {
                         UserRepository userRepository,
                         ProductRepository productRepository,
                         AddressRepository addressRepository,
-                        WarehouseRepository warehouseRepository) {
+                        WarehouseRepository warehouseRepository,
+                        CreditExposureService creditExposureService,
+                        ProductFacetService productFacetService,
+                        CatalogChangeService catalogChangeService,
+                        ProductPriceService productPriceService) {
         this.orderRepository = orderRepository;
         this.orderItemRepository = orderItemRepository;
         this.userRepository = userRepository;
         this.productRepository = productRepository;
         this.addressRepository = addressRepository;
         this.warehouseRepository = warehouseRepository;
+        this.creditExposureService = creditExposureService;
+        this.productFacetService = productFacetService;
+        this.catalogChangeService = catalogChangeService;
+        this.productPriceService = productPriceService;
     }
 
     public List<OrderDTO> getAllOrders() {
@@ -109,7 +126,7 @@ public class OrderService {
         Order savedOrder = orderRepository.save(order);
 
         // Process order items
-        BigDecimal totalAmount = BigDecimal.ZERO;
+        long totalMinorUnits = 0L;
         for (OrderItemDTO itemDTO : orderDTO.getItems()) {
             // Validate item fields
             if (itemDTO.getProductId() == null) {
@@ -132,16 +149,20 @@ public class OrderService {
             orderItem.setOrder(savedOrder);
             orderItem.setProduct(product);
             orderItem.setQuantity(itemDTO.getQuantity());
-            orderItem.setPricePerUnit(product.getPrice());
+            orderItem.setPricePerUnit(productPriceService.currentPrice(product.getId(), product.getPrice()));
             orderItem.setSourceWarehouse(sourceWarehouse);
 
             orderItemRepository.save(orderItem);
             savedOrder.addItem(orderItem);
 
-            totalAmount = totalAmount.add(orderItem.getTotalPrice());
+            totalMinorUnits = Math.addExact(totalMinorUnits, orderItem.getTotal().getMinorUnits());
         }
 
-        savedOrder.setTotalAmount(totalAmount);
+        // Holds the total against the customer's credit until the order is invoiced or cancelled; throwing rolls the whole order back
+        Money orderTotal = Money.ofMinor(totalMinorUnits);
+        creditExposureService.reserveCredit(customer, orderTotal);
+
+        savedOrder.setTotalAmount(orderTotal.toBigDecimal());
         Order updatedOrder = orderRepository.save(savedOrder);
 
         return convertToDTO(updatedOrder);
@@ -152,6 +173,13 @@ public class OrderService {
         Order order = orderRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Order not found with id: " + id));
 
+        // A cancelled order holds no credit; bringing one back holds it again
+        if (status == OrderStatus.CANCELLED && order.getStatus() != OrderStatus.CANCELLED) {
+            releaseCredit(order, Money.ofNullable(order.getTotalAmount()));
+        } else if (status != OrderStatus.CANCELLED && order.getStatus() == OrderStatus.CANCELLED) {
+            reserveCredit(order, Money.ofNullable(order.getTotalAmount()));
+        }
+
         order.setStatus(status);
 
         // If the order is shipped, set the shipping date
@@ -188,6 +216,7 @@ public class OrderService {
             throw new IllegalStateException("Cannot delete non-pending order");
         }
 
+        releaseCredit(order, Money.ofNullable(order.getTotalAmount()));
         orderRepository.deleteById(id);
     }
 
@@ -218,6 +247,7 @@ public class OrderService {
             releaseStock(order);
         }
 
+        releaseCredit(order, Money.ofNullable(order.getTotalAmount()));
         order.setStatus(OrderStatus.CANCELLED);
         Order updatedOrder = orderRepository.save(order);
         return convertToDTO(updatedOrder);
@@ -246,15 +276,18 @@ public class OrderService {
         orderItem.setOrder(order);
         orderItem.setProduct(product);
         orderItem.setQuantity(orderItemDTO.getQuantity());
-        orderItem.setPricePerUnit(product.getPrice());
+        orderItem.setPricePerUnit(productPriceService.currentPrice(product.getId(), product.getPrice()));
         orderItem.setSourceWarehouse(sourceWarehouse);
 
+        // The added amount needs credit like a new order
+        reserveCredit(order, orderItem.getTotal());
+
         orderItemRepository.save(orderItem);
         order.addItem(orderItem);
 
         // Update total amount
-        BigDecimal totalAmount = order.getTotalAmount().add(orderItem.getTotalPrice());
-        order.setTotalAmount(totalAmount);
+        Money totalAmount = Money.ofNullable(order.getTotalAmount()).plus(orderItem.getTotal());
+        order.setTotalAmount(totalAmount.toBigDecimal());
 
         Order updatedOrder = orderRepository.save(order);
         return convertToDTO(updatedOrder);
@@ -278,9 +311,11 @@ public class OrderService {
             throw new InvalidOperationException("Order item does not belong to this order");
         }
 
+        releaseCredit(order, orderItem.getTotal());
+
         // Update total amount
-        BigDecimal totalAmount = order.getTotalAmount().subtract(orderItem.getTotalPrice());
-        order.setTotalAmount(totalAmount);
+        Money totalAmount = Money.ofNullable(order.getTotalAmount()).minus(orderItem.getTotal());
+        order.setTotalAmount(totalAmount.toBigDecimal());
 
         // Remove item from order and delete it
         order.removeItem(orderItem);
@@ -296,11 +331,14 @@ public class OrderService {
                 .collect(Collectors.toList());
     }
 
+    // Based on the clock, but never repeats: two orders in the same millisecond get consecutive numbers
     private String generateOrderNumber() {
-        return "ORD-" + System.currentTimeMillis();
+        long now = System.currentTimeMillis();
+        return "ORD-" + lastOrderNumber.accumulateAndGet(now, (last, time) -> Math.max(last + 1, time));
     }
 
-    private Warehouse findBestWarehouse(Product product, Integer requiredQuantity) {
+    // First warehouse holding at least the required quantity, or null
+    public static Warehouse findBestWarehouse(Product product, Integer requiredQuantity) {
         Map<Warehouse, Integer> stockQuantities = product.getStockQuantities();
 
         for (Map.Entry<Warehouse, Integer> entry : stockQuantities.entrySet()) {
@@ -312,7 +350,21 @@ public class OrderService {
         return null;
     }
 
+    // Only orders that are not invoiced yet hold credit; an invoice carries its own amount
+    private void reserveCredit(Order order, Money amount) {
+        if (order.getInvoice() == null && order.getCustomer() != null) {
+            creditExposureService.reserveCredit(order.getCustomer(), amount);
+        }
+    }
+
+    private void releaseCredit(Order order, Money amount) {
+        if (order.getInvoice() == null && order.getCustomer() != null) {
+            creditExposureService.releaseCredit(order.getCustomer().getId(), amount);
+        }
+    }
+
     private void reserveStock(Order order) {
+        Set<Long> changedIds = new LinkedHashSet<>();
         for (OrderItem item : order.getItems()) {
             Product product = item.getProduct();
             Warehouse warehouse = item.getSourceWarehouse();
@@ -324,10 +376,15 @@ public class OrderService {
 
             product.updateStock(warehouse, currentStock - item.getQuantity());
             productRepository.save(product);
+            changedIds.add(product.getId());
         }
+        // One change sequence and one facet refresh for the whole order
+        productFacetService.productsChanged(changedIds);
+        catalogChangeService.productsChanged(changedIds);
     }
 
     private void releaseStock(Order order) {
+        Set<Long> changedIds = new LinkedHashSet<>();
         for (OrderItem item : order.getItems()) {
             Product product = item.getProduct();
             Warehouse warehouse = item.getSourceWarehouse();
@@ -335,10 +392,13 @@ public class OrderService {
 
             product.updateStock(warehouse, currentStock + item.getQuantity());
             productRepository.save(product);
+            changedIds.add(product.getId());
         }
+        productFacetService.productsChanged(changedIds);
+        catalogChangeService.productsChanged(changedIds);
     }
 
-    private OrderDTO convertToDTO(Order order) {
+    public OrderDTO convertToDTO(Order order) {
         OrderDTO dto = new OrderDTO();
         dto.setId(order.getId());
         dto.setOrderNumber(order.getOrderNumber());
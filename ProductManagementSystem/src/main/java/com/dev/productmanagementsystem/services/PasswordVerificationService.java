@@ -0,0 +1,129 @@
+package com.dev.productmanagementsystem.services;
+
+import com.dev.productmanagementsystem.utils.TokenBucketTable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Runs password hash checks off the request threads, on a small pool with a bounded queue, and
+ * throttles login attempts per username and per client address.
+ *
+ * A burst of logins can therefore use at most the pool's threads for hashing; once the queue is
+ * full further attempts are turned away immediately. Unknown usernames take the same path: they
+ * are checked against a dummy hash on the same pool, so neither the timing nor a full queue tells
+ * them apart from a wrong password.
+ */
+@Service
+public class PasswordVerificationService implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(PasswordVerificationService.class);
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final TokenBucketTable userBuckets;
+    private final TokenBucketTable addressBuckets;
+
+    // Hash of a random password, made with the current encoder; unknown users are checked against it
+    private final String unknownUserHash;
+
+    @Autowired
+    public PasswordVerificationService(PasswordEncoder passwordEncoder,
+                                       @Value("${auth.login.verify-threads:0}") int threads,
+                                       @Value("${auth.login.verify-queue:64}") int queueCapacity,
+                                       @Value("${auth.login.attempts-per-user-per-minute:10}") int attemptsPerUser,
+                                       @Value("${auth.login.attempts-per-address-per-minute:60}") int attemptsPerAddress,
+                                       @Value("${auth.login.throttle-entries:100000}") int throttleEntries) {
+        this.passwordEncoder = passwordEncoder;
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "password-verify-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        this.userBuckets = new TokenBucketTable(attemptsPerUser, attemptsPerUser, throttleEntries);
+        this.addressBuckets = new TokenBucketTable(attemptsPerAddress, attemptsPerAddress, throttleEntries);
+        this.unknownUserHash = passwordEncoder.encode(UUID.randomUUID().toString());
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Takes one attempt from the client address and the username buckets. Returns 0 when the
+     * attempt may proceed, otherwise the number of seconds to wait before retrying.
+     */
+    public long throttle(String username, String clientAddress) {
+        long wait = addressBuckets.tryAcquire(clientAddress != null ? clientAddress : "");
+        if (wait == 0L && username != null) {
+            wait = userBuckets.tryAcquire(username.toLowerCase(Locale.ROOT));
+        }
+        return wait == 0L ? 0L : Math.max(1L, TimeUnit.MILLISECONDS.toSeconds(wait + 999L));
+    }
+
+    /**
+     * Checks a password on the verification pool. The future fails with
+     * {@link RejectedExecutionException} when the pool's queue is full.
+     */
+    public CompletableFuture<Boolean> verify(String rawPassword, String encodedPassword) {
+        return verify(rawPassword, encodedPassword, null);
+    }
+
+    /**
+     * Like {@link #verify(String, String)}, and when the password matches a hash made with an older
+     * algorithm or lower cost, also computes the new hash on the pool and hands it to {@code rehash}.
+     * The response is not held back for the rehash.
+     */
+    public CompletableFuture<Boolean> verify(String rawPassword, String encodedPassword, Consumer<String> rehash) {
+        try {
+            CompletableFuture<Boolean> result = CompletableFuture.supplyAsync(
+                    () -> encodedPassword != null && passwordEncoder.matches(rawPassword, encodedPassword), executor);
+            if (rehash != null) {
+                result.thenAcceptAsync(matches -> {
+                    if (matches && passwordEncoder.upgradeEncoding(encodedPassword)) {
+                        rehash.accept(passwordEncoder.encode(rawPassword));
+                    }
+                }, executor).exceptionally(e -> {
+                    // A full queue just means the upgrade happens on a later login
+                    if (!(e.getCause() instanceof RejectedExecutionException)) {
+                        logger.warn("Password hash upgrade failed", e);
+                    }
+                    return null;
+                });
+            }
+            return result;
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * A failed verification for a user that does not exist. It does the same work on the same pool
+     * as {@link #verify(String, String)}, and fails the same way when the queue is full.
+     */
+    public CompletableFuture<Boolean> rejectUnknown(String rawPassword) {
+        return verify(rawPassword, unknownUserHash).thenApply(matches -> false);
+    }
+
+    public int getQueuedVerifications() {
+        return executor.getQueue().size();
+    }
+}
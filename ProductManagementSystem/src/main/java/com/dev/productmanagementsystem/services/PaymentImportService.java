@@ -0,0 +1,470 @@
+package com.dev.productmanagementsystem.services;
+
+import com.dev.productmanagementsystem.dto.PaymentImportResultDTO;
+import com.dev.productmanagementsystem.enums.PaymentMethod;
+import com.dev.productmanagementsystem.enums.PaymentStatus;
+import com.dev.productmanagementsystem.enums.StatementFormat;
+import com.dev.productmanagementsystem.exceptions.ResourceNotFoundException;
+import com.dev.productmanagementsystem.repositories.InvoiceRepository;
+import com.dev.productmanagementsystem.repositories.PaymentRepository;
+import com.dev.productmanagementsystem.utils.Csv;
+import com.dev.productmanagementsystem.utils.Money;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reconciles bank statement files against open invoices.
+ *
+ * The statement is read line by line and processed in chunks of {@link #BATCH_SIZE},
+ * so memory is bounded by the number of open invoices rather than the size of the file.
+ * Each chunk is inserted with one JDBC batch and committed together with the invoice
+ * status changes and ledger postings it causes; re-importing a statement skips lines whose bank transaction
+ * id was already recorded.
+ */
+@Service
+public class PaymentImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PaymentImportService.class);
+
+    static final int BATCH_SIZE = 500;
+
+    // Bank transaction ids are stored with this prefix to keep them apart from generated ones
+    static final String TRANSACTION_ID_PREFIX = "BANK-";
+
+    private static final List<PaymentStatus> CLOSED_STATUSES =
+            List.of(PaymentStatus.PAID, PaymentStatus.CANCELLED, PaymentStatus.REFUNDED);
+
+    private static final String INSERT_PAYMENT_SQL =
+            "INSERT INTO payments (invoice_id, amount, method, payment_date, transaction_id, notes, payment_status) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_INVOICE_STATUS_SQL = "UPDATE invoices SET payment_status = ? WHERE id = ?";
+    // A partial payment leaves an overdue invoice overdue; only paying it in full clears that
+    private static final String UPDATE_PARTIALLY_PAID_SQL =
+            "UPDATE invoices SET payment_status = 'PARTIALLY_PAID' WHERE id = ? " +
+            "AND (payment_status IS NULL OR payment_status <> 'OVERDUE')";
+
+    // Fixed-width layout: booking date (yyyy-MM-dd), signed amount, reference, bank transaction id, description
+    private static final int FW_DATE_END = 10;
+    private static final int FW_AMOUNT_END = 25;
+    private static final int FW_REFERENCE_END = 60;
+    private static final int FW_TRANSACTION_ID_END = 95;
+
+    private static final String REPORT_PREFIX = "payment-import-";
+    private static final String REPORT_HEADER = "line,reason,booking_date,amount,reference,transaction_id,detail";
+
+    private final InvoiceRepository invoiceRepository;
+    private final PaymentRepository paymentRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final LedgerService ledgerService;
+    private final Path reportDirectory;
+
+    @Autowired
+    public PaymentImportService(InvoiceRepository invoiceRepository, PaymentRepository paymentRepository,
+                                JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager, LedgerService ledgerService,
+                                @Value("${payments.import.report-dir:${java.io.tmpdir}/payment-imports}") String reportDirectory) {
+        this.invoiceRepository = invoiceRepository;
+        this.paymentRepository = paymentRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ledgerService = ledgerService;
+        this.reportDirectory = Path.of(reportDirectory);
+    }
+
+    public PaymentImportResultDTO importStatement(Path statement, StatementFormat format) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(statement, StandardCharsets.UTF_8)) {
+            return importStatement(reader, format);
+        }
+    }
+
+    public PaymentImportResultDTO importStatement(InputStream statement, StatementFormat format) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(statement, StandardCharsets.UTF_8))) {
+            return importStatement(reader, format);
+        }
+    }
+
+    // Returns a previously written exceptions report by the name given in the import result
+    public Path getExceptionReport(String name) {
+        if (name == null || !name.matches(REPORT_PREFIX + "[0-9a-zA-Z_-]+\\.csv")) {
+            throw new IllegalArgumentException("Invalid report name: " + name);
+        }
+        Path report = reportDirectory.resolve(name);
+        if (!Files.isRegularFile(report)) {
+            throw new ResourceNotFoundException("Exceptions report not found: " + name);
+        }
+        return report;
+    }
+
+    private PaymentImportResultDTO importStatement(BufferedReader reader, StatementFormat format) throws IOException {
+        Files.createDirectories(reportDirectory);
+        Path report = Files.createTempFile(reportDirectory, REPORT_PREFIX, ".csv");
+        try (BufferedWriter writer = Files.newBufferedWriter(report, StandardCharsets.UTF_8)) {
+            PaymentImportResultDTO result = importStatement(reader, format, writer);
+            result.setExceptionReport(report.getFileName().toString());
+            return result;
+        }
+    }
+
+    public PaymentImportResultDTO importStatement(BufferedReader reader, StatementFormat format, Writer exceptionReport) throws IOException {
+        if (format == null) {
+            throw new IllegalArgumentException("Statement format cannot be null");
+        }
+
+        ImportRun run = new ImportRun(loadOpenInvoices(), exceptionReport);
+        exceptionReport.write(REPORT_HEADER);
+        exceptionReport.write('\n');
+
+        List<StatementLine> chunk = new ArrayList<>(BATCH_SIZE);
+        String line;
+        long lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank() || (lineNumber == 1 && isHeader(line))) {
+                continue;
+            }
+            run.linesRead++;
+
+            StatementLine entry;
+            try {
+                entry = format == StatementFormat.CSV ? parseCsv(lineNumber, line) : parseFixedWidth(lineNumber, line);
+            } catch (IllegalArgumentException | ArithmeticException | DateTimeParseException e) {
+                run.reportUnparseable(lineNumber, e.getMessage());
+                continue;
+            }
+
+            chunk.add(entry);
+            if (chunk.size() == BATCH_SIZE) {
+                processChunk(chunk, run);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            processChunk(chunk, run);
+        }
+
+        logger.info("Imported bank statement: {} lines, {} payments, {} duplicates, {} exceptions",
+                run.linesRead, run.paymentsCreated, run.duplicatesSkipped, run.exceptions);
+        return run.toResult();
+    }
+
+    private OpenInvoiceIndex loadOpenInvoices() {
+        OpenInvoiceIndex index = new OpenInvoiceIndex();
+        for (Object[] row : invoiceRepository.findBalancesByPaymentStatusNotIn(CLOSED_STATUSES)) {
+            long total = Money.ofNullable((BigDecimal) row[3]).getMinorUnits();
+            long paid = Money.ofNullable((BigDecimal) row[4]).getMinorUnits();
+            index.add(new OpenInvoice((Long) row[0], (String) row[1], (Long) row[2], total - paid));
+        }
+        return index;
+    }
+
+    private void processChunk(List<StatementLine> chunk, ImportRun run) throws IOException {
+        Set<String> transactionIds = new HashSet<>();
+        for (StatementLine entry : chunk) {
+            transactionIds.add(entry.transactionId);
+        }
+        // Earlier chunks are already committed, so this also catches repeats within the file
+        Set<String> alreadyRecorded = new HashSet<>(paymentRepository.findExistingTransactionIds(transactionIds));
+        Set<String> seenInChunk = new HashSet<>();
+
+        List<Object[]> payments = new ArrayList<>(chunk.size());
+        List<StatementLine> imported = new ArrayList<>(chunk.size());
+        List<OpenInvoice> importedInvoices = new ArrayList<>(chunk.size());
+        Set<OpenInvoice> touched = new LinkedHashSet<>();
+        for (StatementLine entry : chunk) {
+            if (alreadyRecorded.contains(entry.transactionId) || !seenInChunk.add(entry.transactionId)) {
+                run.duplicatesSkipped++;
+                continue;
+            }
+            if (entry.amount <= 0) {
+                run.report(entry, "NOT_A_CREDIT", "Only incoming payments can be matched");
+                continue;
+            }
+
+            OpenInvoice invoice = run.index.findByReference(entry.reference);
+            boolean byNumber = invoice != null;
+            if (!byNumber) {
+                List<OpenInvoice> candidates = run.index.findByRemaining(entry.amount);
+                if (candidates.isEmpty()) {
+                    run.report(entry, "NO_MATCH", "No open invoice with this number or remaining amount");
+                    continue;
+                }
+                if (candidates.size() > 1) {
+                    run.report(entry, "AMBIGUOUS_AMOUNT", candidates.size() + " open invoices share this remaining amount");
+                    continue;
+                }
+                invoice = candidates.get(0);
+            }
+            if (entry.amount > invoice.remaining) {
+                run.report(entry, "OVERPAYMENT", "Invoice " + invoice.number + " has "
+                        + Money.ofMinor(invoice.remaining) + " remaining");
+                continue;
+            }
+
+            run.index.applyPayment(invoice, entry.amount);
+            touched.add(invoice);
+            imported.add(entry);
+            importedInvoices.add(invoice);
+            payments.add(new Object[]{
+                    invoice.id,
+                    Money.ofMinor(entry.amount).toBigDecimal(),
+                    PaymentMethod.BANK_TRANSFER.name(),
+                    Timestamp.valueOf(entry.bookingDate.atStartOfDay()),
+                    entry.transactionId,
+                    notesFor(entry),
+                    PaymentStatus.COMPLETED.name()
+            });
+            if (byNumber) {
+                run.matchedByInvoiceNumber++;
+            } else {
+                run.matchedByAmount++;
+            }
+            run.totalImported = Math.addExact(run.totalImported, entry.amount);
+        }
+
+        if (payments.isEmpty()) {
+            return;
+        }
+        List<Object[]> paidUpdates = new ArrayList<>();
+        List<Object[]> partiallyPaidUpdates = new ArrayList<>();
+        for (OpenInvoice invoice : touched) {
+            if (invoice.remaining == 0) {
+                paidUpdates.add(new Object[]{PaymentStatus.PAID.name(), invoice.id});
+            } else {
+                partiallyPaidUpdates.add(new Object[]{invoice.id});
+            }
+        }
+        transactionTemplate.executeWithoutResult(tx -> {
+            jdbcTemplate.batchUpdate(INSERT_PAYMENT_SQL, payments);
+            if (!paidUpdates.isEmpty()) {
+                jdbcTemplate.batchUpdate(UPDATE_INVOICE_STATUS_SQL, paidUpdates);
+            }
+            if (!partiallyPaidUpdates.isEmpty()) {
+                jdbcTemplate.batchUpdate(UPDATE_PARTIALLY_PAID_SQL, partiallyPaidUpdates);
+            }
+            ledgerService.post(toPostings(imported, importedInvoices));
+        });
+        run.paymentsCreated += payments.size();
+        run.invoicesUpdated.addAll(touched);
+    }
+
+    // Batch inserts do not return generated ids, so they are looked up by transaction id
+    private List<LedgerService.Posting> toPostings(List<StatementLine> imported, List<OpenInvoice> invoices) {
+        List<String> transactionIds = new ArrayList<>(imported.size());
+        for (StatementLine entry : imported) {
+            transactionIds.add(entry.transactionId);
+        }
+        Map<String, Long> paymentIds = new HashMap<>();
+        for (Object[] row : paymentRepository.findIdsByTransactionIds(transactionIds)) {
+            paymentIds.put((String) row[1], (Long) row[0]);
+        }
+
+        List<LedgerService.Posting> postings = new ArrayList<>(imported.size());
+        for (int i = 0; i < imported.size(); i++) {
+            StatementLine entry = imported.get(i);
+            OpenInvoice invoice = invoices.get(i);
+            postings.add(new LedgerService.Posting(paymentIds.get(entry.transactionId), invoice.id, invoice.customerId,
+                    entry.amount, entry.bookingDate.atStartOfDay(), "Payment " + entry.transactionId));
+        }
+        return postings;
+    }
+
+    private static String notesFor(StatementLine entry) {
+        String notes = "Bank statement import";
+        if (!entry.reference.isEmpty()) {
+            notes += ". Reference: " + entry.reference;
+        }
+        if (!entry.description.isEmpty()) {
+            notes += ". " + entry.description;
+        }
+        return notes.length() > 255 ? notes.substring(0, 255) : notes;
+    }
+
+    // A header line starts with a column name rather than a booking date
+    private static boolean isHeader(String line) {
+        char first = line.charAt(0);
+        return first == '"' ? line.length() > 1 && !Character.isDigit(line.charAt(1)) : !Character.isDigit(first);
+    }
+
+    // CSV columns: booking_date, amount, reference, transaction_id[, description]
+    static StatementLine parseCsv(long lineNumber, String line) {
+        List<String> fields = Csv.split(line);
+        if (fields.size() < 4) {
+            throw new IllegalArgumentException("Expected at least 4 columns but found " + fields.size());
+        }
+        return new StatementLine(lineNumber, fields.get(0), fields.get(1), fields.get(2), fields.get(3),
+                fields.size() > 4 ? fields.get(4) : "");
+    }
+
+    static StatementLine parseFixedWidth(long lineNumber, String line) {
+        if (line.length() < FW_TRANSACTION_ID_END) {
+            throw new IllegalArgumentException("Fixed-width line must be at least " + FW_TRANSACTION_ID_END + " characters");
+        }
+        return new StatementLine(lineNumber,
+                line.substring(0, FW_DATE_END),
+                line.substring(FW_DATE_END, FW_AMOUNT_END),
+                line.substring(FW_AMOUNT_END, FW_REFERENCE_END),
+                line.substring(FW_REFERENCE_END, FW_TRANSACTION_ID_END),
+                line.substring(FW_TRANSACTION_ID_END));
+    }
+
+    static final class StatementLine {
+        final long lineNumber;
+        final LocalDate bookingDate;
+        final long amount;
+        final String reference;
+        final String transactionId;
+        final String description;
+
+        StatementLine(long lineNumber, String bookingDate, String amount, String reference,
+                      String transactionId, String description) {
+            String bankTransactionId = transactionId.trim();
+            if (bankTransactionId.isEmpty()) {
+                throw new IllegalArgumentException("Missing bank transaction id");
+            }
+            this.lineNumber = lineNumber;
+            this.bookingDate = LocalDate.parse(bookingDate.trim());
+            this.amount = Money.of(new BigDecimal(amount.trim()), RoundingMode.UNNECESSARY).getMinorUnits();
+            this.reference = reference.trim();
+            this.transactionId = TRANSACTION_ID_PREFIX + bankTransactionId;
+            this.description = description.trim();
+        }
+    }
+
+    private static final class OpenInvoice {
+        final long id;
+        final String number;
+        final Long customerId;
+        long remaining;
+
+        OpenInvoice(long id, String number, Long customerId, long remaining) {
+            this.id = id;
+            this.number = number;
+            this.customerId = customerId;
+            this.remaining = remaining;
+        }
+    }
+
+    // Lookup by invoice number, and by exact remaining amount for lines without a usable reference
+    private static final class OpenInvoiceIndex {
+        private final Map<String, OpenInvoice> byNumber = new HashMap<>();
+        private final Map<Long, List<OpenInvoice>> byRemaining = new HashMap<>();
+
+        void add(OpenInvoice invoice) {
+            if (invoice.number != null) {
+                byNumber.put(invoice.number.toUpperCase(), invoice);
+            }
+            if (invoice.remaining > 0) {
+                byRemaining.computeIfAbsent(invoice.remaining, key -> new ArrayList<>(1)).add(invoice);
+            }
+        }
+
+        // References are free text, so fall back to looking at each token ("Payment for INV-1A2B3C")
+        OpenInvoice findByReference(String reference) {
+            if (reference.isEmpty()) {
+                return null;
+            }
+            OpenInvoice invoice = byNumber.get(reference.toUpperCase());
+            if (invoice != null) {
+                return invoice;
+            }
+            for (String token : reference.split("[\\s,;/]+")) {
+                invoice = byNumber.get(token.toUpperCase());
+                if (invoice != null) {
+                    return invoice;
+                }
+            }
+            return null;
+        }
+
+        List<OpenInvoice> findByRemaining(long amount) {
+            return byRemaining.getOrDefault(amount, List.of());
+        }
+
+        void applyPayment(OpenInvoice invoice, long amount) {
+            List<OpenInvoice> bucket = byRemaining.get(invoice.remaining);
+            if (bucket != null) {
+                bucket.remove(invoice);
+                if (bucket.isEmpty()) {
+                    byRemaining.remove(invoice.remaining);
+                }
+            }
+            invoice.remaining -= amount;
+            if (invoice.remaining > 0) {
+                byRemaining.computeIfAbsent(invoice.remaining, key -> new ArrayList<>(1)).add(invoice);
+            }
+        }
+    }
+
+    // Counters and the exceptions report for one import
+    private static final class ImportRun {
+        final OpenInvoiceIndex index;
+        final Writer report;
+        final Set<OpenInvoice> invoicesUpdated = new HashSet<>();
+        long linesRead;
+        long paymentsCreated;
+        long matchedByInvoiceNumber;
+        long matchedByAmount;
+        long duplicatesSkipped;
+        long exceptions;
+        long totalImported;
+
+        ImportRun(OpenInvoiceIndex index, Writer report) {
+            this.index = index;
+            this.report = report;
+        }
+
+        void report(StatementLine entry, String reason, String detail) throws IOException {
+            exceptions++;
+            report.write(entry.lineNumber + "," + reason + "," + entry.bookingDate + "," + Money.ofMinor(entry.amount)
+                    + "," + Csv.field(entry.reference)
+                    + "," + Csv.field(entry.transactionId.substring(TRANSACTION_ID_PREFIX.length()))
+                    + "," + Csv.field(detail) + "\n");
+        }
+
+        void reportUnparseable(long lineNumber, String detail) throws IOException {
+            exceptions++;
+            report.write(lineNumber + ",UNPARSEABLE,,,,," + Csv.field(detail == null ? "" : detail) + "\n");
+        }
+
+        PaymentImportResultDTO toResult() {
+            PaymentImportResultDTO result = new PaymentImportResultDTO();
+            result.setLinesRead(linesRead);
+            result.setPaymentsCreated(paymentsCreated);
+            result.setMatchedByInvoiceNumber(matchedByInvoiceNumber);
+            result.setMatchedByAmount(matchedByAmount);
+            result.setDuplicatesSkipped(duplicatesSkipped);
+            result.setExceptions(exceptions);
+            result.setInvoicesUpdated(invoicesUpdated.size());
+            result.setTotalImported(Money.ofMinor(totalImported).toBigDecimal());
+            return result;
+        }
+    }
+}
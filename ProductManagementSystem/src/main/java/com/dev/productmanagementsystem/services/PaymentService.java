@@ -7,12 +7,15 @@ import com.dev.productmanagementsystem.enums.PaymentStatus;
 import com.dev.productmanagementsystem.repositories.InvoiceRepository;
 import com.dev.productmanagementsystem.repositories.PaymentRepository;
 import com.dev.productmanagementsystem.exceptions.ResourceNotFoundException;
+import com.dev.productmanagementsystem.utils.Money;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.YearMonth;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -22,11 +25,14 @@ public class PaymentService {
 
     private final PaymentRepository paymentRepository;
     private final InvoiceRepository invoiceRepository;
+    private final LedgerService ledgerService;
 
     @Autowired
-    public PaymentService(PaymentRepository paymentRepository, InvoiceRepository invoiceRepository) {
+    public PaymentService(PaymentRepository paymentRepository, InvoiceRepository invoiceRepository,
+                          LedgerService ledgerService) {
         this.paymentRepository = paymentRepository;
         this.invoiceRepository = invoiceRepository;
+        this.ledgerService = ledgerService;
     }
 
     public List<Payment> getAllPayments() {
@@ -48,8 +54,8 @@ public class PaymentService {
                 .orElseThrow(() -> new ResourceNotFoundException("Invoice not found with id: " + invoiceId));
 
         // Validate payment amount
-        BigDecimal remainingAmount = invoice.getRemainingAmount();
-        if (amount.compareTo(remainingAmount) > 0) {
+        Money remainingAmount = getRemainingAmount(invoice);
+        if (Money.of(amount).compareTo(remainingAmount) > 0) {
             throw new IllegalArgumentException("Payment amount exceeds the remaining invoice amount");
         }
 
@@ -62,6 +68,7 @@ public class PaymentService {
         payment.setPaymentStatus(PaymentStatus.COMPLETED);
 
         Payment savedPayment = paymentRepository.save(payment);
+        ledgerService.postPayment(savedPayment);
 
         // Update invoice payment status
         updateInvoicePaymentStatus(invoice);
@@ -72,6 +79,7 @@ public class PaymentService {
     @Transactional
     public Payment updatePayment(Long id, PaymentStatus status, String notes) {
         Payment payment = getPaymentById(id);
+        LedgerService.Posting previous = LedgerService.Posting.of(payment);
         payment.setPaymentStatus(status);
 
         if (notes != null) {
@@ -79,6 +87,7 @@ public class PaymentService {
         }
 
         Payment updatedPayment = paymentRepository.save(payment);
+        ledgerService.repostPayment(previous, updatedPayment);
 
         // Update invoice payment status
         updateInvoicePaymentStatus(updatedPayment.getInvoice());
@@ -91,6 +100,7 @@ public class PaymentService {
         Payment payment = getPaymentById(id);
         Invoice invoice = payment.getInvoice();
 
+        ledgerService.reversePayment(payment, "Payment deleted");
         paymentRepository.deleteById(id);
 
         // Update invoice payment status
@@ -98,11 +108,11 @@ public class PaymentService {
     }
 
     private void updateInvoicePaymentStatus(Invoice invoice) {
-        BigDecimal remainingAmount = invoice.getRemainingAmount();
+        Money remainingAmount = getRemainingAmount(invoice);
 
-        if (remainingAmount.compareTo(BigDecimal.ZERO) == 0) {
+        if (remainingAmount.isZero()) {
             invoice.setPaymentStatus(PaymentStatus.PAID);
-        } else if (remainingAmount.compareTo(invoice.getTotalAmount()) < 0) {
+        } else if (remainingAmount.compareTo(Money.ofNullable(invoice.getTotalAmount())) < 0) {
             invoice.setPaymentStatus(PaymentStatus.PARTIALLY_PAID);
         } else {
             invoice.setPaymentStatus(PaymentStatus.PENDING);
@@ -115,13 +125,17 @@ public class PaymentService {
         return paymentRepository.findByTransactionId(transactionId);
     }
 
+    // Remaining amount from the invoice's ledger balance instead of summing its payments
+    private Money getRemainingAmount(Invoice invoice) {
+        return Money.ofNullable(invoice.getTotalAmount()).minus(ledgerService.getInvoiceReceived(invoice.getId()));
+    }
+
     public BigDecimal getTotalPaidForInvoice(Long invoiceId) {
-        List<Payment> payments = paymentRepository.findByInvoiceIdAndPaymentStatus(
-                invoiceId, PaymentStatus.COMPLETED);
+        return ledgerService.getReceivedForInvoice(invoiceId);
+    }
 
-        return payments.stream()
-                .map(Payment::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    public BigDecimal getTotalPaidByCustomer(Long customerId) {
+        return ledgerService.getReceivedFromCustomer(customerId);
     }
 
     public List<Payment> findPaymentsByDateRange(LocalDateTime startDate, LocalDateTime endDate) {
@@ -147,6 +161,7 @@ public class PaymentService {
         refund.setPaymentStatus(PaymentStatus.COMPLETED);
 
         Payment savedRefund = paymentRepository.save(refund);
+        ledgerService.postPayment(savedRefund);
 
         // Update invoice payment status
         updateInvoicePaymentStatus(payment.getInvoice());
@@ -154,13 +169,36 @@ public class PaymentService {
         return savedRefund;
     }
 
+    /*
+     * Completed payments dated from start to end, both included. Calendar months that lie wholly inside
+     * the range come from the monthly ledger balances; only the part months at either end are summed
+     * from payments.
+     */
     public BigDecimal getTotalPaymentsForPeriod(LocalDateTime startDate, LocalDateTime endDate) {
-        List<Payment> payments = paymentRepository.findByPaymentStatusAndPaymentDateBetween(
-                PaymentStatus.COMPLETED, startDate, endDate);
+        YearMonth firstMonth = YearMonth.from(startDate);
+        if (!startDate.equals(firstMonth.atDay(1).atStartOfDay())) {
+            firstMonth = firstMonth.plusMonths(1);
+        }
+        YearMonth lastMonth = YearMonth.from(endDate);
+        if (endDate.isBefore(lastMonth.atEndOfMonth().atTime(LocalTime.MAX))) {
+            lastMonth = lastMonth.minusMonths(1);
+        }
+        if (firstMonth.isAfter(lastMonth)) {
+            return Money.ofNullable(paymentRepository.sumAmountByPaymentStatusAndPaymentDateBetween(
+                    PaymentStatus.COMPLETED, startDate, endDate)).toBigDecimal();
+        }
 
-        return payments.stream()
-                .map(Payment::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        Money total = Money.of(ledgerService.getReceivedForPeriods(firstMonth, lastMonth));
+        LocalDateTime wholeMonthsStart = firstMonth.atDay(1).atStartOfDay();
+        if (startDate.isBefore(wholeMonthsStart)) {
+            total = total.plus(Money.ofNullable(paymentRepository.sumAmountByPaymentStatusAndPaymentDateFromUntil(
+                    PaymentStatus.COMPLETED, startDate, wholeMonthsStart)));
+        }
+        if (endDate.isAfter(lastMonth.atEndOfMonth().atTime(LocalTime.MAX))) {
+            total = total.plus(Money.ofNullable(paymentRepository.sumAmountByPaymentStatusAndPaymentDateBetween(
+                    PaymentStatus.COMPLETED, lastMonth.plusMonths(1).atDay(1).atStartOfDay(), endDate)));
+        }
+        return total.toBigDecimal();
     }
 
     private String generateTransactionId() {
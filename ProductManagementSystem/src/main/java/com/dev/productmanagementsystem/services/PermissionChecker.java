@@ -0,0 +1,29 @@
+package com.dev.productmanagementsystem.services;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+/**
+ * Method-level permission checks against the current request's principal, for use as
+ * {@code @PreAuthorize("@permissions.has('MANAGE_ROLES')")}.
+ */
+@Service("permissions")
+public class PermissionChecker {
+
+    private final RoleGraphCache roleGraphCache;
+
+    @Autowired
+    public PermissionChecker(RoleGraphCache roleGraphCache) {
+        this.roleGraphCache = roleGraphCache;
+    }
+
+    public boolean has(String permissionName) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !(authentication.getPrincipal() instanceof AuthenticatedUser)) {
+            return false;
+        }
+        return ((AuthenticatedUser) authentication.getPrincipal()).hasPermission(roleGraphCache.permissionId(permissionName));
+    }
+}
@@ -13,10 +13,12 @@ import java.util.Set;
 public class PermissionService {
 
     private final PermissionRepository permissionRepository;
+    private final RoleGraphCache roleGraphCache;
 
     @Autowired
-    public PermissionService(PermissionRepository permissionRepository) {
+    public PermissionService(PermissionRepository permissionRepository, RoleGraphCache roleGraphCache) {
         this.permissionRepository = permissionRepository;
+        this.roleGraphCache = roleGraphCache;
     }
 
     public List<Permission> getAllPermissions() {
@@ -42,7 +44,9 @@ public class PermissionService {
         permission.setName(name);
         permission.setDescription(description);
 
-        return permissionRepository.save(permission);
+        Permission savedPermission = permissionRepository.save(permission);
+        roleGraphCache.graphChanged();
+        return savedPermission;
     }
 
     public Permission updatePermission(Long id, String name, String description) {
@@ -62,7 +66,9 @@ public class PermissionService {
             permission.setDescription(description);
         }
 
-        return permissionRepository.save(permission);
+        Permission savedPermission = permissionRepository.save(permission);
+        roleGraphCache.graphChanged();
+        return savedPermission;
     }
 
     public void deletePermission(Long id) {
@@ -73,6 +79,7 @@ public class PermissionService {
         }
 
         permissionRepository.deleteById(id);
+        roleGraphCache.graphChanged();
     }
 
     public Set<Permission> getPermissionsByIds(Set<Long> permissionIds) {
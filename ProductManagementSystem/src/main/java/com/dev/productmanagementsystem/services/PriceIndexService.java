@@ -0,0 +1,160 @@
+package com.dev.productmanagementsystem.services;
+
+import com.dev.productmanagementsystem.dto.ProductPricePageDTO;
+import com.dev.productmanagementsystem.dto.ProductSkuDTO;
+import com.dev.productmanagementsystem.entities.Product;
+import com.dev.productmanagementsystem.repositories.ProductRepository;
+import com.dev.productmanagementsystem.utils.AfterCommit;
+import com.dev.productmanagementsystem.utils.Money;
+import com.dev.productmanagementsystem.utils.PriceIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Price range, cheapest-first and percentile queries over every priced product, answered from a
+ * {@link PriceIndex} in memory. Pages are resolved to {@link ProductSkuDTO}s through
+ * {@link SkuLookupService}, which serves them from its cache.
+ *
+ * The index is loaded with one query at startup. Price changes are queued after commit and
+ * applied in batches: the next query, or a full queue, builds a new index from the old one and
+ * swaps it in, so a burst of updates costs one copy rather than one per product.
+ */
+@Service
+public class PriceIndexService implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(PriceIndexService.class);
+
+    // Queued changes that force a new index even if nobody queries
+    private static final int BATCH_SIZE = 4096;
+
+    private final ProductRepository productRepository;
+    private final SkuLookupService skuLookupService;
+
+    private volatile PriceIndex index = PriceIndex.EMPTY;
+    // Product id -> new price in cents, or null once deleted or unpriced; guarded by this
+    private Map<Long, Long> pendingChanges = new HashMap<>();
+    private volatile boolean dirty;
+
+    @Autowired
+    public PriceIndexService(ProductRepository productRepository, SkuLookupService skuLookupService) {
+        this.productRepository = productRepository;
+        this.skuLookupService = skuLookupService;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        long start = System.nanoTime();
+        List<Object[]> rows = productRepository.findAllPricesAndIds();
+        long[] prices = new long[rows.size()];
+        long[] ids = new long[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            prices[i] = toCents((BigDecimal) rows.get(i)[0]);
+            ids[i] = (Long) rows.get(i)[1];
+        }
+        PriceIndex loaded = PriceIndex.build(prices, ids, ids.length);
+        synchronized (this) {
+            // Changes that committed during the load may or may not be in it; replaying them is harmless
+            index = pendingChanges.isEmpty() ? loaded : loaded.apply(pendingChanges);
+            pendingChanges = new HashMap<>();
+            dirty = false;
+        }
+        logger.info("Price index loaded with {} products in {} ms", ids.length, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /** Products priced from min to max inclusive, cheapest first; a null bound is open. */
+    public ProductPricePageDTO findInRange(BigDecimal min, BigDecimal max, int page, int size) {
+        PriceIndex current = current();
+        int from = from(current, min);
+        int to = to(current, max);
+        long first = from + (long) page * size;
+        List<Long> ids = new ArrayList<>(size);
+        for (long position = first; position < to && position < first + size; position++) {
+            ids.add(current.idAt((int) position));
+        }
+        return new ProductPricePageDTO(Math.max(0, to - from), page, size, skuLookupService.findByIds(ids));
+    }
+
+    public long countInRange(BigDecimal min, BigDecimal max) {
+        PriceIndex current = current();
+        return Math.max(0, to(current, max) - from(current, min));
+    }
+
+    /** The limit cheapest products, or the most expensive ones, in price order. */
+    public List<ProductSkuDTO> findCheapest(int limit, boolean mostExpensive) {
+        PriceIndex current = current();
+        int count = Math.min(limit, current.size());
+        List<Long> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(current.idAt(mostExpensive ? current.size() - 1 - i : i));
+        }
+        return skuLookupService.findByIds(ids);
+    }
+
+    /** Nearest-rank percentile (0 to 100) of product prices, or null when no product has a price. */
+    public BigDecimal percentile(double percent) {
+        PriceIndex current = current();
+        return current.size() == 0 ? null : Money.ofMinor(current.percentile(percent)).toBigDecimal();
+    }
+
+    // Change hooks, applied once the surrounding transaction has committed
+    public void productSaved(Product product) {
+        priceChanged(product.getId(), product.getPrice());
+    }
+
+    public void priceChanged(Long productId, BigDecimal price) {
+        Long cents = price == null ? null : toCents(price);
+        AfterCommit.run(() -> change(productId, cents));
+    }
+
+    public void productDeleted(Long productId) {
+        AfterCommit.run(() -> change(productId, null));
+    }
+
+    private synchronized void change(Long productId, Long cents) {
+        pendingChanges.put(productId, cents);
+        dirty = true;
+        if (pendingChanges.size() >= BATCH_SIZE) {
+            flush();
+        }
+    }
+
+    private PriceIndex current() {
+        if (dirty) {
+            synchronized (this) {
+                flush();
+            }
+        }
+        return index;
+    }
+
+    // Caller holds the monitor
+    private void flush() {
+        if (!pendingChanges.isEmpty()) {
+            index = index.apply(pendingChanges);
+            pendingChanges = new HashMap<>();
+        }
+        dirty = false;
+    }
+
+    private static int from(PriceIndex index, BigDecimal min) {
+        return min == null ? 0 : index.lowerBound(Money.of(min, RoundingMode.CEILING).getMinorUnits());
+    }
+
+    private static int to(PriceIndex index, BigDecimal max) {
+        return max == null ? index.size() : index.upperBound(Money.of(max, RoundingMode.FLOOR).getMinorUnits());
+    }
+
+    private static long toCents(BigDecimal price) {
+        return Money.of(price).getMinorUnits();
+    }
+}
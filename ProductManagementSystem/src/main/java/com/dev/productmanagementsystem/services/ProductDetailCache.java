@@ -0,0 +1,82 @@
+package com.dev.productmanagementsystem.services;
+
+import com.dev.productmanagementsystem.dto.ProductDTO;
+import com.dev.productmanagementsystem.utils.AfterCommit;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Product detail DTOs by product id, so a hot product is not reloaded and converted on every
+ * request. Caffeine bounds the cache by an estimate of the DTOs' heap size and decides what to
+ * keep with W-TinyLFU: a new entry only displaces an old one when it has been asked for more
+ * often, so a scan over many cold products does not flush the hot ones.
+ *
+ * A miss loads in a read-only transaction, and concurrent misses on the same id wait for that
+ * one load instead of each querying. Entries are dropped after commit by CatalogChangeService,
+ * which every product, stock and category change already goes through. Dropping an id whose
+ * load is still running waits for the load and then drops its result, so a load that read the
+ * old state cannot outlive the change.
+ *
+ * Cached DTOs are shared between requests; their stock maps are read-only and callers must not
+ * modify them. Hits, misses and evictions are published as cache.* metrics tagged
+ * cache=product.details, and load times as product.details.load.
+ */
+@Service
+public class ProductDetailCache {
+
+    private final Cache<Long, ProductDTO> details;
+    private final TransactionTemplate readOnly;
+    private final Timer loads;
+
+    @Autowired
+    public ProductDetailCache(PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                              @Value("${products.details.cache-size:64MB}") DataSize cacheSize) {
+        this.details = Caffeine.newBuilder()
+                .maximumWeight(cacheSize.toBytes())
+                .weigher(ProductDetailCache::weigh)
+                .recordStats()
+                .build();
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        CaffeineCacheMetrics.monitor(meterRegistry, details, "product.details");
+        this.loads = Timer.builder("product.details.load")
+                .description("Time spent loading product details on cache misses")
+                .register(meterRegistry);
+    }
+
+    /** The product's DTO, loaded with loader on a miss; null when the loader finds no product. */
+    public ProductDTO get(Long productId, Function<Long, ProductDTO> loader) {
+        return details.get(productId, id -> loads.record(() -> readOnly.execute(status -> loader.apply(id))));
+    }
+
+    // Invalidation hooks, applied when the surrounding transaction commits
+
+    public void invalidate(Collection<Long> productIds) {
+        List<Long> ids = List.copyOf(productIds);
+        AfterCommit.run(() -> details.invalidateAll(ids));
+    }
+
+    // Rough heap bytes: the DTO and its boxed fields, two bytes a character, and each stock entry
+    private static int weigh(Long productId, ProductDTO dto) {
+        return 160
+                + 2 * (length(dto.getName()) + length(dto.getDescription()) + length(dto.getSku()) + length(dto.getCategoryName()))
+                + 80 * dto.getStockQuantities().size();
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+}
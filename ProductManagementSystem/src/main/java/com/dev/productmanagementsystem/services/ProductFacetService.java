@@ -0,0 +1,409 @@
+package com.dev.productmanagementsystem.services;
+
+import com.dev.productmanagementsystem.dto.ProductFacetsDTO;
+import com.dev.productmanagementsystem.entities.Product;
+import com.dev.productmanagementsystem.exceptions.InvalidOperationException;
+import com.dev.productmanagementsystem.repositories.ProductRepository;
+import com.dev.productmanagementsystem.utils.AfterCommit;
+import com.dev.productmanagementsystem.utils.IntBitmap;
+import com.dev.productmanagementsystem.utils.LongIntMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Faceted product browsing from memory. Every product gets a dense ordinal, and each facet value
+ * (category, price band, warehouse holding stock) keeps a compressed {@link IntBitmap} of the
+ * ordinals that have it. A query intersects the bitmaps of its filters, pages the result, and
+ * counts every facet against the intersection of the other filters, so picking a value never
+ * hides its siblings.
+ *
+ * The bitmaps are loaded at startup with two projection queries per id range. The product and
+ * stock write paths report the products they changed; after commit those rows are read again and
+ * only their bits are moved. Category counts are kept per category and rolled up through
+ * {@link CategoryTreeService} at query time, so moving a category needs no update here.
+ */
+@Service
+public class ProductFacetService implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductFacetService.class);
+
+    private static final int LOAD_CHUNK = 50000;
+    private static final int REFRESH_BATCH = 1000;
+    // Most text matches a faceted query considers
+    private static final int TEXT_LIMIT = 10000;
+
+    // Filter positions, also the order in which they are intersected
+    private static final int CATEGORY = 0;
+    private static final int PRICE = 1;
+    private static final int WAREHOUSE = 2;
+    private static final int STOCK = 3;
+    private static final int TEXT = 4;
+
+    private final ProductRepository productRepository;
+    private final CategoryTreeService categoryTreeService;
+    private final ProductSearchService productSearchService;
+    // Lower bounds of the price bands after the first one
+    private final BigDecimal[] priceEdges;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Everything below is guarded by lock. Ordinals are not reused, so they follow product id order
+    private final LongIntMap ordinals = new LongIntMap();
+    private long[] productIds = new long[1024];
+    private int[] categorySlots = new int[1024];
+    private byte[] priceBuckets = new byte[1024];
+    private int nextOrdinal;
+    private final IntBitmap all = new IntBitmap();
+    // Categories get dense slots so a count is an array increment
+    private final LongIntMap categorySlotsById = new LongIntMap();
+    private final List<Long> categoryIds = new ArrayList<>();
+    private final List<IntBitmap> byCategory = new ArrayList<>();
+    private final IntBitmap[] byPriceBucket;
+    private final Map<Long, IntBitmap> byWarehouse = new HashMap<>();
+    private final IntBitmap inStock = new IntBitmap();
+
+    // Serializes refreshes, so each one reads the database after the previous one was applied
+    private final Object refreshLock = new Object();
+
+    @Autowired
+    public ProductFacetService(ProductRepository productRepository,
+                               CategoryTreeService categoryTreeService,
+                               ProductSearchService productSearchService,
+                               @Value("${products.facets.price-buckets:10,25,50,100,250,500,1000}") BigDecimal[] priceEdges) {
+        this.productRepository = productRepository;
+        this.categoryTreeService = categoryTreeService;
+        this.productSearchService = productSearchService;
+        this.priceEdges = priceEdges.clone();
+        Arrays.sort(this.priceEdges);
+        if (this.priceEdges.length > Byte.MAX_VALUE - 1) {
+            throw new IllegalArgumentException("At most " + (Byte.MAX_VALUE - 1) + " price bucket edges are supported");
+        }
+        this.byPriceBucket = new IntBitmap[this.priceEdges.length + 1];
+        for (int i = 0; i < byPriceBucket.length; i++) {
+            byPriceBucket[i] = new IntBitmap();
+        }
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        long start = System.nanoTime();
+        List<Object[]> range = productRepository.findIdRange();
+        if (range.isEmpty() || range.get(0)[0] == null) {
+            logger.info("Product facets loaded with 0 products");
+            return;
+        }
+        long minId = (Long) range.get(0)[0];
+        long maxId = (Long) range.get(0)[1];
+        for (long from = minId; from <= maxId; from += LOAD_CHUNK) {
+            long to = Math.min(maxId, from + LOAD_CHUNK - 1);
+            List<Object[]> fields = productRepository.findFacetFieldsByIdBetween(from, to);
+            List<Object[]> stock = productRepository.findStockedWarehousesByIdBetween(from, to);
+            lock.writeLock().lock();
+            try {
+                for (Object[] row : fields) {
+                    put((Long) row[0], (Long) row[1], (BigDecimal) row[2]);
+                }
+                for (Object[] row : stock) {
+                    addStock((Long) row[0], (Long) row[1]);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        logger.info("Product facets loaded with {} products in {} ms",
+                ordinals.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public int getPriceBucketCount() {
+        return byPriceBucket.length;
+    }
+
+    /**
+     * Products matching every given filter, one page of them, with the facet counts. Null filters
+     * are not applied; categoryId includes every category below it. With a text query the page is
+     * ordered by relevance, otherwise by product id.
+     */
+    public Result query(Long categoryId, Integer priceBucket, Long warehouseId, boolean inStockOnly,
+                        String text, int page, int size) {
+        if (priceBucket != null && (priceBucket < 0 || priceBucket >= byPriceBucket.length)) {
+            throw new InvalidOperationException("Price bucket must be between 0 and " + (byPriceBucket.length - 1));
+        }
+        // Outside the lock: these may go to the database
+        long[] subtree = null;
+        if (categoryId != null) {
+            long[] descendants = categoryTreeService.descendantIds(categoryId);
+            subtree = Arrays.copyOf(descendants, descendants.length + 1);
+            subtree[descendants.length] = categoryId;
+        }
+        List<Long> ranked = null;
+        if (text != null && !text.isBlank()) {
+            ranked = productSearchService.search(text, TEXT_LIMIT);
+            if (ranked == null) {
+                ranked = new ArrayList<>();
+                for (Product product : productSearchService.findProducts(text, TEXT_LIMIT)) {
+                    ranked.add(product.getId());
+                }
+            }
+        }
+
+        Result result = new Result();
+        ProductFacetsDTO facets = result.facets;
+        facets.setPage(page);
+        facets.setSize(size);
+        int[] categoryCounts;
+        Long[] slotCategoryIds;
+        lock.readLock().lock();
+        try {
+            IntBitmap[] filters = new IntBitmap[5];
+            if (subtree != null) {
+                IntBitmap matching = new IntBitmap();
+                for (long id : subtree) {
+                    int slot = categorySlotsById.get(id);
+                    if (slot >= 0) {
+                        matching.or(byCategory.get(slot));
+                    }
+                }
+                filters[CATEGORY] = matching;
+            }
+            if (priceBucket != null) {
+                filters[PRICE] = byPriceBucket[priceBucket];
+            }
+            if (warehouseId != null) {
+                filters[WAREHOUSE] = byWarehouse.getOrDefault(warehouseId, new IntBitmap());
+            }
+            if (inStockOnly) {
+                filters[STOCK] = inStock;
+            }
+            int[] rankedOrdinals = null;
+            if (ranked != null) {
+                IntBitmap matching = new IntBitmap();
+                rankedOrdinals = new int[ranked.size()];
+                int n = 0;
+                for (Long id : ranked) {
+                    int ordinal = ordinals.get(id);
+                    if (ordinal >= 0 && all.contains(ordinal)) {
+                        matching.add(ordinal);
+                        rankedOrdinals[n++] = ordinal;
+                    }
+                }
+                rankedOrdinals = Arrays.copyOf(rankedOrdinals, n);
+                filters[TEXT] = matching;
+            }
+
+            IntBitmap matches = intersect(filters, -1);
+            facets.setTotal(matches.cardinality());
+            long offset = (long) page * size;
+            int[] pageOrdinals;
+            if (rankedOrdinals != null) {
+                pageOrdinals = new int[size];
+                int n = 0;
+                for (int i = 0, seen = 0; i < rankedOrdinals.length && n < size; i++) {
+                    if (matches.contains(rankedOrdinals[i]) && seen++ >= offset) {
+                        pageOrdinals[n++] = rankedOrdinals[i];
+                    }
+                }
+                pageOrdinals = Arrays.copyOf(pageOrdinals, n);
+            } else {
+                pageOrdinals = matches.page(offset, size);
+            }
+            for (int ordinal : pageOrdinals) {
+                result.productIds.add(productIds[ordinal]);
+            }
+
+            // Each facet counted over the other filters
+            categoryCounts = new int[categoryIds.size()];
+            IntBitmap base = intersect(filters, CATEGORY);
+            if (base == all) {
+                for (int slot = 0; slot < categoryCounts.length; slot++) {
+                    categoryCounts[slot] = (int) byCategory.get(slot).cardinality();
+                }
+            } else {
+                int[] counts = categoryCounts;
+                int[] slots = categorySlots;
+                base.forEach(ordinal -> {
+                    if (slots[ordinal] >= 0) {
+                        counts[slots[ordinal]]++;
+                    }
+                });
+            }
+            slotCategoryIds = categoryIds.toArray(new Long[0]);
+
+            base = intersect(filters, PRICE);
+            for (int bucket = 0; bucket < byPriceBucket.length; bucket++) {
+                facets.getPriceBuckets().add(new ProductFacetsDTO.PriceBucket(bucket,
+                        bucket == 0 ? null : priceEdges[bucket - 1],
+                        bucket == priceEdges.length ? null : priceEdges[bucket],
+                        count(base, byPriceBucket[bucket])));
+            }
+
+            base = intersect(filters, WAREHOUSE);
+            Map<Long, Long> warehouseCounts = new TreeMap<>();
+            for (Map.Entry<Long, IntBitmap> warehouse : byWarehouse.entrySet()) {
+                long count = count(base, warehouse.getValue());
+                if (count > 0) {
+                    warehouseCounts.put(warehouse.getKey(), count);
+                }
+            }
+            facets.setWarehouseCounts(warehouseCounts);
+
+            facets.setInStockCount(count(intersect(filters, STOCK), inStock));
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        // Roll category counts up to every ancestor, outside the lock since the tree may reload
+        Map<Long, Long> rolledUp = new TreeMap<>();
+        for (int slot = 0; slot < categoryCounts.length; slot++) {
+            if (categoryCounts[slot] == 0) {
+                continue;
+            }
+            long count = categoryCounts[slot];
+            Long id = slotCategoryIds[slot];
+            rolledUp.merge(id, count, Long::sum);
+            for (long ancestorId : categoryTreeService.ancestorIds(id)) {
+                rolledUp.merge(ancestorId, count, Long::sum);
+            }
+        }
+        facets.setCategoryCounts(rolledUp);
+        return result;
+    }
+
+    // Change hooks; the products are read again once the surrounding transaction has committed
+    public void productChanged(Long productId) {
+        productsChanged(List.of(productId));
+    }
+
+    public void productsChanged(Collection<Long> changedIds) {
+        List<Long> ids = new ArrayList<>(changedIds);
+        AfterCommit.run(() -> refresh(ids));
+    }
+
+    private void refresh(List<Long> ids) {
+        synchronized (refreshLock) {
+            for (int from = 0; from < ids.size(); from += REFRESH_BATCH) {
+                List<Long> batch = ids.subList(from, Math.min(ids.size(), from + REFRESH_BATCH));
+                List<Object[]> fields = productRepository.findFacetFieldsByIdIn(batch);
+                List<Object[]> stock = productRepository.findStockedWarehousesByIdIn(batch);
+                lock.writeLock().lock();
+                try {
+                    for (Long id : batch) {
+                        remove(id);
+                    }
+                    for (Object[] row : fields) {
+                        put((Long) row[0], (Long) row[1], (BigDecimal) row[2]);
+                    }
+                    for (Object[] row : stock) {
+                        addStock((Long) row[0], (Long) row[1]);
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        }
+    }
+
+    // Bitmap maintenance; callers hold the write lock
+
+    private void put(long productId, Long categoryId, BigDecimal price) {
+        int ordinal = ordinals.get(productId);
+        if (ordinal < 0) {
+            ordinal = nextOrdinal++;
+            if (ordinal == productIds.length) {
+                productIds = Arrays.copyOf(productIds, ordinal * 2);
+                categorySlots = Arrays.copyOf(categorySlots, ordinal * 2);
+                priceBuckets = Arrays.copyOf(priceBuckets, ordinal * 2);
+            }
+            ordinals.put(productId, ordinal);
+            productIds[ordinal] = productId;
+        }
+        all.add(ordinal);
+        categorySlots[ordinal] = -1;
+        if (categoryId != null) {
+            int slot = categorySlotsById.get(categoryId);
+            if (slot < 0) {
+                slot = categoryIds.size();
+                categorySlotsById.put(categoryId, slot);
+                categoryIds.add(categoryId);
+                byCategory.add(new IntBitmap());
+            }
+            categorySlots[ordinal] = slot;
+            byCategory.get(slot).add(ordinal);
+        }
+        priceBuckets[ordinal] = -1;
+        if (price != null) {
+            int bucket = Arrays.binarySearch(priceEdges, price);
+            bucket = bucket >= 0 ? bucket + 1 : -bucket - 1;
+            priceBuckets[ordinal] = (byte) bucket;
+            byPriceBucket[bucket].add(ordinal);
+        }
+    }
+
+    private void addStock(long productId, Long warehouseId) {
+        int ordinal = ordinals.get(productId);
+        if (ordinal >= 0 && warehouseId != null) {
+            byWarehouse.computeIfAbsent(warehouseId, id -> new IntBitmap()).add(ordinal);
+            inStock.add(ordinal);
+        }
+    }
+
+    // Clears every bit of the product; its ordinal is kept for when it comes back in the same refresh
+    private void remove(long productId) {
+        int ordinal = ordinals.get(productId);
+        if (ordinal < 0) {
+            return;
+        }
+        all.remove(ordinal);
+        if (categorySlots[ordinal] >= 0) {
+            byCategory.get(categorySlots[ordinal]).remove(ordinal);
+            categorySlots[ordinal] = -1;
+        }
+        if (priceBuckets[ordinal] >= 0) {
+            byPriceBucket[priceBuckets[ordinal]].remove(ordinal);
+            priceBuckets[ordinal] = -1;
+        }
+        if (inStock.remove(ordinal)) {
+            // Warehouses are few, so checking each beats keeping a per-product list
+            for (IntBitmap warehouse : byWarehouse.values()) {
+                warehouse.remove(ordinal);
+            }
+        }
+    }
+
+    /** The intersection of every filter except skip; all products when there is none. */
+    private IntBitmap intersect(IntBitmap[] filters, int skip) {
+        IntBitmap result = null;
+        for (int i = 0; i < filters.length; i++) {
+            if (i == skip || filters[i] == null) {
+                continue;
+            }
+            result = result == null ? filters[i] : IntBitmap.and(result, filters[i]);
+        }
+        return result == null ? all : result;
+    }
+
+    private long count(IntBitmap base, IntBitmap facet) {
+        return base == all ? facet.cardinality() : IntBitmap.andCardinality(base, facet);
+    }
+
+    /** A page of product ids, in result order, and the facet counts; the caller fills in the products. */
+    public static class Result {
+        private final List<Long> productIds = new ArrayList<>();
+        private final ProductFacetsDTO facets = new ProductFacetsDTO();
+
+        public List<Long> getProductIds() { return productIds; }
+        public ProductFacetsDTO getFacets() { return facets; }
+    }
+}
@@ -0,0 +1,71 @@
+package com.dev.productmanagementsystem.services;
+
+import com.dev.productmanagementsystem.dto.ProductImportResultDTO;
+import com.dev.productmanagementsystem.enums.ProductImportFormat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Runs a product import from the command line and exits:
+ * {@code java -jar app.jar --spring.main.web-application-type=none --import-products=catalog.csv [--import-format=CSV|JSON_LINES]}.
+ * The format defaults to JSON lines for .jsonl and .ndjson files and CSV otherwise. The exit code is 0
+ * when every line was imported, 2 when some were rejected and 1 when the import failed.
+ */
+@Component
+public class ProductImportRunner implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductImportRunner.class);
+
+    static final String FILE_OPTION = "import-products";
+    static final String FORMAT_OPTION = "import-format";
+
+    private final ProductImportService productImportService;
+    private final ConfigurableApplicationContext context;
+
+    @Autowired
+    public ProductImportRunner(ProductImportService productImportService, ConfigurableApplicationContext context) {
+        this.productImportService = productImportService;
+        this.context = context;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        List<String> files = args.getOptionValues(FILE_OPTION);
+        if (files == null || files.isEmpty()) {
+            return;
+        }
+        int exitCode;
+        try {
+            Path file = Path.of(files.get(0));
+            ProductImportResultDTO result = productImportService.importProducts(file, formatOf(args, file));
+            logger.info("Product import of {} finished: {} created, {} updated, {} duplicates, {} rejected; error report {}",
+                    file, result.getProductsCreated(), result.getProductsUpdated(), result.getDuplicatesSkipped(),
+                    result.getRejected(), productImportService.getErrorReport(result.getErrorReport()));
+            exitCode = result.getRejected() == 0 ? 0 : 2;
+        } catch (Exception e) {
+            logger.error("Product import failed", e);
+            exitCode = 1;
+        }
+        int code = exitCode;
+        System.exit(SpringApplication.exit(context, () -> code));
+    }
+
+    private static ProductImportFormat formatOf(ApplicationArguments args, Path file) {
+        List<String> formats = args.getOptionValues(FORMAT_OPTION);
+        if (formats != null && !formats.isEmpty()) {
+            return ProductImportFormat.valueOf(formats.get(0).trim().toUpperCase(Locale.ROOT));
+        }
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        return name.endsWith(".jsonl") || name.endsWith(".ndjson") ? ProductImportFormat.JSON_LINES : ProductImportFormat.CSV;
+    }
+}
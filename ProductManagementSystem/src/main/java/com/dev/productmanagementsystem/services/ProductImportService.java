@@ -0,0 +1,626 @@
+package com.dev.productmanagementsystem.services;
+
+import com.dev.productmanagementsystem.dto.ProductImportResultDTO;
+import com.dev.productmanagementsystem.entities.Product;
+import com.dev.productmanagementsystem.enums.ProductImportFormat;
+import com.dev.productmanagementsystem.exceptions.ResourceNotFoundException;
+import com.dev.productmanagementsystem.repositories.CategoryRepository;
+import com.dev.productmanagementsystem.repositories.ProductRepository;
+import com.dev.productmanagementsystem.repositories.WarehouseRepository;
+import com.dev.productmanagementsystem.utils.Csv;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Bulk product import from CSV or JSON lines files, creating new SKUs and updating existing ones.
+ *
+ * The file is streamed in chunks of {@link #BATCH_SIZE} lines. Categories, warehouses and the SKUs
+ * already in the catalog are loaded once per import, so a line is resolved without queries. Each
+ * chunk is parsed and validated in parallel on a fork-join pool, checked for SKUs repeated earlier
+ * in the file, and written with JDBC batches in one transaction; the in-memory product indexes are
+ * told about the chunk once it commits. Rejected lines go to an error report with their reason.
+ *
+ * A line describes the whole product: an empty description, price or category clears it. Stock is
+ * only set for the warehouses the line names.
+ */
+@Service
+public class ProductImportService implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductImportService.class);
+
+    static final int BATCH_SIZE = 1000;
+
+    // Lines one validation task handles without splitting further
+    private static final int VALIDATION_SPLIT = 128;
+
+    // Columns are VARCHAR(255) and price is DECIMAL(10, 2)
+    private static final int MAX_TEXT_LENGTH = 255;
+    private static final BigDecimal MAX_PRICE = new BigDecimal("99999999.99");
+
+    private static final String INSERT_PRODUCT_SQL =
+            "INSERT INTO products (name, description, sku, price, category_id, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_PRODUCT_SQL =
+            "UPDATE products SET name = ?, description = ?, price = ?, category_id = ?, updated_at = ? WHERE id = ?";
+    private static final String DELETE_STOCK_SQL = "DELETE FROM product_stock WHERE product_id = ? AND warehouse_id = ?";
+    private static final String INSERT_STOCK_SQL = "INSERT INTO product_stock (product_id, warehouse_id, quantity) VALUES (?, ?, ?)";
+
+    private static final String REPORT_PREFIX = "product-import-";
+    private static final String REPORT_HEADER = "line,reason,sku,detail";
+
+    private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+    private final WarehouseRepository warehouseRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final ProductSearchService productSearchService;
+    private final SkuLookupService skuLookupService;
+    private final ProductFacetService productFacetService;
+    private final PriceIndexService priceIndexService;
+    private final CatalogChangeService catalogChangeService;
+    private final ProductPriceService productPriceService;
+    private final ForkJoinPool validationPool;
+    private final Path reportDirectory;
+
+    @Autowired
+    public ProductImportService(ProductRepository productRepository, CategoryRepository categoryRepository,
+                                WarehouseRepository warehouseRepository, JdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager, ObjectMapper objectMapper,
+                                ProductSearchService productSearchService, SkuLookupService skuLookupService,
+                                ProductFacetService productFacetService, PriceIndexService priceIndexService,
+                                CatalogChangeService catalogChangeService, ProductPriceService productPriceService,
+                                @Value("${products.import.validation-threads:0}") int validationThreads,
+                                @Value("${products.import.report-dir:${java.io.tmpdir}/product-imports}") String reportDirectory) {
+        this.productRepository = productRepository;
+        this.categoryRepository = categoryRepository;
+        this.warehouseRepository = warehouseRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.productSearchService = productSearchService;
+        this.skuLookupService = skuLookupService;
+        this.productFacetService = productFacetService;
+        this.priceIndexService = priceIndexService;
+        this.catalogChangeService = catalogChangeService;
+        this.productPriceService = productPriceService;
+        this.validationPool = new ForkJoinPool(validationThreads > 0 ? validationThreads : Runtime.getRuntime().availableProcessors());
+        this.reportDirectory = Path.of(reportDirectory);
+    }
+
+    @Override
+    public void destroy() {
+        validationPool.shutdownNow();
+    }
+
+    public ProductImportResultDTO importProducts(Path file, ProductImportFormat format) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return importProducts(reader, format);
+        }
+    }
+
+    public ProductImportResultDTO importProducts(InputStream file, ProductImportFormat format) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(file, StandardCharsets.UTF_8))) {
+            return importProducts(reader, format);
+        }
+    }
+
+    // Returns a previously written error report by the name given in the import result
+    public Path getErrorReport(String name) {
+        if (name == null || !name.matches(REPORT_PREFIX + "[0-9a-zA-Z_-]+\\.csv")) {
+            throw new IllegalArgumentException("Invalid report name: " + name);
+        }
+        Path report = reportDirectory.resolve(name);
+        if (!Files.isRegularFile(report)) {
+            throw new ResourceNotFoundException("Error report not found: " + name);
+        }
+        return report;
+    }
+
+    private ProductImportResultDTO importProducts(BufferedReader reader, ProductImportFormat format) throws IOException {
+        Files.createDirectories(reportDirectory);
+        Path report = Files.createTempFile(reportDirectory, REPORT_PREFIX, ".csv");
+        try (BufferedWriter writer = Files.newBufferedWriter(report, StandardCharsets.UTF_8)) {
+            ProductImportResultDTO result = importProducts(reader, format, writer);
+            result.setErrorReport(report.getFileName().toString());
+            return result;
+        }
+    }
+
+    public ProductImportResultDTO importProducts(BufferedReader reader, ProductImportFormat format, Writer errorReport) throws IOException {
+        if (format == null) {
+            throw new IllegalArgumentException("Import format cannot be null");
+        }
+        long start = System.nanoTime();
+
+        ImportRun run = new ImportRun(loadReferences(), errorReport);
+        errorReport.write(REPORT_HEADER);
+        errorReport.write('\n');
+
+        List<SourceLine> chunk = new ArrayList<>(BATCH_SIZE);
+        String line;
+        long lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank() || (lineNumber == 1 && format == ProductImportFormat.CSV && isHeader(line))) {
+                continue;
+            }
+            run.linesRead++;
+            chunk.add(new SourceLine(lineNumber, line));
+            if (chunk.size() == BATCH_SIZE) {
+                processChunk(chunk, format, run);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            processChunk(chunk, format, run);
+        }
+
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        logger.info("Imported products: {} lines, {} created, {} updated, {} duplicates, {} rejected in {} ms",
+                run.linesRead, run.created, run.updated, run.duplicatesSkipped, run.rejected, elapsedMillis);
+        ProductImportResultDTO result = run.toResult();
+        result.setElapsedMillis(elapsedMillis);
+        return result;
+    }
+
+    private References loadReferences() {
+        References references = new References();
+        for (Object[] row : categoryRepository.findAllIdsAndNames()) {
+            references.categories.add((Long) row[0], (String) row[1]);
+        }
+        for (Object[] row : warehouseRepository.findAllIdsAndNames()) {
+            references.warehouses.add((Long) row[0], (String) row[1]);
+        }
+        for (Object[] row : productRepository.findAllSkusAndIds()) {
+            references.productIdsBySku.put((String) row[0], (Long) row[1]);
+        }
+        return references;
+    }
+
+    private void processChunk(List<SourceLine> chunk, ProductImportFormat format, ImportRun run) throws IOException {
+        ImportLine[] lines = new ImportLine[chunk.size()];
+        validationPool.invoke(new ValidationTask(chunk, lines, format, run.references, 0, chunk.size()));
+
+        // Sequential pass in file order, so the first valid line of a SKU is the one kept
+        List<ImportLine> inserts = new ArrayList<>();
+        List<ImportLine> updates = new ArrayList<>();
+        for (ImportLine entry : lines) {
+            if (entry.reason != null) {
+                run.report(entry.lineNumber, entry.reason, entry.sku, entry.detail);
+                continue;
+            }
+            if (!run.seenSkus.add(entry.sku)) {
+                run.duplicatesSkipped++;
+                run.report(entry.lineNumber, "DUPLICATE_SKU", entry.sku, "SKU already imported from an earlier line");
+                continue;
+            }
+            Long productId = run.references.productIdsBySku.get(entry.sku);
+            if (productId != null) {
+                entry.productId = productId;
+                updates.add(entry);
+            } else {
+                inserts.add(entry);
+            }
+        }
+        if (inserts.isEmpty() && updates.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(tx -> write(inserts, updates));
+        } catch (DataAccessException e) {
+            // A SKU created concurrently or a constraint the validation does not know about
+            String detail = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+            logger.warn("Product import chunk at line {} failed: {}", chunk.get(0).lineNumber, detail);
+            for (ImportLine entry : inserts) {
+                run.seenSkus.remove(entry.sku);
+                run.report(entry.lineNumber, "FAILED", entry.sku, detail);
+            }
+            for (ImportLine entry : updates) {
+                run.seenSkus.remove(entry.sku);
+                run.report(entry.lineNumber, "FAILED", entry.sku, detail);
+            }
+            return;
+        }
+        for (ImportLine entry : inserts) {
+            run.references.productIdsBySku.put(entry.sku, entry.productId);
+        }
+        run.created += inserts.size();
+        run.updated += updates.size();
+    }
+
+    private void write(List<ImportLine> inserts, List<ImportLine> updates) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> insertArgs = new ArrayList<>(inserts.size());
+        for (ImportLine entry : inserts) {
+            insertArgs.add(new Object[]{entry.name, entry.description, entry.sku, entry.price, entry.categoryId, now, now});
+        }
+        List<Object[]> updateArgs = new ArrayList<>(updates.size());
+        for (ImportLine entry : updates) {
+            updateArgs.add(new Object[]{entry.name, entry.description, entry.price, entry.categoryId, now, entry.productId});
+        }
+        jdbcTemplate.batchUpdate(INSERT_PRODUCT_SQL, insertArgs);
+        jdbcTemplate.batchUpdate(UPDATE_PRODUCT_SQL, updateArgs);
+
+        // Batch inserts do not return generated ids, so they are looked up by SKU
+        if (!inserts.isEmpty()) {
+            Map<String, ImportLine> bySku = new HashMap<>();
+            for (ImportLine entry : inserts) {
+                bySku.put(entry.sku, entry);
+            }
+            for (Object[] row : productRepository.findSkusAndIdsBySkuIn(bySku.keySet())) {
+                bySku.get((String) row[0]).productId = (Long) row[1];
+            }
+        }
+
+        List<Object[]> stockDeletes = new ArrayList<>();
+        List<Object[]> stockInserts = new ArrayList<>();
+        List<Long> productIds = new ArrayList<>(inserts.size() + updates.size());
+        for (List<ImportLine> group : List.of(inserts, updates)) {
+            for (ImportLine entry : group) {
+                for (Map.Entry<Long, Integer> stock : entry.stock.entrySet()) {
+                    if (group == updates) {
+                        stockDeletes.add(new Object[]{entry.productId, stock.getKey()});
+                    }
+                    stockInserts.add(new Object[]{entry.productId, stock.getKey(), stock.getValue()});
+                }
+                productIds.add(entry.productId);
+            }
+        }
+        jdbcTemplate.batchUpdate(DELETE_STOCK_SQL, stockDeletes);
+        jdbcTemplate.batchUpdate(INSERT_STOCK_SQL, stockInserts);
+
+        // Index hooks; all but the change sequence apply after commit
+        catalogChangeService.productsChanged(productIds);
+        productFacetService.productsChanged(productIds);
+        Map<Long, BigDecimal> prices = new HashMap<>();
+        for (List<ImportLine> group : List.of(inserts, updates)) {
+            for (ImportLine entry : group) {
+                prices.put(entry.productId, entry.price);
+                Product product = new Product(entry.name, entry.description, entry.price, null);
+                product.setId(entry.productId);
+                product.setSku(entry.sku);
+                productSearchService.productSaved(product);
+                skuLookupService.productSaved(product, entry.sku);
+                priceIndexService.productSaved(product);
+            }
+        }
+        productPriceService.pricesChanged(prices);
+    }
+
+    // Parses and validates one line; never throws, a rejected line carries its reason instead
+    private ImportLine validate(SourceLine source, ProductImportFormat format, References references) {
+        ImportLine entry = new ImportLine(source.lineNumber);
+        try {
+            if (format == ProductImportFormat.CSV) {
+                parseCsv(source.text, entry, references);
+            } else {
+                parseJson(source.text, entry, references);
+            }
+            checkText(entry.sku, "SKU", true);
+            checkText(entry.name, "Name", true);
+            checkText(entry.description, "Description", false);
+            if (entry.price != null) {
+                if (entry.price.signum() < 0 || entry.price.compareTo(MAX_PRICE) > 0) {
+                    throw new Rejection("INVALID", "Price must be between 0 and " + MAX_PRICE);
+                }
+                try {
+                    entry.price = entry.price.setScale(2, RoundingMode.UNNECESSARY);
+                } catch (ArithmeticException e) {
+                    throw new Rejection("INVALID", "Price has more than 2 decimals");
+                }
+            }
+        } catch (Rejection e) {
+            entry.reason = e.reason;
+            entry.detail = e.getMessage();
+        } catch (IllegalArgumentException | JsonProcessingException e) {
+            entry.reason = "UNPARSEABLE";
+            entry.detail = e.getMessage();
+        }
+        return entry;
+    }
+
+    // CSV columns: sku, name, description, price[, category[, stock]] where stock is "warehouse:quantity;..."
+    private static void parseCsv(String line, ImportLine entry, References references) throws Rejection {
+        List<String> fields = Csv.split(line);
+        if (fields.size() < 4) {
+            throw new IllegalArgumentException("Expected at least 4 columns but found " + fields.size());
+        }
+        entry.sku = trimToNull(fields.get(0));
+        entry.name = trimToNull(fields.get(1));
+        entry.description = trimToNull(fields.get(2));
+        entry.price = parsePrice(trimToNull(fields.get(3)));
+        entry.categoryId = fields.size() > 4 ? resolveCategory(trimToNull(fields.get(4)), references) : null;
+        if (fields.size() > 5 && !fields.get(5).isBlank()) {
+            for (String pair : fields.get(5).split(";")) {
+                if (pair.isBlank()) {
+                    continue;
+                }
+                int colon = pair.lastIndexOf(':');
+                if (colon < 0) {
+                    throw new IllegalArgumentException("Stock must be warehouse:quantity pairs separated by ';'");
+                }
+                putStock(entry, pair.substring(0, colon).trim(), parseQuantity(pair.substring(colon + 1).trim()), references);
+            }
+        }
+    }
+
+    // JSON lines: {"sku": ..., "name": ..., "description": ..., "price": ..., "category": id or name, "stock": {"warehouse": quantity}}
+    private void parseJson(String line, ImportLine entry, References references) throws Rejection, JsonProcessingException {
+        JsonNode node = objectMapper.readTree(line);
+        if (node == null || !node.isObject()) {
+            throw new IllegalArgumentException("Expected a JSON object");
+        }
+        entry.sku = trimToNull(text(node.get("sku")));
+        entry.name = trimToNull(text(node.get("name")));
+        entry.description = trimToNull(text(node.get("description")));
+        JsonNode price = node.get("price");
+        entry.price = price != null && price.isNumber() ? price.decimalValue() : parsePrice(trimToNull(text(price)));
+        entry.categoryId = resolveCategory(trimToNull(text(node.get("category"))), references);
+        JsonNode stock = node.get("stock");
+        if (stock != null && !stock.isNull()) {
+            if (!stock.isObject()) {
+                throw new IllegalArgumentException("Stock must be an object of warehouse to quantity");
+            }
+            Iterator<Map.Entry<String, JsonNode>> fields = stock.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                JsonNode quantity = field.getValue();
+                putStock(entry, field.getKey().trim(),
+                        quantity.isIntegralNumber() ? quantity.asInt() : parseQuantity(text(quantity)), references);
+            }
+        }
+    }
+
+    private static String text(JsonNode node) {
+        return node == null || node.isNull() ? null : node.asText();
+    }
+
+    private static BigDecimal parsePrice(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return new BigDecimal(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid price: " + value);
+        }
+    }
+
+    private static int parseQuantity(String value) throws Rejection {
+        int quantity;
+        try {
+            quantity = Integer.parseInt(value == null ? "" : value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid stock quantity: " + value);
+        }
+        if (quantity < 0) {
+            throw new Rejection("INVALID", "Stock quantity cannot be negative");
+        }
+        return quantity;
+    }
+
+    private static Long resolveCategory(String category, References references) throws Rejection {
+        if (category == null) {
+            return null;
+        }
+        long categoryId = references.categories.resolve(category);
+        if (categoryId == NameIndex.AMBIGUOUS) {
+            throw new Rejection("UNKNOWN_CATEGORY", "Several categories are named " + category + "; use the id");
+        }
+        if (categoryId == NameIndex.UNKNOWN) {
+            throw new Rejection("UNKNOWN_CATEGORY", "No category " + category);
+        }
+        return categoryId;
+    }
+
+    private static void putStock(ImportLine entry, String warehouse, int quantity, References references) throws Rejection {
+        long warehouseId = references.warehouses.resolve(warehouse);
+        if (warehouseId == NameIndex.AMBIGUOUS) {
+            throw new Rejection("UNKNOWN_WAREHOUSE", "Several warehouses are named " + warehouse + "; use the id");
+        }
+        if (warehouseId == NameIndex.UNKNOWN) {
+            throw new Rejection("UNKNOWN_WAREHOUSE", "No warehouse " + warehouse);
+        }
+        entry.stock.put(warehouseId, quantity);
+    }
+
+    private static void checkText(String value, String field, boolean required) throws Rejection {
+        if (value == null) {
+            if (required) {
+                throw new Rejection("INVALID", field + " is required");
+            }
+        } else if (value.length() > MAX_TEXT_LENGTH) {
+            throw new Rejection("INVALID", field + " is longer than " + MAX_TEXT_LENGTH + " characters");
+        }
+    }
+
+    private static String trimToNull(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    // A header line starts with the sku column name
+    private static boolean isHeader(String line) {
+        String first = line.startsWith("\"") ? line.substring(1) : line;
+        return first.regionMatches(true, 0, "sku", 0, 3);
+    }
+
+    // Validates lines [from, to) of a chunk, splitting until a task is small enough
+    private final class ValidationTask extends RecursiveAction {
+        private final List<SourceLine> sources;
+        private final ImportLine[] lines;
+        private final ProductImportFormat format;
+        private final References references;
+        private final int from;
+        private final int to;
+
+        ValidationTask(List<SourceLine> sources, ImportLine[] lines, ProductImportFormat format,
+                       References references, int from, int to) {
+            this.sources = sources;
+            this.lines = lines;
+            this.format = format;
+            this.references = references;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= VALIDATION_SPLIT) {
+                for (int i = from; i < to; i++) {
+                    lines[i] = validate(sources.get(i), format, references);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new ValidationTask(sources, lines, format, references, from, middle),
+                    new ValidationTask(sources, lines, format, references, middle, to));
+        }
+    }
+
+    private static final class SourceLine {
+        final long lineNumber;
+        final String text;
+
+        SourceLine(long lineNumber, String text) {
+            this.lineNumber = lineNumber;
+            this.text = text;
+        }
+    }
+
+    private static final class ImportLine {
+        final long lineNumber;
+        final Map<Long, Integer> stock = new LinkedHashMap<>();
+        String sku;
+        String name;
+        String description;
+        BigDecimal price;
+        Long categoryId;
+        Long productId;
+        String reason;
+        String detail;
+
+        ImportLine(long lineNumber) {
+            this.lineNumber = lineNumber;
+        }
+    }
+
+    // A line that parsed but cannot be imported
+    private static final class Rejection extends Exception {
+        final String reason;
+
+        Rejection(String reason, String detail) {
+            super(detail, null, false, false);
+            this.reason = reason;
+        }
+    }
+
+    // Categories or warehouses by id, or by case-insensitive name when the value is not a known id
+    private static final class NameIndex {
+        static final long UNKNOWN = -1;
+        static final long AMBIGUOUS = -2;
+
+        private final Set<Long> ids = new HashSet<>();
+        private final Map<String, Long> byName = new HashMap<>();
+
+        void add(Long id, String name) {
+            ids.add(id);
+            if (name != null) {
+                byName.merge(name.trim().toLowerCase(Locale.ROOT), id, (existing, added) -> AMBIGUOUS);
+            }
+        }
+
+        long resolve(String value) {
+            if (!value.isEmpty() && value.chars().allMatch(Character::isDigit) && value.length() < 19) {
+                long id = Long.parseLong(value);
+                if (ids.contains(id)) {
+                    return id;
+                }
+            }
+            return byName.getOrDefault(value.toLowerCase(Locale.ROOT), UNKNOWN);
+        }
+    }
+
+    // Read-only during validation; productIdsBySku gains the SKUs each chunk creates
+    private static final class References {
+        final NameIndex categories = new NameIndex();
+        final NameIndex warehouses = new NameIndex();
+        final Map<String, Long> productIdsBySku = new HashMap<>();
+    }
+
+    // Counters and the error report for one import
+    private static final class ImportRun {
+        final References references;
+        final Writer report;
+        final Set<String> seenSkus = new HashSet<>();
+        long linesRead;
+        long created;
+        long updated;
+        long duplicatesSkipped;
+        long rejected;
+
+        ImportRun(References references, Writer report) {
+            this.references = references;
+            this.report = report;
+        }
+
+        void report(long lineNumber, String reason, String sku, String detail) throws IOException {
+            if (!"DUPLICATE_SKU".equals(reason)) {
+                rejected++;
+            }
+            report.write(lineNumber + "," + reason + "," + Csv.field(sku) + "," + Csv.field(detail == null ? "" : detail) + "\n");
+        }
+
+        ProductImportResultDTO toResult() {
+            ProductImportResultDTO result = new ProductImportResultDTO();
+            result.setLinesRead(linesRead);
+            result.setProductsCreated(created);
+            result.setProductsUpdated(updated);
+            result.setDuplicatesSkipped(duplicatesSkipped);
+            result.setRejected(rejected);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,469 @@
+package com.dev.productmanagementsystem.services;
+
+import com.dev.productmanagementsystem.dto.ProductPriceDTO;
+import com.dev.productmanagementsystem.entities.ProductPrice;
+import com.dev.productmanagementsystem.exceptions.InvalidOperationException;
+import com.dev.productmanagementsystem.exceptions.ResourceNotFoundException;
+import com.dev.productmanagementsystem.repositories.ProductPriceRepository;
+import com.dev.productmanagementsystem.repositories.ProductRepository;
+import com.dev.productmanagementsystem.utils.AfterCommit;
+import com.dev.productmanagementsystem.utils.LongIntMap;
+import com.dev.productmanagementsystem.utils.Money;
+import com.dev.productmanagementsystem.utils.PriceTimeline;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * Price history, scheduled prices and the current price of every product.
+ *
+ * Every price a product takes is kept as a version in product_prices with the time it takes
+ * effect. Versions with a future time are scheduled: a background task applies the ones that have
+ * fallen due to products.price in batches, every {@code products.prices.apply-interval}. In memory
+ * each repriced product has a {@link PriceTimeline}, so the price at any time, past or scheduled,
+ * is a binary search, and a table of current prices lets orders be priced without reading the
+ * product. The current price follows products.price: it changes when a price is set or a
+ * scheduled one is applied, not when a scheduled time passes.
+ *
+ * History starts when this was introduced; a product's first recorded change also records the
+ * price it had before, as in effect since 1970.
+ */
+@Service
+public class ProductPriceService implements SmartInitializingSingleton, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductPriceService.class);
+
+    static final int BATCH_SIZE = 500;
+
+    private static final LocalDateTime HISTORY_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private static final String INSERT_PRICE_SQL =
+            "INSERT INTO product_prices (product_id, price, effective_from, applied, created_at) VALUES (?, ?, ?, ?, ?)";
+    private static final String UPDATE_PRODUCT_PRICE_SQL = "UPDATE products SET price = ?, updated_at = ? WHERE id = ?";
+
+    private final ProductPriceRepository productPriceRepository;
+    private final ProductRepository productRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CatalogChangeService catalogChangeService;
+    private final ProductFacetService productFacetService;
+    private final PriceIndexService priceIndexService;
+    private final SkuLookupService skuLookupService;
+    private final long applyIntervalMillis;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "price-scheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Product id -> slot in current and timelines; products never priced have no slot
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final LongIntMap slots = new LongIntMap();
+    private long[] current = new long[1024];
+    private PriceTimeline[] timelines = new PriceTimeline[1024];
+    private int slotCount;
+
+    @Autowired
+    public ProductPriceService(ProductPriceRepository productPriceRepository, ProductRepository productRepository,
+                               JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                               CatalogChangeService catalogChangeService, ProductFacetService productFacetService,
+                               PriceIndexService priceIndexService, SkuLookupService skuLookupService,
+                               @Value("${products.prices.apply-interval:10s}") Duration applyInterval) {
+        this.productPriceRepository = productPriceRepository;
+        this.productRepository = productRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.catalogChangeService = catalogChangeService;
+        this.productFacetService = productFacetService;
+        this.priceIndexService = priceIndexService;
+        this.skuLookupService = skuLookupService;
+        this.applyIntervalMillis = applyInterval.toMillis();
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        long start = System.nanoTime();
+        List<Object[]> prices = productRepository.findAllPricesAndIds();
+        List<Object[]> versions = productPriceRepository.findAllForIndex();
+        lock.writeLock().lock();
+        try {
+            for (Object[] row : prices) {
+                current[slotFor((Long) row[1])] = toCents((BigDecimal) row[0]);
+            }
+            // Versions come grouped by product and sorted by time
+            int from = 0;
+            while (from < versions.size()) {
+                Long productId = (Long) versions.get(from)[1];
+                int to = from;
+                while (to < versions.size() && productId.equals(versions.get(to)[1])) {
+                    to++;
+                }
+                int count = to - from;
+                long[] ids = new long[count];
+                long[] times = new long[count];
+                long[] cents = new long[count];
+                boolean[] applied = new boolean[count];
+                for (int i = 0; i < count; i++) {
+                    Object[] row = versions.get(from + i);
+                    ids[i] = (Long) row[0];
+                    cents[i] = toCents((BigDecimal) row[2]);
+                    times[i] = toMillis((LocalDateTime) row[3]);
+                    applied[i] = (Boolean) row[4];
+                }
+                int slot = slotFor(productId);
+                timelines[slot] = PriceTimeline.ofSorted(ids, times, cents, applied, count);
+                from = to;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Loaded current prices of {} products and {} price versions in {} ms",
+                prices.size(), versions.size(), (System.nanoTime() - start) / 1_000_000);
+        scheduler.scheduleWithFixedDelay(this::applyDuePricesQuietly, 0, applyIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+
+    /** The price products.price holds now, from memory; the fallback when the product is not known here. */
+    public BigDecimal currentPrice(Long productId, BigDecimal fallback) {
+        lock.readLock().lock();
+        try {
+            int slot = slots.get(productId);
+            return slot < 0 ? fallback : toPrice(current[slot]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The price in effect at a time, including scheduled prices for future times. Null when the
+     * product had no price then; a product never repriced since history began has its current price.
+     */
+    public BigDecimal priceAt(Long productId, LocalDateTime time) {
+        lock.readLock().lock();
+        try {
+            int slot = slots.get(productId);
+            if (slot < 0) {
+                return null;
+            }
+            PriceTimeline timeline = timelines[slot];
+            if (timeline == null) {
+                return toPrice(current[slot]);
+            }
+            int position = timeline.positionAt(toMillis(time));
+            return position < 0 ? null : toPrice(timeline.centsAt(position));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public List<ProductPriceDTO> getHistory(Long productId) {
+        return productPriceRepository.findByProductIdOrderByEffectiveFromAscIdAsc(productId).stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+    }
+
+    // Change hooks for prices set now; call inside the transaction that sets products.price
+
+    @Transactional
+    public void priceChanged(Long productId, BigDecimal price) {
+        Map<Long, BigDecimal> prices = new HashMap<>();
+        prices.put(productId, price);
+        pricesChanged(prices);
+    }
+
+    /** Records new prices (null for none) in effect from now; products whose price is unchanged are skipped. */
+    @Transactional
+    public void pricesChanged(Map<Long, BigDecimal> prices) {
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp nowTimestamp = Timestamp.valueOf(now);
+        long nowMillis = toMillis(now);
+        Map<Long, Long> changed = new LinkedHashMap<>();
+        List<Object[]> rows = new ArrayList<>();
+        Set<Long> superseded = new HashSet<>();
+        lock.readLock().lock();
+        try {
+            for (Map.Entry<Long, BigDecimal> price : prices.entrySet()) {
+                long cents = toCents(price.getValue());
+                int slot = slots.get(price.getKey());
+                if (slot < 0 ? cents == PriceTimeline.NO_PRICE : current[slot] == cents) {
+                    continue;
+                }
+                PriceTimeline timeline = slot < 0 ? null : timelines[slot];
+                if (slot >= 0 && timeline == null && current[slot] != PriceTimeline.NO_PRICE) {
+                    rows.add(new Object[]{price.getKey(), toPrice(current[slot]), Timestamp.valueOf(HISTORY_START), true, nowTimestamp});
+                }
+                // Scheduled prices that fell due but were not applied yet never take effect
+                if (timeline != null) {
+                    for (int i = 0; i < timeline.size() && timeline.fromAt(i) <= nowMillis; i++) {
+                        if (!timeline.isApplied(i)) {
+                            superseded.add(timeline.idAt(i));
+                        }
+                    }
+                }
+                rows.add(new Object[]{price.getKey(), price.getValue(), nowTimestamp, true, nowTimestamp});
+                changed.put(price.getKey(), cents);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (changed.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_PRICE_SQL, rows);
+        if (!superseded.isEmpty()) {
+            productPriceRepository.deleteAllByIdInBatch(superseded);
+        }
+        AfterCommit.run(() -> {
+            lock.writeLock().lock();
+            try {
+                for (Map.Entry<Long, Long> change : changed.entrySet()) {
+                    int slot = slots.get(change.getKey());
+                    boolean known = slot >= 0;
+                    if (!known) {
+                        slot = slotFor(change.getKey());
+                    }
+                    PriceTimeline timeline = timelines[slot];
+                    if (timeline == null && known && current[slot] != PriceTimeline.NO_PRICE) {
+                        timeline = PriceTimeline.of(0, toMillis(HISTORY_START), current[slot], true);
+                    }
+                    if (timeline != null && !superseded.isEmpty()) {
+                        timeline = timeline.without(superseded);
+                    }
+                    timelines[slot] = timeline == null
+                            ? PriceTimeline.of(0, nowMillis, change.getValue(), true)
+                            : timeline.with(0, nowMillis, change.getValue(), true);
+                    current[slot] = change.getValue();
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /** Schedules a price (null for none) to replace the product's price at a future time. */
+    @Transactional
+    public ProductPriceDTO schedulePrice(Long productId, BigDecimal price, LocalDateTime effectiveFrom) {
+        if (!productRepository.existsById(productId)) {
+            throw new ResourceNotFoundException("Product not found with id: " + productId);
+        }
+        if (effectiveFrom == null || !effectiveFrom.isAfter(LocalDateTime.now())) {
+            throw new InvalidOperationException("A scheduled price must take effect in the future");
+        }
+        if (price != null && price.signum() < 0) {
+            throw new InvalidOperationException("Price cannot be negative");
+        }
+        ProductPrice saved = productPriceRepository.save(new ProductPrice(productId, price, effectiveFrom, false));
+        long id = saved.getId();
+        long time = toMillis(effectiveFrom);
+        long cents = toCents(price);
+        AfterCommit.run(() -> {
+            lock.writeLock().lock();
+            try {
+                int slot = slots.get(productId);
+                boolean known = slot >= 0;
+                if (!known) {
+                    slot = slotFor(productId);
+                    current[slot] = PriceTimeline.NO_PRICE;
+                }
+                PriceTimeline timeline = timelines[slot];
+                if (timeline == null && known && current[slot] != PriceTimeline.NO_PRICE) {
+                    timeline = PriceTimeline.of(0, toMillis(HISTORY_START), current[slot], true);
+                }
+                timelines[slot] = timeline == null ? PriceTimeline.of(id, time, cents, false) : timeline.with(id, time, cents, false);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+        return convertToDTO(saved);
+    }
+
+    @Transactional
+    public void cancelScheduledPrice(Long productId, Long priceId) {
+        ProductPrice price = productPriceRepository.findById(priceId)
+                .filter(version -> version.getProductId().equals(productId))
+                .orElseThrow(() -> new ResourceNotFoundException("Price " + priceId + " not found for product " + productId));
+        if (price.isApplied()) {
+            throw new InvalidOperationException("Price " + priceId + " has already been applied");
+        }
+        productPriceRepository.delete(price);
+        AfterCommit.run(() -> removeVersions(productId, Set.of(priceId)));
+    }
+
+    @Transactional
+    public void productDeleted(Long productId) {
+        productPriceRepository.deleteByProductId(productId);
+        AfterCommit.run(() -> {
+            lock.writeLock().lock();
+            try {
+                int slot = slots.remove(productId);
+                if (slot >= 0) {
+                    timelines[slot] = null;
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /** Applies scheduled prices that have fallen due to their products, in batches; returns how many were applied. */
+    public int applyDuePrices() {
+        int applied = 0;
+        while (true) {
+            LocalDateTime now = LocalDateTime.now();
+            Integer batch = transactionTemplate.execute(tx -> applyDueBatch(now));
+            applied += batch;
+            if (batch < BATCH_SIZE) {
+                return applied;
+            }
+        }
+    }
+
+    private void applyDuePricesQuietly() {
+        try {
+            int applied = applyDuePrices();
+            if (applied > 0) {
+                logger.info("Applied {} scheduled prices", applied);
+            }
+        } catch (RuntimeException e) {
+            logger.error("Applying scheduled prices failed", e);
+        }
+    }
+
+    private int applyDueBatch(LocalDateTime now) {
+        List<Object[]> due = productPriceRepository.findDue(now, PageRequest.of(0, BATCH_SIZE));
+        if (due.isEmpty()) {
+            return 0;
+        }
+        // Oldest first, so the latest version due for a product wins
+        Map<Long, BigDecimal> latest = new LinkedHashMap<>();
+        Set<Long> versionIds = new HashSet<>();
+        for (Object[] row : due) {
+            versionIds.add((Long) row[0]);
+            latest.put((Long) row[1], (BigDecimal) row[2]);
+        }
+        Timestamp timestamp = Timestamp.valueOf(now);
+        List<Long> productIds = new ArrayList<>(latest.keySet());
+        List<Object[]> updates = new ArrayList<>(productIds.size());
+        for (Long productId : productIds) {
+            updates.add(new Object[]{latest.get(productId), timestamp, productId});
+        }
+        int[] counts = jdbcTemplate.batchUpdate(UPDATE_PRODUCT_PRICE_SQL, updates);
+        productPriceRepository.markApplied(versionIds);
+
+        // Products deleted meanwhile report 0 rows; drivers that do not count report a negative number
+        Map<Long, Long> changed = new HashMap<>();
+        for (int i = 0; i < productIds.size(); i++) {
+            if (counts[i] != 0) {
+                Long productId = productIds.get(i);
+                BigDecimal price = latest.get(productId);
+                changed.put(productId, toCents(price));
+                priceIndexService.priceChanged(productId, price);
+                skuLookupService.productChanged(productId);
+            }
+        }
+        catalogChangeService.productsChanged(changed.keySet());
+        productFacetService.productsChanged(changed.keySet());
+        AfterCommit.run(() -> {
+            lock.writeLock().lock();
+            try {
+                for (Map.Entry<Long, Long> change : changed.entrySet()) {
+                    int slot = slotFor(change.getKey());
+                    current[slot] = change.getValue();
+                    if (timelines[slot] != null) {
+                        timelines[slot] = timelines[slot].withApplied(versionIds);
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+        return due.size();
+    }
+
+    private void removeVersions(Long productId, Set<Long> versionIds) {
+        lock.writeLock().lock();
+        try {
+            int slot = slots.get(productId);
+            if (slot >= 0 && timelines[slot] != null) {
+                timelines[slot] = timelines[slot].without(versionIds);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Caller holds the write lock
+    private int slotFor(long productId) {
+        int slot = slots.get(productId);
+        if (slot >= 0) {
+            return slot;
+        }
+        if (slotCount == current.length) {
+            current = Arrays.copyOf(current, slotCount * 2);
+            timelines = Arrays.copyOf(timelines, slotCount * 2);
+        }
+        slot = slotCount++;
+        slots.put(productId, slot);
+        current[slot] = PriceTimeline.NO_PRICE;
+        timelines[slot] = null;
+        return slot;
+    }
+
+    private ProductPriceDTO convertToDTO(ProductPrice price) {
+        ProductPriceDTO dto = new ProductPriceDTO();
+        dto.setId(price.getId());
+        dto.setProductId(price.getProductId());
+        dto.setPrice(price.getPrice());
+        dto.setEffectiveFrom(price.getEffectiveFrom());
+        dto.setApplied(price.isApplied());
+        dto.setCreatedAt(price.getCreatedAt());
+        return dto;
+    }
+
+    private static long toCents(BigDecimal price) {
+        return price == null ? PriceTimeline.NO_PRICE : Money.of(price).getMinorUnits();
+    }
+
+    private static BigDecimal toPrice(long cents) {
+        return cents == PriceTimeline.NO_PRICE ? null : Money.ofMinor(cents).toBigDecimal();
+    }
+
+    // Times are compared as local times, so they are converted without a zone shift
+    private static long toMillis(LocalDateTime time) {
+        return time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+}
@@ -0,0 +1,246 @@
+package com.dev.productmanagementsystem.services;
+
+import com.dev.productmanagementsystem.entities.Product;
+import com.dev.productmanagementsystem.repositories.ProductRepository;
+import com.dev.productmanagementsystem.utils.AfterCommit;
+import com.dev.productmanagementsystem.utils.TextSearchIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Full-text search over product name, description and SKU, served from a {@link TextSearchIndex}
+ * instead of a LIKE scan.
+ *
+ * The index is built in the background at startup: id ranges are read and tokenized on several
+ * threads and the results appended in order. Product changes are applied to it after their
+ * transaction commits. When enough entries are stale, the index is rebuilt the same way and
+ * swapped in, replaying any changes made while the rebuild ran. Until the first build completes
+ * {@link #search} returns null and callers fall back to the database.
+ */
+@Service
+public class ProductSearchService implements SmartInitializingSingleton, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductSearchService.class);
+
+    // Name, description, SKU
+    private static final float[] FIELD_WEIGHTS = {3f, 1f, 4f};
+
+    private final ProductRepository productRepository;
+    private final int rebuildThreads;
+    private final int chunkSize;
+    private final int searchConcurrency;
+
+    private volatile TextSearchIndex index;
+    // Changes applied while a rebuild runs, replayed on the new index before it is swapped in
+    private List<Change> pendingChanges;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    private final ExecutorService rebuildExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "product-search-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public ProductSearchService(ProductRepository productRepository,
+                                @Value("${products.search.rebuild-threads:0}") int rebuildThreads,
+                                @Value("${products.search.rebuild-chunk:20000}") int chunkSize) {
+        this.productRepository = productRepository;
+        int cores = Runtime.getRuntime().availableProcessors();
+        this.rebuildThreads = rebuildThreads > 0 ? rebuildThreads : Math.max(1, Math.min(cores, 8));
+        this.chunkSize = chunkSize;
+        this.searchConcurrency = Math.max(2, cores);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        rebuildAsync();
+    }
+
+    @Override
+    public void destroy() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    /** Ids of the best matching products, best first, or null while the index is being built for the first time. */
+    public List<Long> search(String query, int limit) {
+        TextSearchIndex current = index;
+        if (current == null) {
+            return null;
+        }
+        long[] ids = current.search(query, limit);
+        List<Long> result = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            result.add(id);
+        }
+        return result;
+    }
+
+    /**
+     * Products matching the query, best first. Falls back to a case insensitive name match in the
+     * database while the index is not built yet.
+     */
+    public List<Product> findProducts(String query, int limit) {
+        List<Long> ids = search(query, limit);
+        if (ids == null) {
+            return productRepository.findByNameContainingIgnoreCase(query).stream()
+                    .limit(limit)
+                    .collect(Collectors.toList());
+        }
+        Map<Long, Product> products = new HashMap<>();
+        for (Product product : productRepository.findAllById(ids)) {
+            products.put(product.getId(), product);
+        }
+        List<Product> ranked = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Product product = products.get(id);
+            // Deleted after the search ran
+            if (product != null) {
+                ranked.add(product);
+            }
+        }
+        return ranked;
+    }
+
+    public boolean isReady() {
+        return index != null;
+    }
+
+    // Change hooks, applied once the surrounding transaction has committed
+    public void productSaved(Product product) {
+        Change change = new Change(product.getId(), product.getName(), product.getDescription(), product.getSku());
+        AfterCommit.run(() -> apply(change));
+    }
+
+    public void productDeleted(Long productId) {
+        Change change = new Change(productId, null, null, null);
+        change.deleted = true;
+        AfterCommit.run(() -> apply(change));
+    }
+
+    /** Starts a full rebuild in the background unless one is already running. */
+    public void rebuildAsync() {
+        if (rebuilding.compareAndSet(false, true)) {
+            rebuildExecutor.execute(() -> {
+                try {
+                    rebuild();
+                } catch (RuntimeException e) {
+                    logger.error("Product search index rebuild failed", e);
+                    synchronized (this) {
+                        pendingChanges = null;
+                    }
+                } finally {
+                    rebuilding.set(false);
+                }
+            });
+        }
+    }
+
+    private synchronized void apply(Change change) {
+        TextSearchIndex current = index;
+        if (current != null) {
+            change.applyTo(current);
+            // Rebuild once a quarter of the ordinals are stale, so updates do not grow the index forever
+            int deleted = current.getDeletedCount();
+            if (deleted > 10_000 && deleted > current.getDocumentCount() / 4) {
+                rebuildAsync();
+            }
+        }
+        if (pendingChanges != null) {
+            pendingChanges.add(change);
+        }
+    }
+
+    private void rebuild() {
+        long start = System.nanoTime();
+        synchronized (this) {
+            pendingChanges = new ArrayList<>();
+        }
+
+        TextSearchIndex rebuilt = new TextSearchIndex(FIELD_WEIGHTS, searchConcurrency);
+        List<Object[]> range = productRepository.findIdRange();
+        if (!range.isEmpty() && range.get(0)[0] != null) {
+            long minId = (Long) range.get(0)[0];
+            long maxId = (Long) range.get(0)[1];
+            ExecutorService loaders = Executors.newFixedThreadPool(rebuildThreads, runnable -> {
+                Thread thread = new Thread(runnable, "product-search-loader");
+                thread.setDaemon(true);
+                return thread;
+            });
+            try {
+                // Chunks are loaded and tokenized concurrently, then appended in id order
+                List<CompletableFuture<TextSearchIndex.Segment>> chunks = new ArrayList<>();
+                for (long chunkStart = minId; chunkStart <= maxId; chunkStart += chunkSize) {
+                    long from = chunkStart;
+                    long to = Math.min(maxId, from + chunkSize - 1);
+                    chunks.add(CompletableFuture.supplyAsync(() -> loadSegment(from, to), loaders));
+                }
+                for (CompletableFuture<TextSearchIndex.Segment> chunk : chunks) {
+                    rebuilt.append(chunk.join());
+                }
+            } finally {
+                loaders.shutdownNow();
+            }
+        }
+
+        synchronized (this) {
+            for (Change change : pendingChanges) {
+                change.applyTo(rebuilt);
+            }
+            pendingChanges = null;
+            index = rebuilt;
+        }
+        logger.info("Product search index built with {} products in {} ms",
+                rebuilt.getDocumentCount(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private TextSearchIndex.Segment loadSegment(long fromId, long toId) {
+        List<Object[]> rows = productRepository.findSearchFieldsByIdBetween(fromId, toId);
+        long[] ids = new long[rows.size()];
+        String[][] documents = new String[rows.size()][];
+        for (int i = 0; i < rows.size(); i++) {
+            Object[] row = rows.get(i);
+            ids[i] = (Long) row[0];
+            documents[i] = new String[]{(String) row[1], (String) row[2], (String) row[3]};
+        }
+        return TextSearchIndex.segment(ids, documents);
+    }
+
+    private static final class Change {
+        final long productId;
+        final String name;
+        final String description;
+        final String sku;
+        boolean deleted;
+
+        Change(long productId, String name, String description, String sku) {
+            this.productId = productId;
+            this.name = name;
+            this.description = description;
+            this.sku = sku;
+        }
+
+        void applyTo(TextSearchIndex target) {
+            if (deleted) {
+                target.remove(productId);
+            } else {
+                target.put(productId, name, description, sku);
+            }
+        }
+    }
+}
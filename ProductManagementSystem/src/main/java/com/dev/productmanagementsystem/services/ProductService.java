@@ -4,6 +4,7 @@ import com.dev.productmanagementsystem.dto.ProductDTO;
 import com.dev.productmanagementsystem.entities.Category;
 import com.dev.productmanagementsystem.entities.Product;
 import com.dev.productmanagementsystem.entities.Warehouse;
+import com.dev.productmanagementsystem.exceptions.DuplicateResourceException;
 import com.dev.productmanagementsystem.exceptions.ResourceNotFoundException;
 import com.dev.productmanagementsystem.exceptions.InsufficientStockException;
 import com.dev.productmanagementsystem.repositories.CategoryRepository;
@@ -14,6 +15,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -26,14 +28,38 @@ public class ProductService {
     private final ProductRepository productRepository;
     private final CategoryRepository categoryRepository;
     private final WarehouseRepository warehouseRepository;
+    private final ProductSearchService productSearchService;
+    private final SkuLookupService skuLookupService;
+    private final ProductFacetService productFacetService;
+    private final PriceIndexService priceIndexService;
+    private final CatalogChangeService catalogChangeService;
+    private final ProductPriceService productPriceService;
+    private final ProductDetailCache productDetailCache;
+
+    // Most results a product search returns
+    private static final int SEARCH_LIMIT = 100;
 
     @Autowired
     public ProductService(ProductRepository productRepository,
                           CategoryRepository categoryRepository,
-                          WarehouseRepository warehouseRepository) {
+                          WarehouseRepository warehouseRepository,
+                          ProductSearchService productSearchService,
+                          SkuLookupService skuLookupService,
+                          ProductFacetService productFacetService,
+                          PriceIndexService priceIndexService,
+                          CatalogChangeService catalogChangeService,
+                          ProductPriceService productPriceService,
+                          ProductDetailCache productDetailCache) {
         this.productRepository = productRepository;
         this.categoryRepository = categoryRepository;
         this.warehouseRepository = warehouseRepository;
+        this.productSearchService = productSearchService;
+        this.skuLookupService = skuLookupService;
+        this.productFacetService = productFacetService;
+        this.priceIndexService = priceIndexService;
+        this.catalogChangeService = catalogChangeService;
+        this.productPriceService = productPriceService;
+        this.productDetailCache = productDetailCache;
     }
 
     public List<ProductDTO> getAllProducts() {
@@ -42,10 +68,15 @@ public class ProductService {
                 .collect(Collectors.toList());
     }
 
+    // Served from the detail cache; the DTO is shared, so do not modify it
     public ProductDTO getProductById(Long id) {
-        Product product = productRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + id));
-        return convertToDTO(product);
+        ProductDTO product = productDetailCache.get(id, productId -> productRepository.findById(productId)
+                .map(this::convertToDetailDTO)
+                .orElse(null));
+        if (product == null) {
+            throw new ResourceNotFoundException("Product not found with id: " + id);
+        }
+        return product;
     }
 
     public List<ProductDTO> getProductsByCategory(Long categoryId) {
@@ -54,6 +85,13 @@ public class ProductService {
                 .collect(Collectors.toList());
     }
 
+    // Products in the category or any category below it, via the closure table
+    public List<ProductDTO> getProductsInCategorySubtree(Long categoryId) {
+        return productRepository.findInCategorySubtree(categoryId).stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+    }
+
     public List<ProductDTO> getLowStockProducts(int threshold) {
         return productRepository.findAll().stream()
                 .filter(p -> p.getTotalStock() < threshold)
@@ -61,8 +99,9 @@ public class ProductService {
                 .collect(Collectors.toList());
     }
     
+    // Best matches by name, description and SKU, see ProductSearchService
     public List<ProductDTO> findByNameContaining(String name) {
-        return productRepository.findByNameContainingIgnoreCase(name).stream()
+        return productSearchService.findProducts(name, SEARCH_LIMIT).stream()
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
     }
@@ -98,6 +137,7 @@ public class ProductService {
         product.updateStock(destinationWarehouse, destinationStock + quantity);
 
         Product updatedProduct = productRepository.save(product);
+        stockChanged(productId);
         return convertToDTO(updatedProduct);
     }
 
@@ -119,35 +159,53 @@ public class ProductService {
 
     @Transactional
     public ProductDTO createProduct(ProductDTO productDTO) {
+        if (productDTO.getSku() != null && productRepository.findBySku(productDTO.getSku()).isPresent()) {
+            throw new DuplicateResourceException("Product with this SKU already exists");
+        }
         Product product = convertToEntity(productDTO);
         Product savedProduct = productRepository.save(product);
+        productSaved(savedProduct, null);
         return convertToDTO(savedProduct);
     }
 
+    // Fields left null in the DTO keep their current value
     @Transactional
     public ProductDTO updateProduct(Long id, ProductDTO productDTO) {
         Product existingProduct = productRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + id));
+        String previousSku = existingProduct.getSku();
+        if (productDTO.getSku() != null && !productDTO.getSku().equals(previousSku)
+                && productRepository.findBySku(productDTO.getSku()).isPresent()) {
+            throw new DuplicateResourceException("Product with this SKU already exists");
+        }
 
-        existingProduct.setName(productDTO.getName());
-        existingProduct.setDescription(productDTO.getDescription());
-        existingProduct.setSku(productDTO.getSku());
-        existingProduct.setPrice(productDTO.getPrice());
-
-        Category category = categoryRepository.findById(productDTO.getCategoryId())
-                .orElseThrow(() -> new ResourceNotFoundException("Category not found with id: " + productDTO.getCategoryId()));
-        existingProduct.setCategory(category);
+        if (productDTO.getName() != null) {
+            existingProduct.setName(productDTO.getName());
+        }
+        if (productDTO.getDescription() != null) {
+            existingProduct.setDescription(productDTO.getDescription());
+        }
+        if (productDTO.getSku() != null) {
+            existingProduct.setSku(productDTO.getSku());
+        }
+        if (productDTO.getPrice() != null) {
+            existingProduct.setPrice(productDTO.getPrice());
+        }
+        if (productDTO.getCategoryId() != null) {
+            existingProduct.setCategory(findCategory(productDTO.getCategoryId()));
+        }
 
         Product updatedProduct = productRepository.save(existingProduct);
+        productSaved(updatedProduct, previousSku);
         return convertToDTO(updatedProduct);
     }
 
     @Transactional
     public void deleteProduct(Long id) {
-        if (!productRepository.existsById(id)) {
-            throw new ResourceNotFoundException("Product not found with id: " + id);
-        }
-        productRepository.deleteById(id);
+        Product product = productRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + id));
+        productRepository.delete(product);
+        productDeleted(id, product.getSku());
     }
 
     @Transactional
@@ -160,10 +218,52 @@ public class ProductService {
 
         product.updateStock(warehouse, quantity);
         Product updatedProduct = productRepository.save(product);
+        stockChanged(productId);
         return convertToDTO(updatedProduct);
     }
 
-    private ProductDTO convertToDTO(Product product) {
+    // Replaces every stock level of the product; warehouses left out no longer hold it
+    @Transactional
+    public ProductDTO replaceStock(Long productId, Map<Long, Integer> stockQuantities) {
+        Product product = productRepository.findById(productId)
+                .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + productId));
+
+        Map<Warehouse, Integer> warehouses = new HashMap<>();
+        stockQuantities.forEach((warehouseId, quantity) -> warehouses.put(findWarehouse(warehouseId), quantity));
+        product.setStockQuantities(warehouses);
+
+        Product updatedProduct = productRepository.save(product);
+        stockChanged(productId);
+        return convertToDTO(updatedProduct);
+    }
+
+    // Every in-memory view of the catalog that has to follow a product write, applied after commit
+
+    private void productSaved(Product product, String previousSku) {
+        Long productId = product.getId();
+        productSearchService.productSaved(product);
+        skuLookupService.productSaved(product, previousSku);
+        productFacetService.productChanged(productId);
+        priceIndexService.productSaved(product);
+        catalogChangeService.productChanged(productId);
+        productPriceService.priceChanged(productId, product.getPrice());
+    }
+
+    private void productDeleted(Long productId, String sku) {
+        productSearchService.productDeleted(productId);
+        skuLookupService.productDeleted(productId, sku);
+        productFacetService.productChanged(productId);
+        priceIndexService.productDeleted(productId);
+        catalogChangeService.productDeleted(productId);
+        productPriceService.productDeleted(productId);
+    }
+
+    private void stockChanged(Long productId) {
+        productFacetService.productChanged(productId);
+        catalogChangeService.productChanged(productId);
+    }
+
+    public ProductDTO convertToDTO(Product product) {
         ProductDTO dto = new ProductDTO();
         dto.setId(product.getId());
         dto.setName(product.getName());
@@ -188,6 +288,13 @@ public class ProductService {
         return dto;
     }
 
+    // A DTO to share through the detail cache, with a stock map nobody can change
+    private ProductDTO convertToDetailDTO(Product product) {
+        ProductDTO dto = convertToDTO(product);
+        dto.setStockQuantities(Collections.unmodifiableMap(dto.getStockQuantities()));
+        return dto;
+    }
+
     private Product convertToEntity(ProductDTO dto) {
         Product product = new Product();
         product.setName(dto.getName());
@@ -196,22 +303,28 @@ public class ProductService {
         product.setPrice(dto.getPrice());
 
         if (dto.getCategoryId() != null) {
-            Category category = categoryRepository.findById(dto.getCategoryId())
-                    .orElseThrow(() -> new ResourceNotFoundException("Category not found with id: " + dto.getCategoryId()));
-            product.setCategory(category);
+            product.setCategory(findCategory(dto.getCategoryId()));
         }
 
         if (dto.getStockQuantities() != null) {
-            dto.getStockQuantities().forEach((warehouseId, quantity) -> {
-                Warehouse warehouse = warehouseRepository.findById(warehouseId)
-                        .orElseThrow(() -> new ResourceNotFoundException("Warehouse not found with id: " + warehouseId));
-                product.getStockQuantities().put(warehouse, quantity);
-            });
+            dto.getStockQuantities().forEach((warehouseId, quantity) ->
+                    product.getStockQuantities().put(findWarehouse(warehouseId), quantity));
         }
 
         return product;
     }
 
+    // Categories and warehouses named in a request body; a missing one is a bad request, not a missing product
+    private Category findCategory(Long categoryId) {
+        return categoryRepository.findById(categoryId)
+                .orElseThrow(() -> new IllegalArgumentException("Category not found with id: " + categoryId));
+    }
+
+    private Warehouse findWarehouse(Long warehouseId) {
+        return warehouseRepository.findById(warehouseId)
+                .orElseThrow(() -> new IllegalArgumentException("Warehouse not found with id: " + warehouseId));
+    }
+
     // Finds a product by its id
     public Optional<Product> findById(Long id) {
         return productRepository.findById(id);
@@ -0,0 +1,84 @@
+package com.dev.productmanagementsystem.services;
+
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.core.config.DefaultConfiguration;
+import org.ehcache.jsr107.Eh107Configuration;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Hibernate second-level cache for the reference data almost every request reads: warehouses,
+ * categories, roles with their permissions, and the results of the repository queries marked
+ * cacheable. Entries live on the heap in Ehcache, which Hibernate talks to through JCache.
+ *
+ * Every region is created here rather than on first use, bounded to a number of entries and
+ * expiring each one a fixed time after it was written, so data changed behind Hibernate's back
+ * is picked up within that time. The update timestamps region is the exception: it holds one
+ * entry per table and tells Hibernate whether a cached query result is stale, so it must not
+ * lose entries. Entity regions are read-write, so changes made through Hibernate reach the cache
+ * when their transaction commits.
+ *
+ * Statistics are on, and Hibernate publishes them per region as the
+ * hibernate.second.level.cache.* and hibernate.cache.query.* metrics.
+ */
+@Configuration
+public class ReferenceCacheConfig {
+
+    // Region names, as used by the @Cache annotations on the entities
+    private static final List<String> ENTITY_REGIONS = List.of("warehouses", "categories", "roles", "roles.permissions", "permissions");
+
+    @Bean(destroyMethod = "close")
+    public CacheManager referenceCacheManager(@Value("${products.cache.reference.max-entries:10000}") long maxEntries,
+                                              @Value("${products.cache.reference.ttl:10m}") Duration ttl) {
+        EhcacheCachingProvider provider = (EhcacheCachingProvider) Caching.getCachingProvider(EhcacheCachingProvider.class.getName());
+        // A URI of its own, so application contexts sharing the JVM never share regions
+        CacheManager cacheManager = provider.getCacheManager(
+                URI.create("urn:products:reference-cache:" + UUID.randomUUID()),
+                new DefaultConfiguration(getClass().getClassLoader()));
+
+        for (String region : ENTITY_REGIONS) {
+            cacheManager.createCache(region, region(maxEntries, ttl));
+        }
+        cacheManager.createCache(RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME, region(maxEntries, ttl));
+        cacheManager.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME, region(maxEntries, null));
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer referenceCacheProperties(CacheManager referenceCacheManager) {
+        return properties -> {
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            properties.put(AvailableSettings.USE_QUERY_CACHE, true);
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            properties.put(ConfigSettings.CACHE_MANAGER, referenceCacheManager);
+            // Every region is created above; a missing one is a typo in a @Cache annotation
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+            properties.put(AvailableSettings.GENERATE_STATISTICS, true);
+        };
+    }
+
+    // A heap region holding at most maxEntries, each expiring ttl after it was written (never when null)
+    private static javax.cache.configuration.Configuration<Object, Object> region(long maxEntries, Duration ttl) {
+        CacheConfigurationBuilder<Object, Object> builder = CacheConfigurationBuilder
+                .newCacheConfigurationBuilder(Object.class, Object.class, ResourcePoolsBuilder.heap(maxEntries));
+        if (ttl != null) {
+            builder = builder.withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(ttl));
+        }
+        return Eh107Configuration.fromEhcacheCacheConfiguration(builder);
+    }
+}
@@ -0,0 +1,285 @@
+package com.dev.productmanagementsystem.services;
+
+import com.dev.productmanagementsystem.repositories.PermissionRepository;
+import com.dev.productmanagementsystem.repositories.RoleRepository;
+import com.dev.productmanagementsystem.repositories.UserRepository;
+import com.dev.productmanagementsystem.utils.AfterCommit;
+import com.dev.productmanagementsystem.utils.Bitsets;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The role -> permission graph and every user's role ids, held as one immutable snapshot.
+ *
+ * Permissions of a role are a bitset indexed by permission id, so an authorization check is a bit
+ * test; inverted indexes (permission -> roles, role -> users) answer "who has X" without a query.
+ * Any change to roles, permissions or role assignments drops the snapshot once its transaction
+ * commits. The next reader loads a fresh one with three queries, without holding a lock; readers
+ * arriving meanwhile wait for that same load instead of starting their own. The finished snapshot
+ * is published in a single write, so readers never see a half-updated graph.
+ */
+@Service
+public class RoleGraphCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(RoleGraphCache.class);
+
+    private static final long[] EMPTY = new long[0];
+    private static final long UNKNOWN_PERMISSION = -1L;
+
+    private final RoleRepository roleRepository;
+    private final PermissionRepository permissionRepository;
+    private final UserRepository userRepository;
+
+    // The current snapshot, or the load that will produce it; null once invalidated. A load that
+    // raced with an invalidation still completes for the readers waiting on it, but is not current.
+    private final AtomicReference<CompletableFuture<Snapshot>> current = new AtomicReference<>();
+
+    @Autowired
+    public RoleGraphCache(RoleRepository roleRepository, PermissionRepository permissionRepository,
+                          UserRepository userRepository) {
+        this.roleRepository = roleRepository;
+        this.permissionRepository = permissionRepository;
+        this.userRepository = userRepository;
+    }
+
+    /** Union of the permissions of the given roles; the result must not be modified. */
+    public long[] forRoles(Collection<Long> roleIds) {
+        Snapshot current = snapshot();
+        long[] union = EMPTY;
+        for (Long roleId : roleIds) {
+            long[] bits = current.roleBits.getOrDefault(roleId, EMPTY);
+            if (union == EMPTY) {
+                union = bits;
+            } else if (bits.length > 0) {
+                union = or(union, bits);
+            }
+        }
+        return union;
+    }
+
+    public long[] forRoles(long[] roleIds) {
+        return forRoles(Arrays.stream(roleIds).boxed().toList());
+    }
+
+    /** Id of the named permission, or -1 when there is no such permission. */
+    public long permissionId(String name) {
+        return snapshot().permissionIds.getOrDefault(name, UNKNOWN_PERMISSION);
+    }
+
+    public boolean hasPermission(long[] bits, String permissionName) {
+        return Bitsets.isSet(bits, permissionId(permissionName));
+    }
+
+    /** Role ids of a user, empty for users without roles or that do not exist. */
+    public long[] roleIdsOfUser(long userId) {
+        return snapshot().rolesOfUser(userId);
+    }
+
+    /** Ids of the users holding the named permission through any of their roles, ascending. */
+    public long[] userIdsWithPermission(String permissionName) {
+        Snapshot current = snapshot();
+        long[] roleIds = current.rolesByPermission.getOrDefault(
+                current.permissionIds.getOrDefault(permissionName, UNKNOWN_PERMISSION), EMPTY);
+        long[] userIds = EMPTY;
+        for (long roleId : roleIds) {
+            userIds = union(userIds, current.usersByRole.getOrDefault(roleId, EMPTY));
+        }
+        return userIds;
+    }
+
+    /** Ids of the users that have the named role, ascending. Must not be modified. */
+    public long[] userIdsWithRole(String roleName) {
+        Snapshot current = snapshot();
+        Long roleId = current.roleIds.get(roleName);
+        return roleId == null ? EMPTY : current.usersByRole.getOrDefault(roleId, EMPTY);
+    }
+
+    /**
+     * Call after changing roles, permissions, role permissions or a user's roles. The snapshot is
+     * dropped once the surrounding transaction has committed.
+     */
+    public void graphChanged() {
+        AfterCommit.run(() -> current.set(null));
+    }
+
+    private Snapshot snapshot() {
+        while (true) {
+            CompletableFuture<Snapshot> published = current.get();
+            if (published != null) {
+                return await(published);
+            }
+            CompletableFuture<Snapshot> loading = new CompletableFuture<>();
+            if (!current.compareAndSet(null, loading)) {
+                continue;
+            }
+            try {
+                loading.complete(load());
+            } catch (RuntimeException e) {
+                // Let the next reader try again rather than caching the failure
+                current.compareAndSet(loading, null);
+                loading.completeExceptionally(e);
+                throw e;
+            }
+            return loading.join();
+        }
+    }
+
+    private static Snapshot await(CompletableFuture<Snapshot> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    private Snapshot load() {
+        long start = System.nanoTime();
+
+        Map<String, Long> permissionIds = new HashMap<>();
+        for (Object[] row : permissionRepository.findAllIdsAndNames()) {
+            permissionIds.put((String) row[1], (Long) row[0]);
+        }
+        Map<String, Long> roleIds = new HashMap<>();
+        Map<Long, long[]> roleBits = new HashMap<>();
+        for (Object[] row : roleRepository.findAllIdsAndNames()) {
+            roleIds.put((String) row[1], (Long) row[0]);
+            roleBits.put((Long) row[0], EMPTY);
+        }
+        Map<Long, long[]> rolesByPermission = new HashMap<>();
+        for (Object[] row : roleRepository.findAllPermissionAssignments()) {
+            Long roleId = (Long) row[0];
+            Long permissionId = (Long) row[1];
+            roleBits.put(roleId, Bitsets.set(roleBits.getOrDefault(roleId, EMPTY), permissionId));
+            rolesByPermission.merge(permissionId, new long[]{roleId}, RoleGraphCache::union);
+        }
+
+        // Users as compressed rows: the roles of userIds[i] are userRoleIds[offsets[i]..offsets[i + 1])
+        List<Object[]> assignments = userRepository.findAllRoleAssignments();
+        long[] userIds = new long[assignments.size()];
+        int[] offsets = new int[assignments.size() + 1];
+        long[] userRoleIds = new long[assignments.size()];
+        Map<Long, LongList> usersByRole = new HashMap<>();
+        int users = 0;
+        for (int i = 0; i < assignments.size(); i++) {
+            long userId = (Long) assignments.get(i)[0];
+            long roleId = (Long) assignments.get(i)[1];
+            if (users == 0 || userIds[users - 1] != userId) {
+                userIds[users] = userId;
+                offsets[users] = i;
+                users++;
+            }
+            userRoleIds[i] = roleId;
+            // Rows are ordered by user, so every role's user list comes out sorted
+            usersByRole.computeIfAbsent(roleId, key -> new LongList()).add(userId);
+        }
+        offsets[users] = assignments.size();
+
+        Map<Long, long[]> usersByRoleArrays = new HashMap<>();
+        usersByRole.forEach((roleId, list) -> usersByRoleArrays.put(roleId, list.toArray()));
+
+        Snapshot loaded = new Snapshot(Map.copyOf(permissionIds), Map.copyOf(roleIds), Map.copyOf(roleBits),
+                Map.copyOf(rolesByPermission), Map.copyOf(usersByRoleArrays),
+                Arrays.copyOf(userIds, users), Arrays.copyOf(offsets, users + 1), userRoleIds);
+        logger.debug("Loaded role graph: {} permissions, {} roles, {} users with roles in {} ms",
+                permissionIds.size(), roleIds.size(), users, (System.nanoTime() - start) / 1_000_000);
+        return loaded;
+    }
+
+    private static long[] or(long[] a, long[] b) {
+        long[] result = Arrays.copyOf(a.length >= b.length ? a : b, Math.max(a.length, b.length));
+        long[] shorter = a.length >= b.length ? b : a;
+        for (int i = 0; i < shorter.length; i++) {
+            result[i] |= shorter[i];
+        }
+        return result;
+    }
+
+    // Sorted union of two ascending id arrays without duplicates
+    private static long[] union(long[] a, long[] b) {
+        if (a.length == 0) {
+            return b;
+        }
+        if (b.length == 0) {
+            return a;
+        }
+        long[] result = new long[a.length + b.length];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < a.length || j < b.length) {
+            long next;
+            if (j == b.length || (i < a.length && a[i] < b[j])) {
+                next = a[i++];
+            } else if (i == a.length || b[j] < a[i]) {
+                next = b[j++];
+            } else {
+                next = a[i++];
+                j++;
+            }
+            result[n++] = next;
+        }
+        return n == result.length ? result : Arrays.copyOf(result, n);
+    }
+
+    private static final class Snapshot {
+        final Map<String, Long> permissionIds;
+        final Map<String, Long> roleIds;
+        // Role id -> bitset of its permission ids
+        final Map<Long, long[]> roleBits;
+        // Permission id -> ids of the roles that grant it, ascending
+        final Map<Long, long[]> rolesByPermission;
+        // Role id -> ids of the users that have it, ascending
+        final Map<Long, long[]> usersByRole;
+        final long[] userIds;
+        final int[] userRoleOffsets;
+        final long[] userRoleIds;
+
+        Snapshot(Map<String, Long> permissionIds, Map<String, Long> roleIds, Map<Long, long[]> roleBits,
+                 Map<Long, long[]> rolesByPermission, Map<Long, long[]> usersByRole,
+                 long[] userIds, int[] userRoleOffsets, long[] userRoleIds) {
+            this.permissionIds = permissionIds;
+            this.roleIds = roleIds;
+            this.roleBits = roleBits;
+            this.rolesByPermission = rolesByPermission;
+            this.usersByRole = usersByRole;
+            this.userIds = userIds;
+            this.userRoleOffsets = userRoleOffsets;
+            this.userRoleIds = userRoleIds;
+        }
+
+        long[] rolesOfUser(long userId) {
+            int index = Arrays.binarySearch(userIds, userId);
+            if (index < 0) {
+                return EMPTY;
+            }
+            return Arrays.copyOfRange(userRoleIds, userRoleOffsets[index], userRoleOffsets[index + 1]);
+        }
+    }
+
+    private static final class LongList {
+        long[] values = new long[4];
+        int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
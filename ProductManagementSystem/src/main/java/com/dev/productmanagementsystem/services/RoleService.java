@@ -2,25 +2,118 @@ package com.dev.productmanagementsystem.services;
 
 import com.dev.productmanagementsystem.entities.Permission;
 import com.dev.productmanagementsystem.entities.Role;
+import com.dev.productmanagementsystem.entities.User;
+import com.dev.productmanagementsystem.repositories.PermissionRepository;
 import com.dev.productmanagementsystem.repositories.RoleRepository;
+import com.dev.productmanagementsystem.repositories.UserRepository;
 import com.dev.productmanagementsystem.exceptions.ResourceNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
 @Service
-public class RoleService {
+public class RoleService implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(RoleService.class);
+
+    // Checked by @permissions.has on the role, permission and role assignment endpoints
+    public static final String MANAGE_ROLES = "MANAGE_ROLES";
+    public static final String ADMIN_ROLE = "ADMIN";
 
     private final RoleRepository roleRepository;
+    private final PermissionRepository permissionRepository;
+    private final UserRepository userRepository;
     private final PermissionService permissionService;
+    private final RoleGraphCache roleGraphCache;
+    private final TransactionTemplate transactionTemplate;
+    private final String adminUsername;
 
     @Autowired
-    public RoleService(RoleRepository roleRepository, PermissionService permissionService) {
+    public RoleService(RoleRepository roleRepository, PermissionRepository permissionRepository,
+                       UserRepository userRepository, PermissionService permissionService,
+                       RoleGraphCache roleGraphCache, PlatformTransactionManager transactionManager,
+                       @Value("${auth.admin-username:}") String adminUsername) {
         this.roleRepository = roleRepository;
+        this.permissionRepository = permissionRepository;
+        this.userRepository = userRepository;
         this.permissionService = permissionService;
+        this.roleGraphCache = roleGraphCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.adminUsername = adminUsername;
+    }
+
+    /**
+     * Makes sure MANAGE_ROLES exists and the ADMIN role holds it, so roles can be managed at all on a new
+     * database. The configured admin user, if any, gets the ADMIN role. Another instance starting at the
+     * same time may insert the same rows; the seed then runs once more against what it committed.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        try {
+            transactionTemplate.executeWithoutResult(status -> seedAdminRole());
+        } catch (DataIntegrityViolationException e) {
+            transactionTemplate.executeWithoutResult(status -> seedAdminRole());
+        }
+    }
+
+    private void seedAdminRole() {
+        boolean changed = false;
+
+        Permission manageRoles = permissionRepository.findByName(MANAGE_ROLES).orElse(null);
+        if (manageRoles == null) {
+            manageRoles = new Permission();
+            manageRoles.setName(MANAGE_ROLES);
+            manageRoles.setDescription("Create and change roles and permissions and assign roles to users");
+            manageRoles = permissionRepository.saveAndFlush(manageRoles);
+            logger.info("Created the {} permission", MANAGE_ROLES);
+            changed = true;
+        }
+
+        Role admin = roleRepository.findByName(ADMIN_ROLE).orElse(null);
+        if (admin == null) {
+            admin = new Role();
+            admin.setName(ADMIN_ROLE);
+            admin = roleRepository.saveAndFlush(admin);
+            logger.info("Created the {} role", ADMIN_ROLE);
+            changed = true;
+        }
+        if (!admin.getPermissions().contains(manageRoles)) {
+            admin.addPermission(manageRoles);
+            roleRepository.saveAndFlush(admin);
+            logger.info("Granted {} to the {} role", MANAGE_ROLES, ADMIN_ROLE);
+            changed = true;
+        }
+
+        if (!adminUsername.isBlank()) {
+            User user = userRepository.findByUsername(adminUsername).orElse(null);
+            if (user == null) {
+                logger.warn("Admin user '{}' not found, the {} role was not assigned", adminUsername, ADMIN_ROLE);
+            } else {
+                if (user.getRoles() == null) {
+                    user.setRoles(new HashSet<>());
+                }
+                if (user.getRoles().add(admin)) {
+                    userRepository.save(user);
+                    logger.info("Assigned the {} role to '{}'", ADMIN_ROLE, adminUsername);
+                    changed = true;
+                }
+            }
+        }
+
+        if (changed) {
+            roleGraphCache.graphChanged();
+        }
     }
 
     public List<Role> getAllRoles() {
@@ -51,7 +144,9 @@ public class RoleService {
             role.setPermissions(permissions);
         }
 
-        return roleRepository.save(role);
+        Role savedRole = roleRepository.save(role);
+        roleGraphCache.graphChanged();
+        return savedRole;
     }
 
     @Transactional
@@ -68,7 +163,9 @@ public class RoleService {
             role.setName(name);
         }
 
-        return roleRepository.save(role);
+        Role savedRole = roleRepository.save(role);
+        roleGraphCache.graphChanged();
+        return savedRole;
     }
 
     @Transactional
@@ -80,7 +177,9 @@ public class RoleService {
             role.addPermission(permission);
         }
 
-        return roleRepository.save(role);
+        Role savedRole = roleRepository.save(role);
+        roleGraphCache.graphChanged();
+        return savedRole;
     }
 
     @Transactional
@@ -92,7 +191,9 @@ public class RoleService {
             role.removePermission(permission);
         }
 
-        return roleRepository.save(role);
+        Role savedRole = roleRepository.save(role);
+        roleGraphCache.graphChanged();
+        return savedRole;
     }
 
     public void deleteRole(Long id) {
@@ -103,5 +204,6 @@ public class RoleService {
         }
 
         roleRepository.deleteById(id);
+        roleGraphCache.graphChanged();
     }
 }
\ No newline at end of file
@@ -1,46 +1,87 @@
 package com.dev.productmanagementsystem.services;
 
+import com.dev.productmanagementsystem.utils.PasswordEncoders;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.AnonymousAuthenticationFilter;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
+import java.nio.file.Path;
 import java.util.Arrays;
 
 @Configuration
 @EnableWebSecurity
+@EnableMethodSecurity
 public class SecurityConfig {
 
+    // Set to false to open /api/** to anonymous callers again, e.g. while bootstrapping a new database
+    @Value("${auth.require-authentication:true}")
+    private boolean requireAuthentication;
+
+    // New hashes use the configured algorithm and cost; older hashes keep verifying and are upgraded on login
+    @Bean
+    public PasswordEncoder passwordEncoder(@Value("${auth.passwords.algorithm:bcrypt}") String algorithm,
+                                           @Value("${auth.passwords.bcrypt-strength:10}") int bcryptStrength) {
+        return PasswordEncoders.create(algorithm, bcryptStrength);
+    }
+
+    // Where login sessions are kept across restarts: jdbc (auth_sessions table), file, or memory
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public SessionPersistence sessionPersistence(@Value("${auth.sessions.store:jdbc}") String store,
+                                                 @Value("${auth.sessions.file:${java.io.tmpdir}/pms-sessions.tsv}") String file,
+                                                 JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        switch (store) {
+            case "jdbc":
+                return new JdbcSessionPersistence(jdbcTemplate, transactionManager);
+            case "file":
+                return new FileSessionPersistence(Path.of(file));
+            case "memory":
+                return SessionPersistence.inMemory();
+            default:
+                throw new IllegalArgumentException("Unknown auth.sessions.store: " + store);
+        }
     }
 
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, AccessTokenService accessTokenService,
+                                           RoleGraphCache roleGraphCache) throws Exception {
         http
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .csrf(csrf -> csrf.disable()) // Disable CSRF for API
-                .authorizeHttpRequests(authz -> authz
-                        // Allow authentication endpoints
-                        .requestMatchers("/api/auth/**").permitAll()
-                        // Allow static resources
-                        .requestMatchers("/", "/index.html", "/styles.css", "/app.js", "/*.html").permitAll()
-                        .requestMatchers("/css/**", "/js/**", "/images/**", "/static/**").permitAll()
-                        // Allow all other API endpoints for now (you can restrict these later)
-                        .requestMatchers("/api/**").permitAll()
-                        // Allow all other requests
-                        .anyRequest().permitAll()
-                )
+                .authorizeHttpRequests(authz -> {
+                    // Allow authentication endpoints
+                    authz.requestMatchers("/api/auth/**").permitAll();
+                    // Allow static resources
+                    authz.requestMatchers("/", "/index.html", "/styles.css", "/app.js", "/*.html").permitAll();
+                    authz.requestMatchers("/css/**", "/js/**", "/images/**", "/static/**").permitAll();
+                    authz.requestMatchers("/actuator/health").permitAll();
+                    // Everything else under /api and /actuator needs a valid access token
+                    if (requireAuthentication) {
+                        authz.requestMatchers("/api/**", "/actuator/**").authenticated();
+                    }
+                    // Allow all other requests
+                    authz.anyRequest().permitAll();
+                })
                 .formLogin(form -> form.disable()) // Disable form login
                 .httpBasic(basic -> basic.disable()) // Disable basic auth
-                .sessionManagement(session -> session.disable()); // Disable sessions
+                .sessionManagement(session -> session.disable()) // Disable sessions
+                // Resolve the bearer token once per request, before anything looks at the principal
+                .addFilterBefore(new TokenAuthenticationFilter(accessTokenService, roleGraphCache),
+                        AnonymousAuthenticationFilter.class)
+                .exceptionHandling(exceptions -> exceptions
+                        .authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED)));
 
         return http.build();
     }
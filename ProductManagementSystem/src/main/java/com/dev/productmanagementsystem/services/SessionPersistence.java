@@ -0,0 +1,57 @@
+package com.dev.productmanagementsystem.services;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Durable storage behind {@link SessionTokenService}. The service keeps every live session in
+ * memory and hands changes over in batches, so implementations are only called on startup and
+ * from the sweeper thread, never on a request thread.
+ */
+public interface SessionPersistence {
+
+    /** Sessions that had not expired at {@code now} (epoch millis). */
+    List<StoredSession> load(long now);
+
+    /**
+     * Applies one batch of changes: new sessions, sessions whose expiry slid forward, and
+     * the hashes of sessions that were revoked or expired.
+     */
+    void write(Collection<StoredSession> created, Collection<StoredSession> touched, Collection<String> removed);
+
+    /** Keeps sessions in memory only; they are lost on restart. */
+    static SessionPersistence inMemory() {
+        return new SessionPersistence() {
+            @Override
+            public List<StoredSession> load(long now) {
+                return List.of();
+            }
+
+            @Override
+            public void write(Collection<StoredSession> created, Collection<StoredSession> touched, Collection<String> removed) {
+            }
+        };
+    }
+
+    final class StoredSession {
+        private final String tokenHash;
+        private final long userId;
+        private final long createdAt;
+        private final long expiresAt;
+        private final long idleTimeout;
+
+        public StoredSession(String tokenHash, long userId, long createdAt, long expiresAt, long idleTimeout) {
+            this.tokenHash = tokenHash;
+            this.userId = userId;
+            this.createdAt = createdAt;
+            this.expiresAt = expiresAt;
+            this.idleTimeout = idleTimeout;
+        }
+
+        public String getTokenHash() { return tokenHash; }
+        public long getUserId() { return userId; }
+        public long getCreatedAt() { return createdAt; }
+        public long getExpiresAt() { return expiresAt; }
+        public long getIdleTimeout() { return idleTimeout; }
+    }
+}
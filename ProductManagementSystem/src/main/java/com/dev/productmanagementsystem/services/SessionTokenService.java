@@ -0,0 +1,348 @@
+package com.dev.productmanagementsystem.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Bearer token sessions with an idle timeout that slides on use, an absolute lifetime and a
+ * cap on concurrent sessions per user.
+ *
+ * Validation is a lock-free map lookup plus a volatile read. Expired sessions are removed by a
+ * hashed timing wheel that a single sweeper thread advances once a second; sliding a session
+ * does not move it in the wheel, it is simply rescheduled when its slot comes up. The same
+ * thread hands created, slid and removed sessions to the {@link SessionPersistence} in batches,
+ * so sessions survive restarts without a database write per request.
+ */
+@Service
+public class SessionTokenService implements SmartInitializingSingleton, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(SessionTokenService.class);
+
+    private static final long TICK_MILLIS = 1000L;
+    private static final int WHEEL_SLOTS = 512;
+
+    private final SessionPersistence persistence;
+    private final long idleTimeout;
+    private final long maxLifetime;
+    private final int maxSessionsPerUser;
+
+    private final SecureRandom random = new SecureRandom();
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    // User id -> that user's sessions, oldest first; only changed inside compute()
+    private final Map<Long, ArrayDeque<Session>> sessionsByUser = new ConcurrentHashMap<>();
+
+    private final Queue<Session>[] wheel;
+    // Last tick the sweeper processed; sessions are always scheduled after it
+    private volatile long currentTick;
+
+    // Pending changes for the persistence, drained by the sweeper
+    private final Queue<Session> created = new ConcurrentLinkedQueue<>();
+    private final Queue<Session> touched = new ConcurrentLinkedQueue<>();
+    private final Queue<Session> removed = new ConcurrentLinkedQueue<>();
+
+    private final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "session-sweeper");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    @SuppressWarnings("unchecked")
+    public SessionTokenService(SessionPersistence persistence,
+                               @Value("${auth.sessions.idle-timeout:30m}") Duration idleTimeout,
+                               @Value("${auth.sessions.max-lifetime:12h}") Duration maxLifetime,
+                               @Value("${auth.sessions.max-per-user:5}") int maxSessionsPerUser) {
+        this.persistence = persistence;
+        this.idleTimeout = idleTimeout.toMillis();
+        this.maxLifetime = maxLifetime.toMillis();
+        this.maxSessionsPerUser = maxSessionsPerUser;
+        this.wheel = new Queue[WHEEL_SLOTS];
+        for (int i = 0; i < WHEEL_SLOTS; i++) {
+            wheel[i] = new ConcurrentLinkedQueue<>();
+        }
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        long now = System.currentTimeMillis();
+        currentTick = now / TICK_MILLIS;
+        List<SessionPersistence.StoredSession> stored = persistence.load(now);
+        for (SessionPersistence.StoredSession record : stored) {
+            Session session = new Session(record.getTokenHash(), record.getUserId(), record.getCreatedAt(),
+                    record.getExpiresAt(), record.getIdleTimeout());
+            session.persisted = true;
+            register(session);
+        }
+        logger.info("Restored {} sessions", stored.size());
+        sweeper.scheduleAtFixedRate(this::sweep, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        sweeper.shutdown();
+        try {
+            sweeper.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    /** Starts a session with the default idle timeout and returns its bearer token. */
+    public String createSession(Long userId) {
+        return createSession(userId, Duration.ofMillis(idleTimeout));
+    }
+
+    public String createSession(Long userId, Duration idleTimeout) {
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        long now = System.currentTimeMillis();
+        long idle = idleTimeout.toMillis();
+        Session session = new Session(hash(token), userId, now, Math.min(now + idle, now + maxLifetime), idle);
+        register(session);
+        created.add(session);
+        return token;
+    }
+
+    /** Returns the user id of a live session and slides its expiry, or null for unknown and expired tokens. */
+    public Long validate(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        Session session = sessions.get(hash(token));
+        if (session == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        long expiresAt = session.expiresAt;
+        if (session.revoked || expiresAt <= now) {
+            return null;
+        }
+
+        long slid = Math.min(now + session.idleTimeout, session.createdAt + maxLifetime);
+        if (slid - expiresAt >= session.slideGranularity) {
+            // Racing validations may both write; either value is a valid expiry
+            session.expiresAt = slid;
+            if (session.dirty.compareAndSet(false, true)) {
+                touched.add(session);
+            }
+        }
+        return session.userId;
+    }
+
+    public void revoke(String token) {
+        if (token != null) {
+            Session session = sessions.get(hash(token));
+            if (session != null) {
+                remove(session);
+            }
+        }
+    }
+
+    /** Ends every session of a user, e.g. after a password change or deactivation. */
+    public void revokeAll(Long userId) {
+        ArrayDeque<Session> userSessions = sessionsByUser.get(userId);
+        if (userSessions != null) {
+            List<Session> snapshot;
+            synchronized (userSessions) {
+                snapshot = new ArrayList<>(userSessions);
+            }
+            snapshot.forEach(this::remove);
+        }
+    }
+
+    public int getActiveSessionCount() {
+        return sessions.size();
+    }
+
+    private void register(Session session) {
+        sessions.put(session.tokenHash, session);
+        List<Session> evicted = new ArrayList<>();
+        sessionsByUser.compute(session.userId, (userId, userSessions) -> {
+            if (userSessions == null) {
+                userSessions = new ArrayDeque<>();
+            }
+            synchronized (userSessions) {
+                userSessions.addLast(session);
+                while (userSessions.size() > maxSessionsPerUser) {
+                    evicted.add(userSessions.pollFirst());
+                }
+            }
+            return userSessions;
+        });
+        evicted.forEach(this::remove);
+        schedule(session);
+    }
+
+    private void remove(Session session) {
+        if (session.revoked) {
+            return;
+        }
+        session.revoked = true;
+        sessions.remove(session.tokenHash, session);
+        sessionsByUser.computeIfPresent(session.userId, (userId, userSessions) -> {
+            synchronized (userSessions) {
+                userSessions.remove(session);
+                return userSessions.isEmpty() ? null : userSessions;
+            }
+        });
+        removed.add(session);
+    }
+
+    private void schedule(Session session) {
+        long tick = Math.max(session.expiresAt / TICK_MILLIS, currentTick + 1);
+        wheel[(int) (tick % WHEEL_SLOTS)].add(session);
+    }
+
+    // Runs on the sweeper thread only
+    private void sweep() {
+        try {
+            long now = System.currentTimeMillis();
+            long targetTick = now / TICK_MILLIS;
+            // After a long pause a full revolution visits every slot once
+            long from = Math.max(currentTick + 1, targetTick - WHEEL_SLOTS + 1);
+            for (long tick = from; tick <= targetTick; tick++) {
+                Queue<Session> slot = wheel[(int) (tick % WHEEL_SLOTS)];
+                List<Session> due = new ArrayList<>();
+                Session session;
+                while ((session = slot.poll()) != null) {
+                    due.add(session);
+                }
+                currentTick = tick;
+                for (Session candidate : due) {
+                    if (candidate.revoked) {
+                        continue;
+                    }
+                    if (candidate.expiresAt <= now) {
+                        remove(candidate);
+                    } else {
+                        // Slid since it was scheduled, or more than one revolution away
+                        schedule(candidate);
+                    }
+                }
+            }
+            currentTick = Math.max(currentTick, targetTick);
+            flush();
+        } catch (RuntimeException e) {
+            logger.error("Session sweep failed", e);
+        }
+    }
+
+    private synchronized void flush() {
+        List<SessionPersistence.StoredSession> createdBatch = new ArrayList<>();
+        List<SessionPersistence.StoredSession> touchedBatch = new ArrayList<>();
+        List<String> removedBatch = new ArrayList<>();
+        List<Session> newlyPersisted = new ArrayList<>();
+        List<Session> drainedCreated = drain(created);
+        List<Session> drainedTouched = drain(touched);
+        List<Session> drainedRemoved = drain(removed);
+
+        for (Session session : drainedCreated) {
+            if (!session.revoked) {
+                createdBatch.add(session.toStored());
+                newlyPersisted.add(session);
+            }
+        }
+        for (Session session : drainedTouched) {
+            session.dirty.set(false);
+            // New sessions are inserted with their latest expiry anyway
+            if (!session.revoked && session.persisted) {
+                touchedBatch.add(session.toStored());
+            }
+        }
+        for (Session session : drainedRemoved) {
+            if (session.persisted) {
+                removedBatch.add(session.tokenHash);
+            }
+        }
+        if (createdBatch.isEmpty() && touchedBatch.isEmpty() && removedBatch.isEmpty()) {
+            return;
+        }
+
+        try {
+            persistence.write(createdBatch, touchedBatch, removedBatch);
+            newlyPersisted.forEach(session -> session.persisted = true);
+        } catch (RuntimeException e) {
+            // Keep the changes for the next tick; the in-memory sessions stay authoritative meanwhile
+            created.addAll(drainedCreated);
+            drainedTouched.forEach(session -> {
+                if (session.dirty.compareAndSet(false, true)) {
+                    touched.add(session);
+                }
+            });
+            removed.addAll(drainedRemoved);
+            logger.warn("Could not persist session changes, retrying on the next sweep", e);
+        }
+    }
+
+    private static List<Session> drain(Queue<Session> queue) {
+        List<Session> drained = new ArrayList<>();
+        Session session;
+        while ((session = queue.poll()) != null) {
+            drained.add(session);
+        }
+        return drained;
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static final class Session {
+        final String tokenHash;
+        final long userId;
+        final long createdAt;
+        final long idleTimeout;
+        // Expiry only moves when it would grow by at least this much, so busy sessions are not rewritten on every request
+        final long slideGranularity;
+        volatile long expiresAt;
+        volatile boolean revoked;
+        // Only read and written under the flush lock once the service has started
+        boolean persisted;
+        final AtomicBoolean dirty = new AtomicBoolean();
+
+        Session(String tokenHash, long userId, long createdAt, long expiresAt, long idleTimeout) {
+            this.tokenHash = tokenHash;
+            this.userId = userId;
+            this.createdAt = createdAt;
+            this.expiresAt = expiresAt;
+            this.idleTimeout = idleTimeout;
+            this.slideGranularity = Math.max(TICK_MILLIS, idleTimeout / 20);
+        }
+
+        SessionPersistence.StoredSession toStored() {
+            return new SessionPersistence.StoredSession(tokenHash, userId, createdAt, expiresAt, idleTimeout);
+        }
+    }
+}
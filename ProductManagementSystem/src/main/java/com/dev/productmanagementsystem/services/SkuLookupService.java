@@ -0,0 +1,281 @@
+package com.dev.productmanagementsystem.services;
+
+import com.dev.productmanagementsystem.dto.ProductSkuDTO;
+import com.dev.productmanagementsystem.entities.Product;
+import com.dev.productmanagementsystem.repositories.ProductRepository;
+import com.dev.productmanagementsystem.utils.AfterCommit;
+import com.dev.productmanagementsystem.utils.SkuIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+/**
+ * Answers SKU scans from memory: a {@link SkuIndex} maps the SKU to the product id and a bounded
+ * LRU cache holds the flat DTO. On a hit neither touches the database.
+ *
+ * The index is loaded in the background at startup and kept current by the product write paths,
+ * after commit. Anything the memory cannot answer (index still loading, unknown SKU, DTO not cached)
+ * goes to the database, so a stale entry costs a query, never a wrong answer: a DTO is only
+ * returned when its SKU equals the one asked for.
+ */
+@Service
+public class SkuLookupService implements SmartInitializingSingleton, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(SkuLookupService.class);
+
+    private final ProductRepository productRepository;
+    private final Map<Long, ProductSkuDTO> products;
+    // Bumped by every eviction; a DTO read from the database before one is not cached
+    private long evictions;
+
+    private volatile SkuIndex index;
+    // SKU changes made while the index loads, replayed on it before it is published
+    private List<Runnable> pendingChanges = new ArrayList<>();
+
+    private final ExecutorService loader = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "sku-index-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public SkuLookupService(ProductRepository productRepository,
+                            @Value("${products.sku.cache-size:100000}") int cacheSize) {
+        this.productRepository = productRepository;
+        this.products = new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, ProductSkuDTO> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        loader.execute(this::load);
+    }
+
+    @Override
+    public void destroy() {
+        loader.shutdownNow();
+    }
+
+    /** The product with exactly this SKU, or null. */
+    public ProductSkuDTO findBySku(String sku) {
+        SkuIndex current = index;
+        if (current != null) {
+            long productId = current.get(sku);
+            if (productId >= 0) {
+                ProductSkuDTO product = cached(productId);
+                if (product == null) {
+                    product = loadByIds(List.of(productId)).get(productId);
+                }
+                if (product != null && sku.equals(product.getSku())) {
+                    return product;
+                }
+            }
+        }
+        // Not indexed yet, stale, or a SKU that only matches under the database collation
+        long seen = evictions();
+        List<Object[]> rows = productRepository.findSkuRowsBySku(sku);
+        if (rows.isEmpty()) {
+            return null;
+        }
+        ProductSkuDTO product = toDTO(rows.get(0));
+        cache(product, seen);
+        return product;
+    }
+
+    /** Up to limit products whose SKU starts with prefix, ordered by SKU. */
+    public List<ProductSkuDTO> findBySkuPrefix(String prefix, int limit) {
+        SkuIndex current = index;
+        if (current == null) {
+            return productRepository.findSkuRowsBySkuStartingWith(prefix, PageRequest.of(0, limit)).stream()
+                    .map(SkuLookupService::toDTO)
+                    .collect(Collectors.toList());
+        }
+        List<Map.Entry<String, Long>> matches = current.prefix(prefix, limit);
+        Map<Long, ProductSkuDTO> found = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Map.Entry<String, Long> match : matches) {
+            ProductSkuDTO product = cached(match.getValue());
+            if (product != null) {
+                found.put(product.getId(), product);
+            } else {
+                missing.add(match.getValue());
+            }
+        }
+        if (!missing.isEmpty()) {
+            found.putAll(loadByIds(missing));
+        }
+        List<ProductSkuDTO> result = new ArrayList<>(matches.size());
+        for (Map.Entry<String, Long> match : matches) {
+            ProductSkuDTO product = found.get(match.getValue());
+            if (product != null && match.getKey().equals(product.getSku())) {
+                result.add(product);
+            }
+        }
+        return result;
+    }
+
+    /** The given products in the same order, from the cache where possible; unknown ids are skipped. */
+    public List<ProductSkuDTO> findByIds(List<Long> productIds) {
+        Map<Long, ProductSkuDTO> found = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long productId : productIds) {
+            ProductSkuDTO product = cached(productId);
+            if (product != null) {
+                found.put(productId, product);
+            } else {
+                missing.add(productId);
+            }
+        }
+        if (!missing.isEmpty()) {
+            found.putAll(loadByIds(missing));
+        }
+        List<ProductSkuDTO> result = new ArrayList<>(productIds.size());
+        for (Long productId : productIds) {
+            ProductSkuDTO product = found.get(productId);
+            if (product != null) {
+                result.add(product);
+            }
+        }
+        return result;
+    }
+
+    // Change hooks, applied once the surrounding transaction has committed
+    public void productSaved(Product product, String previousSku) {
+        long productId = product.getId();
+        String sku = product.getSku();
+        AfterCommit.run(() -> change(productId, () -> {
+            if (previousSku != null && !previousSku.equals(sku)) {
+                index.remove(previousSku, productId);
+            }
+            if (sku != null) {
+                index.put(sku, productId);
+            }
+        }));
+    }
+
+    /** For changes that keep the SKU, such as a scheduled price taking effect. */
+    public void productChanged(Long productId) {
+        AfterCommit.run(() -> change(productId, () -> {}));
+    }
+
+    public void productDeleted(Long productId, String sku) {
+        AfterCommit.run(() -> change(productId, () -> {
+            if (sku != null) {
+                index.remove(sku, productId);
+            }
+        }));
+    }
+
+    /** Category names are part of the DTO; renames are rare, so the whole cache goes. */
+    public void categoriesChanged() {
+        AfterCommit.run(() -> {
+            synchronized (products) {
+                evictions++;
+                products.clear();
+            }
+        });
+    }
+
+    private synchronized void change(long productId, Runnable indexChange) {
+        evict(productId);
+        if (index == null) {
+            if (pendingChanges != null) {
+                pendingChanges.add(indexChange);
+            }
+            return;
+        }
+        indexChange.run();
+        if (index.needsMerge()) {
+            index.merge();
+        }
+    }
+
+    private void load() {
+        long start = System.nanoTime();
+        try {
+            List<Object[]> rows = productRepository.findAllSkusAndIds();
+            List<String> skus = new ArrayList<>(rows.size());
+            List<Long> ids = new ArrayList<>(rows.size());
+            for (Object[] row : rows) {
+                skus.add((String) row[0]);
+                ids.add((Long) row[1]);
+            }
+            SkuIndex loaded = SkuIndex.build(skus, ids);
+            synchronized (this) {
+                index = loaded;
+                pendingChanges.forEach(Runnable::run);
+                pendingChanges = null;
+            }
+            logger.info("SKU index loaded with {} products in {} ms",
+                    loaded.size(), (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException e) {
+            // Lookups keep using the database
+            logger.error("Loading the SKU index failed", e);
+            synchronized (this) {
+                pendingChanges = null;
+            }
+        }
+    }
+
+    private ProductSkuDTO cached(long productId) {
+        synchronized (products) {
+            return products.get(productId);
+        }
+    }
+
+    private long evictions() {
+        synchronized (products) {
+            return evictions;
+        }
+    }
+
+    private void cache(ProductSkuDTO product, long seenEvictions) {
+        synchronized (products) {
+            if (evictions == seenEvictions) {
+                products.put(product.getId(), product);
+            }
+        }
+    }
+
+    private void evict(long productId) {
+        synchronized (products) {
+            evictions++;
+            products.remove(productId);
+        }
+    }
+
+    private Map<Long, ProductSkuDTO> loadByIds(List<Long> productIds) {
+        Map<Long, ProductSkuDTO> loaded = new HashMap<>();
+        long seen = evictions();
+        for (Object[] row : productRepository.findSkuRowsByIdIn(productIds)) {
+            ProductSkuDTO product = toDTO(row);
+            loaded.put(product.getId(), product);
+            cache(product, seen);
+        }
+        return loaded;
+    }
+
+    private static ProductSkuDTO toDTO(Object[] row) {
+        return new ProductSkuDTO((Long) row[0], (String) row[1], (String) row[2], (BigDecimal) row[3],
+                (Long) row[4], (String) row[5]);
+    }
+}
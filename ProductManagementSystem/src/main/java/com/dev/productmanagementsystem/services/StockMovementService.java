@@ -28,16 +28,22 @@ public class StockMovementService {
     private final ProductRepository productRepository;
     private final WarehouseRepository warehouseRepository;
     private final UserRepository userRepository;
+    private final ProductFacetService productFacetService;
+    private final CatalogChangeService catalogChangeService;
 
     @Autowired
     public StockMovementService(StockMovementRepository stockMovementRepository,
                                 ProductRepository productRepository,
                                 WarehouseRepository warehouseRepository,
-                                UserRepository userRepository) {
+                                UserRepository userRepository,
+                                ProductFacetService productFacetService,
+                                CatalogChangeService catalogChangeService) {
         this.stockMovementRepository = stockMovementRepository;
         this.productRepository = productRepository;
         this.warehouseRepository = warehouseRepository;
         this.userRepository = userRepository;
+        this.productFacetService = productFacetService;
+        this.catalogChangeService = catalogChangeService;
     }
 
     /**
@@ -263,6 +269,8 @@ public class StockMovementService {
 
         // Save both product and movement
         productRepository.save(product);
+        productFacetService.productChanged(product.getId());
+        catalogChangeService.productChanged(product.getId());
         StockMovement updatedMovement = stockMovementRepository.save(movement);
 
         return convertToDTO(updatedMovement);
@@ -0,0 +1,56 @@
+package com.dev.productmanagementsystem.services;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Verifies the bearer access token once per request and attaches an {@link AuthenticatedUser}.
+ * The principal's permissions come from the role bitsets in {@link RoleGraphCache}, not
+ * from the token, so permission changes on a role apply immediately. Requests without a valid
+ * token continue unauthenticated and are rejected by the URL rules where authentication is required.
+ */
+public class TokenAuthenticationFilter extends OncePerRequestFilter {
+
+    private static final String BEARER = "Bearer ";
+
+    private final AccessTokenService accessTokenService;
+    private final RoleGraphCache roleGraphCache;
+
+    public TokenAuthenticationFilter(AccessTokenService accessTokenService, RoleGraphCache roleGraphCache) {
+        this.accessTokenService = accessTokenService;
+        this.roleGraphCache = roleGraphCache;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header != null && header.startsWith(BEARER)) {
+            AccessTokenService.Claims claims = accessTokenService.verify(header.substring(BEARER.length()));
+            if (claims != null) {
+                AuthenticatedUser principal = new AuthenticatedUser(claims.getUserId(), claims.getUsername(),
+                        claims.getRoleIds(), claims.getRoleNames(), roleGraphCache.forRoles(claims.getRoleIds()));
+                List<SimpleGrantedAuthority> authorities = new ArrayList<>(claims.getRoleNames().size());
+                for (String roleName : claims.getRoleNames()) {
+                    authorities.add(new SimpleGrantedAuthority(roleName));
+                }
+                SecurityContext context = SecurityContextHolder.createEmptyContext();
+                context.setAuthentication(UsernamePasswordAuthenticationToken.authenticated(principal, null, authorities));
+                SecurityContextHolder.setContext(context);
+            }
+        }
+        chain.doFilter(request, response);
+    }
+}
@@ -1,5 +1,6 @@
 package com.dev.productmanagementsystem.services;
 
+import com.dev.productmanagementsystem.dto.UserCredentials;
 import com.dev.productmanagementsystem.entities.Role;
 import com.dev.productmanagementsystem.entities.User;
 import com.dev.productmanagementsystem.exceptions.DuplicateResourceException;
@@ -11,9 +12,16 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 public class UserService {
@@ -21,12 +29,20 @@ public class UserService {
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
     private final PasswordEncoder passwordEncoder;
+    private final AccessTokenService accessTokenService;
+    private final SessionTokenService sessionTokenService;
+    private final RoleGraphCache roleGraphCache;
 
     @Autowired
-    public UserService(UserRepository userRepository, RoleRepository roleRepository, PasswordEncoder passwordEncoder) {
+    public UserService(UserRepository userRepository, RoleRepository roleRepository, PasswordEncoder passwordEncoder,
+                       AccessTokenService accessTokenService, SessionTokenService sessionTokenService,
+                       RoleGraphCache roleGraphCache) {
         this.userRepository = userRepository;
         this.roleRepository = roleRepository;
         this.passwordEncoder = passwordEncoder;
+        this.accessTokenService = accessTokenService;
+        this.sessionTokenService = sessionTokenService;
+        this.roleGraphCache = roleGraphCache;
     }
 
     public List<User> findAll() {
@@ -41,23 +57,66 @@ public class UserService {
         return userRepository.findByUsername(username);
     }
 
+    // Login fields and role names in one query, without hydrating the User entity
+    public Optional<UserCredentials> findCredentialsByUsername(String username) {
+        return toCredentials(userRepository.findCredentialRowsByUsername(username));
+    }
+
+    public Optional<UserCredentials> findCredentialsById(Long userId) {
+        return toCredentials(userRepository.findCredentialRowsById(userId));
+    }
+
     public User save(User user) {
         user.setPassword(passwordEncoder.encode(user.getPassword()));
-        return userRepository.save(user);
+        boolean rolesChanged = user.getId() == null ? !roleIds(user).isEmpty() : rolesChanged(user);
+        User savedUser = userRepository.save(user);
+        if (rolesChanged) {
+            roleGraphCache.graphChanged();
+        }
+        return savedUser;
     }
 
     public User update(User user) {
+        validateCreditLimit(user.getCreditLimit());
         Optional<User> existingUser = userRepository.findById(user.getId());
-        if (existingUser.isPresent() && !existingUser.get().getPassword().equals(user.getPassword())) {
+        boolean passwordChanged = false;
+        if (existingUser.isPresent() && (user.getPassword() == null || user.getPassword().isEmpty())) {
+            // No new password given, keep the current hash
+            user.setPassword(existingUser.get().getPassword());
+        } else if (existingUser.isPresent() && !existingUser.get().getPassword().equals(user.getPassword())) {
             user.setPassword(passwordEncoder.encode(user.getPassword()));
+            passwordChanged = true;
         }
-        return userRepository.save(user);
+        boolean rolesChanged = rolesChanged(user);
+        User savedUser = userRepository.save(user);
+        if (rolesChanged) {
+            roleGraphCache.graphChanged();
+        }
+        if (passwordChanged || !savedUser.isActive()) {
+            signOut(savedUser.getId());
+        }
+        return savedUser;
+    }
+
+    /**
+     * Stores a rehash of a password that was just verified against {@code verifiedHash}, e.g. after
+     * the algorithm or cost changed. Does nothing if the password was changed in the meantime.
+     */
+    @Transactional
+    public boolean upgradePasswordHash(Long userId, String verifiedHash, String newHash) {
+        return userRepository.replacePasswordHash(userId, verifiedHash, newHash) > 0;
     }
 
     public void delete(Long id) {
+        boolean hadRoles = roleGraphCache.roleIdsOfUser(id).length > 0;
         userRepository.deleteById(id);
+        if (hadRoles) {
+            roleGraphCache.graphChanged();
+        }
+        signOut(id);
     }
 
+    @Transactional
     public User assignRole(Long userId, Long roleId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new IllegalArgumentException("User not found"));
@@ -67,13 +126,18 @@ public class UserService {
         if (user.getRoles() == null) {
             user.setRoles(new HashSet<>());
         }
-        user.getRoles().add(role);
+        boolean added = user.getRoles().add(role);
 
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        if (added) {
+            roleGraphCache.graphChanged();
+        }
+        return savedUser;
     }
 
+    // Ids from the role graph, then one query for the users themselves
     public List<User> findUsersByRole(String roleName) {
-        return userRepository.findByRoles_Name(roleName);
+        return findAllByIds(roleGraphCache.userIdsWithRole(roleName));
     }
 
     public List<User> findActiveUsers() {
@@ -101,6 +165,7 @@ public class UserService {
         Role role = roleRepository.findByName(roleName)
                 .orElseThrow(() -> new ResourceNotFoundException("Role not found with name: " + roleName));
 
+        validateCreditLimit(user.getCreditLimit());
         user.setPassword(passwordEncoder.encode(user.getPassword()));
         user.setActive(true);
 
@@ -109,7 +174,9 @@ public class UserService {
         }
         user.getRoles().add(role);
 
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        roleGraphCache.graphChanged();
+        return savedUser;
     }
 
     @Transactional
@@ -122,24 +189,22 @@ public class UserService {
         }
 
         user.setPassword(passwordEncoder.encode(newPassword));
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        signOut(userId);
+        return savedUser;
     }
 
+    // A bit test on the cached role graph; only users without roles need a query, to tell them from unknown ids
     public boolean hasPermission(Long userId, String permissionName) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
-
-        if (user.getRoles() == null || user.getRoles().isEmpty()) {
-            return false;
+        long[] roleIds = roleGraphCache.roleIdsOfUser(userId);
+        if (roleIds.length == 0 && !userRepository.existsById(userId)) {
+            throw new ResourceNotFoundException("User not found with id: " + userId);
         }
-
-        return user.getRoles().stream()
-                .flatMap(role -> role.getPermissions().stream())
-                .anyMatch(permission -> permission.getName().equals(permissionName));
+        return roleGraphCache.hasPermission(roleGraphCache.forRoles(roleIds), permissionName);
     }
 
     public List<User> findUsersWithPermission(String permissionName) {
-        return userRepository.findByRoles_Permissions_Name(permissionName);
+        return findAllByIds(roleGraphCache.userIdsWithPermission(permissionName));
     }
 
     public User activateUser(Long userId) {
@@ -153,6 +218,61 @@ public class UserService {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new IllegalArgumentException("User not found"));
         user.setActive(false);
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        signOut(userId);
+        return savedUser;
+    }
+
+    // Null leaves the customer without a limit; see CreditExposureService
+    private static void validateCreditLimit(BigDecimal creditLimit) {
+        if (creditLimit != null && creditLimit.signum() < 0) {
+            throw new IllegalArgumentException("Credit limit cannot be negative");
+        }
+    }
+
+    // Saves that leave a user's roles as they were keep the cached role graph
+    private boolean rolesChanged(User user) {
+        Set<Long> cached = Arrays.stream(roleGraphCache.roleIdsOfUser(user.getId())).boxed().collect(Collectors.toSet());
+        return !cached.equals(roleIds(user));
+    }
+
+    private static Set<Long> roleIds(User user) {
+        if (user.getRoles() == null) {
+            return Set.of();
+        }
+        return user.getRoles().stream().map(Role::getId).collect(Collectors.toSet());
+    }
+
+    // Access tokens are stateless, so a removed or deactivated user, or one with a new password, has to be revoked explicitly
+    private void signOut(Long userId) {
+        accessTokenService.revokeUser(userId);
+        sessionTokenService.revokeAll(userId);
+    }
+
+    private static Optional<UserCredentials> toCredentials(List<Object[]> rows) {
+        if (rows.isEmpty()) {
+            return Optional.empty();
+        }
+        List<Long> roleIds = new ArrayList<>();
+        List<String> roleNames = new ArrayList<>();
+        for (Object[] row : rows) {
+            // A user without roles comes back as a single row with null role columns
+            if (row[8] != null) {
+                roleIds.add((Long) row[8]);
+                roleNames.add((String) row[9]);
+            }
+        }
+        Object[] user = rows.get(0);
+        return Optional.of(new UserCredentials((Long) user[0], (String) user[1], (String) user[2], (String) user[3],
+                (String) user[4], (String) user[5], (Boolean) user[6], (LocalDateTime) user[7], roleIds, roleNames));
+    }
+
+    private List<User> findAllByIds(long[] userIds) {
+        if (userIds.length == 0) {
+            return new ArrayList<>();
+        }
+        List<User> users = userRepository.findAllById(Arrays.stream(userIds).boxed().collect(Collectors.toList()));
+        users.sort(Comparator.comparing(User::getId));
+        return users;
     }
-}
\ No newline at end of file
+}
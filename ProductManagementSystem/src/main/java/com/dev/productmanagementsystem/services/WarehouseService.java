@@ -19,11 +19,16 @@ public class WarehouseService {
 
     private final WarehouseRepository warehouseRepository;
     private final UserRepository userRepository;
+    private final ProductFacetService productFacetService;
+    private final CatalogChangeService catalogChangeService;
 
     @Autowired
-    public WarehouseService(WarehouseRepository warehouseRepository, UserRepository userRepository) {
+    public WarehouseService(WarehouseRepository warehouseRepository, UserRepository userRepository,
+                            ProductFacetService productFacetService, CatalogChangeService catalogChangeService) {
         this.warehouseRepository = warehouseRepository;
         this.userRepository = userRepository;
+        this.productFacetService = productFacetService;
+        this.catalogChangeService = catalogChangeService;
     }
 
     public List<Warehouse> findAll() {
@@ -104,6 +109,8 @@ public class WarehouseService {
         }
 
         warehouseRepository.updateProductStock(productId, warehouseId, currentStock - quantity);
+        productFacetService.productChanged(productId);
+        catalogChangeService.productChanged(productId);
     }
 
     @Transactional
@@ -114,6 +121,8 @@ public class WarehouseService {
         }
 
         warehouseRepository.updateProductStock(productId, warehouseId, currentStock + quantity);
+        productFacetService.productChanged(productId);
+        catalogChangeService.productChanged(productId);
     }
     
     public List<Product> getLowStockProducts(Long warehouseId, Integer threshold) {
@@ -0,0 +1,33 @@
+package com.dev.productmanagementsystem.utils;
+
+import java.util.Arrays;
+
+/**
+ * Bitsets as plain {@code long[]} words, bit {@code i} in word {@code i / 64}. Used for permission
+ * sets that are unioned, tested and written into access tokens, where {@link java.util.BitSet}
+ * would only add a wrapper. Arrays are only as long as their highest set bit needs; bits past
+ * the end read as clear.
+ */
+public final class Bitsets {
+
+    private Bitsets() {}
+
+    /** Sets a bit, growing the array when needed; returns {@code bits} itself if it was large enough. */
+    public static long[] set(long[] bits, long index) {
+        if (index < 0) {
+            throw new IllegalArgumentException("Bit index cannot be negative: " + index);
+        }
+        int word = Math.toIntExact(index >>> 6);
+        long[] result = word < bits.length ? bits : Arrays.copyOf(bits, word + 1);
+        result[word] |= 1L << index;
+        return result;
+    }
+
+    public static boolean isSet(long[] bits, long index) {
+        if (index < 0) {
+            return false;
+        }
+        long word = index >>> 6;
+        return word < bits.length && (bits[(int) word] & (1L << index)) != 0;
+    }
+}
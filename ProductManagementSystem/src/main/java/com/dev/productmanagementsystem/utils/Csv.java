@@ -0,0 +1,58 @@
+package com.dev.productmanagementsystem.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Single-line CSV records, as read by the file importers and written to their reports.
+ * Quoted fields may contain commas and "" escapes but not line breaks.
+ */
+public final class Csv {
+
+    private Csv() {}
+
+    // Splits one CSV record, honouring double quotes and "" escapes
+    public static List<String> split(String line) {
+        List<String> fields = new ArrayList<>(8);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    // Quotes a value for a report line when it contains a comma, quote or line break
+    public static String field(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
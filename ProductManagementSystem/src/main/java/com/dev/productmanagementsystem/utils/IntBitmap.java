@@ -0,0 +1,394 @@
+package com.dev.productmanagementsystem.utils;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Compressed set of non-negative ints, laid out like a roaring bitmap: values are split by their
+ * high 16 bits into chunks, and each chunk is stored as a sorted array while it holds at most
+ * 4096 values and as a 65536-bit bitset once it holds more. Sparse sets cost two bytes per value,
+ * dense ones one bit, and intersections work chunk by chunk.
+ *
+ * Not thread-safe; callers guard shared instances.
+ */
+public final class IntBitmap {
+
+    private static final int ARRAY_LIMIT = 4096;
+    private static final int BITMAP_WORDS = 1024;
+
+    // Sorted high 16 bits of the chunks, and their containers (char[] or long[]) and cardinalities
+    private char[] keys = new char[0];
+    private Object[] containers = new Object[0];
+    private int[] cardinalities = new int[0];
+    private int chunks;
+
+    public IntBitmap() {}
+
+    private IntBitmap(int capacity) {
+        keys = new char[capacity];
+        containers = new Object[capacity];
+        cardinalities = new int[capacity];
+    }
+
+    public boolean add(int value) {
+        char high = (char) (value >>> 16);
+        char low = (char) value;
+        int index = chunkIndex(high);
+        if (index < 0) {
+            index = -index - 1;
+            insertChunk(index, high, new char[4], 0);
+        }
+        Object container = containers[index];
+        int cardinality = cardinalities[index];
+        if (container instanceof long[] bits) {
+            long mask = 1L << low;
+            if ((bits[low >>> 6] & mask) != 0) {
+                return false;
+            }
+            bits[low >>> 6] |= mask;
+        } else {
+            char[] values = (char[]) container;
+            int position = Arrays.binarySearch(values, 0, cardinality, low);
+            if (position >= 0) {
+                return false;
+            }
+            position = -position - 1;
+            if (cardinality == ARRAY_LIMIT) {
+                long[] bits = toBits(values, cardinality);
+                bits[low >>> 6] |= 1L << low;
+                containers[index] = bits;
+            } else {
+                if (cardinality == values.length) {
+                    values = Arrays.copyOf(values, Math.min(ARRAY_LIMIT, cardinality * 2));
+                    containers[index] = values;
+                }
+                System.arraycopy(values, position, values, position + 1, cardinality - position);
+                values[position] = low;
+            }
+        }
+        cardinalities[index] = cardinality + 1;
+        return true;
+    }
+
+    public boolean remove(int value) {
+        int index = chunkIndex((char) (value >>> 16));
+        if (index < 0) {
+            return false;
+        }
+        char low = (char) value;
+        Object container = containers[index];
+        int cardinality = cardinalities[index];
+        if (container instanceof long[] bits) {
+            long mask = 1L << low;
+            if ((bits[low >>> 6] & mask) == 0) {
+                return false;
+            }
+            bits[low >>> 6] &= ~mask;
+            if (cardinality - 1 == ARRAY_LIMIT) {
+                containers[index] = toValues(bits, ARRAY_LIMIT);
+            }
+        } else {
+            char[] values = (char[]) container;
+            int position = Arrays.binarySearch(values, 0, cardinality, low);
+            if (position < 0) {
+                return false;
+            }
+            System.arraycopy(values, position + 1, values, position, cardinality - position - 1);
+        }
+        if (cardinality == 1) {
+            removeChunk(index);
+        } else {
+            cardinalities[index] = cardinality - 1;
+        }
+        return true;
+    }
+
+    public boolean contains(int value) {
+        int index = chunkIndex((char) (value >>> 16));
+        if (index < 0) {
+            return false;
+        }
+        char low = (char) value;
+        Object container = containers[index];
+        if (container instanceof long[] bits) {
+            return (bits[low >>> 6] & (1L << low)) != 0;
+        }
+        return Arrays.binarySearch((char[]) container, 0, cardinalities[index], low) >= 0;
+    }
+
+    public long cardinality() {
+        long total = 0;
+        for (int i = 0; i < chunks; i++) {
+            total += cardinalities[i];
+        }
+        return total;
+    }
+
+    public boolean isEmpty() {
+        return chunks == 0;
+    }
+
+    /** Calls the consumer with every value, ascending. */
+    public void forEach(IntConsumer consumer) {
+        for (int i = 0; i < chunks; i++) {
+            int base = keys[i] << 16;
+            Object container = containers[i];
+            if (container instanceof long[] bits) {
+                for (int word = 0; word < BITMAP_WORDS; word++) {
+                    long remaining = bits[word];
+                    while (remaining != 0) {
+                        consumer.accept(base | (word << 6) | Long.numberOfTrailingZeros(remaining));
+                        remaining &= remaining - 1;
+                    }
+                }
+            } else {
+                char[] values = (char[]) container;
+                for (int j = 0; j < cardinalities[i]; j++) {
+                    consumer.accept(base | values[j]);
+                }
+            }
+        }
+    }
+
+    /** Up to limit values, ascending, after skipping the first offset; whole chunks are skipped by cardinality. */
+    public int[] page(long offset, int limit) {
+        int[] values = new int[(int) Math.max(0, Math.min(limit, cardinality() - offset))];
+        int n = 0;
+        long skip = offset;
+        for (int i = 0; i < chunks && n < values.length; i++) {
+            if (skip >= cardinalities[i]) {
+                skip -= cardinalities[i];
+                continue;
+            }
+            int base = keys[i] << 16;
+            Object container = containers[i];
+            if (container instanceof long[] bits) {
+                for (int word = 0; word < BITMAP_WORDS && n < values.length; word++) {
+                    long remaining = bits[word];
+                    while (remaining != 0 && n < values.length) {
+                        if (skip > 0) {
+                            skip--;
+                        } else {
+                            values[n++] = base | (word << 6) | Long.numberOfTrailingZeros(remaining);
+                        }
+                        remaining &= remaining - 1;
+                    }
+                }
+            } else {
+                char[] chunk = (char[]) container;
+                for (int j = (int) skip; j < cardinalities[i] && n < values.length; j++) {
+                    values[n++] = base | chunk[j];
+                }
+                skip = 0;
+            }
+        }
+        return values;
+    }
+
+    public IntBitmap copy() {
+        IntBitmap copy = new IntBitmap(chunks);
+        copy.chunks = chunks;
+        System.arraycopy(keys, 0, copy.keys, 0, chunks);
+        System.arraycopy(cardinalities, 0, copy.cardinalities, 0, chunks);
+        for (int i = 0; i < chunks; i++) {
+            Object container = containers[i];
+            copy.containers[i] = container instanceof long[] bits ? bits.clone()
+                    : Arrays.copyOf((char[]) container, cardinalities[i]);
+        }
+        return copy;
+    }
+
+    /** Values in both bitmaps, as a new bitmap. */
+    public static IntBitmap and(IntBitmap a, IntBitmap b) {
+        IntBitmap result = new IntBitmap(Math.min(a.chunks, b.chunks));
+        int i = 0;
+        int j = 0;
+        while (i < a.chunks && j < b.chunks) {
+            if (a.keys[i] < b.keys[j]) {
+                i++;
+            } else if (a.keys[i] > b.keys[j]) {
+                j++;
+            } else {
+                Object container = andContainers(a.containers[i], a.cardinalities[i], b.containers[j], b.cardinalities[j]);
+                int cardinality = containerCardinality(container);
+                if (cardinality > 0) {
+                    if (container instanceof long[] bits && cardinality <= ARRAY_LIMIT) {
+                        container = toValues(bits, cardinality);
+                    }
+                    result.keys[result.chunks] = a.keys[i];
+                    result.containers[result.chunks] = container;
+                    result.cardinalities[result.chunks] = cardinality;
+                    result.chunks++;
+                }
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /** Size of the intersection, without building it. */
+    public static long andCardinality(IntBitmap a, IntBitmap b) {
+        long total = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.chunks && j < b.chunks) {
+            if (a.keys[i] < b.keys[j]) {
+                i++;
+            } else if (a.keys[i] > b.keys[j]) {
+                j++;
+            } else {
+                Object x = a.containers[i];
+                Object y = b.containers[j];
+                if (x instanceof long[] xBits && y instanceof long[] yBits) {
+                    for (int word = 0; word < BITMAP_WORDS; word++) {
+                        total += Long.bitCount(xBits[word] & yBits[word]);
+                    }
+                } else {
+                    total += containerCardinality(andContainers(x, a.cardinalities[i], y, b.cardinalities[j]));
+                }
+                i++;
+                j++;
+            }
+        }
+        return total;
+    }
+
+    /** Adds every value of other to this bitmap. */
+    public void or(IntBitmap other) {
+        for (int j = 0; j < other.chunks; j++) {
+            int index = chunkIndex(other.keys[j]);
+            Object theirs = other.containers[j];
+            if (index < 0) {
+                index = -index - 1;
+                Object copy = theirs instanceof long[] bits ? bits.clone()
+                        : Arrays.copyOf((char[]) theirs, Math.max(4, other.cardinalities[j]));
+                insertChunk(index, other.keys[j], copy, other.cardinalities[j]);
+                continue;
+            }
+            long[] bits = containers[index] instanceof long[] ours ? ours
+                    : toBits((char[]) containers[index], cardinalities[index]);
+            if (theirs instanceof long[] theirBits) {
+                for (int word = 0; word < BITMAP_WORDS; word++) {
+                    bits[word] |= theirBits[word];
+                }
+            } else {
+                char[] values = (char[]) theirs;
+                for (int k = 0; k < other.cardinalities[j]; k++) {
+                    bits[values[k] >>> 6] |= 1L << values[k];
+                }
+            }
+            int cardinality = containerCardinality(bits);
+            containers[index] = cardinality <= ARRAY_LIMIT ? toValues(bits, cardinality) : bits;
+            cardinalities[index] = cardinality;
+        }
+    }
+
+    private static Object andContainers(Object x, int xCardinality, Object y, int yCardinality) {
+        if (x instanceof long[] xBits && y instanceof long[] yBits) {
+            long[] bits = new long[BITMAP_WORDS];
+            for (int word = 0; word < BITMAP_WORDS; word++) {
+                bits[word] = xBits[word] & yBits[word];
+            }
+            return bits;
+        }
+        if (x instanceof long[] xBits) {
+            return filter((char[]) y, yCardinality, xBits);
+        }
+        if (y instanceof long[] yBits) {
+            return filter((char[]) x, xCardinality, yBits);
+        }
+        // Two sorted arrays: merge
+        char[] xValues = (char[]) x;
+        char[] yValues = (char[]) y;
+        char[] values = new char[Math.min(xCardinality, yCardinality)];
+        int n = 0;
+        int i = 0;
+        int j = 0;
+        while (i < xCardinality && j < yCardinality) {
+            if (xValues[i] < yValues[j]) {
+                i++;
+            } else if (xValues[i] > yValues[j]) {
+                j++;
+            } else {
+                values[n++] = xValues[i];
+                i++;
+                j++;
+            }
+        }
+        return n == values.length ? values : Arrays.copyOf(values, n);
+    }
+
+    private static char[] filter(char[] values, int cardinality, long[] bits) {
+        char[] kept = new char[cardinality];
+        int n = 0;
+        for (int i = 0; i < cardinality; i++) {
+            char value = values[i];
+            if ((bits[value >>> 6] & (1L << value)) != 0) {
+                kept[n++] = value;
+            }
+        }
+        return n == kept.length ? kept : Arrays.copyOf(kept, n);
+    }
+
+    // Exact for arrays built by andContainers and filter, which are trimmed to size
+    private static int containerCardinality(Object container) {
+        if (container instanceof long[] bits) {
+            int cardinality = 0;
+            for (long word : bits) {
+                cardinality += Long.bitCount(word);
+            }
+            return cardinality;
+        }
+        return ((char[]) container).length;
+    }
+
+    private static long[] toBits(char[] values, int cardinality) {
+        long[] bits = new long[BITMAP_WORDS];
+        for (int i = 0; i < cardinality; i++) {
+            bits[values[i] >>> 6] |= 1L << values[i];
+        }
+        return bits;
+    }
+
+    private static char[] toValues(long[] bits, int cardinality) {
+        char[] values = new char[Math.max(4, cardinality)];
+        int n = 0;
+        for (int word = 0; word < BITMAP_WORDS; word++) {
+            long remaining = bits[word];
+            while (remaining != 0) {
+                values[n++] = (char) ((word << 6) | Long.numberOfTrailingZeros(remaining));
+                remaining &= remaining - 1;
+            }
+        }
+        return values;
+    }
+
+    private int chunkIndex(char high) {
+        return Arrays.binarySearch(keys, 0, chunks, high);
+    }
+
+    private void insertChunk(int index, char high, Object container, int cardinality) {
+        if (chunks == keys.length) {
+            int capacity = Math.max(4, chunks * 2);
+            keys = Arrays.copyOf(keys, capacity);
+            containers = Arrays.copyOf(containers, capacity);
+            cardinalities = Arrays.copyOf(cardinalities, capacity);
+        }
+        System.arraycopy(keys, index, keys, index + 1, chunks - index);
+        System.arraycopy(containers, index, containers, index + 1, chunks - index);
+        System.arraycopy(cardinalities, index, cardinalities, index + 1, chunks - index);
+        keys[index] = high;
+        containers[index] = container;
+        cardinalities[index] = cardinality;
+        chunks++;
+    }
+
+    private void removeChunk(int index) {
+        System.arraycopy(keys, index + 1, keys, index, chunks - index - 1);
+        System.arraycopy(containers, index + 1, containers, index, chunks - index - 1);
+        System.arraycopy(cardinalities, index + 1, cardinalities, index, chunks - index - 1);
+        chunks--;
+        containers[chunks] = null;
+    }
+}
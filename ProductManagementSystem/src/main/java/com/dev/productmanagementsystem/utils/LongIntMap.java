@@ -0,0 +1,91 @@
+package com.dev.productmanagementsystem.utils;
+
+import java.util.Arrays;
+
+/** Open addressing long -> int map with linear probing, without boxing; -1 means absent. */
+public final class LongIntMap {
+    private static final long EMPTY = Long.MIN_VALUE;
+    private long[] keys = newKeys(1024);
+    private int[] values = new int[1024];
+    private int size;
+
+    public int get(long key) {
+        int slot = find(key);
+        return keys[slot] == key ? values[slot] : -1;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int put(long key, int value) {
+        if ((size + 1) * 2 > keys.length) {
+            resize();
+        }
+        int slot = find(key);
+        if (keys[slot] == key) {
+            int previous = values[slot];
+            values[slot] = value;
+            return previous;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+        return -1;
+    }
+
+    public int remove(long key) {
+        int slot = find(key);
+        if (keys[slot] != key) {
+            return -1;
+        }
+        int removed = values[slot];
+        keys[slot] = EMPTY;
+        size--;
+        // Shift back the entries that probed past the freed slot
+        int mask = keys.length - 1;
+        int next = (slot + 1) & mask;
+        while (keys[next] != EMPTY) {
+            long movedKey = keys[next];
+            int movedValue = values[next];
+            keys[next] = EMPTY;
+            size--;
+            put(movedKey, movedValue);
+            next = (next + 1) & mask;
+        }
+        return removed;
+    }
+
+    private int find(long key) {
+        int mask = keys.length - 1;
+        int slot = (int) (mix(key) & mask);
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = newKeys(oldKeys.length * 2);
+        values = new int[oldKeys.length * 2];
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private static long[] newKeys(int capacity) {
+        long[] keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        return keys;
+    }
+
+    private static long mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 32);
+    }
+}
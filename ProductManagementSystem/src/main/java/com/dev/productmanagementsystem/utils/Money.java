@@ -0,0 +1,224 @@
+package com.dev.productmanagementsystem.utils;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Immutable monetary amount stored as a whole number of minor units (cents).
+ *
+ * The scale matches the DECIMAL(10, 2) money columns, so entities keep their
+ * BigDecimal fields and only convert at the persistence boundary. All arithmetic
+ * runs on a single long and never allocates intermediate BigDecimals.
+ */
+public final class Money implements Comparable<Money> {
+
+    public static final int SCALE = 2;
+    public static final Money ZERO = new Money(0L);
+
+    // Rounding applied when a value has more decimals than the column can hold
+    public static final RoundingMode DEFAULT_ROUNDING = RoundingMode.HALF_UP;
+
+    private static final long BASIS_POINTS_PER_UNIT = 10_000L;
+    private static final long NOT_EXACT = Long.MIN_VALUE;
+
+    // Below this magnitude a value with at most two decimals survives a round trip through double
+    private static final double MAX_EXACT_AMOUNT = 1e13;
+
+    private final long minorUnits;
+
+    private Money(long minorUnits) {
+        this.minorUnits = minorUnits;
+    }
+
+    // Factory methods
+    public static Money ofMinor(long minorUnits) {
+        return new Money(minorUnits);
+    }
+
+    public static Money of(BigDecimal amount) {
+        return of(amount, DEFAULT_ROUNDING);
+    }
+
+    public static Money of(BigDecimal amount, RoundingMode roundingMode) {
+        if (amount == null) {
+            throw new IllegalArgumentException("Amount cannot be null");
+        }
+        long minorUnits = toHundredthsExact(amount);
+        if (minorUnits != NOT_EXACT) {
+            return ofMinor(minorUnits);
+        }
+        return ofMinor(amount.setScale(SCALE, roundingMode).unscaledValue().longValueExact());
+    }
+
+    // Treats a missing amount as zero, mirroring how nullable money columns are summed
+    public static Money ofNullable(BigDecimal amount) {
+        return amount == null ? ZERO : of(amount);
+    }
+
+    // Getters
+    public long getMinorUnits() {
+        return minorUnits;
+    }
+
+    public int signum() {
+        return Long.signum(minorUnits);
+    }
+
+    public boolean isZero() {
+        return minorUnits == 0L;
+    }
+
+    // Arithmetic
+    public Money plus(Money other) {
+        return ofMinor(Math.addExact(minorUnits, other.minorUnits));
+    }
+
+    public Money minus(Money other) {
+        return ofMinor(Math.subtractExact(minorUnits, other.minorUnits));
+    }
+
+    public Money times(long quantity) {
+        return ofMinor(Math.multiplyExact(minorUnits, quantity));
+    }
+
+    public Money negate() {
+        return ofMinor(Math.negateExact(minorUnits));
+    }
+
+    /**
+     * Returns {@code percent}% of this amount, rounded to cents with the given mode.
+     * Rates with up to two decimals (e.g. 23.00) are handled as basis points in long
+     * arithmetic; anything else, or a product that would overflow, falls back to BigDecimal.
+     */
+    public Money percentOf(BigDecimal percent, RoundingMode roundingMode) {
+        if (percent == null) {
+            throw new IllegalArgumentException("Percent cannot be null");
+        }
+        long basisPoints = toHundredthsExact(percent);
+        if (basisPoints != NOT_EXACT) {
+            long high = Math.multiplyHigh(minorUnits, basisPoints);
+            long low = minorUnits * basisPoints;
+            if ((high == 0L && low >= 0L) || (high == -1L && low < 0L)) {
+                return ofMinor(divide(low, BASIS_POINTS_PER_UNIT, roundingMode));
+            }
+        }
+        BigDecimal exact = toBigDecimal().multiply(percent).movePointLeft(2);
+        return of(exact, roundingMode);
+    }
+
+    /**
+     * Returns this amount plus {@code percent}% of it without rounding: at scale 4, or at scale 6
+     * when a rate's second decimal needs it. Rates with up to two decimals take one long multiply
+     * by basis points; anything else, or a product that would overflow, falls back to BigDecimal.
+     */
+    public BigDecimal plusPercentExact(BigDecimal percent) {
+        if (percent == null) {
+            throw new IllegalArgumentException("Percent cannot be null");
+        }
+        long basisPoints = toHundredthsExact(percent);
+        if (basisPoints != NOT_EXACT) {
+            long factor = BASIS_POINTS_PER_UNIT + basisPoints;
+            long high = Math.multiplyHigh(minorUnits, factor);
+            long low = minorUnits * factor;
+            if ((high == 0L && low >= 0L) || (high == -1L && low < 0L)) {
+                // low is the result in millionths
+                return low % 100L == 0L ? BigDecimal.valueOf(low / 100L, 4) : BigDecimal.valueOf(low, 6);
+            }
+        }
+        BigDecimal amount = toBigDecimal();
+        return amount.add(amount.multiply(percent).movePointLeft(2));
+    }
+
+    // Conversion back to the persistence representation
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Money)) return false;
+        return minorUnits == ((Money) o).minorUnits;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(minorUnits);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+
+    /**
+     * Returns {@code value * 100} when it is a whole number, without allocating.
+     * BigDecimal.doubleValue() is correctly rounded, and for |value| < 1e13 the scaled
+     * result stays below 2^50, so rounding it back recovers the exact unscaled value.
+     * Returns NOT_EXACT when the value has more than two decimals or is too large.
+     */
+    private static long toHundredthsExact(BigDecimal value) {
+        int scale = value.scale();
+        if (scale < 0 || scale > SCALE) {
+            return NOT_EXACT;
+        }
+        double doubleValue = value.doubleValue();
+        if (!(Math.abs(doubleValue) < MAX_EXACT_AMOUNT)) {
+            return NOT_EXACT;
+        }
+        return Math.round(doubleValue * 100);
+    }
+
+    // Integer division with the same semantics as BigDecimal rounding modes
+    static long divide(long dividend, long divisor, RoundingMode roundingMode) {
+        long quotient = dividend / divisor;
+        long remainder = dividend % divisor;
+        if (remainder == 0L) {
+            return quotient;
+        }
+
+        int sign = (dividend < 0L) == (divisor < 0L) ? 1 : -1;
+        boolean increment;
+        switch (roundingMode) {
+            case UP:
+                increment = true;
+                break;
+            case DOWN:
+                increment = false;
+                break;
+            case CEILING:
+                increment = sign > 0;
+                break;
+            case FLOOR:
+                increment = sign < 0;
+                break;
+            case HALF_UP:
+            case HALF_DOWN:
+            case HALF_EVEN: {
+                long twiceRemainder = Math.abs(remainder) * 2;
+                long absDivisor = Math.abs(divisor);
+                if (twiceRemainder > absDivisor) {
+                    increment = true;
+                } else if (twiceRemainder < absDivisor) {
+                    increment = false;
+                } else if (roundingMode == RoundingMode.HALF_UP) {
+                    increment = true;
+                } else if (roundingMode == RoundingMode.HALF_DOWN) {
+                    increment = false;
+                } else {
+                    increment = (quotient & 1L) != 0L;
+                }
+                break;
+            }
+            case UNNECESSARY:
+            default:
+                throw new ArithmeticException("Rounding necessary");
+        }
+        return increment ? quotient + sign : quotient;
+    }
+}
@@ -0,0 +1,45 @@
+package com.dev.productmanagementsystem.utils;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Builds the application's password encoder. Stored hashes carry the algorithm as a prefix
+ * ({bcrypt}$2a$10$..., {pbkdf2}...), so the algorithm and cost can change without invalidating
+ * existing passwords: every known prefix still verifies, and
+ * {@link PasswordEncoder#upgradeEncoding(String)} reports hashes that were made with another
+ * algorithm or a lower BCrypt cost than the configured one.
+ *
+ * Hashes stored before the prefixes were introduced are plain BCrypt and are verified as such.
+ */
+public final class PasswordEncoders {
+
+    public static final String BCRYPT = "bcrypt";
+    public static final String PBKDF2 = "pbkdf2";
+
+    private PasswordEncoders() {}
+
+    /**
+     * @param algorithm      id used for new hashes, {@link #BCRYPT} or {@link #PBKDF2}
+     * @param bcryptStrength BCrypt log rounds (4-31); hashes with fewer rounds are upgraded
+     */
+    public static PasswordEncoder create(String algorithm, int bcryptStrength) {
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(bcryptStrength);
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put(BCRYPT, bcrypt);
+        encoders.put(PBKDF2, Pbkdf2PasswordEncoder.defaultsForSpringSecurity_v5_8());
+        if (!encoders.containsKey(algorithm)) {
+            throw new IllegalArgumentException("Unknown password algorithm: " + algorithm);
+        }
+
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(algorithm, encoders);
+        // Unprefixed hashes predate the delegating encoder and are all BCrypt
+        encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        return encoder;
+    }
+}
@@ -0,0 +1,145 @@
+package com.dev.productmanagementsystem.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Minimal PDF 1.4 writer for text documents such as invoices.
+ *
+ * Only the standard Type 1 fonts are used, so nothing is embedded and the output stays small.
+ * Those fonts cover Latin-1 only: text is transliterated to ASCII (accents dropped, "ł" to "l")
+ * before it is written. Coordinates are in points with the origin at the top-left of an A4 page.
+ */
+public final class PdfDocumentWriter {
+
+    public static final float PAGE_WIDTH = 595f;
+    public static final float PAGE_HEIGHT = 842f;
+
+    public enum Font {
+        REGULAR("F1"),
+        BOLD("F2"),
+        // Fixed width (600 units per glyph), used for right-aligned amounts
+        MONOSPACE("F3");
+
+        private final String resourceName;
+
+        Font(String resourceName) {
+            this.resourceName = resourceName;
+        }
+    }
+
+    private static final float MONOSPACE_ADVANCE = 0.6f;
+
+    private final List<StringBuilder> pages = new ArrayList<>();
+    private StringBuilder page;
+
+    public PdfDocumentWriter() {
+        newPage();
+    }
+
+    public void newPage() {
+        page = new StringBuilder();
+        pages.add(page);
+    }
+
+    public int getPageCount() {
+        return pages.size();
+    }
+
+    public void text(float x, float y, Font font, float size, String text) {
+        page.append("BT /").append(font.resourceName).append(' ').append(number(size)).append(" Tf ")
+                .append(number(x)).append(' ').append(number(PAGE_HEIGHT - y)).append(" Td (")
+                .append(escape(toAscii(text))).append(") Tj ET\n");
+    }
+
+    // Right-aligns monospace text so its last glyph ends at x
+    public void textRight(float x, float y, float size, String text) {
+        String ascii = toAscii(text);
+        text(x - ascii.length() * size * MONOSPACE_ADVANCE, y, Font.MONOSPACE, size, ascii);
+    }
+
+    public void line(float x1, float y1, float x2, float y2) {
+        page.append("0.5 w ").append(number(x1)).append(' ').append(number(PAGE_HEIGHT - y1)).append(" m ")
+                .append(number(x2)).append(' ').append(number(PAGE_HEIGHT - y2)).append(" l S\n");
+    }
+
+    public byte[] toByteArray() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(4096);
+        List<Integer> offsets = new ArrayList<>();
+
+        write(out, "%PDF-1.4\n");
+        int fontObjects = 3;
+        int firstPageObject = 3 + fontObjects;
+
+        StringBuilder kids = new StringBuilder();
+        for (int i = 0; i < pages.size(); i++) {
+            kids.append(firstPageObject + i * 2).append(" 0 R ");
+        }
+
+        addObject(out, offsets, "<< /Type /Catalog /Pages 2 0 R >>");
+        addObject(out, offsets, "<< /Type /Pages /Kids [" + kids.toString().trim() + "] /Count " + pages.size() + " >>");
+        addObject(out, offsets, "<< /Type /Font /Subtype /Type1 /BaseFont /Helvetica /Encoding /WinAnsiEncoding >>");
+        addObject(out, offsets, "<< /Type /Font /Subtype /Type1 /BaseFont /Helvetica-Bold /Encoding /WinAnsiEncoding >>");
+        addObject(out, offsets, "<< /Type /Font /Subtype /Type1 /BaseFont /Courier /Encoding /WinAnsiEncoding >>");
+
+        for (int i = 0; i < pages.size(); i++) {
+            int contentObject = firstPageObject + i * 2 + 1;
+            addObject(out, offsets, "<< /Type /Page /Parent 2 0 R /MediaBox [0 0 " + number(PAGE_WIDTH) + " " + number(PAGE_HEIGHT) + "]"
+                    + " /Resources << /Font << /F1 3 0 R /F2 4 0 R /F3 5 0 R >> >> /Contents " + contentObject + " 0 R >>");
+            byte[] content = pages.get(i).toString().getBytes(StandardCharsets.US_ASCII);
+            addObject(out, offsets, "<< /Length " + content.length + " >>\nstream\n"
+                    + new String(content, StandardCharsets.US_ASCII) + "endstream");
+        }
+
+        int xref = out.size();
+        StringBuilder table = new StringBuilder();
+        table.append("xref\n0 ").append(offsets.size() + 1).append('\n');
+        table.append("0000000000 65535 f \n");
+        for (int offset : offsets) {
+            table.append(String.format(Locale.ROOT, "%010d 00000 n \n", offset));
+        }
+        table.append("trailer\n<< /Size ").append(offsets.size() + 1).append(" /Root 1 0 R >>\n");
+        table.append("startxref\n").append(xref).append("\n%%EOF\n");
+        write(out, table.toString());
+        return out.toByteArray();
+    }
+
+    private static void addObject(ByteArrayOutputStream out, List<Integer> offsets, String body) {
+        offsets.add(out.size());
+        write(out, offsets.size() + " 0 obj\n" + body + "\nendobj\n");
+    }
+
+    private static void write(ByteArrayOutputStream out, String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.US_ASCII);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    static String toAscii(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text.replace('ł', 'l').replace('Ł', 'L'), Normalizer.Form.NFD);
+        StringBuilder ascii = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (c >= 0x20 && c < 0x7f) {
+                ascii.append(c);
+            } else if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                ascii.append(Character.isWhitespace(c) ? ' ' : '?');
+            }
+        }
+        return ascii.toString();
+    }
+
+    private static String escape(String text) {
+        return text.replace("\\", "\\\\").replace("(", "\\(").replace(")", "\\)");
+    }
+
+    private static String number(float value) {
+        return value == (int) value ? Integer.toString((int) value) : String.format(Locale.ROOT, "%.2f", value);
+    }
+}
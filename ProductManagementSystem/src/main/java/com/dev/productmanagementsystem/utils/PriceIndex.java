@@ -0,0 +1,138 @@
+package com.dev.productmanagementsystem.utils;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Immutable (price, product id) pairs sorted by price and then id, in two primitive arrays.
+ * Ranges, the cheapest products and percentiles are binary searches and array reads.
+ *
+ * Changes are applied as a batch that produces a new index in one pass over the old one, so
+ * readers holding the old index are never disturbed.
+ */
+public final class PriceIndex {
+
+    public static final PriceIndex EMPTY = new PriceIndex(new long[0], new long[0]);
+
+    // Prices in minor units (cents) and the matching product ids
+    private final long[] prices;
+    private final long[] ids;
+
+    private PriceIndex(long[] prices, long[] ids) {
+        this.prices = prices;
+        this.ids = ids;
+    }
+
+    /** Builds an index from the first count entries of parallel arrays, which are copied; already sorted input is not sorted again. */
+    public static PriceIndex build(long[] prices, long[] ids, int count) {
+        boolean sorted = true;
+        for (int i = 1; i < count && sorted; i++) {
+            sorted = compare(prices[i - 1], ids[i - 1], prices[i], ids[i]) < 0;
+        }
+        if (sorted) {
+            return new PriceIndex(Arrays.copyOf(prices, count), Arrays.copyOf(ids, count));
+        }
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> compare(prices[a], ids[a], prices[b], ids[b]));
+        long[] sortedPrices = new long[count];
+        long[] sortedIds = new long[count];
+        for (int i = 0; i < count; i++) {
+            sortedPrices[i] = prices[order[i]];
+            sortedIds[i] = ids[order[i]];
+        }
+        return new PriceIndex(sortedPrices, sortedIds);
+    }
+
+    /**
+     * A new index with the changes applied: every product in changes is removed, then put back
+     * with its new price unless that price is null.
+     */
+    public PriceIndex apply(Map<Long, Long> changes) {
+        LongIntMap changed = new LongIntMap();
+        for (Long productId : changes.keySet()) {
+            changed.put(productId, 0);
+        }
+        long[] addedPrices = new long[changes.size()];
+        long[] addedIds = new long[changes.size()];
+        int added = 0;
+        for (Map.Entry<Long, Long> change : changes.entrySet()) {
+            if (change.getValue() != null) {
+                addedPrices[added] = change.getValue();
+                addedIds[added] = change.getKey();
+                added++;
+            }
+        }
+        PriceIndex additions = build(addedPrices, addedIds, added);
+
+        // Merge the kept entries with the sorted additions
+        long[] mergedPrices = new long[prices.length + added];
+        long[] mergedIds = new long[prices.length + added];
+        int n = 0;
+        int j = 0;
+        for (int i = 0; i < prices.length; i++) {
+            if (changed.get(ids[i]) >= 0) {
+                continue;
+            }
+            while (j < added && compare(additions.prices[j], additions.ids[j], prices[i], ids[i]) < 0) {
+                mergedPrices[n] = additions.prices[j];
+                mergedIds[n++] = additions.ids[j++];
+            }
+            mergedPrices[n] = prices[i];
+            mergedIds[n++] = ids[i];
+        }
+        while (j < added) {
+            mergedPrices[n] = additions.prices[j];
+            mergedIds[n++] = additions.ids[j++];
+        }
+        return new PriceIndex(Arrays.copyOf(mergedPrices, n), Arrays.copyOf(mergedIds, n));
+    }
+
+    public int size() {
+        return prices.length;
+    }
+
+    public long priceAt(int position) {
+        return prices[position];
+    }
+
+    public long idAt(int position) {
+        return ids[position];
+    }
+
+    /** Position of the first entry priced at or above price. */
+    public int lowerBound(long price) {
+        int low = 0;
+        int high = prices.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (prices[middle] < price) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /** Position after the last entry priced at or below price. */
+    public int upperBound(long price) {
+        return price == Long.MAX_VALUE ? prices.length : lowerBound(price + 1);
+    }
+
+    /** Nearest-rank percentile (0 to 100) of the prices; -1 when the index is empty. */
+    public long percentile(double percent) {
+        if (prices.length == 0) {
+            return -1;
+        }
+        int rank = (int) Math.ceil(percent / 100 * prices.length);
+        return prices[Math.max(0, Math.min(prices.length, rank) - 1)];
+    }
+
+    private static int compare(long priceA, long idA, long priceB, long idB) {
+        int byPrice = Long.compare(priceA, priceB);
+        return byPrice != 0 ? byPrice : Long.compare(idA, idB);
+    }
+}
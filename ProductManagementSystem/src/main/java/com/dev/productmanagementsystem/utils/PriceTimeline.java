@@ -0,0 +1,129 @@
+package com.dev.productmanagementsystem.utils;
+
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * Immutable price versions of one product, sorted by the time they take effect, in parallel
+ * primitive arrays. The price at a point in time is a binary search for the last version that
+ * took effect at or before it. Changes return a new timeline.
+ */
+public final class PriceTimeline {
+
+    /** Stands for "no price" in {@link #centsAt}. */
+    public static final long NO_PRICE = Long.MIN_VALUE;
+
+    // Version ids (0 when not known), effective times in epoch millis, prices in cents, applied flags
+    private final long[] ids;
+    private final long[] from;
+    private final long[] cents;
+    private final boolean[] applied;
+
+    private PriceTimeline(long[] ids, long[] from, long[] cents, boolean[] applied) {
+        this.ids = ids;
+        this.from = from;
+        this.cents = cents;
+        this.applied = applied;
+    }
+
+    public static PriceTimeline of(long id, long from, long cents, boolean applied) {
+        return new PriceTimeline(new long[]{id}, new long[]{from}, new long[]{cents}, new boolean[]{applied});
+    }
+
+    /** Builds a timeline from versions already sorted by time. */
+    public static PriceTimeline ofSorted(long[] ids, long[] from, long[] cents, boolean[] applied, int count) {
+        return new PriceTimeline(Arrays.copyOf(ids, count), Arrays.copyOf(from, count),
+                Arrays.copyOf(cents, count), Arrays.copyOf(applied, count));
+    }
+
+    public int size() {
+        return from.length;
+    }
+
+    public long idAt(int position) {
+        return ids[position];
+    }
+
+    public long fromAt(int position) {
+        return from[position];
+    }
+
+    public long centsAt(int position) {
+        return cents[position];
+    }
+
+    public boolean isApplied(int position) {
+        return applied[position];
+    }
+
+    /** Position of the version in effect at a time, or -1 before the first one. */
+    public int positionAt(long time) {
+        int low = 0;
+        int high = from.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (from[middle] <= time) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low - 1;
+    }
+
+    /** A timeline with one more version, placed after any others taking effect at the same time. */
+    public PriceTimeline with(long id, long time, long price, boolean isApplied) {
+        int position = positionAt(time) + 1;
+        int size = from.length;
+        long[] newIds = new long[size + 1];
+        long[] newFrom = new long[size + 1];
+        long[] newCents = new long[size + 1];
+        boolean[] newApplied = new boolean[size + 1];
+        System.arraycopy(ids, 0, newIds, 0, position);
+        System.arraycopy(from, 0, newFrom, 0, position);
+        System.arraycopy(cents, 0, newCents, 0, position);
+        System.arraycopy(applied, 0, newApplied, 0, position);
+        newIds[position] = id;
+        newFrom[position] = time;
+        newCents[position] = price;
+        newApplied[position] = isApplied;
+        System.arraycopy(ids, position, newIds, position + 1, size - position);
+        System.arraycopy(from, position, newFrom, position + 1, size - position);
+        System.arraycopy(cents, position, newCents, position + 1, size - position);
+        System.arraycopy(applied, position, newApplied, position + 1, size - position);
+        return new PriceTimeline(newIds, newFrom, newCents, newApplied);
+    }
+
+    /** A timeline without the versions with the given ids, or null when none is left. */
+    public PriceTimeline without(Set<Long> removedIds) {
+        int kept = 0;
+        long[] newIds = new long[from.length];
+        long[] newFrom = new long[from.length];
+        long[] newCents = new long[from.length];
+        boolean[] newApplied = new boolean[from.length];
+        for (int i = 0; i < from.length; i++) {
+            if (ids[i] == 0 || !removedIds.contains(ids[i])) {
+                newIds[kept] = ids[i];
+                newFrom[kept] = from[i];
+                newCents[kept] = cents[i];
+                newApplied[kept++] = applied[i];
+            }
+        }
+        if (kept == from.length) {
+            return this;
+        }
+        return kept == 0 ? null : new PriceTimeline(Arrays.copyOf(newIds, kept), Arrays.copyOf(newFrom, kept),
+                Arrays.copyOf(newCents, kept), Arrays.copyOf(newApplied, kept));
+    }
+
+    /** A timeline with the versions with the given ids marked as applied. */
+    public PriceTimeline withApplied(Set<Long> appliedIds) {
+        boolean[] newApplied = applied.clone();
+        for (int i = 0; i < from.length; i++) {
+            if (ids[i] != 0 && appliedIds.contains(ids[i])) {
+                newApplied[i] = true;
+            }
+        }
+        return new PriceTimeline(ids, from, cents, newApplied);
+    }
+}
@@ -0,0 +1,241 @@
+package com.dev.productmanagementsystem.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * SKU -> product id, kept in memory for scanner lookups.
+ *
+ * The bulk of the entries live in a sorted, immutable block: every SKU's UTF-8 bytes
+ * concatenated into one array, with an offset and a product id per entry. That is the SKU bytes
+ * plus 12 bytes per product, with no object per entry, and both exact and prefix lookups are a
+ * binary search. Changes go to a small sorted overlay that readers consult first; once the
+ * overlay has grown past a fraction of the block, both are merged into a new block.
+ *
+ * Lookups never lock. Writers are serialized by the caller or by the overlay's own atomicity.
+ */
+public final class SkuIndex {
+
+    // Marks an overlay entry for a SKU that was removed or moved to another product
+    private static final long REMOVED = Long.MIN_VALUE;
+    private static final int MIN_OVERLAY_TO_MERGE = 1024;
+
+    private volatile Block block = new Block(new byte[0], new int[]{0}, new long[0]);
+    private final ConcurrentSkipListMap<String, Long> overlay = new ConcurrentSkipListMap<>(SkuIndex::compareUtf8);
+
+    /** Index over the given SKUs; null SKUs are skipped, the last id wins for duplicates. */
+    public static SkuIndex build(List<String> skus, List<Long> productIds) {
+        SkuIndex index = new SkuIndex();
+        String[] keys = new String[skus.size()];
+        Integer[] order = new Integer[skus.size()];
+        int count = 0;
+        for (int i = 0; i < skus.size(); i++) {
+            if (skus.get(i) != null) {
+                keys[i] = skus.get(i);
+                order[count++] = i;
+            }
+        }
+        Integer[] sorted = Arrays.copyOf(order, count);
+        Arrays.sort(sorted, (a, b) -> compareUtf8(keys[a], keys[b]));
+
+        List<String> uniqueKeys = new ArrayList<>(count);
+        List<Long> ids = new ArrayList<>(count);
+        for (Integer i : sorted) {
+            if (!uniqueKeys.isEmpty() && uniqueKeys.get(uniqueKeys.size() - 1).equals(keys[i])) {
+                ids.set(ids.size() - 1, productIds.get(i));
+            } else {
+                uniqueKeys.add(keys[i]);
+                ids.add(productIds.get(i));
+            }
+        }
+        index.block = Block.of(uniqueKeys, ids);
+        return index;
+    }
+
+    /** Product id with exactly this SKU, or -1. */
+    public long get(String sku) {
+        Long changed = overlay.get(sku);
+        if (changed != null) {
+            return changed == REMOVED ? -1 : changed;
+        }
+        Block current = block;
+        int index = current.find(sku.getBytes(StandardCharsets.UTF_8));
+        return index >= 0 ? current.ids[index] : -1;
+    }
+
+    /** Up to limit SKUs starting with prefix, in byte order, with their product ids. */
+    public List<Map.Entry<String, Long>> prefix(String prefix, int limit) {
+        List<Map.Entry<String, Long>> result = new ArrayList<>();
+        if (limit <= 0) {
+            return result;
+        }
+        Block current = block;
+        byte[] key = prefix.getBytes(StandardCharsets.UTF_8);
+        int index = current.find(key);
+        int position = index >= 0 ? index : -index - 1;
+        NavigableMap<String, Long> changes = overlay.tailMap(prefix, true);
+        Iterator<Map.Entry<String, Long>> changed = changes.entrySet().iterator();
+        Map.Entry<String, Long> nextChange = next(changed, key);
+
+        // Merge the two sorted sources; the overlay wins for SKUs present in both
+        while (result.size() < limit) {
+            boolean blockHas = position < current.ids.length && current.startsWith(position, key);
+            if (!blockHas && nextChange == null) {
+                break;
+            }
+            int order = !blockHas ? 1 : nextChange == null ? -1
+                    : compareUtf8(current.key(position), nextChange.getKey());
+            if (order < 0) {
+                result.add(Map.entry(current.key(position), current.ids[position]));
+                position++;
+            } else {
+                if (order == 0) {
+                    position++;
+                }
+                if (nextChange.getValue() != REMOVED) {
+                    result.add(nextChange);
+                }
+                nextChange = next(changed, key);
+            }
+        }
+        return result;
+    }
+
+    public void put(String sku, long productId) {
+        overlay.put(sku, productId);
+    }
+
+    /** Removes the SKU, unless it has been given to another product in the meantime. */
+    public void remove(String sku, long productId) {
+        if (get(sku) == productId) {
+            overlay.put(sku, REMOVED);
+        }
+    }
+
+    public int size() {
+        return block.ids.length;
+    }
+
+    /** True when the overlay is large enough that lookups would gain from a {@link #merge}. */
+    public boolean needsMerge() {
+        return overlay.size() > Math.max(MIN_OVERLAY_TO_MERGE, block.ids.length / 8);
+    }
+
+    /** Folds the overlay into a new block. Callers must not run two merges at once. */
+    public void merge() {
+        Block current = block;
+        Map<String, Long> changes = Map.copyOf(overlay);
+        NavigableMap<String, Long> sortedChanges = new TreeMap<>(SkuIndex::compareUtf8);
+        sortedChanges.putAll(changes);
+
+        List<String> keys = new ArrayList<>(current.ids.length + changes.size());
+        List<Long> ids = new ArrayList<>(current.ids.length + changes.size());
+        Iterator<Map.Entry<String, Long>> changed = sortedChanges.entrySet().iterator();
+        Map.Entry<String, Long> nextChange = changed.hasNext() ? changed.next() : null;
+        int position = 0;
+        while (position < current.ids.length || nextChange != null) {
+            int order = position == current.ids.length ? 1 : nextChange == null ? -1
+                    : compareUtf8(current.key(position), nextChange.getKey());
+            if (order < 0) {
+                keys.add(current.key(position));
+                ids.add(current.ids[position]);
+                position++;
+            } else {
+                if (order == 0) {
+                    position++;
+                }
+                if (nextChange.getValue() != REMOVED) {
+                    keys.add(nextChange.getKey());
+                    ids.add(nextChange.getValue());
+                }
+                nextChange = changed.hasNext() ? changed.next() : null;
+            }
+        }
+        block = Block.of(keys, ids);
+        // Entries changed again while merging stay in the overlay
+        changes.forEach((sku, productId) -> overlay.remove(sku, productId));
+    }
+
+    private static Map.Entry<String, Long> next(Iterator<Map.Entry<String, Long>> changes, byte[] prefix) {
+        if (!changes.hasNext()) {
+            return null;
+        }
+        Map.Entry<String, Long> entry = changes.next();
+        byte[] key = entry.getKey().getBytes(StandardCharsets.UTF_8);
+        if (key.length < prefix.length || Arrays.compareUnsigned(key, 0, prefix.length, prefix, 0, prefix.length) != 0) {
+            return null;
+        }
+        return entry;
+    }
+
+    // Unsigned byte order of the UTF-8 encodings, the order of the block
+    private static int compareUtf8(String a, String b) {
+        return Arrays.compareUnsigned(a.getBytes(StandardCharsets.UTF_8), b.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static final class Block {
+        final byte[] bytes;
+        // SKU i is bytes[offsets[i]..offsets[i + 1])
+        final int[] offsets;
+        final long[] ids;
+
+        Block(byte[] bytes, int[] offsets, long[] ids) {
+            this.bytes = bytes;
+            this.offsets = offsets;
+            this.ids = ids;
+        }
+
+        static Block of(List<String> sortedKeys, List<Long> ids) {
+            byte[][] encoded = new byte[sortedKeys.size()][];
+            int total = 0;
+            for (int i = 0; i < encoded.length; i++) {
+                encoded[i] = sortedKeys.get(i).getBytes(StandardCharsets.UTF_8);
+                total += encoded[i].length;
+            }
+            byte[] bytes = new byte[total];
+            int[] offsets = new int[encoded.length + 1];
+            long[] idArray = new long[encoded.length];
+            for (int i = 0; i < encoded.length; i++) {
+                System.arraycopy(encoded[i], 0, bytes, offsets[i], encoded[i].length);
+                offsets[i + 1] = offsets[i] + encoded[i].length;
+                idArray[i] = ids.get(i);
+            }
+            return new Block(bytes, offsets, idArray);
+        }
+
+        // Index of the key, or -(insertion point) - 1 like Arrays.binarySearch
+        int find(byte[] key) {
+            int low = 0;
+            int high = ids.length - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                int order = Arrays.compareUnsigned(bytes, offsets[middle], offsets[middle + 1], key, 0, key.length);
+                if (order < 0) {
+                    low = middle + 1;
+                } else if (order > 0) {
+                    high = middle - 1;
+                } else {
+                    return middle;
+                }
+            }
+            return -low - 1;
+        }
+
+        boolean startsWith(int index, byte[] prefix) {
+            int start = offsets[index];
+            return offsets[index + 1] - start >= prefix.length
+                    && Arrays.equals(bytes, start, start + prefix.length, prefix, 0, prefix.length);
+        }
+
+        String key(int index) {
+            return new String(bytes, offsets[index], offsets[index + 1] - offsets[index], StandardCharsets.UTF_8);
+        }
+    }
+}
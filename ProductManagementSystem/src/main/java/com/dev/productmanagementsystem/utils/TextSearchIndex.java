@@ -0,0 +1,561 @@
+package com.dev.productmanagementsystem.utils;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index over a few text fields of documents identified by a long id, with
+ * prefix matching, typo tolerance and relevance ranking.
+ *
+ * Every document gets an ordinal in insertion order and each term keeps the sorted ordinals of
+ * the documents containing it, together with a bit mask of the fields it occurs in. Updating a
+ * document marks its old ordinal deleted and appends it again, so posting lists stay sorted and
+ * are only ever appended to; {@link #getDeletedCount()} tells the owner when a rebuild is due.
+ *
+ * Every query word must match (AND). A word matches a term exactly, as a prefix of a longer term
+ * (search as you type) or, when no term is spelled like it, within one or two edits; candidates
+ * for the latter come from a trigram index over the dictionary. Scores add up IDF times field
+ * weight times the quality of the match, with a small bonus for short first fields.
+ *
+ * Searches run under a shared read lock and score into preallocated accumulators, so they do
+ * not allocate per matching document.
+ */
+public final class TextSearchIndex {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final int MAX_TERM_LENGTH = 32;
+    private static final int MAX_QUERY_WORDS = 8;
+    // Longest joined form added for short multi-word fields ("T-Shirt" is also found as "tshirt")
+    private static final int MAX_JOINED_LENGTH = 24;
+    private static final int MAX_EXPANSIONS = 64;
+    private static final float PREFIX_MATCH = 0.7f;
+    private static final float ONE_EDIT_MATCH = 0.5f;
+    private static final float TWO_EDIT_MATCH = 0.3f;
+
+    private final float[] fieldWeights;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Term -> postings; sorted so that prefixes are a sub-map
+    private final TreeMap<String, Postings> dictionary = new TreeMap<>();
+    // Padded trigram -> ids of the terms containing it, for typo candidates
+    private final Map<String, IntList> trigrams = new HashMap<>();
+    private final List<Postings> termsById = new ArrayList<>();
+
+    // Per ordinal: document id, token count of the first field, deleted flag
+    private long[] documentIds = new long[1024];
+    private byte[] firstFieldLengths = new byte[1024];
+    private long[] deleted = new long[16];
+    private int documentCount;
+    private int deletedCount;
+    private final LongIntMap ordinals = new LongIntMap();
+
+    private final BlockingQueue<Accumulator> accumulators;
+
+    /**
+     * @param fieldWeights weight of a match in each field, in the order fields are passed to
+     *                     {@link #put}; at most 8 fields
+     * @param concurrency  searches that can score at the same time; more wait for a free slot
+     */
+    public TextSearchIndex(float[] fieldWeights, int concurrency) {
+        if (fieldWeights.length == 0 || fieldWeights.length > 8) {
+            throw new IllegalArgumentException("Between 1 and 8 fields are supported");
+        }
+        this.fieldWeights = fieldWeights.clone();
+        this.accumulators = new ArrayBlockingQueue<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            accumulators.add(new Accumulator());
+        }
+    }
+
+    /** Adds a document, replacing any earlier version with the same id. Null fields are allowed. */
+    public void put(long id, String... fields) {
+        Segment segment = segment(new long[]{id}, new String[][]{fields});
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+            appendLocked(segment);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Tokenizes a batch of documents without touching the index, so bulk loads can do the
+     * expensive part on many threads and then {@link #append} the segments one after another.
+     */
+    public static Segment segment(long[] ids, String[][] documents) {
+        Map<String, IntList> postings = new HashMap<>();
+        Map<String, ByteList> masks = new HashMap<>();
+        byte[] firstFieldLengths = new byte[ids.length];
+        Map<String, Integer> documentTerms = new LinkedHashMap<>();
+        for (int doc = 0; doc < ids.length; doc++) {
+            documentTerms.clear();
+            String[] fields = documents[doc];
+            for (int field = 0; field < fields.length; field++) {
+                List<String> tokens = tokenize(fields[field]);
+                if (field == 0) {
+                    firstFieldLengths[doc] = (byte) Math.min(tokens.size(), 127);
+                }
+                int bit = 1 << field;
+                for (String token : tokens) {
+                    documentTerms.merge(token, bit, (a, b) -> a | b);
+                }
+                if (tokens.size() > 1 && tokens.size() <= 4) {
+                    String joined = String.join("", tokens);
+                    if (joined.length() <= MAX_JOINED_LENGTH) {
+                        documentTerms.merge(joined, bit, (a, b) -> a | b);
+                    }
+                }
+            }
+            for (Map.Entry<String, Integer> term : documentTerms.entrySet()) {
+                postings.computeIfAbsent(term.getKey(), key -> new IntList()).add(doc);
+                masks.computeIfAbsent(term.getKey(), key -> new ByteList()).add(term.getValue().byteValue());
+            }
+        }
+        return new Segment(ids.clone(), firstFieldLengths, postings, masks);
+    }
+
+    /** Adds a tokenized batch; documents already in the index are replaced. */
+    public void append(Segment segment) {
+        lock.writeLock().lock();
+        try {
+            for (long id : segment.ids) {
+                removeLocked(id);
+            }
+            appendLocked(segment);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Ids of the best matching documents, best first. */
+    public long[] search(String query, int limit) {
+        List<String> words = tokenize(query);
+        if (words.isEmpty() || limit <= 0) {
+            return new long[0];
+        }
+        if (words.size() > MAX_QUERY_WORDS) {
+            words = words.subList(0, MAX_QUERY_WORDS);
+        }
+
+        Accumulator accumulator;
+        try {
+            accumulator = accumulators.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new long[0];
+        }
+        lock.readLock().lock();
+        try {
+            List<List<Expansion>> groups = new ArrayList<>();
+            for (String word : words) {
+                List<Expansion> expansions = expand(word);
+                if (expansions.isEmpty()) {
+                    return new long[0];
+                }
+                groups.add(expansions);
+            }
+            // The rarest word decides the candidates; the others only filter and add to them
+            groups.sort((a, b) -> Long.compare(postingCount(a), postingCount(b)));
+            return score(groups, limit, accumulator.prepare(documentCount));
+        } finally {
+            lock.readLock().unlock();
+            accumulator.finish();
+            accumulators.add(accumulator);
+        }
+    }
+
+    public int getDocumentCount() {
+        lock.readLock().lock();
+        try {
+            return documentCount - deletedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Ordinals left behind by updates and removals; the index only shrinks when rebuilt. */
+    public int getDeletedCount() {
+        lock.readLock().lock();
+        try {
+            return deletedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Lowercased words without accents, as they are indexed and searched. */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        for (String token : SEPARATORS.split(folded)) {
+            if (!token.isEmpty()) {
+                tokens.add(token.length() > MAX_TERM_LENGTH ? token.substring(0, MAX_TERM_LENGTH) : token);
+            }
+        }
+        return tokens;
+    }
+
+    private void removeLocked(long id) {
+        int ordinal = ordinals.remove(id);
+        if (ordinal >= 0) {
+            deleted[ordinal >>> 6] |= 1L << ordinal;
+            deletedCount++;
+        }
+    }
+
+    private void appendLocked(Segment segment) {
+        int base = documentCount;
+        int count = segment.ids.length;
+        ensureDocumentCapacity(base + count);
+        System.arraycopy(segment.ids, 0, documentIds, base, count);
+        System.arraycopy(segment.firstFieldLengths, 0, firstFieldLengths, base, count);
+        for (int i = 0; i < count; i++) {
+            int previous = ordinals.put(segment.ids[i], base + i);
+            if (previous >= 0) {
+                // The same id twice in one segment: the later one wins
+                deleted[previous >>> 6] |= 1L << previous;
+                deletedCount++;
+            }
+        }
+        documentCount = base + count;
+
+        for (Map.Entry<String, IntList> entry : segment.postings.entrySet()) {
+            Postings postings = dictionary.get(entry.getKey());
+            if (postings == null) {
+                postings = new Postings(entry.getKey(), termsById.size());
+                dictionary.put(postings.term, postings);
+                termsById.add(postings);
+                for (String trigram : trigrams(postings.term)) {
+                    trigrams.computeIfAbsent(trigram, key -> new IntList()).add(postings.id);
+                }
+            }
+            postings.append(entry.getValue(), segment.masks.get(entry.getKey()), base);
+        }
+    }
+
+    private void ensureDocumentCapacity(int capacity) {
+        if (capacity > documentIds.length) {
+            int size = Math.max(capacity, documentIds.length + (documentIds.length >> 1));
+            documentIds = Arrays.copyOf(documentIds, size);
+            firstFieldLengths = Arrays.copyOf(firstFieldLengths, size);
+        }
+        int words = (capacity + 63) >>> 6;
+        if (words > deleted.length) {
+            deleted = Arrays.copyOf(deleted, Math.max(words, deleted.length * 2));
+        }
+    }
+
+    // Terms a query word stands for, best match first
+    private List<Expansion> expand(String word) {
+        List<Expansion> expansions = new ArrayList<>();
+        Postings exact = dictionary.get(word);
+        if (exact != null) {
+            expansions.add(new Expansion(exact, 1f));
+        }
+
+        if (word.length() >= 2) {
+            // Keep the most frequent longer terms when a short prefix matches many
+            PriorityQueue<Postings> frequent = new PriorityQueue<>((a, b) -> Integer.compare(a.size, b.size));
+            NavigableMap<String, Postings> prefixed = dictionary.subMap(word, false, word + Character.MAX_VALUE, false);
+            for (Postings postings : prefixed.values()) {
+                frequent.add(postings);
+                if (frequent.size() > MAX_EXPANSIONS) {
+                    frequent.poll();
+                }
+            }
+            List<Postings> byFrequency = new ArrayList<>(frequent);
+            byFrequency.sort((a, b) -> Integer.compare(b.size, a.size));
+            for (Postings postings : byFrequency) {
+                // The closer the term is to the typed prefix, the better the match
+                expansions.add(new Expansion(postings, PREFIX_MATCH * word.length() / postings.term.length()));
+            }
+        }
+
+        if (exact == null) {
+            expansions.addAll(misspellings(word));
+        }
+        return expansions;
+    }
+
+    private List<Expansion> misspellings(String word) {
+        int maxEdits = word.length() >= 8 ? 2 : word.length() >= 4 ? 1 : 0;
+        List<Expansion> matches = new ArrayList<>();
+        if (maxEdits == 0) {
+            return matches;
+        }
+        List<String> wordTrigrams = trigrams(word);
+        // Each edit changes at most three trigrams
+        int required = Math.max(1, wordTrigrams.size() - 3 * maxEdits);
+        Map<Integer, Integer> shared = new HashMap<>();
+        for (String trigram : wordTrigrams) {
+            IntList termIds = trigrams.get(trigram);
+            if (termIds != null) {
+                for (int i = 0; i < termIds.size; i++) {
+                    shared.merge(termIds.values[i], 1, Integer::sum);
+                }
+            }
+        }
+        for (Map.Entry<Integer, Integer> candidate : shared.entrySet()) {
+            if (candidate.getValue() < required) {
+                continue;
+            }
+            Postings postings = termsById.get(candidate.getKey());
+            if (Math.abs(postings.term.length() - word.length()) > maxEdits) {
+                continue;
+            }
+            int distance = editDistance(word, postings.term, maxEdits);
+            if (distance <= maxEdits) {
+                matches.add(new Expansion(postings, distance == 1 ? ONE_EDIT_MATCH : TWO_EDIT_MATCH));
+            }
+        }
+        matches.sort((a, b) -> Float.compare(b.match, a.match));
+        return matches.size() > MAX_EXPANSIONS ? new ArrayList<>(matches.subList(0, MAX_EXPANSIONS)) : matches;
+    }
+
+    private long[] score(List<List<Expansion>> groups, int limit, Accumulator accumulator) {
+        float[] scores = accumulator.scores;
+        int[] stamps = accumulator.stamps;
+        int stamp = accumulator.stamp;
+        IntList candidates = accumulator.candidates;
+        double documents = documentCount - deletedCount;
+
+        for (int group = 0; group < groups.size(); group++) {
+            // A document takes part in this group only if it matched every earlier one
+            int required = stamp + group - 1;
+            for (Expansion expansion : groups.get(group)) {
+                Postings postings = expansion.postings;
+                float idf = (float) Math.log(1 + documents / (1 + postings.size));
+                for (int i = 0; i < postings.size; i++) {
+                    int doc = postings.docs[i];
+                    int seen = stamps[doc];
+                    // The first (best) expansion that hits a document scores it for this word
+                    if (group == 0 ? seen != stamp : seen == required) {
+                        if (group == 0) {
+                            candidates.add(doc);
+                            scores[doc] = 0f;
+                        }
+                        stamps[doc] = stamp + group;
+                        scores[doc] += idf * expansion.match * fieldWeight(postings.masks[i]);
+                    }
+                }
+            }
+        }
+
+        int matched = stamp + groups.size() - 1;
+        PriorityQueue<int[]> best = new PriorityQueue<>(limit + 1,
+                (a, b) -> Float.compare(Float.intBitsToFloat(a[1]), Float.intBitsToFloat(b[1])));
+        for (int i = 0; i < candidates.size; i++) {
+            int doc = candidates.values[i];
+            if (stamps[doc] != matched || (deleted[doc >>> 6] & (1L << doc)) != 0) {
+                continue;
+            }
+            float score = scores[doc] * (1f + 1f / (1 + firstFieldLengths[doc]));
+            if (best.size() < limit) {
+                best.add(new int[]{doc, Float.floatToIntBits(score)});
+            } else if (score > Float.intBitsToFloat(best.peek()[1])) {
+                best.poll();
+                best.add(new int[]{doc, Float.floatToIntBits(score)});
+            }
+        }
+
+        long[] ids = new long[best.size()];
+        for (int i = ids.length - 1; i >= 0; i--) {
+            ids[i] = documentIds[best.poll()[0]];
+        }
+        return ids;
+    }
+
+    private float fieldWeight(byte mask) {
+        float weight = 0f;
+        for (int field = 0; field < fieldWeights.length; field++) {
+            if ((mask & (1 << field)) != 0) {
+                weight = Math.max(weight, fieldWeights[field]);
+            }
+        }
+        return weight;
+    }
+
+    private static long postingCount(List<Expansion> expansions) {
+        long count = 0;
+        for (Expansion expansion : expansions) {
+            count += expansion.postings.size;
+        }
+        return count;
+    }
+
+    private static List<String> trigrams(String term) {
+        String padded = "$" + term + "$";
+        List<String> result = new ArrayList<>(padded.length() - 2);
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            result.add(padded.substring(i, i + 3));
+        }
+        return result;
+    }
+
+    // Optimal string alignment distance, giving up once it exceeds max
+    static int editDistance(String a, String b, int max) {
+        int[] previousRow = new int[b.length() + 1];
+        int[] row = new int[b.length() + 1];
+        int[] beforeRow = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previousRow[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            row[0] = i;
+            int rowMin = row[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(row[j - 1] + 1, previousRow[j] + 1), previousRow[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, beforeRow[j - 2] + 1);
+                }
+                row[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] recycled = beforeRow;
+            beforeRow = previousRow;
+            previousRow = row;
+            row = recycled;
+        }
+        return previousRow[b.length()];
+    }
+
+    /** Documents tokenized by {@link #segment}, not yet part of any index. */
+    public static final class Segment {
+        private final long[] ids;
+        private final byte[] firstFieldLengths;
+        private final Map<String, IntList> postings;
+        private final Map<String, ByteList> masks;
+
+        private Segment(long[] ids, byte[] firstFieldLengths, Map<String, IntList> postings, Map<String, ByteList> masks) {
+            this.ids = ids;
+            this.firstFieldLengths = firstFieldLengths;
+            this.postings = postings;
+            this.masks = masks;
+        }
+
+        public int size() {
+            return ids.length;
+        }
+    }
+
+    private static final class Postings {
+        final String term;
+        final int id;
+        int[] docs = new int[2];
+        byte[] masks = new byte[2];
+        int size;
+
+        Postings(String term, int id) {
+            this.term = term;
+            this.id = id;
+        }
+
+        void append(IntList localDocs, ByteList localMasks, int base) {
+            int required = size + localDocs.size;
+            if (required > docs.length) {
+                int capacity = Math.max(required, docs.length + (docs.length >> 1));
+                docs = Arrays.copyOf(docs, capacity);
+                masks = Arrays.copyOf(masks, capacity);
+            }
+            for (int i = 0; i < localDocs.size; i++) {
+                docs[size + i] = base + localDocs.values[i];
+            }
+            System.arraycopy(localMasks.values, 0, masks, size, localDocs.size);
+            size = required;
+        }
+    }
+
+    private static final class Expansion {
+        final Postings postings;
+        final float match;
+
+        Expansion(Postings postings, float match) {
+            this.postings = postings;
+            this.match = match;
+        }
+    }
+
+    // Per-search scratch space indexed by ordinal; stamps tell which words a document matched so far
+    private static final class Accumulator {
+        float[] scores = new float[0];
+        int[] stamps = new int[0];
+        int stamp = 1;
+        final IntList candidates = new IntList();
+
+        Accumulator prepare(int documentCount) {
+            if (stamps.length < documentCount) {
+                int size = documentCount + (documentCount >> 3);
+                scores = Arrays.copyOf(scores, size);
+                stamps = Arrays.copyOf(stamps, size);
+            }
+            candidates.size = 0;
+            return this;
+        }
+
+        // Moves past every stamp the search may have written, so nothing needs clearing
+        void finish() {
+            stamp += MAX_QUERY_WORDS;
+            if (stamp > Integer.MAX_VALUE - 2 * MAX_QUERY_WORDS) {
+                Arrays.fill(stamps, 0);
+                stamp = 1;
+            }
+        }
+    }
+
+    private static final class IntList {
+        int[] values = new int[4];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+
+    private static final class ByteList {
+        byte[] values = new byte[4];
+        int size;
+
+        void add(byte value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
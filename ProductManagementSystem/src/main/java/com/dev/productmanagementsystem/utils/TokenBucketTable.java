@@ -0,0 +1,95 @@
+package com.dev.productmanagementsystem.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Token buckets for an open-ended set of keys (usernames, client addresses) in bounded memory.
+ *
+ * Keys are reduced to a 64-bit hash and each bucket is packed into a single long (time of the
+ * last refill and remaining tokens), so an entry costs the same however long the key is. The
+ * table is split into stripes, each an LRU map; when a stripe is full its least recently used
+ * bucket is dropped, which is the same as that key starting over with a full bucket.
+ */
+public final class TokenBucketTable {
+
+    private static final int STRIPES = 16;
+    private static final int TOKEN_BITS = 24;
+    private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+    // Tokens are kept in thousandths so slow refill rates still accumulate
+    private static final long SCALE = 1000L;
+
+    private final long capacity;
+    private final double refillPerMilli;
+    private final long epoch = System.currentTimeMillis();
+    private final Map<Long, Long>[] stripes;
+
+    /**
+     * @param capacity        burst size, in requests (at most 16000)
+     * @param refillPerMinute requests added back per minute
+     * @param maxEntries      buckets kept before the least recently used are dropped
+     */
+    @SuppressWarnings("unchecked")
+    public TokenBucketTable(int capacity, double refillPerMinute, int maxEntries) {
+        if (capacity <= 0 || capacity * SCALE > TOKEN_MASK) {
+            throw new IllegalArgumentException("Bucket capacity must be between 1 and " + TOKEN_MASK / SCALE);
+        }
+        this.capacity = capacity * SCALE;
+        this.refillPerMilli = refillPerMinute * SCALE / 60_000d;
+        int perStripe = Math.max(1, maxEntries / STRIPES);
+        this.stripes = new Map[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new LinkedHashMap<>(64, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, Long> eldest) {
+                    return size() > perStripe;
+                }
+            };
+        }
+    }
+
+    /**
+     * Takes one token for the key. Returns 0 when it was available, otherwise the number of
+     * milliseconds until it will be.
+     */
+    public long tryAcquire(String key) {
+        long hash = hash(key);
+        long now = System.currentTimeMillis() - epoch;
+        Map<Long, Long> stripe = stripes[(int) (hash >>> 60)];
+        synchronized (stripe) {
+            Long state = stripe.get(hash);
+            long tokens = capacity;
+            if (state != null) {
+                long elapsed = Math.max(0L, now - (state >>> TOKEN_BITS));
+                tokens = Math.min(capacity, (state & TOKEN_MASK) + (long) (elapsed * refillPerMilli));
+            }
+            if (tokens < SCALE) {
+                // Leave the stored state alone so the partial refill keeps accumulating from the last refill
+                return Math.max(1L, (long) Math.ceil((SCALE - tokens) / refillPerMilli));
+            }
+            stripe.put(hash, (now << TOKEN_BITS) | (tokens - SCALE));
+            return 0L;
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Map<Long, Long> stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    // 64-bit FNV-1a
+    private static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,81 @@
+package com.dev.productmanagementsystem.utils;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Zipf distribution over ranks 1..n: rank k is drawn with probability proportional to 1 / k^exponent.
+ * An exponent of 0 is uniform; around 1 a few ranks take most of the draws.
+ *
+ * Sampling is rejection-inversion (Hörmann and Derflinger, 1996): constant expected time and no
+ * tables, so n can be in the millions. Instances are immutable and can be shared between threads.
+ */
+public final class ZipfDistribution {
+    private final int n;
+    private final double exponent;
+    private final double hIntegralX1;
+    private final double hIntegralN;
+    private final double s;
+
+    public ZipfDistribution(int n, double exponent) {
+        if (n < 1) {
+            throw new IllegalArgumentException("Number of ranks must be positive: " + n);
+        }
+        if (!(exponent >= 0)) {
+            throw new IllegalArgumentException("Exponent must not be negative: " + exponent);
+        }
+        this.n = n;
+        this.exponent = exponent;
+        this.hIntegralX1 = hIntegral(1.5) - 1;
+        this.hIntegralN = hIntegral(n + 0.5);
+        this.s = 2 - hIntegralInverse(hIntegral(2.5) - h(2));
+    }
+
+    public int size() {
+        return n;
+    }
+
+    /** A rank in 1..n. */
+    public int sample(RandomGenerator random) {
+        while (true) {
+            double u = hIntegralN + random.nextDouble() * (hIntegralX1 - hIntegralN);
+            double x = hIntegralInverse(u);
+            int k = (int) (x + 0.5);
+            if (k < 1) {
+                k = 1;
+            } else if (k > n) {
+                k = n;
+            }
+            if (k - x <= s || u >= hIntegral(k + 0.5) - h(k)) {
+                return k;
+            }
+        }
+    }
+
+    // H(x), an integral of h that the sampler inverts
+    private double hIntegral(double x) {
+        double logX = Math.log(x);
+        return expm1OverX((1 - exponent) * logX) * logX;
+    }
+
+    // h(x) = 1 / x^exponent
+    private double h(double x) {
+        return Math.exp(-exponent * Math.log(x));
+    }
+
+    private double hIntegralInverse(double x) {
+        double t = x * (1 - exponent);
+        if (t < -1) {
+            t = -1;
+        }
+        return Math.exp(log1pOverX(t) * x);
+    }
+
+    // log(1 + x) / x and (e^x - 1) / x, with series near 0 where the quotients lose precision
+    private static double log1pOverX(double x) {
+        return Math.abs(x) > 1e-8 ? Math.log1p(x) / x : 1 - x * (0.5 - x * (1.0 / 3 - 0.25 * x));
+    }
+
+    private static double expm1OverX(double x) {
+        return Math.abs(x) > 1e-8 ? Math.expm1(x) / x : 1 + x * 0.5 * (1 + x * (1.0 / 3) * (1 + 0.25 * x));
+    }
+}
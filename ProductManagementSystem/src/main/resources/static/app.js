@@ -53,6 +53,7 @@ async function login(event) {
 
             // Persist to localStorage
             localStorage.setItem('authToken', authToken);
+            localStorage.setItem('refreshToken', data.refreshToken);
             localStorage.setItem('currentUser', JSON.stringify(currentUser));
             localStorage.setItem('userRoles', JSON.stringify(userRoles));
 
@@ -107,7 +108,7 @@ function showLoginError(message) {
     errorDiv.style.display = 'block';
 }
 
-async function validateToken() {
+async function validateToken(retried = false) {
     try {
         const response = await fetch(`${API_BASE_URL}/auth/validate`, {
             method: 'GET',
@@ -116,6 +117,10 @@ async function validateToken() {
             }
         });
 
+        if (!response.ok && !retried && await refreshAccessToken()) {
+            return validateToken(true);
+        }
+
         if (response.ok) {
             const data = await response.json();
             currentUser = data.user || JSON.parse(localStorage.getItem('currentUser'));
@@ -149,7 +154,40 @@ async function validateToken() {
     }
 }
 
+// Access tokens are short-lived; the refresh token gets a new one while the session is alive
+async function refreshAccessToken() {
+    const refreshToken = localStorage.getItem('refreshToken');
+    if (!refreshToken) {
+        return false;
+    }
+    try {
+        const response = await fetch(`${API_BASE_URL}/auth/refresh`, {
+            method: 'POST',
+            headers: { 'Content-Type': 'application/json' },
+            body: JSON.stringify({ refreshToken })
+        });
+        if (!response.ok) {
+            localStorage.removeItem('refreshToken');
+            return false;
+        }
+        const data = await response.json();
+        authToken = data.token;
+        localStorage.setItem('authToken', authToken);
+        return true;
+    } catch (error) {
+        return false;
+    }
+}
+
 function logout() {
+    const refreshToken = localStorage.getItem('refreshToken');
+    if (authToken) {
+        fetch(`${API_BASE_URL}/auth/logout`, {
+            method: 'POST',
+            headers: { 'Content-Type': 'application/json', 'Authorization': `Bearer ${authToken}` },
+            body: JSON.stringify({ refreshToken })
+        }).catch(() => {});
+    }
     clearAuthData();
     showLogin();
 }
@@ -159,6 +197,7 @@ function clearAuthData() {
     currentUser = null;
     userRoles = [];
     localStorage.removeItem('authToken');
+    localStorage.removeItem('refreshToken');
     localStorage.removeItem('currentUser');
     localStorage.removeItem('userRoles');
 }
@@ -218,7 +257,7 @@ function setupRoleBasedAccess() {
 }
 
 // API Helper functions
-async function apiRequest(endpoint, options = {}) {
+async function apiRequest(endpoint, options = {}, retried = false) {
     const url = `${API_BASE_URL}${endpoint}`;
     const config = {
         headers: {
@@ -231,6 +270,10 @@ async function apiRequest(endpoint, options = {}) {
     try {
         const response = await fetch(url, config);
 
+        if (response.status === 401 && !retried && await refreshAccessToken()) {
+            return apiRequest(endpoint, options, true);
+        }
+
         if (response.status === 401) {
             // Unauthorized - redirect to login
             clearAuthData();
@@ -0,0 +1,39 @@
+// Authenticated requests for the pages that call the API on their own.
+// Adds the access token stored at login and, like apiRequest in app.js, renews it once
+// with the refresh token when the API answers 401 (access tokens are short-lived).
+
+function authHeaders(headers = {}) {
+    const token = localStorage.getItem('authToken');
+    return token ? { ...headers, 'Authorization': `Bearer ${token}` } : { ...headers };
+}
+
+async function authFetch(url, options = {}, retried = false) {
+    const response = await fetch(url, { ...options, headers: authHeaders(options.headers) });
+    if (response.status === 401 && !retried && await renewAccessToken()) {
+        return authFetch(url, options, true);
+    }
+    return response;
+}
+
+async function renewAccessToken() {
+    const refreshToken = localStorage.getItem('refreshToken');
+    if (!refreshToken) {
+        return false;
+    }
+    try {
+        const response = await fetch('/api/auth/refresh', {
+            method: 'POST',
+            headers: { 'Content-Type': 'application/json' },
+            body: JSON.stringify({ refreshToken })
+        });
+        if (!response.ok) {
+            localStorage.removeItem('refreshToken');
+            return false;
+        }
+        const data = await response.json();
+        localStorage.setItem('authToken', data.token);
+        return true;
+    } catch (error) {
+        return false;
+    }
+}
@@ -25,7 +25,7 @@ async function apiCall(endpoint, options = {}) {
     const config = { ...defaultOptions, ...options };
 
     try {
-        const response = await fetch(url, config);
+        const response = await authFetch(url, config);
 
         if (!response.ok) {
             const errorText = await response.text();
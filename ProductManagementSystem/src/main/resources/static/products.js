@@ -41,12 +41,12 @@ function setupEventListeners() {
 // API Helper function
 async function apiCall(url, options = {}) {
     try {
-        const response = await fetch(url, {
+        const response = await authFetch(url, {
+            ...options,
             headers: {
                 'Content-Type': 'application/json',
                 ...options.headers
-            },
-            ...options
+            }
         });
 
         if (!response.ok) {
@@ -85,9 +85,11 @@ async function loadCategories() {
 async function loadProducts() {
     try {
         showLoading(true);
-        const response = await apiCall(`${API_BASE_URL}/products`);
-        products = response || [];
+        // First page only; the full catalog is never shipped to the browser
+        const facets = await apiCall(`${API_BASE_URL}/products/facets?size=200`);
+        products = facets.products || [];
         renderProductsTable();
+        renderFacetCounts(facets);
     } catch (error) {
         console.error('Error loading products:', error);
         showNotification('Failed to load products', 'error');
@@ -289,38 +291,25 @@ async function deleteProduct(id) {
     }
 }
 
-// Filter products based on search and category
+// Filter products on the server; facet counts come back with the page
 async function filterProducts() {
-    const searchTerm = document.getElementById('searchInput').value.toLowerCase().trim();
+    const searchTerm = document.getElementById('searchInput').value.trim();
     const selectedCategoryId = parseInt(document.getElementById('categoryFilter').value) || null;
+    const priceBucket = document.getElementById('priceFilter').value;
+    const inStock = document.getElementById('stockFilter').value === 'true';
 
     try {
         showLoading(true);
-        let url = `${API_BASE_URL}/products`;
-        let filteredProducts = [];
-
-        if (searchTerm && selectedCategoryId) {
-            // If both search and category are specified, we need to fetch all and filter locally
-            // since the API doesn't support combined search
-            const allProducts = await apiCall(url);
-            filteredProducts = allProducts.filter(product => {
-                const matchesSearch = product.name.toLowerCase().includes(searchTerm) ||
-                    (product.description && product.description.toLowerCase().includes(searchTerm));
-                const matchesCategory = product.categoryId === selectedCategoryId;
-                return matchesSearch && matchesCategory;
-            });
-        } else if (searchTerm) {
-            // Search by name
-            filteredProducts = await apiCall(`${url}/search?name=${encodeURIComponent(searchTerm)}`);
-        } else if (selectedCategoryId) {
-            // Filter by category
-            filteredProducts = await apiCall(`${url}/category/${selectedCategoryId}`);
-        } else {
-            // No filters, show all products
-            filteredProducts = await apiCall(url);
-        }
-
-        renderFilteredProducts(filteredProducts || []);
+        const params = new URLSearchParams({ size: '200' });
+        if (searchTerm) params.set('q', searchTerm);
+        if (selectedCategoryId) params.set('categoryId', selectedCategoryId);
+        if (priceBucket !== '') params.set('priceBucket', priceBucket);
+        if (inStock) params.set('inStock', 'true');
+
+        const facets = await apiCall(`${API_BASE_URL}/products/facets?${params}`);
+        products = facets.products || [];
+        renderFacetCounts(facets);
+        renderFilteredProducts(products);
     } catch (error) {
         console.error('Error filtering products:', error);
         showNotification('Failed to filter products', 'error');
@@ -331,6 +320,39 @@ async function filterProducts() {
     }
 }
 
+// Show how many products each filter value would give
+function renderFacetCounts(facets) {
+    const categoryFilter = document.getElementById('categoryFilter');
+    Array.from(categoryFilter.options).forEach(option => {
+        const category = categories.find(c => String(c.id) === option.value);
+        if (category) {
+            const count = facets.categoryCounts[category.id] || 0;
+            option.textContent = `${category.name} (${count})`;
+        }
+    });
+
+    const priceFilter = document.getElementById('priceFilter');
+    const selectedBucket = priceFilter.value;
+    priceFilter.innerHTML = '<option value="">All Prices</option>';
+    facets.priceBuckets.forEach(bucket => {
+        const option = document.createElement('option');
+        option.value = bucket.index;
+        let label;
+        if (bucket.from === null) {
+            label = `Under $${bucket.to}`;
+        } else if (bucket.to === null) {
+            label = `$${bucket.from} and over`;
+        } else {
+            label = `$${bucket.from} - $${bucket.to}`;
+        }
+        option.textContent = `${label} (${bucket.count})`;
+        priceFilter.appendChild(option);
+    });
+    priceFilter.value = selectedBucket;
+
+    document.getElementById('stockFilter').options[1].textContent = `In Stock (${facets.inStockCount})`;
+}
+
 // Fallback local filtering when API fails
 function filterProductsLocally() {
     const searchTerm = document.getElementById('searchInput').value.toLowerCase();
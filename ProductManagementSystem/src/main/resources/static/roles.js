@@ -23,7 +23,7 @@ class RoleManager {
     // Load all permissions from API
     async loadPermissions() {
         try {
-            const response = await fetch(`${this.apiBaseUrl}/permissions`);
+            const response = await authFetch(`${this.apiBaseUrl}/permissions`);
             if (response.ok) {
                 this.permissions = await response.json();
             } else {
@@ -55,7 +55,7 @@ class RoleManager {
     // Load all roles from API
     async loadRoles() {
         try {
-            const response = await fetch(`${this.apiBaseUrl}/roles`);
+            const response = await authFetch(`${this.apiBaseUrl}/roles`);
             if (response.ok) {
                 const roleDTOs = await response.json();
                 // Convert DTOs to frontend format
@@ -124,7 +124,7 @@ class RoleManager {
                 permissionIds: roleData.permissions.map(p => p.id)
             };
 
-            const response = await fetch(`${this.apiBaseUrl}/roles`, {
+            const response = await authFetch(`${this.apiBaseUrl}/roles`, {
                 method: 'POST',
                 headers: {
                     'Content-Type': 'application/json',
@@ -157,7 +157,7 @@ class RoleManager {
                 permissionIds: roleData.permissions.map(p => p.id)
             };
 
-            const response = await fetch(`${this.apiBaseUrl}/roles/${roleId}`, {
+            const response = await authFetch(`${this.apiBaseUrl}/roles/${roleId}`, {
                 method: 'PUT',
                 headers: {
                     'Content-Type': 'application/json',
@@ -197,7 +197,7 @@ class RoleManager {
 
             // Add new permissions
             if (permissionsToAdd.length > 0) {
-                await fetch(`${this.apiBaseUrl}/roles/${roleId}/permissions/add`, {
+                await authFetch(`${this.apiBaseUrl}/roles/${roleId}/permissions/add`, {
                     method: 'PUT',
                     headers: {
                         'Content-Type': 'application/json',
@@ -208,7 +208,7 @@ class RoleManager {
 
             // Remove old permissions
             if (permissionsToRemove.length > 0) {
-                await fetch(`${this.apiBaseUrl}/roles/${roleId}/permissions/remove`, {
+                await authFetch(`${this.apiBaseUrl}/roles/${roleId}/permissions/remove`, {
                     method: 'PUT',
                     headers: {
                         'Content-Type': 'application/json',
@@ -225,7 +225,7 @@ class RoleManager {
     // Reload a specific role from the API
     async reloadRole(roleId) {
         try {
-            const response = await fetch(`${this.apiBaseUrl}/roles/${roleId}`);
+            const response = await authFetch(`${this.apiBaseUrl}/roles/${roleId}`);
             if (response.ok) {
                 const roleDTO = await response.json();
                 const updatedRole = this.convertDTOToRole(roleDTO);
@@ -245,7 +245,7 @@ class RoleManager {
     // Delete a role
     async deleteRole(roleId) {
         try {
-            const response = await fetch(`${this.apiBaseUrl}/roles/${roleId}`, {
+            const response = await authFetch(`${this.apiBaseUrl}/roles/${roleId}`, {
                 method: 'DELETE'
             });
 
@@ -21,12 +21,12 @@ document.addEventListener('DOMContentLoaded', function() {
 // API Helper function with improved error handling
 async function apiCall(endpoint, options = {}) {
     try {
-        const response = await fetch(`${API_BASE_URL}${endpoint}`, {
+        const response = await authFetch(`${API_BASE_URL}${endpoint}`, {
+            ...options,
             headers: {
                 'Content-Type': 'application/json',
                 ...options.headers
-            },
-            ...options
+            }
         });
 
         // Check if response is ok
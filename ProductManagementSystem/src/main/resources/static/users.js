@@ -350,6 +350,7 @@ class UserManager {
             const firstNameField = document.getElementById('firstName');
             const lastNameField = document.getElementById('lastName');
             const passwordField = document.getElementById('password');
+            const creditLimitField = document.getElementById('creditLimit');
             const rolesSelect = document.getElementById('roles');
             const userModal = document.getElementById('userModal');
 
@@ -365,6 +366,7 @@ class UserManager {
             if (emailField) emailField.value = user.email || '';
             if (firstNameField) firstNameField.value = user.firstName || '';
             if (lastNameField) lastNameField.value = user.lastName || '';
+            if (creditLimitField) creditLimitField.value = user.creditLimit ?? '';
 
             // Make password optional for editing
             if (passwordField) {
@@ -381,6 +383,7 @@ class UserManager {
             }
 
             this.editingUserId = userId;
+            this.editingUserActive = user.active !== false;
             userModal.style.display = 'block';
         } catch (error) {
             console.error('Error loading user details:', error);
@@ -412,6 +415,7 @@ class UserManager {
         const password = formData.get('password')?.toString();
         const firstName = formData.get('firstName')?.toString().trim();
         const lastName = formData.get('lastName')?.toString().trim();
+        const creditLimit = formData.get('creditLimit')?.toString().trim();
 
         console.log('Form data:', { username, email, firstName, lastName, hasPassword: !!password });
 
@@ -431,6 +435,11 @@ class UserManager {
             return;
         }
 
+        if (creditLimit && !(Number(creditLimit) >= 0)) {
+            this.showNotification('Credit limit must be a non-negative amount', 'error');
+            return;
+        }
+
         if (!this.isValidEmail(email)) {
             this.showNotification('Please enter a valid email address', 'error');
             return;
@@ -451,7 +460,9 @@ class UserManager {
             username,
             email,
             firstName: firstName || null,
-            lastName: lastName || null
+            lastName: lastName || null,
+            // Empty means no limit; sent on every save so an edit never drops it
+            creditLimit: creditLimit || null
         };
 
         // Only include password if it's provided
@@ -459,6 +470,11 @@ class UserManager {
             userData.password = password;
         }
 
+        // The update replaces the whole user; without this an edit would deactivate (and sign out) the user
+        if (this.editingUserId) {
+            userData.active = this.editingUserActive;
+        }
+
         console.log('User data to send:', userData);
 
         try {
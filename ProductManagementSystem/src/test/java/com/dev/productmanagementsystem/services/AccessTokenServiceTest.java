@@ -0,0 +1,158 @@
+package com.dev.productmanagementsystem.services;
+
+import com.dev.productmanagementsystem.dto.UserCredentials;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AccessTokenServiceTest {
+
+    private static final String OLD_SECRET = "old:" + Base64.getEncoder().encodeToString(new byte[32]);
+    private static final String NEW_SECRET = "new:" + Base64.getEncoder().encodeToString("0123456789abcdef0123456789abcdef".getBytes());
+
+    private final RoleGraphCache roleGraphCache = mock(RoleGraphCache.class);
+    private final List<AccessTokenService> services = new ArrayList<>();
+
+    @AfterEach
+    void stop() {
+        services.forEach(AccessTokenService::destroy);
+    }
+
+    @Test
+    void verifiesTheClaimsItIssued() {
+        AccessTokenService service = service(Duration.ofMinutes(15), "");
+
+        AccessTokenService.Claims claims = service.verify(service.issue(user()));
+
+        assertNotNull(claims);
+        assertEquals(7L, claims.getUserId());
+        assertEquals("anna", claims.getUsername());
+        assertEquals(List.of(2L, 3L), claims.getRoleIds());
+        assertEquals(List.of("USER", "MANAGER"), claims.getRoleNames());
+        assertArrayEquals(new long[]{0b1010L, 1L}, claims.getPermissions());
+        assertTrue(claims.hasPermission(1));
+        assertTrue(claims.hasPermission(3));
+        assertTrue(claims.hasPermission(64));
+        assertFalse(claims.hasPermission(2));
+        assertFalse(claims.hasPermission(128));
+        assertEquals(claims.getIssuedAt() + 15 * 60 * 1000L, claims.getExpiresAt());
+    }
+
+    @Test
+    void rejectsTamperedAndMalformedTokens() {
+        AccessTokenService service = service(Duration.ofMinutes(15), "");
+        String token = service.issue(user());
+        String[] parts = token.split("\\.");
+
+        String otherPayload = service.issue(new UserCredentials(8L, "bob", null, null, null, null, true,
+                LocalDateTime.now(), List.of(), List.of())).split("\\.")[2];
+        assertNull(service.verify(parts[0] + "." + parts[1] + "." + otherPayload + "." + parts[3]));
+        assertNull(service.verify("v2." + parts[1] + "." + parts[2] + "." + parts[3]));
+        assertNull(service.verify("v1.unknown." + parts[2] + "." + parts[3]));
+        assertNull(service.verify(parts[0] + "." + parts[1] + "." + parts[2] + ".%%%"));
+        assertNull(service.verify(parts[0] + "." + parts[1] + "." + parts[2]));
+        assertNull(service.verify(""));
+        assertNull(service.verify(null));
+    }
+
+    @Test
+    void rejectsExpiredTokens() {
+        AccessTokenService service = service(Duration.ZERO, "");
+
+        assertNull(service.verify(service.issue(user())));
+    }
+
+    @Test
+    void revokedTokensAreRejected() {
+        AccessTokenService service = service(Duration.ofMinutes(15), "");
+        String first = service.issue(user());
+        String second = service.issue(user());
+
+        service.revoke(service.verify(first));
+
+        assertNull(service.verify(first));
+        assertNotNull(service.verify(second));
+    }
+
+    @Test
+    void revokingAUserRejectsTheTokensIssuedUntilThen() throws InterruptedException {
+        AccessTokenService service = service(Duration.ofMinutes(15), "");
+        String before = service.issue(user());
+
+        service.revokeUser(7L);
+        Thread.sleep(5);
+        String after = service.issue(user());
+
+        assertNull(service.verify(before));
+        assertNotNull(service.verify(after));
+    }
+
+    @Test
+    void tokensSignedBeforeARotationStillVerify() {
+        AccessTokenService service = service(Duration.ofMinutes(15), "");
+        String before = service.issue(user());
+
+        service.rotateKey();
+        String after = service.issue(user());
+
+        assertNotEquals(before.split("\\.")[1], after.split("\\.")[1]);
+        assertNotNull(service.verify(before));
+        assertNotNull(service.verify(after));
+    }
+
+    @Test
+    void instancesWithTheSameSecretsAcceptEachOthersTokens() {
+        AccessTokenService first = service(Duration.ofMinutes(15), OLD_SECRET);
+        AccessTokenService second = service(Duration.ofMinutes(15), OLD_SECRET);
+
+        assertNotNull(second.verify(first.issue(user())));
+        assertNull(service(Duration.ofMinutes(15), "").verify(first.issue(user())));
+    }
+
+    @Test
+    void aNewConfiguredKeySignsWhileTheOldOneStillVerifies() {
+        AccessTokenService before = service(Duration.ofMinutes(15), OLD_SECRET);
+        AccessTokenService after = service(Duration.ofMinutes(15), NEW_SECRET + "," + OLD_SECRET);
+
+        String token = after.issue(user());
+
+        assertTrue(token.startsWith("v1.new."));
+        assertNotNull(after.verify(before.issue(user())));
+        assertNull(before.verify(token));
+    }
+
+    @Test
+    void rejectsMalformedSecrets() {
+        assertThrows(IllegalArgumentException.class, () -> service(Duration.ofMinutes(15), "no-separator"));
+        assertThrows(IllegalArgumentException.class, () -> service(Duration.ofMinutes(15), "a.b:" + OLD_SECRET.substring(4)));
+    }
+
+    private AccessTokenService service(Duration ttl, String secrets) {
+        when(roleGraphCache.forRoles(anyCollection())).thenReturn(new long[]{0b1010L, 1L});
+        AccessTokenService service = new AccessTokenService(roleGraphCache, ttl, secrets, Duration.ofHours(24));
+        services.add(service);
+        return service;
+    }
+
+    private static UserCredentials user() {
+        return new UserCredentials(7L, "anna", "anna@example.com", "Anna", "Nowak", "{bcrypt}hash", true,
+                LocalDateTime.now(), List.of(2L, 3L), List.of("USER", "MANAGER"));
+    }
+}
@@ -0,0 +1,142 @@
+package com.dev.productmanagementsystem.services;
+
+import com.dev.productmanagementsystem.entities.Product;
+import com.dev.productmanagementsystem.repositories.ProductRepository;
+import com.dev.productmanagementsystem.repositories.ProductTombstoneRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CatalogChangeServiceTest {
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final ProductTombstoneRepository tombstoneRepository = mock(ProductTombstoneRepository.class);
+    private final CatalogChangeService service = new CatalogChangeService(productRepository, tombstoneRepository,
+            mock(ProductDetailCache.class));
+
+    @Test
+    void returnsEverythingThatFitsInOnePage() {
+        start(3L, 2L);
+        List<Product> changed = List.of(product(10L, 1L), product(11L, 3L));
+        when(productRepository.findChangedBetween(eq(0L), eq(3L), any())).thenReturn(changed);
+        when(tombstoneRepository.findDeletedBetween(eq(0L), eq(3L), any()))
+                .thenReturn(List.<Object[]>of(new Object[]{12L, 2L}));
+
+        CatalogChangeService.Changes changes = service.changesSince(0, 10);
+
+        assertEquals(List.of(10L, 11L), ids(changes));
+        assertEquals(List.of(12L), changes.getDeleted());
+        assertEquals(3L, changes.getVersion());
+        assertFalse(changes.isHasMore());
+        verify(productRepository, never()).findByChangeSeq(any());
+    }
+
+    @Test
+    void mergesProductsAndTombstonesBySequenceUpToTheLimit() {
+        start(3L, 2L);
+        List<Product> changed = List.of(product(10L, 1L), product(11L, 3L));
+        when(productRepository.findChangedBetween(eq(0L), eq(3L), any())).thenReturn(changed);
+        when(tombstoneRepository.findDeletedBetween(eq(0L), eq(3L), any()))
+                .thenReturn(List.<Object[]>of(new Object[]{12L, 2L}));
+        when(productRepository.findByChangeSeq(2L)).thenReturn(List.of());
+
+        CatalogChangeService.Changes changes = service.changesSince(0, 2);
+
+        assertEquals(List.of(10L), ids(changes));
+        assertEquals(List.of(12L), changes.getDeleted());
+        // The next page starts after the last sequence number returned
+        assertEquals(2L, changes.getVersion());
+        assertTrue(changes.isHasMore());
+    }
+
+    @Test
+    void neverSplitsASequenceNumberAcrossPages() {
+        // A category rename gave products 20 to 22 the same number
+        start(3L, null);
+        List<Product> changed = List.of(product(10L, 1L), product(20L, 2L), product(21L, 2L));
+        when(productRepository.findChangedBetween(eq(0L), eq(3L), any())).thenReturn(changed);
+        when(tombstoneRepository.findDeletedBetween(eq(0L), eq(3L), any())).thenReturn(List.of());
+        List<Product> sameSequence = List.of(product(20L, 2L), product(21L, 2L), product(22L, 2L));
+        when(productRepository.findByChangeSeq(2L)).thenReturn(sameSequence);
+
+        CatalogChangeService.Changes changes = service.changesSince(0, 2);
+
+        assertEquals(List.of(10L, 20L, 21L, 22L), ids(changes));
+        assertEquals(2L, changes.getVersion());
+        assertTrue(changes.isHasMore());
+    }
+
+    @Test
+    void aCutOnTheLastSequenceNumberHasNoMore() {
+        start(2L, null);
+        List<Product> changed = List.of(product(10L, 1L), product(20L, 2L), product(21L, 2L));
+        when(productRepository.findChangedBetween(eq(0L), eq(2L), any())).thenReturn(changed);
+        when(tombstoneRepository.findDeletedBetween(eq(0L), eq(2L), any())).thenReturn(List.of());
+        List<Product> sameSequence = List.of(product(20L, 2L), product(21L, 2L));
+        when(productRepository.findByChangeSeq(2L)).thenReturn(sameSequence);
+
+        CatalogChangeService.Changes changes = service.changesSince(0, 2);
+
+        assertEquals(List.of(10L, 20L, 21L), ids(changes));
+        assertEquals(2L, changes.getVersion());
+        assertFalse(changes.isHasMore());
+    }
+
+    @Test
+    void aClientThatIsUpToDateGetsNothing() {
+        start(5L, null);
+
+        CatalogChangeService.Changes changes = service.changesSince(5, 10);
+
+        assertTrue(changes.getChanged().isEmpty());
+        assertTrue(changes.getDeleted().isEmpty());
+        assertEquals(5L, changes.getVersion());
+        verify(productRepository, never()).findChangedBetween(any(), any(), any());
+    }
+
+    @Test
+    void theVersionStaysBelowChangesStillInFlight() {
+        start(5L, null);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            service.productChanged(1L);
+            assertEquals(5L, service.currentVersion());
+
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+            assertEquals(6L, service.currentVersion());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private void start(Long maxProductSeq, Long maxTombstoneSeq) {
+        when(productRepository.findMaxChangeSeq()).thenReturn(maxProductSeq);
+        when(tombstoneRepository.findMaxChangeSeq()).thenReturn(maxTombstoneSeq);
+        service.afterSingletonsInstantiated();
+    }
+
+    private static Product product(Long id, Long changeSeq) {
+        Product product = mock(Product.class);
+        when(product.getId()).thenReturn(id);
+        when(product.getChangeSeq()).thenReturn(changeSeq);
+        return product;
+    }
+
+    private static List<Long> ids(CatalogChangeService.Changes changes) {
+        return changes.getChanged().stream().map(Product::getId).collect(Collectors.toList());
+    }
+}
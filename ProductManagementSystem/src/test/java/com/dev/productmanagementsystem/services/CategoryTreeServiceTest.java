@@ -0,0 +1,243 @@
+package com.dev.productmanagementsystem.services;
+
+import com.dev.productmanagementsystem.exceptions.InvalidOperationException;
+import com.dev.productmanagementsystem.repositories.CategoryClosureRepository;
+import com.dev.productmanagementsystem.repositories.CategoryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CategoryTreeServiceTest {
+
+    private final CategoryRepository categoryRepository = mock(CategoryRepository.class);
+    private final CategoryClosureRepository closureRepository = mock(CategoryClosureRepository.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final CategoryTreeService service = new CategoryTreeService(categoryRepository, closureRepository,
+            jdbcTemplate, mock(PlatformTransactionManager.class));
+
+    // The category_closure table as "ancestor>descendant" to depth, and the parent links of the categories
+    private final Map<String, Integer> closure = new TreeMap<>();
+    private final Map<Long, Long> parents = new HashMap<>();
+
+    @BeforeEach
+    void tables() {
+        //   1        5
+        //  / \
+        // 2   3
+        // |
+        // 4
+        // |
+        // 6
+        parents.put(1L, null);
+        parents.put(2L, 1L);
+        parents.put(3L, 1L);
+        parents.put(4L, 2L);
+        parents.put(5L, null);
+        parents.put(6L, 4L);
+
+        when(categoryRepository.findAllIdsAndParentIds()).thenAnswer(invocation -> {
+            List<Object[]> rows = new ArrayList<>();
+            parents.forEach((id, parentId) -> rows.add(new Object[]{id, parentId}));
+            return rows;
+        });
+        when(categoryRepository.count()).thenAnswer(invocation -> (long) parents.size());
+        when(closureRepository.countSelfRows()).thenAnswer(invocation ->
+                closure.values().stream().filter(depth -> depth == 0).count());
+        when(closureRepository.findAncestorRows(anyLong())).thenAnswer(invocation -> rows(invocation.getArgument(0), false));
+        when(closureRepository.findDescendantRows(anyLong())).thenAnswer(invocation -> rows(invocation.getArgument(0), true));
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            List<Object[]> rows = invocation.getArgument(1);
+            for (Object[] row : rows) {
+                closure.put(row[0] + ">" + row[1], (Integer) row[2]);
+            }
+            return new int[rows.size()];
+        });
+        when(closureRepository.deleteLinks(anyCollection(), anyCollection())).thenAnswer(invocation -> {
+            Collection<Long> descendants = invocation.getArgument(0);
+            Collection<Long> ancestors = invocation.getArgument(1);
+            int before = closure.size();
+            closure.keySet().removeIf(link -> ancestors.contains(ancestorOf(link)) && descendants.contains(descendantOf(link)));
+            return before - closure.size();
+        });
+        when(closureRepository.deleteAllRows()).thenAnswer(invocation -> {
+            int before = closure.size();
+            closure.clear();
+            return before;
+        });
+    }
+
+    @Test
+    void rebuildLinksEveryCategoryToAllItsAncestors() {
+        service.rebuildClosure();
+
+        assertEquals(Map.ofEntries(
+                Map.entry("1>1", 0), Map.entry("1>2", 1), Map.entry("1>3", 1), Map.entry("1>4", 2), Map.entry("1>6", 3),
+                Map.entry("2>2", 0), Map.entry("2>4", 1), Map.entry("2>6", 2),
+                Map.entry("3>3", 0),
+                Map.entry("4>4", 0), Map.entry("4>6", 1),
+                Map.entry("5>5", 0),
+                Map.entry("6>6", 0)), closure);
+    }
+
+    @Test
+    void startupRebuildsOnlyAnIncompleteClosure() {
+        service.afterSingletonsInstantiated();
+        assertEquals(expectedClosure(), closure);
+
+        service.afterSingletonsInstantiated();
+        verify(closureRepository, times(1)).deleteAllRows();
+    }
+
+    @Test
+    void aNewCategoryIsLinkedToTheAncestorsOfItsParent() {
+        service.rebuildClosure();
+        parents.put(7L, 6L);
+
+        service.categoryCreated(7L, 6L);
+
+        assertEquals(expectedClosure(), closure);
+        assertEquals(4, closure.get("1>7"));
+        assertArrayEquals(new long[]{1, 2, 4, 6}, service.ancestorIds(7L));
+    }
+
+    @Test
+    void movingACategoryRelinksItsWholeSubtree() {
+        service.rebuildClosure();
+        parents.put(2L, 5L);
+
+        service.categoryMoved(2L, 5L);
+
+        // The same rows a rebuild from the new parent links writes
+        assertEquals(expectedClosure(), closure);
+        assertFalse(closure.containsKey("1>6"));
+        assertEquals(3, closure.get("5>6"));
+        assertArrayEquals(new long[]{5, 2, 4}, service.ancestorIds(6L));
+        assertArrayEquals(new long[]{3}, service.descendantIds(1L));
+        assertArrayEquals(new long[]{2, 4, 6}, service.descendantIds(5L));
+    }
+
+    @Test
+    void movingACategoryToTheTopLevelDropsItsOldAncestors() {
+        service.rebuildClosure();
+        parents.put(4L, null);
+
+        service.categoryMoved(4L, null);
+
+        assertEquals(expectedClosure(), closure);
+        assertEquals(0, service.depth(4L));
+        assertEquals(1, service.depth(6L));
+        assertFalse(service.isInSubtree(1L, 6L));
+    }
+
+    @Test
+    void aCategoryCannotMoveBelowItself() {
+        service.rebuildClosure();
+        Map<String, Integer> before = new TreeMap<>(closure);
+
+        assertThrows(InvalidOperationException.class, () -> service.categoryMoved(2L, 6L));
+        assertThrows(InvalidOperationException.class, () -> service.categoryMoved(2L, 2L));
+
+        assertEquals(before, closure);
+        verify(closureRepository, never()).deleteLinks(anyCollection(), anyCollection());
+    }
+
+    @Test
+    void snapshotAnswersTreeQueries() {
+        assertTrue(service.exists(6L));
+        assertFalse(service.exists(9L));
+        assertArrayEquals(new long[]{1, 2, 4}, service.ancestorIds(6L));
+        assertArrayEquals(new long[0], service.ancestorIds(1L));
+        // Parents before their children
+        assertArrayEquals(new long[]{2, 4, 6, 3}, service.descendantIds(1L));
+        assertArrayEquals(new long[0], service.descendantIds(9L));
+        assertEquals(3, service.depth(6L));
+        assertEquals(-1, service.depth(9L));
+        assertTrue(service.isInSubtree(2L, 6L));
+        assertTrue(service.isInSubtree(2L, 2L));
+        assertFalse(service.isInSubtree(2L, 3L));
+        assertFalse(service.isInSubtree(5L, 6L));
+    }
+
+    @Test
+    void parentCyclesAreTreatedAsRoots() {
+        parents.put(7L, 8L);
+        parents.put(8L, 7L);
+
+        assertTrue(service.exists(7L));
+        assertTrue(service.exists(8L));
+        assertEquals(1, service.depth(8L) + service.depth(7L));
+    }
+
+    @Test
+    void theSnapshotChangesOnlyWhenTheMoveCommits() {
+        service.rebuildClosure();
+        assertEquals(3, service.depth(6L));
+        parents.put(2L, 5L);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            service.categoryMoved(2L, 5L);
+            assertArrayEquals(new long[]{1, 2, 4}, service.ancestorIds(6L));
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertArrayEquals(new long[]{5, 2, 4}, service.ancestorIds(6L));
+    }
+
+    private List<Object[]> rows(Long categoryId, boolean descendants) {
+        List<Object[]> rows = new ArrayList<>();
+        closure.forEach((link, depth) -> {
+            if ((descendants ? ancestorOf(link) : descendantOf(link)) == categoryId) {
+                rows.add(new Object[]{descendants ? descendantOf(link) : ancestorOf(link), depth});
+            }
+        });
+        return rows;
+    }
+
+    // Every (ancestor, descendant) pair the parent links imply, walked without the service
+    private Map<String, Integer> expectedClosure() {
+        Map<String, Integer> expected = new TreeMap<>();
+        for (Long id : parents.keySet()) {
+            int depth = 0;
+            for (Long ancestor = id; ancestor != null; ancestor = parents.get(ancestor)) {
+                expected.put(ancestor + ">" + id, depth++);
+            }
+        }
+        return expected;
+    }
+
+    private static long ancestorOf(String link) {
+        return Long.parseLong(link.substring(0, link.indexOf('>')));
+    }
+
+    private static long descendantOf(String link) {
+        return Long.parseLong(link.substring(link.indexOf('>') + 1));
+    }
+}
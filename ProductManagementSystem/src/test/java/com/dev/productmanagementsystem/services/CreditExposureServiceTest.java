@@ -0,0 +1,173 @@
+package com.dev.productmanagementsystem.services;
+
+import com.dev.productmanagementsystem.entities.Invoice;
+import com.dev.productmanagementsystem.entities.Order;
+import com.dev.productmanagementsystem.entities.User;
+import com.dev.productmanagementsystem.enums.OrderStatus;
+import com.dev.productmanagementsystem.enums.PaymentStatus;
+import com.dev.productmanagementsystem.exceptions.InvalidOperationException;
+import com.dev.productmanagementsystem.repositories.InvoiceRepository;
+import com.dev.productmanagementsystem.repositories.LedgerBalanceRepository;
+import com.dev.productmanagementsystem.repositories.OrderRepository;
+import com.dev.productmanagementsystem.utils.Money;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CreditExposureServiceTest {
+
+    private final InvoiceRepository invoiceRepository = mock(InvoiceRepository.class);
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+    private final LedgerBalanceRepository ledgerBalanceRepository = mock(LedgerBalanceRepository.class);
+    private final CreditExposureService service = new CreditExposureService(invoiceRepository, orderRepository,
+            ledgerBalanceRepository);
+
+    @Test
+    void admittedOrdersHoldCredit() {
+        User customer = customer(1L, "100.00");
+
+        service.reserveCredit(customer, money("60.00"));
+
+        assertEquals(new BigDecimal("60.00"), service.getExposure(1L));
+    }
+
+    @Test
+    void rejectsAnOrderAboveTheAvailableCredit() {
+        User customer = customer(1L, "100.00");
+        service.reserveCredit(customer, money("60.00"));
+
+        InvalidOperationException e = assertThrows(InvalidOperationException.class,
+                () -> service.reserveCredit(customer, money("40.01")));
+
+        assertEquals("Order total 40.01 exceeds the available credit of 40.00 for customer customer1", e.getMessage());
+        assertEquals(new BigDecimal("60.00"), service.getExposure(1L));
+    }
+
+    @Test
+    void repeatedOrdersAddUpUntilTheLimit() {
+        User customer = customer(1L, "100.00");
+
+        for (int i = 0; i < 4; i++) {
+            service.reserveCredit(customer, money("25.00"));
+        }
+
+        assertEquals(new BigDecimal("100.00"), service.getExposure(1L));
+        assertThrows(InvalidOperationException.class, () -> service.reserveCredit(customer, money("0.01")));
+        // Other customers are not affected
+        service.reserveCredit(customer(2L, "100.00"), money("100.00"));
+    }
+
+    @Test
+    void customersWithoutALimitAreHeldButNeverRejected() {
+        User customer = customer(1L, null);
+
+        service.reserveCredit(customer, money("1000000.00"));
+
+        assertEquals(new BigDecimal("1000000.00"), service.getExposure(1L));
+    }
+
+    @Test
+    void aRolledBackOrderGivesItsHoldBack() {
+        User customer = customer(1L, "100.00");
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            service.reserveCredit(customer, money("80.00"));
+            // Held at once, so a concurrent order already sees it
+            assertThrows(InvalidOperationException.class, () -> service.reserveCredit(customer, money("30.00")));
+
+            complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertEquals(new BigDecimal("0.00"), service.getExposure(1L));
+    }
+
+    @Test
+    void cancellingReleasesTheHoldAfterCommit() {
+        User customer = customer(1L, "100.00");
+        service.reserveCredit(customer, money("80.00"));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            service.releaseCredit(1L, money("80.00"));
+            assertEquals(new BigDecimal("80.00"), service.getExposure(1L));
+
+            complete(TransactionSynchronization.STATUS_COMMITTED);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertEquals(new BigDecimal("0.00"), service.getExposure(1L));
+    }
+
+    @Test
+    void theInvoiceTakesOverTheHoldOfItsOrder() {
+        User customer = customer(1L, "200.00");
+        service.reserveCredit(customer, money("100.00"));
+        Invoice invoice = invoice(customer, OrderStatus.CONFIRMED, "100.00", "110.00");
+
+        service.invoiceCreated(invoice);
+        assertEquals(new BigDecimal("110.00"), service.getExposure(1L));
+
+        service.paymentPosted(1L, 5000);
+        assertEquals(new BigDecimal("60.00"), service.getExposure(1L));
+
+        // Without its invoice the order holds credit again
+        service.invoiceDeleted(invoice);
+        assertEquals(new BigDecimal("50.00"), service.getExposure(1L));
+    }
+
+    @Test
+    void reloadCountsOpenOrders() {
+        List<Object[]> invoiced = List.<Object[]>of(new Object[]{1L, new BigDecimal("110.00")});
+        when(invoiceRepository.sumTotalAmountGroupByCustomerIdExcludingStatus(PaymentStatus.CANCELLED)).thenReturn(invoiced);
+        List<Object[]> open = List.of(new Object[]{1L, new BigDecimal("40.00")}, new Object[]{2L, new BigDecimal("15.00")});
+        when(orderRepository.sumTotalAmountOfUninvoicedOrdersGroupByCustomerIdExcludingStatus(OrderStatus.CANCELLED))
+                .thenReturn(open);
+
+        service.reload();
+
+        assertEquals(new BigDecimal("150.00"), service.getExposure(1L));
+        assertEquals(new BigDecimal("15.00"), service.getExposure(2L));
+        assertThrows(InvalidOperationException.class, () -> service.reserveCredit(customer(1L, "200.00"), money("50.01")));
+    }
+
+    private static void complete(int status) {
+        TransactionSynchronizationManager.getSynchronizations().forEach(synchronization -> {
+            if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                synchronization.afterCommit();
+            }
+            synchronization.afterCompletion(status);
+        });
+    }
+
+    private static User customer(Long id, String creditLimit) {
+        User customer = new User();
+        customer.setId(id);
+        customer.setUsername("customer" + id);
+        customer.setCreditLimit(creditLimit != null ? new BigDecimal(creditLimit) : null);
+        return customer;
+    }
+
+    private static Invoice invoice(User customer, OrderStatus orderStatus, String orderTotal, String invoiceTotal) {
+        Order order = new Order();
+        order.setCustomer(customer);
+        order.setStatus(orderStatus);
+        order.setTotalAmount(new BigDecimal(orderTotal));
+        Invoice invoice = new Invoice();
+        invoice.setOrder(order);
+        invoice.setPaymentStatus(PaymentStatus.PENDING);
+        invoice.setTotalAmount(new BigDecimal(invoiceTotal));
+        return invoice;
+    }
+
+    private static Money money(String amount) {
+        return Money.of(new BigDecimal(amount));
+    }
+}
@@ -0,0 +1,135 @@
+package com.dev.productmanagementsystem.services;
+
+import com.dev.productmanagementsystem.dto.DatasetResultDTO;
+import com.dev.productmanagementsystem.dto.DatasetSpecDTO;
+import com.dev.productmanagementsystem.repositories.ProductRepository;
+import com.dev.productmanagementsystem.repositories.ProductTombstoneRepository;
+import com.dev.productmanagementsystem.repositories.RoleRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DatasetGeneratorServiceTest {
+
+    @Test
+    void theSameSeedWritesTheSameRowsOnAnyNumberOfThreads() {
+        Map<String, List<String>> oneThread = generate(spec(42, 1));
+        Map<String, List<String>> fourThreads = generate(spec(42, 4));
+
+        assertEquals(oneThread.keySet(), fourThreads.keySet());
+        for (String sql : oneThread.keySet()) {
+            assertEquals(oneThread.get(sql), fourThreads.get(sql), sql);
+        }
+        assertEquals(60, rowsOf(oneThread, "INSERT INTO users").size());
+        assertEquals(300, rowsOf(oneThread, "INSERT INTO orders").size());
+    }
+
+    @Test
+    void anotherSeedWritesOtherRows() {
+        Map<String, List<String>> first = generate(spec(42, 2));
+        Map<String, List<String>> second = generate(spec(43, 2));
+
+        // Same row counts, different contents
+        assertEquals(rowsOf(first, "INSERT INTO users").size(), rowsOf(second, "INSERT INTO users").size());
+        assertNotEquals(rowsOf(first, "INSERT INTO users"), rowsOf(second, "INSERT INTO users"));
+        assertNotEquals(rowsOf(first, "INSERT INTO orders"), rowsOf(second, "INSERT INTO orders"));
+    }
+
+    @Test
+    void reportsTheRowsWritten() {
+        DatasetGeneratorService service = service(new ConcurrentHashMap<>());
+
+        DatasetResultDTO result = service.generate(spec(42, 2));
+
+        assertEquals(60L, result.getRows().get("users"));
+        assertEquals(3L, result.getRows().get("warehouses"));
+        assertEquals(300L, result.getRows().get("orders"));
+        assertTrue(result.getRows().get("order_items") >= 300L);
+    }
+
+    @Test
+    void rejectsSpecsThatCannotBeFilled() {
+        DatasetGeneratorService service = service(new ConcurrentHashMap<>());
+        DatasetSpecDTO noWarehouses = spec(42, 1);
+        noWarehouses.setWarehouses(0);
+        DatasetSpecDTO flatSeasons = spec(42, 1);
+        flatSeasons.setSeasonality(1);
+
+        assertThrows(IllegalArgumentException.class, () -> service.generate(noWarehouses));
+        assertThrows(IllegalArgumentException.class, () -> service.generate(flatSeasons));
+    }
+
+    // Every row written, per statement and sorted, since chunks finish in any order
+    private static Map<String, List<String>> generate(DatasetSpecDTO spec) {
+        Map<String, ConcurrentLinkedQueue<String>> written = new ConcurrentHashMap<>();
+        service(written).generate(spec);
+        Map<String, List<String>> rows = new TreeMap<>();
+        written.forEach((sql, statementRows) -> {
+            List<String> sorted = new ArrayList<>(statementRows);
+            sorted.sort(null);
+            rows.put(sql, sorted);
+        });
+        return rows;
+    }
+
+    private static DatasetGeneratorService service(Map<String, ConcurrentLinkedQueue<String>> written) {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            List<Object[]> rows = invocation.getArgument(1);
+            ConcurrentLinkedQueue<String> statementRows = written.computeIfAbsent(invocation.getArgument(0),
+                    sql -> new ConcurrentLinkedQueue<>());
+            for (Object[] row : rows) {
+                statementRows.add(Arrays.toString(row));
+            }
+            return new int[rows.size()];
+        });
+        PasswordEncoder passwordEncoder = mock(PasswordEncoder.class);
+        when(passwordEncoder.encode("password")).thenReturn("{bcrypt}hash");
+        return new DatasetGeneratorService(jdbcTemplate, mock(PlatformTransactionManager.class),
+                mock(RoleRepository.class), mock(ProductRepository.class), mock(ProductTombstoneRepository.class),
+                passwordEncoder);
+    }
+
+    private static List<String> rowsOf(Map<String, List<String>> rows, String sqlPrefix) {
+        for (Map.Entry<String, List<String>> entry : rows.entrySet()) {
+            if (entry.getKey().startsWith(sqlPrefix + " ")) {
+                return entry.getValue();
+            }
+        }
+        throw new AssertionError("No rows for " + sqlPrefix);
+    }
+
+    // Small, but with many chunks per table
+    private static DatasetSpecDTO spec(long seed, int threads) {
+        DatasetSpecDTO spec = new DatasetSpecDTO();
+        spec.setSeed(seed);
+        spec.setThreads(threads);
+        spec.setBatchSize(16);
+        spec.setUsers(60);
+        spec.setWarehouses(3);
+        spec.setCategories(25);
+        spec.setProducts(120);
+        spec.setOrders(300);
+        spec.setStockMovements(80);
+        spec.setMonths(6);
+        return spec;
+    }
+}
@@ -0,0 +1,71 @@
+package com.dev.productmanagementsystem.services;
+
+import com.dev.productmanagementsystem.repositories.InvoiceRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class InvoiceDocumentServiceTest {
+
+    private static final long NOW = 1_000_000_000_000L;
+
+    @TempDir
+    Path cacheDirectory;
+
+    @Test
+    void evictsFilesPastTheMaximumAge() throws IOException {
+        Path old = file("old.pdf", 10, Duration.ofDays(8));
+        Path recent = file("recent.pdf", 10, Duration.ofDays(6));
+
+        service(1_000, Duration.ofDays(7)).evict(NOW);
+
+        assertFalse(Files.exists(old));
+        assertTrue(Files.exists(recent));
+    }
+
+    @Test
+    void evictsOldestFilesUntilTheRestFits() throws IOException {
+        Path oldest = file("a.pdf", 40, Duration.ofMinutes(30));
+        Path older = file("b.html", 40, Duration.ofMinutes(20));
+        Path newest = file("c.pdf", 40, Duration.ofMinutes(10));
+
+        service(90, Duration.ofDays(7)).evict(NOW);
+
+        assertFalse(Files.exists(oldest));
+        assertTrue(Files.exists(older));
+        assertTrue(Files.exists(newest));
+    }
+
+    @Test
+    void keepsEverythingWithinBothLimits() throws IOException {
+        Path first = file("a.pdf", 40, Duration.ofHours(2));
+        Path second = file("b.pdf", 40, Duration.ofHours(1));
+
+        service(80, Duration.ofDays(7)).evict(NOW);
+
+        assertTrue(Files.exists(first));
+        assertTrue(Files.exists(second));
+    }
+
+    private InvoiceDocumentService service(long maxBytes, Duration maxAge) {
+        return new InvoiceDocumentService(mock(InvoiceRepository.class), new ObjectMapper(),
+                mock(PlatformTransactionManager.class), cacheDirectory.toString(), maxBytes, maxAge);
+    }
+
+    private Path file(String name, int size, Duration age) throws IOException {
+        Path file = Files.write(cacheDirectory.resolve(name), new byte[size]);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(NOW - age.toMillis()));
+        return file;
+    }
+}
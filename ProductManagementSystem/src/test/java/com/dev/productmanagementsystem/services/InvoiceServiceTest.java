@@ -0,0 +1,62 @@
+package com.dev.productmanagementsystem.services;
+
+import com.dev.productmanagementsystem.entities.Invoice;
+import com.dev.productmanagementsystem.entities.Order;
+import com.dev.productmanagementsystem.entities.Payment;
+import com.dev.productmanagementsystem.enums.PaymentStatus;
+import com.dev.productmanagementsystem.repositories.InvoiceRepository;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class InvoiceServiceTest {
+
+    private final InvoiceRepository invoiceRepository = mock(InvoiceRepository.class);
+    private final InvoiceService invoiceService = new InvoiceService(invoiceRepository, null, null, null, null);
+
+    @Test
+    void storedTotalIsRoundedToCents() {
+        assertEquals(new BigDecimal("12.36"), InvoiceService.calculateTotalWithTax(new BigDecimal("10.05"), new BigDecimal("23")).toBigDecimal());
+        assertEquals(new BigDecimal("10.05"), InvoiceService.calculateTotalWithTax(new BigDecimal("10.05"), null).toBigDecimal());
+    }
+
+    @Test
+    void reportedTotalsKeepTheExactProduct() {
+        Invoice invoice = invoice(1L, "10.05", "23");
+        when(invoiceRepository.findById(1L)).thenReturn(Optional.of(invoice));
+        assertEquals(new BigDecimal("12.3615"), invoiceService.getInvoiceTotalAmount(1L));
+
+        Payment payment = new Payment();
+        payment.setAmount(new BigDecimal("12.00"));
+        payment.setPaymentStatus(PaymentStatus.COMPLETED);
+        invoice.addPayment(payment);
+        assertEquals(new BigDecimal("0.3615"), invoiceService.calculateRemainingAmount(1L));
+    }
+
+    @Test
+    void revenueSumsUnroundedTotals() {
+        when(invoiceRepository.findByPaymentStatusAndDueDateBetween(eq(PaymentStatus.PAID), any(), any()))
+                .thenReturn(List.of(invoice(1L, "10.05", "23"), invoice(2L, "10.05", "23")));
+        // Rounded per invoice this would be 24.72
+        assertEquals(new BigDecimal("24.7230"), invoiceService.calculateRevenue(LocalDateTime.MIN, LocalDateTime.MAX));
+    }
+
+    private static Invoice invoice(Long id, String orderTotal, String tax) {
+        Order order = new Order();
+        order.setTotalAmount(new BigDecimal(orderTotal));
+        Invoice invoice = new Invoice();
+        invoice.setId(id);
+        invoice.setOrder(order);
+        invoice.setTax(new BigDecimal(tax));
+        return invoice;
+    }
+}
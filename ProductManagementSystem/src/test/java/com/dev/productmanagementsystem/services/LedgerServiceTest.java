@@ -0,0 +1,238 @@
+package com.dev.productmanagementsystem.services;
+
+import com.dev.productmanagementsystem.entities.Invoice;
+import com.dev.productmanagementsystem.entities.LedgerBackfill;
+import com.dev.productmanagementsystem.entities.Order;
+import com.dev.productmanagementsystem.entities.Payment;
+import com.dev.productmanagementsystem.entities.User;
+import com.dev.productmanagementsystem.enums.LedgerAccount;
+import com.dev.productmanagementsystem.enums.PaymentStatus;
+import com.dev.productmanagementsystem.repositories.LedgerBackfillRepository;
+import com.dev.productmanagementsystem.repositories.LedgerBalanceRepository;
+import com.dev.productmanagementsystem.repositories.PaymentRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LedgerServiceTest {
+
+    private final LedgerBalanceRepository ledgerBalanceRepository = mock(LedgerBalanceRepository.class);
+    private final LedgerBackfillRepository ledgerBackfillRepository = mock(LedgerBackfillRepository.class);
+    private final PaymentRepository paymentRepository = mock(PaymentRepository.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final CreditExposureService creditExposureService = mock(CreditExposureService.class);
+    private final LedgerService ledgerService = new LedgerService(ledgerBalanceRepository, ledgerBackfillRepository,
+            paymentRepository, jdbcTemplate, creditExposureService, mock(InvoiceDocumentService.class),
+            mock(PlatformTransactionManager.class));
+
+    @Test
+    void postsBothSidesAndEachBalanceOnce() {
+        LocalDateTime date = LocalDateTime.of(2026, 1, 10, 9, 30);
+        ledgerService.post(List.of(
+                new LedgerService.Posting(1L, 3L, 7L, 10000, date, "Payment T1"),
+                new LedgerService.Posting(2L, 3L, 7L, 2550, date.plusDays(1), "Payment T2")));
+
+        List<Object[]> entries = batch("INSERT INTO ledger_entries");
+        assertEquals(4, entries.size());
+        assertEquals(List.of("CASH", "ACCOUNTS_RECEIVABLE"), List.of(entries.get(0)[1], entries.get(1)[1]));
+        assertEquals(new BigDecimal("100.00"), entries.get(0)[2]);
+        assertEquals(new BigDecimal("-100.00"), entries.get(1)[2]);
+        // Both sides of a posting share a journal id
+        assertEquals(entries.get(0)[0], entries.get(1)[0]);
+        assertEquals("2026-01", entries.get(0)[6]);
+
+        // In key order, with the net amount and entry count of both postings
+        assertEquals(List.of(
+                "ACCOUNTS_RECEIVABLE -125.50 2",
+                "ACCOUNTS_RECEIVABLE/customer/7 -125.50 2",
+                "ACCOUNTS_RECEIVABLE/invoice/3 -125.50 2",
+                "CASH 125.50 2",
+                "CASH/period/2026-01 125.50 2"), balances());
+        verify(creditExposureService).paymentPosted(7L, 10000);
+        verify(creditExposureService).paymentPosted(7L, 2550);
+    }
+
+    @Test
+    void refundsPostNegativeAmounts() {
+        ledgerService.postPayment(payment(5L, "-20.00", LocalDateTime.of(2026, 2, 3, 12, 0)));
+
+        List<Object[]> entries = batch("INSERT INTO ledger_entries");
+        assertEquals(new BigDecimal("-20.00"), entries.get(0)[2]);
+        assertEquals("Refund T5", entries.get(0)[8]);
+        assertTrue(balances().contains("CASH/period/2026-02 -20.00 1"));
+    }
+
+    @Test
+    void onlyCompletedPaymentsArePosted() {
+        Payment pending = payment(5L, "20.00", LocalDateTime.now());
+        pending.setPaymentStatus(PaymentStatus.PENDING);
+
+        ledgerService.postPayment(pending);
+        ledgerService.reversePayment(pending, "Payment deleted");
+
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    void reversalsCountTowardTheMonthOfThePayment() {
+        LocalDateTime paid = LocalDateTime.of(2025, 11, 15, 8, 0);
+        LocalDateTime before = LocalDateTime.now();
+
+        ledgerService.reversePayment(payment(5L, "40.00", paid), "Payment deleted");
+
+        List<Object[]> entries = batch("INSERT INTO ledger_entries");
+        assertEquals(new BigDecimal("-40.00"), entries.get(0)[2]);
+        assertEquals("2025-11", entries.get(0)[6]);
+        // Posted when it happened, not back-dated
+        assertFalse(((Timestamp) entries.get(0)[7]).toLocalDateTime().isBefore(before));
+        assertEquals("Reversal of Payment T5: Payment deleted", entries.get(0)[8]);
+        assertTrue(balances().contains("CASH/period/2025-11 -40.00 1"));
+    }
+
+    @Test
+    void repostingReversesOnlyWhatChanged() {
+        Payment payment = payment(5L, "40.00", LocalDateTime.of(2025, 11, 15, 8, 0));
+        LedgerService.Posting previous = LedgerService.Posting.of(payment);
+
+        payment.setNotes("Checked");
+        ledgerService.repostPayment(previous, payment);
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+
+        payment.setPaymentStatus(PaymentStatus.CANCELLED);
+        ledgerService.repostPayment(previous, payment);
+        assertEquals(List.of(
+                "ACCOUNTS_RECEIVABLE 40.00 1",
+                "ACCOUNTS_RECEIVABLE/customer/7 40.00 1",
+                "ACCOUNTS_RECEIVABLE/invoice/3 40.00 1",
+                "CASH -40.00 1",
+                "CASH/period/2025-11 -40.00 1"), balances());
+    }
+
+    @Test
+    void looksUpBalancesByKey() {
+        when(ledgerBalanceRepository.findBalanceByBalanceKey("ACCOUNTS_RECEIVABLE/invoice/3"))
+                .thenReturn(Optional.of(new BigDecimal("-125.50")));
+        when(ledgerBalanceRepository.findBalanceByBalanceKey("CASH")).thenReturn(Optional.of(new BigDecimal("99.00")));
+
+        assertEquals(new BigDecimal("125.50"), ledgerService.getReceivedForInvoice(3L));
+        assertEquals(new BigDecimal("0.00"), ledgerService.getReceivedFromCustomer(7L));
+        assertEquals(new BigDecimal("99.00"), ledgerService.getAccountBalance(LedgerAccount.CASH));
+    }
+
+    @Test
+    void sumsMonthlyBalancesInRange() {
+        List<Object[]> months = List.of(
+                new Object[]{"CASH/period/2025-12", new BigDecimal("10.00")},
+                new Object[]{"CASH/period/2026-01", new BigDecimal("20.00")},
+                new Object[]{"CASH/period/2026-02", new BigDecimal("-5.00")},
+                new Object[]{"CASH/period/2026-03", new BigDecimal("40.00")});
+        when(ledgerBalanceRepository.findBalancesByBalanceKeyStartingWith("CASH/period/")).thenReturn(months);
+
+        assertEquals(new BigDecimal("15.00"), ledgerService.getReceivedForPeriods(YearMonth.of(2026, 1), YearMonth.of(2026, 2)));
+        assertEquals(new BigDecimal("0.00"), ledgerService.getReceivedForPeriods(YearMonth.of(2024, 1), YearMonth.of(2024, 12)));
+    }
+
+    @Test
+    void backfillStartsFromTheHighestPaymentId() {
+        when(ledgerBackfillRepository.findById(LedgerBackfill.ID)).thenReturn(Optional.empty());
+        when(paymentRepository.findMaxId()).thenReturn(2L);
+        LedgerBackfill started = new LedgerBackfill(2L);
+        when(ledgerBackfillRepository.save(any())).thenReturn(started);
+        when(ledgerBackfillRepository.findByIdForUpdate(LedgerBackfill.ID)).thenReturn(Optional.of(started));
+        List<Object[]> rows = List.of(row(1L, "10.00"), row(2L, "5.00"));
+        when(paymentRepository.findPostingFieldsBetween(eq(PaymentStatus.COMPLETED), eq(0L), eq(2L), any())).thenReturn(rows);
+
+        ledgerService.afterSingletonsInstantiated();
+
+        verify(ledgerBackfillRepository).save(argThat(backfill -> backfill.getUpToPaymentId() == 2L));
+        assertTrue(started.isComplete());
+        assertTrue(balances().contains("CASH 15.00 2"));
+    }
+
+    @Test
+    void backfillResumesAfterTheLastCommittedChunk() {
+        LedgerBackfill backfill = new LedgerBackfill(2500L);
+        backfill.setLastPaymentId(1000L);
+        when(ledgerBackfillRepository.findById(LedgerBackfill.ID)).thenReturn(Optional.of(backfill));
+        when(ledgerBackfillRepository.findByIdForUpdate(LedgerBackfill.ID)).thenReturn(Optional.of(backfill));
+        List<Object[]> rows = List.of(row(1001L, "1.00"), row(1500L, "2.00"));
+        when(paymentRepository.findPostingFieldsBetween(eq(PaymentStatus.COMPLETED), eq(1000L), eq(2500L), any())).thenReturn(rows);
+
+        ledgerService.backfillFromPayments();
+
+        verify(paymentRepository, never()).findPostingFieldsBetween(any(), eq(0L), any(), any());
+        assertEquals(2500L, backfill.getLastPaymentId());
+        assertTrue(balances().contains("CASH 3.00 2"));
+
+        // Once complete it does not look at payments again
+        ledgerService.backfillFromPayments();
+        verify(paymentRepository, times(1)).findPostingFieldsBetween(any(), any(), any(), any());
+    }
+
+    private List<Object[]> batch(String sqlPrefix) {
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(2)).batchUpdate(sql.capture(), rows.capture());
+        for (int i = 0; i < sql.getAllValues().size(); i++) {
+            if (sql.getAllValues().get(i).startsWith(sqlPrefix)) {
+                return rows.getAllValues().get(i);
+            }
+        }
+        throw new AssertionError("No batch for " + sqlPrefix);
+    }
+
+    // Balance upserts as "key amount entries"
+    private List<String> balances() {
+        List<String> balances = new ArrayList<>();
+        for (Object[] row : batch("INSERT INTO ledger_balances")) {
+            balances.add(row[0] + " " + row[2] + " " + row[3]);
+        }
+        return balances;
+    }
+
+    private static Object[] row(Long paymentId, String amount) {
+        return new Object[]{paymentId, 3L, 7L, new BigDecimal(amount), LocalDateTime.of(2024, 6, 1, 0, 0), "T" + paymentId};
+    }
+
+    private static Payment payment(Long id, String amount, LocalDateTime date) {
+        User customer = new User();
+        customer.setId(7L);
+        Order order = new Order();
+        order.setCustomer(customer);
+        Invoice invoice = new Invoice();
+        invoice.setId(3L);
+        invoice.setOrder(order);
+        Payment payment = new Payment();
+        payment.setId(id);
+        payment.setInvoice(invoice);
+        payment.setAmount(new BigDecimal(amount));
+        payment.setPaymentDate(date);
+        payment.setTransactionId("T" + id);
+        payment.setPaymentStatus(PaymentStatus.COMPLETED);
+        return payment;
+    }
+}
@@ -0,0 +1,84 @@
+package com.dev.productmanagementsystem.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PasswordVerificationServiceTest {
+
+    private final PasswordEncoder passwordEncoder = mock(PasswordEncoder.class);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private PasswordVerificationService service;
+
+    @AfterEach
+    void stop() {
+        release.countDown();
+        service.destroy();
+    }
+
+    @Test
+    void verifiesOnThePool() {
+        when(passwordEncoder.encode(anyString())).thenReturn("{bcrypt}dummy");
+        when(passwordEncoder.matches("secret", "{bcrypt}stored")).thenReturn(true);
+        service = new PasswordVerificationService(passwordEncoder, 1, 4, 10, 60, 1000);
+
+        assertTrue(service.verify("secret", "{bcrypt}stored").join());
+        assertFalse(service.verify("wrong", "{bcrypt}stored").join());
+        assertFalse(service.rejectUnknown("secret").join());
+    }
+
+    @Test
+    void unknownUsersAreTurnedAwayLikeKnownOnesWhenTheQueueIsFull() throws InterruptedException {
+        when(passwordEncoder.encode(anyString())).thenReturn("{bcrypt}dummy");
+        CountDownLatch started = new CountDownLatch(1);
+        when(passwordEncoder.matches(anyString(), eq("{bcrypt}stored"))).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return false;
+        });
+        service = new PasswordVerificationService(passwordEncoder, 1, 1, 10, 60, 1000);
+
+        // One check running, one queued
+        service.verify("a", "{bcrypt}stored");
+        started.await();
+        service.verify("b", "{bcrypt}stored");
+        assertEquals(1, service.getQueuedVerifications());
+
+        assertRejected(service.verify("c", "{bcrypt}stored"));
+        assertRejected(service.rejectUnknown("c"));
+    }
+
+    @Test
+    void throttlesPerUsernameAndPerAddress() {
+        when(passwordEncoder.encode(anyString())).thenReturn("{bcrypt}dummy");
+        service = new PasswordVerificationService(passwordEncoder, 1, 4, 2, 3, 1000);
+
+        assertEquals(0L, service.throttle("anna", "10.0.0.1"));
+        assertEquals(0L, service.throttle("ANNA", "10.0.0.2"));
+        assertTrue(service.throttle("anna", "10.0.0.3") > 0);
+
+        assertEquals(0L, service.throttle("bob", "10.0.0.1"));
+        assertEquals(0L, service.throttle("carl", "10.0.0.1"));
+        assertTrue(service.throttle("dora", "10.0.0.1") > 0);
+    }
+
+    private static void assertRejected(CompletableFuture<Boolean> future) {
+        CompletionException failure = assertThrows(CompletionException.class, future::join);
+        assertInstanceOf(RejectedExecutionException.class, failure.getCause());
+    }
+}
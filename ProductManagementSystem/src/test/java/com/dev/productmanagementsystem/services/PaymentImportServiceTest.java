@@ -0,0 +1,189 @@
+package com.dev.productmanagementsystem.services;
+
+import com.dev.productmanagementsystem.dto.PaymentImportResultDTO;
+import com.dev.productmanagementsystem.enums.StatementFormat;
+import com.dev.productmanagementsystem.repositories.InvoiceRepository;
+import com.dev.productmanagementsystem.repositories.PaymentRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PaymentImportServiceTest {
+
+    private final InvoiceRepository invoiceRepository = mock(InvoiceRepository.class);
+    private final PaymentRepository paymentRepository = mock(PaymentRepository.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final LedgerService ledgerService = mock(LedgerService.class);
+    private final PaymentImportService service = new PaymentImportService(invoiceRepository, paymentRepository,
+            jdbcTemplate, mock(PlatformTransactionManager.class), ledgerService, "target/payment-imports");
+
+    @Test
+    void csvFieldsMayBeQuoted() {
+        PaymentImportService.StatementLine line = PaymentImportService.parseCsv(3,
+                "\"2026-01-05\",\"1250.00\",x,T1,\"Rent, \"\"March\"\"\"");
+
+        assertEquals(3, line.lineNumber);
+        assertEquals(LocalDate.of(2026, 1, 5), line.bookingDate);
+        assertEquals(125000, line.amount);
+        assertEquals("BANK-T1", line.transactionId);
+        assertEquals("Rent, \"March\"", line.description);
+
+        PaymentImportService.StatementLine quotedReference = PaymentImportService.parseCsv(4,
+                "2026-01-05,10.00,\"INV-1, INV-2\", T2 ");
+        assertEquals("INV-1, INV-2", quotedReference.reference);
+        assertEquals("BANK-T2", quotedReference.transactionId);
+        assertEquals("", quotedReference.description);
+    }
+
+    @Test
+    void amountsKeepTheirSign() {
+        assertEquals(-1250, PaymentImportService.parseCsv(1, "2026-01-05,-12.50,,T1").amount);
+        assertEquals(1250, PaymentImportService.parseCsv(1, "2026-01-05,+12.5,,T1").amount);
+        assertEquals(-700, PaymentImportService.parseFixedWidth(1, fixedWidth("2026-01-05", "-7.00", "", "T1", "")).amount);
+    }
+
+    @Test
+    void malformedCsvLinesAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> PaymentImportService.parseCsv(1, "2026-01-05,10.00,INV-1"));
+        assertThrows(IllegalArgumentException.class, () -> PaymentImportService.parseCsv(1, "2026-01-05,\"10.00,INV-1,T1"));
+        assertThrows(IllegalArgumentException.class, () -> PaymentImportService.parseCsv(1, "2026-01-05,10.00,INV-1, "));
+        assertThrows(NumberFormatException.class, () -> PaymentImportService.parseCsv(1, "2026-01-05,ten,INV-1,T1"));
+        // Fractions of a cent cannot be booked
+        assertThrows(ArithmeticException.class, () -> PaymentImportService.parseCsv(1, "2026-01-05,10.005,INV-1,T1"));
+        assertThrows(DateTimeException.class, () -> PaymentImportService.parseCsv(1, "05/01/2026,10.00,INV-1,T1"));
+    }
+
+    @Test
+    void fixedWidthFieldsAreCutAtTheirColumns() {
+        PaymentImportService.StatementLine line = PaymentImportService.parseFixedWidth(2,
+                fixedWidth("2026-02-01", "99.95", "Payment INV-7", "T7", "Shop order"));
+
+        assertEquals(LocalDate.of(2026, 2, 1), line.bookingDate);
+        assertEquals(9995, line.amount);
+        assertEquals("Payment INV-7", line.reference);
+        assertEquals("BANK-T7", line.transactionId);
+        assertEquals("Shop order", line.description);
+
+        assertThrows(IllegalArgumentException.class, () -> PaymentImportService.parseFixedWidth(1, "2026-02-01      99.95"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void matchesLinesAndReportsTheRest() throws IOException {
+        List<Object[]> openInvoices = List.of(
+                new Object[]{1L, "INV-1", 10L, new BigDecimal("100.00"), null},
+                new Object[]{2L, "INV-2", 20L, new BigDecimal("80.00"), new BigDecimal("30.00")},
+                new Object[]{3L, "INV-3", 30L, new BigDecimal("30.00"), null},
+                new Object[]{4L, "INV-4", 40L, new BigDecimal("30.00"), null},
+                new Object[]{5L, "INV-5", 50L, new BigDecimal("45.00"), null});
+        when(invoiceRepository.findBalancesByPaymentStatusNotIn(any())).thenReturn(openInvoices);
+        when(paymentRepository.findExistingTransactionIds(any())).thenReturn(List.of("BANK-T9"));
+        List<Object[]> paymentIds = List.of(new Object[]{101L, "BANK-T1"}, new Object[]{102L, "BANK-T2"},
+                new Object[]{103L, "BANK-T3"});
+        when(paymentRepository.findIdsByTransactionIds(any())).thenReturn(paymentIds);
+
+        String statement = String.join("\n",
+                "booking_date,amount,reference,transaction_id,description",
+                "2026-03-01,100.00,INV-1,T1,",
+                "2026-03-01,20.00,Payment for inv-2,T2,",
+                "2026-03-02,45.00,,T3,No reference",
+                "2026-03-02,30.00,,T4,",
+                "2026-03-02,-5.00,INV-2,T5,Bank fee",
+                "2026-03-03,100.00,INV-1,T1,",
+                "2026-03-03,10.00,INV-1,T6,",
+                "2026-03-03,12.34,,T7,",
+                "2026-03-03,10.00,INV-2,T9,",
+                "not a statement line",
+                "");
+        StringWriter report = new StringWriter();
+
+        PaymentImportResultDTO result = service.importStatement(new BufferedReader(new StringReader(statement)),
+                StatementFormat.CSV, report);
+
+        assertEquals(10, result.getLinesRead());
+        assertEquals(3, result.getPaymentsCreated());
+        assertEquals(2, result.getMatchedByInvoiceNumber());
+        assertEquals(1, result.getMatchedByAmount());
+        assertEquals(2, result.getDuplicatesSkipped());
+        assertEquals(5, result.getExceptions());
+        assertEquals(3, result.getInvoicesUpdated());
+        assertEquals(new BigDecimal("165.00"), result.getTotalImported());
+
+        assertEquals(List.of(
+                "line,reason,booking_date,amount,reference,transaction_id,detail",
+                "11,UNPARSEABLE,,,,,Expected at least 4 columns but found 1",
+                // The partial payment on line 3 left INV-2 with the same 30.00 as INV-3 and INV-4
+                "5,AMBIGUOUS_AMOUNT,2026-03-02,30.00,,T4,3 open invoices share this remaining amount",
+                "6,NOT_A_CREDIT,2026-03-02,-5.00,INV-2,T5,Only incoming payments can be matched",
+                "8,OVERPAYMENT,2026-03-03,10.00,INV-1,T6,Invoice INV-1 has 0.00 remaining",
+                "9,NO_MATCH,2026-03-03,12.34,,T7,No open invoice with this number or remaining amount"),
+                report.toString().lines().toList());
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(3)).batchUpdate(sql.capture(), rows.capture());
+        assertEquals(3, rows.getAllValues().get(0).size());
+        // INV-1 and INV-5 are paid, INV-2 is still partially open
+        assertEquals(List.of("PAID:1", "PAID:5"), statusUpdates(rows.getAllValues().get(1)));
+        assertEquals(List.of(2L), List.of(rows.getAllValues().get(2).get(0)[0]));
+        assertTrue(sql.getAllValues().get(2).contains("payment_status IS NULL OR"));
+
+        ArgumentCaptor<Collection<LedgerService.Posting>> postings = ArgumentCaptor.forClass(Collection.class);
+        verify(ledgerService).post(postings.capture());
+        List<Long> posted = new ArrayList<>();
+        for (LedgerService.Posting posting : postings.getValue()) {
+            posted.add(posting.paymentId);
+        }
+        assertEquals(List.of(101L, 102L, 103L), posted);
+    }
+
+    @Test
+    void repeatedImportsSkipRecordedTransactions() throws IOException {
+        List<Object[]> openInvoices = List.<Object[]>of(new Object[]{1L, "INV-1", 10L, new BigDecimal("100.00"), null});
+        when(invoiceRepository.findBalancesByPaymentStatusNotIn(any())).thenReturn(openInvoices);
+        when(paymentRepository.findExistingTransactionIds(any())).thenReturn(List.of("BANK-T1"));
+
+        PaymentImportResultDTO result = service.importStatement(
+                new BufferedReader(new StringReader("2026-03-01,100.00,INV-1,T1\n")), StatementFormat.CSV, new StringWriter());
+
+        assertEquals(1, result.getDuplicatesSkipped());
+        assertEquals(0, result.getPaymentsCreated());
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+    }
+
+    private static List<String> statusUpdates(List<Object[]> rows) {
+        List<String> updates = new ArrayList<>();
+        for (Object[] row : rows) {
+            updates.add(row[0] + ":" + row[1]);
+        }
+        return updates;
+    }
+
+    private static String fixedWidth(String date, String amount, String reference, String transactionId, String description) {
+        return String.format("%-10s%15s%-35s%-35s%s", date, amount, reference, transactionId, description);
+    }
+}
@@ -0,0 +1,169 @@
+package com.dev.productmanagementsystem.services;
+
+import com.dev.productmanagementsystem.dto.ProductDTO;
+import com.dev.productmanagementsystem.repositories.ProductRepository;
+import com.dev.productmanagementsystem.repositories.ProductTombstoneRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProductDetailCacheTest {
+
+    private final ProductDetailCache cache = new ProductDetailCache(mock(PlatformTransactionManager.class),
+            new SimpleMeterRegistry(), DataSize.ofMegabytes(1));
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final CatalogChangeService catalogChangeService = new CatalogChangeService(productRepository,
+            mock(ProductTombstoneRepository.class), cache);
+
+    // Counts loads and names each DTO after the load that made it
+    private final AtomicInteger loads = new AtomicInteger();
+    private final Function<Long, ProductDTO> loader = id -> product(id, "v" + loads.incrementAndGet());
+
+    @Test
+    void hitsDoNotLoadAgain() {
+        assertEquals("v1", cache.get(1L, loader).getName());
+        assertEquals("v1", cache.get(1L, loader).getName());
+        assertEquals("v2", cache.get(2L, loader).getName());
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void productsThatDoNotExistAreNotCached() {
+        assertNull(cache.get(1L, id -> null));
+
+        assertEquals("v1", cache.get(1L, loader).getName());
+    }
+
+    @Test
+    void aProductChangeDropsOnlyThatProduct() {
+        cache.get(1L, loader);
+        cache.get(2L, loader);
+
+        catalogChangeService.productChanged(1L);
+
+        assertEquals("v3", cache.get(1L, loader).getName());
+        assertEquals("v2", cache.get(2L, loader).getName());
+    }
+
+    @Test
+    void stockAndDeleteChangesDropTheirProducts() {
+        cache.get(1L, loader);
+        cache.get(2L, loader);
+        cache.get(3L, loader);
+
+        catalogChangeService.productsChanged(List.of(1L, 2L));
+        catalogChangeService.productDeleted(3L);
+
+        assertEquals("v4", cache.get(1L, loader).getName());
+        assertEquals("v5", cache.get(2L, loader).getName());
+        assertEquals("v6", cache.get(3L, loader).getName());
+    }
+
+    @Test
+    void aCategoryChangeDropsEveryProductOfTheCategory() {
+        cache.get(1L, loader);
+        cache.get(2L, loader);
+        cache.get(3L, loader);
+        when(productRepository.findIdsByCategoryId(7L)).thenReturn(List.of(1L, 3L));
+
+        catalogChangeService.categoryChanged(7L);
+
+        assertEquals("v4", cache.get(1L, loader).getName());
+        assertEquals("v2", cache.get(2L, loader).getName());
+        assertEquals("v5", cache.get(3L, loader).getName());
+    }
+
+    @Test
+    void entriesAreDroppedWhenTheChangeCommits() {
+        cache.get(1L, loader);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            catalogChangeService.productChanged(1L);
+            // Other requests still see the committed state
+            assertEquals("v1", cache.get(1L, loader).getName());
+
+            complete(TransactionSynchronization.STATUS_COMMITTED);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertEquals("v2", cache.get(1L, loader).getName());
+    }
+
+    @Test
+    void aRolledBackChangeKeepsTheEntry() {
+        cache.get(1L, loader);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            catalogChangeService.productChanged(1L);
+
+            complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertEquals("v1", cache.get(1L, loader).getName());
+    }
+
+    @Test
+    void aLoadRunningDuringTheChangeIsNotKept() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<ProductDTO> staleLoad = CompletableFuture.supplyAsync(() -> cache.get(1L, id -> {
+            loading.countDown();
+            await(release);
+            return product(id, "stale");
+        }));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+        // Waits for the load, then drops what it read
+        CompletableFuture<Void> change = CompletableFuture.runAsync(() -> cache.invalidate(List.of(1L)));
+        Thread.sleep(50);
+        assertFalse(change.isDone());
+        release.countDown();
+        change.get(5, TimeUnit.SECONDS);
+
+        assertEquals("stale", staleLoad.get(5, TimeUnit.SECONDS).getName());
+        assertEquals("v1", cache.get(1L, loader).getName());
+    }
+
+    private static void complete(int status) {
+        TransactionSynchronizationManager.getSynchronizations().forEach(synchronization -> {
+            if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                synchronization.afterCommit();
+            }
+            synchronization.afterCompletion(status);
+        });
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ProductDTO product(Long id, String name) {
+        ProductDTO product = new ProductDTO();
+        product.setId(id);
+        product.setName(name);
+        return product;
+    }
+}
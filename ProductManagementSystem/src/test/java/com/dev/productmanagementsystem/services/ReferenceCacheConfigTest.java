@@ -0,0 +1,201 @@
+package com.dev.productmanagementsystem.services;
+
+import com.dev.productmanagementsystem.entities.Permission;
+import com.dev.productmanagementsystem.entities.Role;
+import com.dev.productmanagementsystem.entities.Warehouse;
+import com.dev.productmanagementsystem.repositories.PermissionRepository;
+import com.dev.productmanagementsystem.repositories.RoleRepository;
+import com.dev.productmanagementsystem.repositories.WarehouseRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The second-level cache regions against a real Hibernate and an in-memory database. Each test
+ * commits its own transactions, because the read-write regions only change when a transaction
+ * commits.
+ */
+@DataJpaTest(properties = "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect")
+@ContextConfiguration(classes = ReferenceCacheConfigTest.Repositories.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ReferenceCacheConfigTest {
+
+    // Only the entities, repositories and cache regions; the application class would scan every service.
+    // Not a @Configuration, which the application's component scan would pick up in other tests.
+    @EntityScan(basePackages = "com.dev.productmanagementsystem.entities")
+    @EnableJpaRepositories(basePackages = "com.dev.productmanagementsystem.repositories")
+    @Import(ReferenceCacheConfig.class)
+    static class Repositories {
+    }
+
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+    @Autowired
+    private RoleRepository roleRepository;
+    @Autowired
+    private PermissionRepository permissionRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void emptyCache() {
+        entityManagerFactory.getCache().evictAll();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void anUpdatedEntityIsReadFromTheCacheWithItsNewState() {
+        Long id = inTransaction(() -> warehouseRepository.save(warehouse("North")).getId());
+        assertEquals("North", read(id).getName());
+
+        inTransaction(() -> {
+            Warehouse warehouse = warehouseRepository.findById(id).orElseThrow();
+            warehouse.setName("South");
+            return warehouse;
+        });
+
+        statistics.clear();
+        assertEquals("South", read(id).getName());
+        assertEquals(1, region("warehouses").getHitCount());
+        assertEquals(0, region("warehouses").getMissCount());
+    }
+
+    @Test
+    void aRolledBackUpdateLeavesTheCachedEntity() {
+        Long id = inTransaction(() -> warehouseRepository.save(warehouse("East")).getId());
+        read(id);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            warehouseRepository.findById(id).orElseThrow().setName("West");
+            warehouseRepository.flush();
+            status.setRollbackOnly();
+        });
+
+        // The entry was locked by the update, so it is read once more from the database
+        assertEquals("East", read(id).getName());
+        statistics.clear();
+        assertEquals("East", read(id).getName());
+        assertEquals(1, region("warehouses").getHitCount());
+    }
+
+    @Test
+    void aDeletedEntityLeavesTheCache() {
+        Long id = inTransaction(() -> warehouseRepository.save(warehouse("Gone")).getId());
+        read(id);
+
+        inTransaction(() -> {
+            warehouseRepository.deleteById(id);
+            return null;
+        });
+
+        assertFalse(inTransaction(() -> warehouseRepository.findById(id)).isPresent());
+    }
+
+    @Test
+    void cachedQueryResultsAreDroppedWhenTheirTableChanges() {
+        inTransaction(() -> permissionRepository.save(permission("READ_A")));
+        int before = inTransaction(() -> permissionRepository.findAll()).size();
+        inTransaction(() -> permissionRepository.findAll());
+        assertEquals(1, statistics.getQueryCacheHitCount());
+
+        inTransaction(() -> permissionRepository.save(permission("READ_B")));
+
+        List<Permission> after = inTransaction(() -> permissionRepository.findAll());
+        assertEquals(before + 1, after.size());
+        assertTrue(after.stream().anyMatch(permission -> permission.getName().equals("READ_B")));
+        assertEquals(1, statistics.getQueryCacheHitCount());
+    }
+
+    @Test
+    void stockUpdatesKeepTheCachedWarehouses() {
+        Long id = inTransaction(() -> warehouseRepository.save(warehouse("Stocked")).getId());
+        inTransaction(() -> warehouseRepository.findAll());
+
+        // Declares product_stock as the only table it touches, so nothing else is invalidated
+        inTransaction(() -> {
+            warehouseRepository.updateProductStock(-1L, id, 5);
+            return null;
+        });
+
+        statistics.clear();
+        inTransaction(() -> warehouseRepository.findAll());
+        assertEquals(1, statistics.getQueryCacheHitCount());
+        assertEquals(0, statistics.getQueryCacheMissCount());
+    }
+
+    @Test
+    void changedRolePermissionsDropTheCachedCollection() {
+        Permission first = inTransaction(() -> permissionRepository.save(permission("ROLE_PERMISSION_1")));
+        Permission second = inTransaction(() -> permissionRepository.save(permission("ROLE_PERMISSION_2")));
+        Long roleId = inTransaction(() -> {
+            Role role = new Role();
+            role.setName("CACHED_ROLE");
+            role.addPermission(first);
+            return roleRepository.save(role).getId();
+        });
+        assertEquals(1, inTransaction(() -> roleRepository.findById(roleId).orElseThrow().getPermissions().size()));
+
+        inTransaction(() -> {
+            Role role = roleRepository.findById(roleId).orElseThrow();
+            role.addPermission(permissionRepository.findById(second.getId()).orElseThrow());
+            return role;
+        });
+
+        // Collections are not updated in place; the role stays cached and its permissions load once
+        statistics.clear();
+        assertEquals(2, inTransaction(() -> roleRepository.findById(roleId).orElseThrow().getPermissions().size()));
+        assertEquals(1, region("roles").getHitCount());
+        assertEquals(1, region("roles.permissions").getMissCount());
+        assertEquals(2, inTransaction(() -> roleRepository.findById(roleId).orElseThrow().getPermissions().size()));
+        assertEquals(1, region("roles.permissions").getHitCount());
+    }
+
+    private Warehouse read(Long id) {
+        return inTransaction(() -> warehouseRepository.findById(id).orElseThrow());
+    }
+
+    private <T> T inTransaction(Supplier<T> action) {
+        return new TransactionTemplate(transactionManager).execute(status -> action.get());
+    }
+
+    private CacheRegionStatistics region(String name) {
+        return statistics.getDomainDataRegionStatistics(name);
+    }
+
+    private static Warehouse warehouse(String name) {
+        Warehouse warehouse = new Warehouse();
+        warehouse.setName(name);
+        return warehouse;
+    }
+
+    private static Permission permission(String name) {
+        Permission permission = new Permission();
+        permission.setName(name);
+        return permission;
+    }
+}
@@ -0,0 +1,159 @@
+package com.dev.productmanagementsystem.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SessionTokenServiceTest {
+
+    private final RecordingPersistence persistence = new RecordingPersistence();
+    private SessionTokenService service;
+
+    @AfterEach
+    void stop() {
+        if (service != null) {
+            service.destroy();
+        }
+    }
+
+    @Test
+    void validatesLiveSessions() {
+        service = start(Duration.ofMinutes(30), Duration.ofHours(12), 5);
+        String token = service.createSession(7L);
+
+        assertEquals(7L, service.validate(token));
+        assertNull(service.validate("unknown"));
+        assertNull(service.validate(null));
+    }
+
+    @Test
+    void expiresAfterTheIdleTimeout() throws InterruptedException {
+        service = start(Duration.ofMinutes(30), Duration.ofHours(12), 5);
+        String token = service.createSession(7L, Duration.ofMillis(100));
+
+        Thread.sleep(250);
+
+        assertNull(service.validate(token));
+    }
+
+    @Test
+    void useSlidesTheIdleTimeout() throws InterruptedException {
+        service = start(Duration.ofMinutes(30), Duration.ofHours(12), 5);
+        String token = service.createSession(7L, Duration.ofMillis(2500));
+
+        // Each use is past the slide granularity of one second, so the expiry moves
+        for (int i = 0; i < 3; i++) {
+            Thread.sleep(1200);
+            assertEquals(7L, service.validate(token));
+        }
+    }
+
+    @Test
+    void useDoesNotSlidePastTheMaximumLifetime() throws InterruptedException {
+        service = start(Duration.ofMinutes(30), Duration.ofMillis(1500), 5);
+        String token = service.createSession(7L);
+
+        Thread.sleep(1100);
+        assertEquals(7L, service.validate(token));
+        Thread.sleep(600);
+
+        assertNull(service.validate(token));
+    }
+
+    @Test
+    void evictsTheOldestSessionOverThePerUserCap() {
+        service = start(Duration.ofMinutes(30), Duration.ofHours(12), 2);
+        String first = service.createSession(7L);
+        String second = service.createSession(7L);
+        String third = service.createSession(7L);
+        String other = service.createSession(8L);
+
+        assertNull(service.validate(first));
+        assertEquals(7L, service.validate(second));
+        assertEquals(7L, service.validate(third));
+        assertEquals(8L, service.validate(other));
+    }
+
+    @Test
+    void revokeAllEndsOnlyThatUsersSessions() {
+        service = start(Duration.ofMinutes(30), Duration.ofHours(12), 5);
+        String first = service.createSession(7L);
+        String second = service.createSession(7L);
+        String other = service.createSession(8L);
+
+        service.revokeAll(7L);
+
+        assertNull(service.validate(first));
+        assertNull(service.validate(second));
+        assertEquals(8L, service.validate(other));
+        assertEquals(1, service.getActiveSessionCount());
+    }
+
+    @Test
+    void sweeperRemovesExpiredSessions() throws InterruptedException {
+        service = start(Duration.ofMinutes(30), Duration.ofHours(12), 5);
+        service.createSession(7L, Duration.ofMillis(100));
+        service.createSession(8L);
+
+        Thread.sleep(2500);
+
+        assertEquals(1, service.getActiveSessionCount());
+    }
+
+    @Test
+    void persistsCreatedAndRevokedSessionsInBatches() {
+        service = start(Duration.ofMinutes(30), Duration.ofHours(12), 5);
+        String token = service.createSession(7L);
+        service.destroy();
+        assertEquals(1, persistence.created.size());
+        assertEquals(7L, persistence.created.get(0).getUserId());
+
+        service.revoke(token);
+        service.destroy();
+        assertEquals(List.of(persistence.created.get(0).getTokenHash()), persistence.removed);
+    }
+
+    @Test
+    void restoresPersistedSessions() {
+        service = start(Duration.ofMinutes(30), Duration.ofHours(12), 5);
+        String token = service.createSession(7L);
+        service.destroy();
+
+        persistence.stored.addAll(persistence.created);
+        service = start(Duration.ofMinutes(30), Duration.ofHours(12), 5);
+
+        assertEquals(7L, service.validate(token));
+        assertTrue(persistence.removed.isEmpty());
+    }
+
+    private SessionTokenService start(Duration idleTimeout, Duration maxLifetime, int maxSessionsPerUser) {
+        SessionTokenService started = new SessionTokenService(persistence, idleTimeout, maxLifetime, maxSessionsPerUser);
+        started.afterSingletonsInstantiated();
+        return started;
+    }
+
+    private static final class RecordingPersistence implements SessionPersistence {
+        final List<StoredSession> stored = new ArrayList<>();
+        final List<StoredSession> created = new ArrayList<>();
+        final List<String> removed = new ArrayList<>();
+
+        @Override
+        public List<StoredSession> load(long now) {
+            return new ArrayList<>(stored);
+        }
+
+        @Override
+        public synchronized void write(Collection<StoredSession> created, Collection<StoredSession> touched, Collection<String> removed) {
+            this.created.addAll(created);
+            this.removed.addAll(removed);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.dev.productmanagementsystem.services;
+
+import com.dev.productmanagementsystem.entities.Role;
+import com.dev.productmanagementsystem.entities.User;
+import com.dev.productmanagementsystem.repositories.RoleRepository;
+import com.dev.productmanagementsystem.repositories.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserServiceTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final PasswordEncoder passwordEncoder = mock(PasswordEncoder.class);
+    private final AccessTokenService accessTokenService = mock(AccessTokenService.class);
+    private final SessionTokenService sessionTokenService = mock(SessionTokenService.class);
+    private final RoleGraphCache roleGraphCache = mock(RoleGraphCache.class);
+    private final UserService userService = new UserService(userRepository, mock(RoleRepository.class), passwordEncoder,
+            accessTokenService, sessionTokenService, roleGraphCache);
+
+    @BeforeEach
+    void noRoles() {
+        when(roleGraphCache.roleIdsOfUser(anyLong())).thenReturn(new long[0]);
+    }
+
+    @Test
+    void changePasswordSignsTheUserOut() {
+        User user = user(true, "{bcrypt}old");
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(passwordEncoder.matches("current", "{bcrypt}old")).thenReturn(true);
+        when(passwordEncoder.encode("new")).thenReturn("{bcrypt}new");
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        userService.changePassword(1L, "current", "new");
+
+        verify(accessTokenService).revokeUser(1L);
+        verify(sessionTokenService).revokeAll(1L);
+    }
+
+    @Test
+    void updateThatDeactivatesSignsTheUserOut() {
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user(true, "{bcrypt}old")));
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        userService.update(user(false, null));
+
+        verify(accessTokenService).revokeUser(1L);
+        verify(sessionTokenService).revokeAll(1L);
+    }
+
+    @Test
+    void updateWithANewPasswordSignsTheUserOut() {
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user(true, "{bcrypt}old")));
+        when(passwordEncoder.encode("new")).thenReturn("{bcrypt}new");
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        userService.update(user(true, "new"));
+
+        verify(accessTokenService).revokeUser(1L);
+        verify(sessionTokenService).revokeAll(1L);
+    }
+
+    @Test
+    void updateOfAnActiveUserKeepsTheirSessions() {
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user(true, "{bcrypt}old")));
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        userService.update(user(true, ""));
+
+        verify(accessTokenService, never()).revokeUser(any());
+        verify(sessionTokenService, never()).revokeAll(any());
+    }
+
+    @Test
+    void updateThatKeepsTheRolesKeepsTheRoleGraph() {
+        when(roleGraphCache.roleIdsOfUser(1L)).thenReturn(new long[]{3L, 2L});
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user(true, "{bcrypt}old")));
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        User user = user(true, "");
+        user.setRoles(new HashSet<>(List.of(role(2L), role(3L))));
+
+        userService.update(user);
+
+        verify(roleGraphCache, never()).graphChanged();
+    }
+
+    @Test
+    void updateThatChangesTheRolesInvalidatesTheRoleGraph() {
+        when(roleGraphCache.roleIdsOfUser(1L)).thenReturn(new long[]{2L});
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user(true, "{bcrypt}old")));
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        User user = user(true, "");
+        user.setRoles(new HashSet<>(List.of(role(2L), role(3L))));
+
+        userService.update(user);
+
+        verify(roleGraphCache).graphChanged();
+    }
+
+    @Test
+    void savingANewUserWithoutRolesKeepsTheRoleGraph() {
+        when(passwordEncoder.encode("secret")).thenReturn("{bcrypt}secret");
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        User user = user(true, "secret");
+        user.setId(null);
+
+        userService.save(user);
+
+        verify(roleGraphCache, never()).graphChanged();
+    }
+
+    @Test
+    void saveEncodesEveryPasswordItIsGiven() {
+        // A raw password that happens to look like a hash is still hashed
+        when(passwordEncoder.encode("{bcrypt}chosen")).thenReturn("{bcrypt}hashed");
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        User user = user(true, "{bcrypt}chosen");
+        user.setId(null);
+
+        assertEquals("{bcrypt}hashed", userService.save(user).getPassword());
+    }
+
+    private static Role role(Long id) {
+        Role role = new Role();
+        role.setId(id);
+        return role;
+    }
+
+    private static User user(boolean active, String password) {
+        User user = new User();
+        user.setId(1L);
+        user.setUsername("anna");
+        user.setActive(active);
+        user.setPassword(password);
+        return user;
+    }
+}
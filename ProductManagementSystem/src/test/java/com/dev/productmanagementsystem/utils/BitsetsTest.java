@@ -0,0 +1,42 @@
+package com.dev.productmanagementsystem.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BitsetsTest {
+
+    @Test
+    void setGrowsTheArrayToTheWordOfTheBit() {
+        long[] bits = Bitsets.set(new long[0], 130);
+
+        assertArrayEquals(new long[]{0L, 0L, 1L << 2}, bits);
+        assertTrue(Bitsets.isSet(bits, 130));
+        assertFalse(Bitsets.isSet(bits, 129));
+        assertFalse(Bitsets.isSet(bits, 2));
+    }
+
+    @Test
+    void setReusesAnArrayThatIsLargeEnough() {
+        long[] bits = new long[2];
+
+        assertSame(bits, Bitsets.set(bits, 63));
+        assertSame(bits, Bitsets.set(bits, 64));
+        assertArrayEquals(new long[]{Long.MIN_VALUE, 1L}, bits);
+    }
+
+    @Test
+    void bitsPastTheEndOrNegativeAreClear() {
+        long[] bits = Bitsets.set(new long[0], 0);
+
+        assertTrue(Bitsets.isSet(bits, 0));
+        assertFalse(Bitsets.isSet(bits, 64));
+        assertFalse(Bitsets.isSet(bits, Long.MAX_VALUE));
+        assertFalse(Bitsets.isSet(bits, -1));
+        assertThrows(IllegalArgumentException.class, () -> Bitsets.set(bits, -1));
+    }
+}
@@ -0,0 +1,143 @@
+package com.dev.productmanagementsystem.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IntBitmapTest {
+
+    @Test
+    void addsRemovesAndFindsValues() {
+        IntBitmap bitmap = new IntBitmap();
+
+        assertTrue(bitmap.isEmpty());
+        assertTrue(bitmap.add(5));
+        assertTrue(bitmap.add(70_000));
+        assertFalse(bitmap.add(5));
+        assertTrue(bitmap.contains(5));
+        assertTrue(bitmap.contains(70_000));
+        assertFalse(bitmap.contains(6));
+        assertEquals(2, bitmap.cardinality());
+
+        assertTrue(bitmap.remove(5));
+        assertFalse(bitmap.remove(5));
+        assertFalse(bitmap.remove(1_000_000));
+        assertTrue(bitmap.remove(70_000));
+        assertTrue(bitmap.isEmpty());
+    }
+
+    @Test
+    void switchesBetweenArraysAndBitsetsAtTheLimit() {
+        IntBitmap bitmap = new IntBitmap();
+        for (int value = 0; value < 5000; value++) {
+            bitmap.add(value * 3);
+        }
+        assertEquals(5000, bitmap.cardinality());
+        assertTrue(bitmap.contains(4999 * 3));
+        assertFalse(bitmap.contains(4999 * 3 + 1));
+
+        for (int value = 0; value < 4000; value++) {
+            bitmap.remove(value * 3);
+        }
+        assertEquals(1000, bitmap.cardinality());
+        assertFalse(bitmap.contains(3999 * 3));
+        assertTrue(bitmap.contains(4000 * 3));
+        assertArrayEquals(new int[]{12_000, 12_003}, bitmap.page(0, 2));
+    }
+
+    @Test
+    void visitsAndPagesValuesInOrder() {
+        IntBitmap bitmap = new IntBitmap();
+        TreeSet<Integer> expected = new TreeSet<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            // Two dense chunks and a sparse one
+            int value = i < 15_000 ? random.nextInt(131_072) : 500_000 + random.nextInt(1_000_000);
+            bitmap.add(value);
+            expected.add(value);
+        }
+
+        List<Integer> visited = new ArrayList<>();
+        bitmap.forEach(visited::add);
+        assertEquals(new ArrayList<>(expected), visited);
+
+        int[] all = expected.stream().mapToInt(Integer::intValue).toArray();
+        assertArrayEquals(slice(all, 0, 100), bitmap.page(0, 100));
+        assertArrayEquals(slice(all, 12_345, 500), bitmap.page(12_345, 500));
+        assertArrayEquals(slice(all, all.length - 10, 10), bitmap.page(all.length - 10, 100));
+        assertArrayEquals(new int[0], bitmap.page(all.length, 10));
+    }
+
+    @Test
+    void intersectsLikeSets() {
+        Random random = new Random(7);
+        IntBitmap a = new IntBitmap();
+        IntBitmap b = new IntBitmap();
+        TreeSet<Integer> both = new TreeSet<>();
+        TreeSet<Integer> inA = new TreeSet<>();
+        for (int i = 0; i < 30_000; i++) {
+            // Dense in the first chunk, sparse in the others
+            int value = i % 3 == 0 ? random.nextInt(65_536) : random.nextInt(2_000_000);
+            if (random.nextBoolean()) {
+                a.add(value);
+                inA.add(value);
+            } else {
+                b.add(value);
+            }
+        }
+        b.forEach(value -> {
+            if (inA.contains(value)) {
+                both.add(value);
+            }
+        });
+
+        IntBitmap intersection = IntBitmap.and(a, b);
+
+        assertEquals(both.size(), intersection.cardinality());
+        assertEquals(both.size(), IntBitmap.andCardinality(a, b));
+        List<Integer> values = new ArrayList<>();
+        intersection.forEach(values::add);
+        assertEquals(new ArrayList<>(both), values);
+        // The result can still be changed
+        assertTrue(intersection.add(3_000_000));
+    }
+
+    @Test
+    void unionsAndCopiesAreIndependent() {
+        IntBitmap a = new IntBitmap();
+        IntBitmap b = new IntBitmap();
+        for (int value = 0; value < 5000; value++) {
+            a.add(value * 2);
+            b.add(value * 2 + 1);
+        }
+        b.add(200_000);
+
+        IntBitmap copy = a.copy();
+        a.or(b);
+
+        assertEquals(10_001, a.cardinality());
+        assertTrue(a.contains(9999));
+        assertTrue(a.contains(200_000));
+        assertEquals(5000, copy.cardinality());
+        assertFalse(copy.contains(1));
+
+        b.remove(200_000);
+        assertTrue(a.contains(200_000));
+        copy.add(1);
+        assertEquals(10_001, a.cardinality());
+    }
+
+    private static int[] slice(int[] values, int from, int length) {
+        int[] slice = new int[Math.min(length, values.length - from)];
+        System.arraycopy(values, from, slice, 0, slice.length);
+        return slice;
+    }
+}
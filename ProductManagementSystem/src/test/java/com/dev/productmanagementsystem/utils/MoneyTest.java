@@ -0,0 +1,107 @@
+package com.dev.productmanagementsystem.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MoneyTest {
+
+    private static final RoundingMode[] ROUNDING_MODES = {RoundingMode.UP, RoundingMode.DOWN, RoundingMode.CEILING,
+            RoundingMode.FLOOR, RoundingMode.HALF_UP, RoundingMode.HALF_DOWN, RoundingMode.HALF_EVEN};
+
+    @Test
+    void divideRoundsLikeBigDecimal() {
+        long[] divisors = {1, 2, 3, 7, 10, 10_000, -3, -10_000};
+        for (RoundingMode mode : ROUNDING_MODES) {
+            for (long dividend = -25_000; dividend <= 25_000; dividend += 13) {
+                for (long divisor : divisors) {
+                    long expected = BigDecimal.valueOf(dividend).divide(BigDecimal.valueOf(divisor), 0, mode).longValueExact();
+                    assertEquals(expected, Money.divide(dividend, divisor, mode), dividend + " / " + divisor + " " + mode);
+                }
+            }
+        }
+    }
+
+    @Test
+    void divideBreaksTiesByMode() {
+        assertEquals(3, Money.divide(5, 2, RoundingMode.HALF_UP));
+        assertEquals(2, Money.divide(5, 2, RoundingMode.HALF_DOWN));
+        assertEquals(2, Money.divide(5, 2, RoundingMode.HALF_EVEN));
+        assertEquals(4, Money.divide(7, 2, RoundingMode.HALF_EVEN));
+        assertEquals(-3, Money.divide(-5, 2, RoundingMode.HALF_UP));
+        assertThrows(ArithmeticException.class, () -> Money.divide(5, 2, RoundingMode.UNNECESSARY));
+        assertEquals(2, Money.divide(4, 2, RoundingMode.UNNECESSARY));
+    }
+
+    @Test
+    void ofKeepsTwoDecimalAmountsExact() {
+        assertEquals(1234, Money.of(new BigDecimal("12.34")).getMinorUnits());
+        assertEquals(1230, Money.of(new BigDecimal("12.3")).getMinorUnits());
+        assertEquals(1200, Money.of(new BigDecimal("12")).getMinorUnits());
+        assertEquals(-1, Money.of(new BigDecimal("-0.01")).getMinorUnits());
+        assertEquals(999_999_999_999_99L, Money.of(new BigDecimal("999999999999.99")).getMinorUnits());
+    }
+
+    @Test
+    void ofRoundsWhatDoesNotFitTheScale() {
+        assertEquals(1237, Money.of(new BigDecimal("12.365")).getMinorUnits());
+        assertEquals(1236, Money.of(new BigDecimal("12.365"), RoundingMode.HALF_EVEN).getMinorUnits());
+        assertEquals(1200, Money.of(new BigDecimal("1.2E+1")).getMinorUnits());
+        // Too large for the double shortcut
+        assertEquals(1_000_000_000_000_000_000L, Money.of(new BigDecimal("10000000000000000.00")).getMinorUnits());
+        assertThrows(IllegalArgumentException.class, () -> Money.of(null));
+        assertEquals(Money.ZERO, Money.ofNullable(null));
+    }
+
+    @Test
+    void percentOfMatchesBigDecimal() {
+        for (long minor = -100_000; minor <= 100_000; minor += 997) {
+            for (String percent : new String[]{"23", "23.00", "8.5", "0.01", "100", "7.125"}) {
+                for (RoundingMode mode : ROUNDING_MODES) {
+                    BigDecimal expected = BigDecimal.valueOf(minor, 2).multiply(new BigDecimal(percent))
+                            .movePointLeft(2).setScale(2, mode);
+                    assertEquals(expected, Money.ofMinor(minor).percentOf(new BigDecimal(percent), mode).toBigDecimal(),
+                            minor + " * " + percent + "% " + mode);
+                }
+            }
+        }
+    }
+
+    @Test
+    void percentOfFallsBackWhenTheLongProductOverflows() {
+        Money amount = Money.ofMinor(Long.MAX_VALUE / 1000);
+        BigDecimal percent = new BigDecimal("99.99");
+        BigDecimal expected = amount.toBigDecimal().multiply(percent).movePointLeft(2).setScale(2, RoundingMode.HALF_UP);
+        assertEquals(expected, amount.percentOf(percent, RoundingMode.HALF_UP).toBigDecimal());
+        assertEquals(expected.negate(), amount.negate().percentOf(percent, RoundingMode.HALF_UP).toBigDecimal());
+    }
+
+    @Test
+    void plusPercentExactMatchesBigDecimal() {
+        for (long minor = -100_000; minor <= 100_000; minor += 997) {
+            for (String percent : new String[]{"23", "23.00", "8.5", "0.01", "100", "7.125", "0"}) {
+                BigDecimal amount = BigDecimal.valueOf(minor, 2);
+                BigDecimal expected = amount.add(amount.multiply(new BigDecimal(percent).divide(new BigDecimal("100"))));
+                BigDecimal actual = Money.ofMinor(minor).plusPercentExact(new BigDecimal(percent));
+                assertEquals(0, expected.compareTo(actual), minor + " + " + percent + "%");
+            }
+        }
+        assertEquals(new BigDecimal("12.3615"), Money.ofMinor(1005).plusPercentExact(new BigDecimal("23.00")));
+        assertEquals(new BigDecimal("11.062035"), Money.ofMinor(1005).plusPercentExact(new BigDecimal("10.07")));
+        BigDecimal large = Money.ofMinor(Long.MAX_VALUE / 1000).toBigDecimal();
+        assertEquals(0, large.add(large.multiply(new BigDecimal("0.5"))).compareTo(
+                Money.ofMinor(Long.MAX_VALUE / 1000).plusPercentExact(new BigDecimal("50"))));
+    }
+
+    @Test
+    void arithmeticFailsOnOverflow() {
+        assertThrows(ArithmeticException.class, () -> Money.ofMinor(Long.MAX_VALUE).plus(Money.ofMinor(1)));
+        assertThrows(ArithmeticException.class, () -> Money.ofMinor(Long.MAX_VALUE / 2 + 1).times(2));
+        assertThrows(ArithmeticException.class, () -> Money.ofMinor(Long.MIN_VALUE).negate());
+        assertEquals(new BigDecimal("-1.50"), Money.ofMinor(250).minus(Money.ofMinor(400)).toBigDecimal());
+    }
+}
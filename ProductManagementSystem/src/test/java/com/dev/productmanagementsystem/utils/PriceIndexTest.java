@@ -0,0 +1,97 @@
+package com.dev.productmanagementsystem.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PriceIndexTest {
+
+    @Test
+    void sortsByPriceThenId() {
+        PriceIndex index = PriceIndex.build(new long[]{500, 100, 500, 300, 999}, new long[]{2, 7, 1, 4, 9}, 4);
+
+        assertEquals(4, index.size());
+        assertArrayEquals(new long[]{7, 4, 1, 2}, ids(index));
+        assertArrayEquals(new long[]{100, 300, 500, 500}, prices(index));
+    }
+
+    @Test
+    void copiesSortedInput() {
+        long[] prices = {100, 200};
+        long[] ids = {1, 2};
+        PriceIndex index = PriceIndex.build(prices, ids, 2);
+
+        prices[0] = 900;
+
+        assertEquals(100, index.priceAt(0));
+    }
+
+    @Test
+    void findsRangesByBinarySearch() {
+        PriceIndex index = PriceIndex.build(new long[]{100, 200, 200, 300}, new long[]{1, 2, 3, 4}, 4);
+
+        assertEquals(1, index.lowerBound(200));
+        assertEquals(3, index.upperBound(200));
+        assertEquals(0, index.lowerBound(Long.MIN_VALUE));
+        assertEquals(4, index.upperBound(Long.MAX_VALUE));
+        assertEquals(4, index.lowerBound(301));
+        assertEquals(0, index.upperBound(99));
+    }
+
+    @Test
+    void appliesChangesAsANewIndex() {
+        PriceIndex index = PriceIndex.build(new long[]{100, 200, 300}, new long[]{1, 2, 3}, 3);
+        Map<Long, Long> changes = new HashMap<>();
+        changes.put(1L, 400L);
+        changes.put(2L, null);
+        changes.put(5L, 150L);
+
+        PriceIndex changed = index.apply(changes);
+
+        assertArrayEquals(new long[]{5, 3, 1}, ids(changed));
+        assertArrayEquals(new long[]{150, 300, 400}, prices(changed));
+        // The old index is untouched
+        assertArrayEquals(new long[]{1, 2, 3}, ids(index));
+    }
+
+    @Test
+    void keepsTiesInIdOrderAcrossChanges() {
+        PriceIndex index = PriceIndex.build(new long[]{100, 100}, new long[]{2, 4}, 2);
+
+        PriceIndex changed = index.apply(Map.of(3L, 100L, 1L, 100L));
+
+        assertArrayEquals(new long[]{1, 2, 3, 4}, ids(changed));
+    }
+
+    @Test
+    void percentilesUseTheNearestRank() {
+        PriceIndex index = PriceIndex.build(new long[]{10, 20, 30, 40}, new long[]{1, 2, 3, 4}, 4);
+
+        assertEquals(10, index.percentile(0));
+        assertEquals(10, index.percentile(25));
+        assertEquals(20, index.percentile(26));
+        assertEquals(20, index.percentile(50));
+        assertEquals(40, index.percentile(100));
+        assertEquals(-1, PriceIndex.EMPTY.percentile(50));
+    }
+
+    private static long[] ids(PriceIndex index) {
+        long[] ids = new long[index.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = index.idAt(i);
+        }
+        return ids;
+    }
+
+    private static long[] prices(PriceIndex index) {
+        long[] prices = new long[index.size()];
+        for (int i = 0; i < prices.length; i++) {
+            prices[i] = index.priceAt(i);
+        }
+        return prices;
+    }
+}
@@ -0,0 +1,95 @@
+package com.dev.productmanagementsystem.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PriceTimelineTest {
+
+    @Test
+    void findsTheVersionInEffectAtATime() {
+        PriceTimeline timeline = PriceTimeline.ofSorted(new long[]{1, 2, 3}, new long[]{100, 200, 300},
+                new long[]{1000, 2000, 3000}, new boolean[]{true, true, false}, 3);
+
+        assertEquals(-1, timeline.positionAt(99));
+        assertEquals(0, timeline.positionAt(100));
+        assertEquals(0, timeline.positionAt(199));
+        assertEquals(1, timeline.positionAt(200));
+        assertEquals(2, timeline.positionAt(Long.MAX_VALUE));
+        assertEquals(3000, timeline.centsAt(timeline.positionAt(300)));
+    }
+
+    @Test
+    void addsVersionsInTimeOrder() {
+        PriceTimeline timeline = PriceTimeline.of(1, 200, 2000, true);
+
+        PriceTimeline changed = timeline.with(2, 100, 1000, true).with(3, 300, 3000, false);
+
+        assertArrayEquals(new long[]{2, 1, 3}, ids(changed));
+        assertEquals(1000, changed.centsAt(0));
+        assertFalse(changed.isApplied(2));
+        // The original is untouched
+        assertEquals(1, timeline.size());
+    }
+
+    @Test
+    void aVersionAtTheSameTimeGoesAfterTheOthers() {
+        PriceTimeline timeline = PriceTimeline.of(1, 100, 1000, true).with(2, 200, 2000, true);
+
+        PriceTimeline changed = timeline.with(3, 100, 1500, false);
+
+        assertArrayEquals(new long[]{1, 3, 2}, ids(changed));
+        assertEquals(1500, changed.centsAt(changed.positionAt(150)));
+    }
+
+    @Test
+    void removesVersionsById() {
+        PriceTimeline timeline = PriceTimeline.ofSorted(new long[]{0, 2, 3}, new long[]{100, 200, 300},
+                new long[]{1000, 2000, 3000}, new boolean[]{true, true, false}, 3);
+
+        assertArrayEquals(new long[]{0, 2}, ids(timeline.without(Set.of(3L))));
+        assertSame(timeline, timeline.without(Set.of(9L)));
+        // Versions without a known id are never removed
+        assertArrayEquals(new long[]{0}, ids(timeline.without(Set.of(0L, 2L, 3L))));
+        assertNull(PriceTimeline.of(5, 100, 1000, false).without(Set.of(5L)));
+    }
+
+    @Test
+    void marksVersionsApplied() {
+        PriceTimeline timeline = PriceTimeline.ofSorted(new long[]{1, 2}, new long[]{100, 200},
+                new long[]{1000, 2000}, new boolean[]{true, false}, 2);
+
+        PriceTimeline applied = timeline.withApplied(Set.of(2L));
+
+        assertTrue(applied.isApplied(1));
+        assertFalse(timeline.isApplied(1));
+    }
+
+    @Test
+    void copiesOnlyTheGivenCount() {
+        long[] ids = {1, 2, 0};
+        PriceTimeline timeline = PriceTimeline.ofSorted(ids, new long[]{100, 200, 0}, new long[]{1000, 2000, 0},
+                new boolean[3], 2);
+
+        ids[0] = 7;
+
+        assertEquals(2, timeline.size());
+        assertEquals(1, timeline.idAt(0));
+        assertEquals(200, timeline.fromAt(1));
+    }
+
+    private static long[] ids(PriceTimeline timeline) {
+        long[] ids = new long[timeline.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = timeline.idAt(i);
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,108 @@
+package com.dev.productmanagementsystem.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SkuIndexTest {
+
+    @Test
+    void findsExactSkus() {
+        SkuIndex index = SkuIndex.build(Arrays.asList("B-2", "A-1", null, "C-3"), List.of(2L, 1L, 9L, 3L));
+
+        assertEquals(1L, index.get("A-1"));
+        assertEquals(3L, index.get("C-3"));
+        assertEquals(-1L, index.get("A-"));
+        assertEquals(-1L, index.get("D-4"));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    void theLastIdWinsForDuplicates() {
+        SkuIndex index = SkuIndex.build(List.of("A-1", "A-1"), List.of(1L, 2L));
+
+        assertEquals(2L, index.get("A-1"));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void changesAreVisibleBeforeAMerge() {
+        SkuIndex index = SkuIndex.build(List.of("A-1", "B-2"), List.of(1L, 2L));
+
+        index.put("C-3", 3L);
+        index.remove("A-1", 1L);
+        // B-2 has been given to product 4, so removing it for product 2 does nothing
+        index.put("B-2", 4L);
+        index.remove("B-2", 2L);
+
+        assertEquals(-1L, index.get("A-1"));
+        assertEquals(4L, index.get("B-2"));
+        assertEquals(3L, index.get("C-3"));
+    }
+
+    @Test
+    void prefixScansMergeTheBlockAndTheChanges() {
+        SkuIndex index = SkuIndex.build(List.of("AB-1", "AB-3", "AB-5", "AC-1"), List.of(1L, 3L, 5L, 6L));
+        index.put("AB-2", 2L);
+        index.put("AB-3", 30L);
+        index.remove("AB-5", 5L);
+        index.put("AA-9", 9L);
+
+        assertEquals(List.of(Map.entry("AB-1", 1L), Map.entry("AB-2", 2L), Map.entry("AB-3", 30L)),
+                index.prefix("AB", 10));
+        assertEquals(List.of(Map.entry("AB-1", 1L), Map.entry("AB-2", 2L)), index.prefix("AB", 2));
+        assertEquals(List.of(), index.prefix("AD", 10));
+        assertEquals(List.of(), index.prefix("AB", 0));
+    }
+
+    @Test
+    void mergeFoldsTheChangesIntoTheBlock() {
+        SkuIndex index = SkuIndex.build(List.of("A-1", "B-2"), List.of(1L, 2L));
+        index.put("C-3", 3L);
+        index.remove("A-1", 1L);
+
+        index.merge();
+
+        assertEquals(2, index.size());
+        assertEquals(-1L, index.get("A-1"));
+        assertEquals(2L, index.get("B-2"));
+        assertEquals(3L, index.get("C-3"));
+        assertEquals(List.of(Map.entry("B-2", 2L), Map.entry("C-3", 3L)), index.prefix("", 10));
+    }
+
+    @Test
+    void ordersByUtf8BytesLikeTheBlock() {
+        SkuIndex index = SkuIndex.build(List.of("Ä-1", "Z-1", "A-1"), List.of(1L, 2L, 3L));
+        index.put("É-1", 4L);
+
+        List<String> skus = new ArrayList<>();
+        index.prefix("", 10).forEach(entry -> skus.add(entry.getKey()));
+
+        assertEquals(List.of("A-1", "Z-1", "Ä-1", "É-1"), skus);
+        assertEquals(1L, index.get("Ä-1"));
+    }
+
+    @Test
+    void asksForAMergeOnceTheOverlayOutgrowsTheBlock() {
+        SkuIndex index = SkuIndex.build(List.of(), List.of());
+        for (int i = 0; i < 1024; i++) {
+            index.put("SKU-" + i, i);
+        }
+        assertFalse(index.needsMerge());
+
+        index.put("SKU-1024", 1024L);
+        assertTrue(index.needsMerge());
+
+        index.merge();
+        assertFalse(index.needsMerge());
+        assertEquals(1025, index.size());
+        assertEquals(512L, index.get("SKU-512"));
+    }
+}
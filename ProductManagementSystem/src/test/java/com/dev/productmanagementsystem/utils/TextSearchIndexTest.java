@@ -0,0 +1,128 @@
+package com.dev.productmanagementsystem.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TextSearchIndexTest {
+
+    @Test
+    void tokenizesWithoutCaseOrAccents() {
+        assertEquals(List.of("creme", "brulee", "250g"), TextSearchIndex.tokenize("Crème Brûlée, 250g"));
+        assertEquals(List.of(), TextSearchIndex.tokenize(null));
+        assertEquals(32, TextSearchIndex.tokenize("x".repeat(40)).get(0).length());
+    }
+
+    @Test
+    void everyWordMustMatch() {
+        TextSearchIndex index = index();
+        index.put(1, "Red cotton shirt", "Clothing");
+        index.put(2, "Blue cotton shirt", "Clothing");
+        index.put(3, "Red wine", "Drinks");
+
+        assertArrayEquals(new long[]{1}, index.search("red shirt", 10));
+        assertArrayEquals(new long[0], index.search("red blue", 10));
+        assertArrayEquals(new long[0], index.search("", 10));
+    }
+
+    @Test
+    void matchesPrefixesAndJoinedWords() {
+        TextSearchIndex index = index();
+        index.put(1, "Keyboard", null);
+        index.put(2, "T-Shirt", null);
+
+        assertArrayEquals(new long[]{1}, index.search("keyb", 10));
+        assertArrayEquals(new long[]{2}, index.search("tshirt", 10));
+    }
+
+    @Test
+    void toleratesTypos() {
+        TextSearchIndex index = index();
+        index.put(1, "Keyboard", null);
+        index.put(2, "Headphones", null);
+
+        assertArrayEquals(new long[]{1}, index.search("keybaord", 10));
+        assertArrayEquals(new long[]{2}, index.search("headphnes", 10));
+        // Words under four letters must be spelled right
+        assertArrayEquals(new long[0], index.search("kye", 10));
+    }
+
+    @Test
+    void ranksExactMatchesInTheHeavierFieldFirst() {
+        TextSearchIndex index = index();
+        index.put(1, "Lamp stand", "lamp");
+        index.put(2, "Desk", "lamp");
+        index.put(3, "Lampshade", null);
+
+        long[] ids = index.search("lamp", 10);
+
+        assertEquals(3, ids.length);
+        assertEquals(1L, ids[0]);
+        assertArrayEquals(new long[]{ids[0], ids[1]}, index.search("lamp", 2));
+    }
+
+    @Test
+    void updatesAndRemovalsReplaceTheOldVersion() {
+        TextSearchIndex index = index();
+        index.put(1, "Old name", null);
+        index.put(2, "Other", null);
+
+        index.put(1, "New name", null);
+        index.remove(2);
+
+        assertArrayEquals(new long[0], index.search("old", 10));
+        assertArrayEquals(new long[]{1}, index.search("new", 10));
+        assertArrayEquals(new long[0], index.search("other", 10));
+        assertEquals(1, index.getDocumentCount());
+        assertEquals(2, index.getDeletedCount());
+    }
+
+    @Test
+    void appendsSegmentsBuiltApart() {
+        TextSearchIndex index = index();
+        index.put(1, "Old name", null);
+
+        TextSearchIndex.Segment segment = TextSearchIndex.segment(new long[]{1, 2, 2},
+                new String[][]{{"Chair", null}, {"Table", null}, {"Stool", null}});
+        index.append(segment);
+
+        assertEquals(3, segment.size());
+        assertArrayEquals(new long[]{1}, index.search("chair", 10));
+        assertArrayEquals(new long[0], index.search("table", 10));
+        assertArrayEquals(new long[]{2}, index.search("stool", 10));
+        assertEquals(2, index.getDocumentCount());
+    }
+
+    @Test
+    void growsPastItsInitialCapacity() {
+        TextSearchIndex index = index();
+        for (long id = 0; id < 3000; id++) {
+            index.put(id, "Item " + id, null);
+        }
+
+        assertArrayEquals(new long[]{2999}, index.search("item 2999", 1));
+        assertEquals(3000, index.getDocumentCount());
+    }
+
+    @Test
+    void editDistanceCountsTranspositionsAsOneEdit() {
+        assertEquals(0, TextSearchIndex.editDistance("lamp", "lamp", 2));
+        assertEquals(1, TextSearchIndex.editDistance("lmap", "lamp", 2));
+        assertEquals(2, TextSearchIndex.editDistance("lamp", "limb", 2));
+        assertEquals(2, TextSearchIndex.editDistance("keyboard", "mouse", 1));
+    }
+
+    @Test
+    void rejectsUnsupportedFieldCounts() {
+        assertThrows(IllegalArgumentException.class, () -> new TextSearchIndex(new float[0], 1));
+        assertThrows(IllegalArgumentException.class, () -> new TextSearchIndex(new float[9], 1));
+    }
+
+    private static TextSearchIndex index() {
+        return new TextSearchIndex(new float[]{3f, 1f}, 2);
+    }
+}
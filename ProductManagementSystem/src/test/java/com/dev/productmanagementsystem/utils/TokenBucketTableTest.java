@@ -0,0 +1,78 @@
+package com.dev.productmanagementsystem.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketTableTest {
+
+    @Test
+    void allowsABurstUpToTheCapacity() {
+        TokenBucketTable buckets = new TokenBucketTable(3, 60, 1000);
+
+        assertEquals(0L, buckets.tryAcquire("anna"));
+        assertEquals(0L, buckets.tryAcquire("anna"));
+        assertEquals(0L, buckets.tryAcquire("anna"));
+
+        long wait = buckets.tryAcquire("anna");
+        // One token a second
+        assertTrue(wait > 900 && wait <= 1000, "wait " + wait);
+    }
+
+    @Test
+    void keysHaveTheirOwnBuckets() {
+        TokenBucketTable buckets = new TokenBucketTable(1, 1, 1000);
+
+        assertEquals(0L, buckets.tryAcquire("anna"));
+        assertTrue(buckets.tryAcquire("anna") > 0);
+        assertEquals(0L, buckets.tryAcquire("bob"));
+        assertEquals(2, buckets.size());
+    }
+
+    @Test
+    void refillsOverTime() throws InterruptedException {
+        // A token every 10 ms
+        TokenBucketTable buckets = new TokenBucketTable(1, 6000, 1000);
+
+        assertEquals(0L, buckets.tryAcquire("anna"));
+        assertTrue(buckets.tryAcquire("anna") > 0);
+        Thread.sleep(30);
+
+        assertEquals(0L, buckets.tryAcquire("anna"));
+    }
+
+    @Test
+    void rejectedAttemptsDoNotDelayTheRefill() throws InterruptedException {
+        // A token every 200 ms
+        TokenBucketTable buckets = new TokenBucketTable(1, 300, 1000);
+
+        assertEquals(0L, buckets.tryAcquire("anna"));
+        for (int i = 0; i < 5; i++) {
+            Thread.sleep(20);
+            assertTrue(buckets.tryAcquire("anna") > 0);
+        }
+        Thread.sleep(150);
+
+        // 250 ms have passed since the token was taken, though only 150 ms since the last rejection
+        assertEquals(0L, buckets.tryAcquire("anna"));
+    }
+
+    @Test
+    void dropsTheLeastRecentlyUsedBucketsBeyondTheLimit() {
+        TokenBucketTable buckets = new TokenBucketTable(1, 1, 32);
+
+        for (int i = 0; i < 10_000; i++) {
+            buckets.tryAcquire("client-" + i);
+        }
+
+        assertTrue(buckets.size() <= 32, "size " + buckets.size());
+    }
+
+    @Test
+    void rejectsCapacitiesOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucketTable(0, 1, 10));
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucketTable(20_000, 1, 10));
+    }
+}
@@ -0,0 +1,83 @@
+package com.dev.productmanagementsystem.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ZipfDistributionTest {
+
+    @Test
+    void theSameSeedDrawsTheSameRanks() {
+        ZipfDistribution zipf = new ZipfDistribution(1_000_000, 1.1);
+
+        assertArrayEquals(draw(zipf, 7, 1000), draw(zipf, 7, 1000));
+        assertFalse(Arrays.equals(draw(zipf, 7, 1000), draw(zipf, 8, 1000)));
+    }
+
+    @Test
+    void ranksStayInRange() {
+        for (double exponent : new double[]{0, 0.5, 1, 1.1, 3}) {
+            ZipfDistribution zipf = new ZipfDistribution(10, exponent);
+            for (int rank : draw(zipf, 1, 10_000)) {
+                assertTrue(rank >= 1 && rank <= 10, exponent + ": " + rank);
+            }
+        }
+        assertEquals(1, new ZipfDistribution(1, 1).sample(new SplittableRandom(1)));
+    }
+
+    @Test
+    void drawsRanksInProportionToTheirWeight() {
+        int n = 5;
+        double exponent = 1;
+        int draws = 200_000;
+        int[] counts = new int[n + 1];
+        for (int rank : draw(new ZipfDistribution(n, exponent), 3, draws)) {
+            counts[rank]++;
+        }
+
+        double total = 0;
+        for (int k = 1; k <= n; k++) {
+            total += Math.pow(k, -exponent);
+        }
+        for (int k = 1; k <= n; k++) {
+            double expected = draws * Math.pow(k, -exponent) / total;
+            assertEquals(expected, counts[k], expected * 0.03, "rank " + k);
+        }
+    }
+
+    @Test
+    void exponentZeroIsUniform() {
+        int draws = 100_000;
+        int[] counts = new int[5];
+        for (int rank : draw(new ZipfDistribution(4, 0), 5, draws)) {
+            counts[rank]++;
+        }
+
+        for (int k = 1; k <= 4; k++) {
+            assertEquals(draws / 4.0, counts[k], draws / 4.0 * 0.03, "rank " + k);
+        }
+    }
+
+    @Test
+    void rejectsInvalidParameters() {
+        assertThrows(IllegalArgumentException.class, () -> new ZipfDistribution(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new ZipfDistribution(10, -0.1));
+        assertThrows(IllegalArgumentException.class, () -> new ZipfDistribution(10, Double.NaN));
+    }
+
+    private static int[] draw(ZipfDistribution zipf, long seed, int count) {
+        SplittableRandom random = new SplittableRandom(seed);
+        int[] ranks = new int[count];
+        for (int i = 0; i < count; i++) {
+            ranks[i] = zipf.sample(random);
+        }
+        return ranks;
+    }
+}